@@ -46,6 +46,10 @@ constexpr char kOptionsTag[] = "OPTIONS";
 // lower throughput (lower framerate) due to the time during which the graph
 // is idle awaiting the next input frame.
 //
+// By default the oldest queued frames are dropped when the queue overflows.
+// Setting `drop_policy: DROP_NEWEST` instead keeps the queued frames and drops
+// the newly arrived ones, which favors in-order processing over latency.
+//
 // Example config:
 // node {
 //   calculator: "FlowLimiterCalculator"
@@ -151,10 +155,19 @@ class FlowLimiterCalculator : public CalculatorBase {
     // Note that frames can be dropped after frames are released because
     // frame-packets and FINISH-packets never arrive in the same Process call.
     while (input_queue.size() > options_.max_in_queue()) {
-      Packet packet = input_queue.front();
-      input_queue.pop_front();
-      SendAllow(false, packet.Timestamp(), cc);
+      if (options_.drop_policy() == FlowLimiterCalculatorOptions::DROP_NEWEST) {
+        // The "ALLOW" packet for a dropped newest frame is deferred until the
+        // older queued frames are released, to keep its timestamps in order.
+        Packet packet = input_queue.back();
+        input_queue.pop_back();
+        dropped_frames_.push_back(packet.Timestamp());
+      } else {
+        Packet packet = input_queue.front();
+        input_queue.pop_front();
+        SendAllow(false, packet.Timestamp(), cc);
+      }
     }
+    SendDeferredDrops(cc);
 
     // Propagate the input timestamp bound.
     if (!input_queue.empty()) {
@@ -179,7 +192,8 @@ class FlowLimiterCalculator : public CalculatorBase {
   }
 
   int LedgerSize() {
-    int result = frames_in_flight_.size() + allowed_.size();
+    int result =
+        frames_in_flight_.size() + allowed_.size() + dropped_frames_.size();
     for (const auto& queue : input_queues_) {
       result += queue.size();
     }
@@ -201,6 +215,18 @@ class FlowLimiterCalculator : public CalculatorBase {
     allowed_[ts] = allow;
   }
 
+  // Outputs the deferred "ALLOW = false" packets that no longer precede a
+  // queued frame.
+  void SendDeferredDrops(CalculatorContext* cc) {
+    const auto& input_queue = input_queues_[0];
+    while (!dropped_frames_.empty() &&
+           (input_queue.empty() ||
+            dropped_frames_.front() < input_queue.front().Timestamp())) {
+      SendAllow(false, dropped_frames_.front(), cc);
+      dropped_frames_.pop_front();
+    }
+  }
+
   // Returns true if a timestamp falls within a range of allowed timestamps.
   bool IsAllowed(Timestamp timestamp) {
     auto it = allowed_.upper_bound(timestamp);
@@ -260,6 +286,7 @@ class FlowLimiterCalculator : public CalculatorBase {
   FlowLimiterCalculatorOptions options_;
   std::vector<std::deque<Packet>> input_queues_;
   std::deque<Timestamp> frames_in_flight_;
+  std::deque<Timestamp> dropped_frames_;
   std::map<Timestamp, bool> allowed_;
 };
 REGISTER_CALCULATOR(FlowLimiterCalculator);
@@ -980,5 +980,175 @@ TEST_F(FlowLimiterCalculatorTest, AuxiliaryInputs) {
               ElementsAreArray(PacketMatchers<bool>(expected_allow)));
 }
 
+// Tests demonstrating an FlowLimiterCalculator with "drop_policy: DROP_NEWEST".
+// The "FINISHED" stream is a graph input, so that each test decides when a
+// frame finishes, and the graph is idle between the steps of a test.
+class FlowLimiterCalculatorDropNewestTest : public testing::Test {
+ protected:
+  void StartGraph(int max_in_queue) {
+    CalculatorGraphConfig graph_config =
+        ParseTextProtoOrDie<CalculatorGraphConfig>(R"pb(
+          input_stream: 'in_1'
+          input_stream: 'auxiliary_input_2'
+          input_stream: 'finished'
+          node {
+            calculator: 'FlowLimiterCalculator'
+            input_side_packet: 'OPTIONS:limiter_options'
+            input_stream: 'in_1'
+            input_stream: 'auxiliary_input_2'
+            input_stream: 'FINISHED:finished'
+            output_stream: 'in_1_sampled'
+            output_stream: 'auxiliary_input_2_sampled'
+            output_stream: 'ALLOW:allow'
+          }
+        )pb");
+    FlowLimiterCalculatorOptions limiter_options;
+    limiter_options.set_max_in_flight(1);
+    limiter_options.set_max_in_queue(max_in_queue);
+    limiter_options.set_drop_policy(FlowLimiterCalculatorOptions::DROP_NEWEST);
+    MP_ASSERT_OK(graph_.Initialize(graph_config));
+    MP_ASSERT_OK(graph_.ObserveOutputStream("in_1_sampled", [this](Packet p) {
+      out_1_packets_.push_back(p);
+      return absl::OkStatus();
+    }));
+    MP_ASSERT_OK(graph_.ObserveOutputStream(
+        "auxiliary_input_2_sampled", [this](Packet p) {
+          out_2_packets_.push_back(p);
+          return absl::OkStatus();
+        }));
+    MP_ASSERT_OK(graph_.ObserveOutputStream("allow", [this](Packet p) {
+      allow_packets_.push_back(p);
+      return absl::OkStatus();
+    }));
+    MP_ASSERT_OK(graph_.StartRun(
+        {{"limiter_options",
+          MakePacket<FlowLimiterCalculatorOptions>(limiter_options)}}));
+  }
+
+  // Adds a packet to a graph input stream, and waits until it is processed.
+  void AddPacket(const std::string& input_name, int64_t ts) {
+    MP_EXPECT_OK(graph_.AddPacketToInputStream(
+        input_name, MakePacket<int>(ts).At(Timestamp(ts))));
+    MP_EXPECT_OK(graph_.WaitUntilIdle());
+  }
+
+  void FinishGraph() {
+    MP_EXPECT_OK(graph_.CloseAllPacketSources());
+    MP_EXPECT_OK(graph_.WaitUntilDone());
+  }
+
+  CalculatorGraph graph_;
+  std::vector<Packet> out_1_packets_;
+  std::vector<Packet> out_2_packets_;
+  std::vector<Packet> allow_packets_;
+};
+
+// Shows that the newly arrived frames are dropped while the queued frame is
+// kept, and that the queued frame is released once the frame in flight is
+// finished.
+TEST_F(FlowLimiterCalculatorDropNewestTest, DropsNewestFrames) {
+  StartGraph(/*max_in_queue=*/1);
+
+  // Frame 10 is released, and frame 20 is queued.
+  AddPacket("in_1", 10);
+  AddPacket("in_1", 20);
+  // Frames 30 and 40 overflow the queue, and are dropped instead of frame 20.
+  AddPacket("in_1", 30);
+  AddPacket("in_1", 40);
+  EXPECT_EQ(TimestampValues(out_1_packets_), (std::vector<int64_t>{10}));
+
+  // Finishing frame 10 releases the queued frame 20.
+  AddPacket("finished", 10);
+  EXPECT_EQ(TimestampValues(out_1_packets_), (std::vector<int64_t>{10, 20}));
+
+  // Frame 50 is queued, and released once frame 20 is finished.
+  AddPacket("in_1", 50);
+  AddPacket("finished", 20);
+  FinishGraph();
+
+  EXPECT_EQ(TimestampValues(out_1_packets_),
+            (std::vector<int64_t>{10, 20, 50}));
+  EXPECT_EQ(PacketValues<int>(out_1_packets_), (std::vector<int>{10, 20, 50}));
+}
+
+// Shows that the "ALLOW" packets of the dropped newest frames are deferred
+// until the older queued frames are released, so that the "ALLOW" stream
+// stays in timestamp order.
+TEST_F(FlowLimiterCalculatorDropNewestTest, AllowStaysInTimestampOrder) {
+  StartGraph(/*max_in_queue=*/2);
+
+  // Frame 10 is released, frames 20 and 30 are queued, and frames 40 and 50
+  // are dropped.
+  for (int64_t ts : {10, 20, 30, 40, 50}) {
+    AddPacket("in_1", ts);
+  }
+  // No "ALLOW = false" packet precedes the queued frames 20 and 30.
+  EXPECT_THAT(allow_packets_,
+              ElementsAreArray(PacketMatchers<bool>(std::vector<Packet>{
+                  MakePacket<bool>(true).At(Timestamp(10)),
+              })));
+
+  // Finishing frame 10 releases frame 20, but frame 30 remains queued, so the
+  // drops of frames 40 and 50 are still deferred.
+  AddPacket("finished", 10);
+  EXPECT_THAT(allow_packets_,
+              ElementsAreArray(PacketMatchers<bool>(std::vector<Packet>{
+                  MakePacket<bool>(true).At(Timestamp(10)),
+                  MakePacket<bool>(true).At(Timestamp(20)),
+              })));
+
+  // Frame 60 is queued behind frame 30, and frame 70 is dropped.
+  AddPacket("in_1", 60);
+  AddPacket("in_1", 70);
+  // Finishing frame 20 releases frame 30, and the drops of frames 40 and 50,
+  // but the drop of frame 70 waits for frame 60.
+  AddPacket("finished", 20);
+  AddPacket("finished", 30);
+  FinishGraph();
+
+  std::vector<Packet> expected_allow = {
+      MakePacket<bool>(true).At(Timestamp(10)),
+      MakePacket<bool>(true).At(Timestamp(20)),
+      MakePacket<bool>(true).At(Timestamp(30)),
+      MakePacket<bool>(false).At(Timestamp(40)),
+      MakePacket<bool>(false).At(Timestamp(50)),
+      MakePacket<bool>(true).At(Timestamp(60)),
+      MakePacket<bool>(false).At(Timestamp(70)),
+  };
+  EXPECT_THAT(allow_packets_,
+              ElementsAreArray(PacketMatchers<bool>(expected_allow)));
+  EXPECT_EQ(TimestampValues(out_1_packets_),
+            (std::vector<int64_t>{10, 20, 30, 60}));
+}
+
+// Shows that the auxiliary input packets follow the frames released and
+// dropped with "drop_policy: DROP_NEWEST".
+TEST_F(FlowLimiterCalculatorDropNewestTest, AuxiliaryInputs) {
+  StartGraph(/*max_in_queue=*/1);
+
+  // Frame 10 is released, frame 20 is queued, and frame 30 is dropped.
+  for (int64_t ts : {10, 20, 30}) {
+    AddPacket("in_1", ts);
+    AddPacket("auxiliary_input_2", ts);
+  }
+  // The auxiliary packets 20 and 30 wait until their frames are settled.
+  EXPECT_EQ(TimestampValues(out_2_packets_), (std::vector<int64_t>{10}));
+
+  // Finishing frame 10 releases frame 20, which settles frame 30 as dropped.
+  AddPacket("finished", 10);
+  EXPECT_EQ(TimestampValues(out_2_packets_), (std::vector<int64_t>{10, 20}));
+
+  // Frame 40 is queued, and released once frame 20 is finished.
+  AddPacket("in_1", 40);
+  AddPacket("auxiliary_input_2", 40);
+  AddPacket("finished", 20);
+  FinishGraph();
+
+  EXPECT_EQ(TimestampValues(out_1_packets_),
+            (std::vector<int64_t>{10, 20, 40}));
+  EXPECT_EQ(TimestampValues(out_2_packets_),
+            (std::vector<int64_t>{10, 20, 40}));
+}
+
 }  // anonymous namespace
 }  // namespace mediapipe
@@ -34,7 +34,7 @@ public class Graph {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final int MAX_BUFFER_SIZE = 20;
   private long nativeGraphHandle;
-  // Hold the references to callbacks (PacketCallback and PacketListCallback).
+  // Hold the references to callbacks (PacketCallback and PacketHandleListCallback).
   private final List<Object> callbacks = new ArrayList<>();
   // Side packets used for running the graph.
   private Map<String, Packet> sidePackets = new HashMap<>();
@@ -204,6 +204,30 @@ public class Graph {
         nativeGraphHandle != 0, "Invalid context, tearDown() might have been called already.");
     Preconditions.checkNotNull(streamNames);
     Preconditions.checkNotNull(callback);
+    addMultiStreamHandleCallback(
+        streamNames,
+        new RecyclingPacketListCallback(callback, streamNames.size()),
+        observeTimestampBounds);
+  }
+
+  /**
+   * Adds a {@link PacketHandleListCallback} to the context for callback during graph running. The
+   * callback receives the native handles of the packets in a reused array, which avoids creating
+   * Java objects per callback.
+   *
+   * @param streamNames The output stream names in the graph for callback.
+   * @param callback The callback for handling the call when all output streams listed in
+   *     streamNames get {@link Packet}.
+   * @param observeTimestampBounds Whether to output an empty packet when a timestamp bound change
+   *     is observed with no output data.
+   * @throws MediaPipeException for any error status.
+   */
+  public synchronized void addMultiStreamHandleCallback(
+      List<String> streamNames, PacketHandleListCallback callback, boolean observeTimestampBounds) {
+    Preconditions.checkState(
+        nativeGraphHandle != 0, "Invalid context, tearDown() might have been called already.");
+    Preconditions.checkNotNull(streamNames);
+    Preconditions.checkNotNull(callback);
     Preconditions.checkState(!graphRunning && !startRunningGraphCalled);
     callbacks.add(callback);
     nativeAddMultiStreamCallback(nativeGraphHandle, streamNames, callback, observeTimestampBounds);
@@ -493,6 +517,7 @@ public class Graph {
     packetBuffers.clear();
     synchronized (terminationLock) {
       if (nativeGraphHandle != 0) {
+        PacketTracker.onGraphTearDown(nativeGraphHandle);
         nativeReleaseGraph(nativeGraphHandle);
         nativeGraphHandle = 0;
       }
@@ -500,6 +525,37 @@ public class Graph {
     callbacks.clear();
   }
 
+  /**
+   * Returns the number of the packets of this graph that are held by Java {@link Packet} objects,
+   * i.e. that were not released yet. The packets that are passed to the callbacks are counted
+   * until the callbacks return. Returns 0 once the graph is torn down.
+   *
+   * <p>Unlike the other methods, this can be called while another thread waits on the graph, e.g.
+   * from a monitoring thread.
+   */
+  public long getLivePacketCount() {
+    return getLivePacketStats()[0];
+  }
+
+  /**
+   * Returns an estimate of the native memory held by the packets counted by {@link
+   * #getLivePacketCount}, in bytes. Only the image and matrix payloads are accounted for, and a
+   * payload shared by several packets, e.g. by {@link Packet#copy}, is counted once.
+   */
+  public long getLivePacketBytes() {
+    return getLivePacketStats()[1];
+  }
+
+  private long[] getLivePacketStats() {
+    long[] stats = new long[2];
+    synchronized (terminationLock) {
+      if (nativeGraphHandle != 0) {
+        nativeGetLivePacketStats(nativeGraphHandle, stats);
+      }
+    }
+    return stats;
+  }
+
   /**
    * Updates the value of a MediaPipe packet that holds a reference to another MediaPipe packet.
    *
@@ -559,6 +615,14 @@ public class Graph {
     nativeCancelGraph(nativeGraphHandle);
   }
 
+  /**
+   * Returns whether the native library is built with the profiler, without which {@link
+   * #getProfiler} fails.
+   */
+  public static boolean isProfilerAvailable() {
+    return nativeIsProfilerAvailable();
+  }
+
   /** Returns {@link GraphProfiler}. */
   public GraphProfiler getProfiler() {
     Preconditions.checkState(
@@ -631,13 +695,15 @@ public class Graph {
 
   private native void nativeReleaseGraph(long context);
 
+  private native void nativeGetLivePacketStats(long context, long[] stats);
+
   private native void nativeAddPacketCallback(
       long context, String streamName, PacketCallback callback);
 
   private native void nativeAddMultiStreamCallback(
       long context,
       List<String> streamName,
-      PacketListCallback callback,
+      PacketHandleListCallback callback,
       boolean observeTimestampBounds);
 
   private native long nativeAddSurfaceOutput(long context, String streamName);
@@ -688,4 +754,6 @@ public class Graph {
   private native void nativeCancelGraph(long context);
 
   private native long nativeGetProfiler(long context);
+
+  private static native boolean nativeIsProfilerAvailable();
 }
@@ -63,25 +63,30 @@ public class GraphProfiler {
   /**
    * Collects the runtime profile for Open(), Process(), and Close() of each calculator in the
    * graph. May be called at any time after the graph has been initialized.
+   *
+   * <p>The graph is only locked while the serialized profiles are copied out of the native
+   * profiler. They are parsed after the lock is released, so as not to block the threads feeding
+   * the graph meanwhile.
    */
   public List<CalculatorProfile> getCalculatorProfiles() {
+    byte[][] profileBytes;
     synchronized (mediapipeGraph) {
       checkContext();
-      byte[][] profileBytes = nativeGetCalculatorProfiles(nativeProfilerHandle);
-      List<CalculatorProfile> profileList = new ArrayList<>();
-      if (profileBytes == null) {
-        return profileList;
-      }
-      for (byte[] element : profileBytes) {
-        try {
-          CalculatorProfile profile = CalculatorProfile.parseFrom(element);
-          profileList.add(profile);
-        } catch (InvalidProtocolBufferException e) {
-          throw new RuntimeException(e);
-        }
-      }
+      profileBytes = nativeGetCalculatorProfiles(nativeProfilerHandle);
+    }
+    List<CalculatorProfile> profileList = new ArrayList<>();
+    if (profileBytes == null) {
       return profileList;
     }
+    for (byte[] element : profileBytes) {
+      try {
+        CalculatorProfile profile = CalculatorProfile.parseFrom(element);
+        profileList.add(profile);
+      } catch (InvalidProtocolBufferException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return profileList;
   }
 
   private void checkContext() {
@@ -14,6 +14,8 @@
 
 package com.google.mediapipe.framework;
 
+import javax.annotation.Nullable;
+
 /**
  * Java wrapper class for a native MediaPipe Packet.
  *
@@ -27,16 +29,42 @@ package com.google.mediapipe.framework;
 public class Packet {
   // Points to a native Packet.
   private long nativePacketHandle;
+  // Set if the packet is tracked by the PacketTracker.
+  @Nullable private PacketTracker.TrackedPacket trackedPacket;
 
   /**
    * Creates a Java packet from a native mediapipe packet handle.
    *
-   * Returns a Packet from a native internal::PacketWithContext handle.
+   * Returns a Packet from a native internal::PacketWithContext handle, which the Packet owns from
+   * then on. Use {@link #copyFromHandle} for the handles passed to a {@link
+   * PacketHandleListCallback}, which remain owned by the graph.
    */
   public static Packet create(long nativeHandle) {
+    Packet packet = new Packet(nativeHandle);
+    if (nativeHandle != 0 && PacketTracker.isTracking()) {
+      packet.trackedPacket =
+          PacketTracker.track(packet, nativeHandle, nativeGetGraphHandle(nativeHandle));
+    }
+    return packet;
+  }
+
+  /**
+   * Creates a Java packet for a native packet that the graph passes to a callback, and releases
+   * once the callback returns. Such a packet is never tracked by the {@link PacketTracker}.
+   */
+  static Packet createForCallback(long nativeHandle) {
     return new Packet(nativeHandle);
   }
 
+  /**
+   * Returns a shared copy of a native packet that the graph passes to a {@link
+   * PacketHandleListCallback}, which remains valid after the callback returns, until it's
+   * released.
+   */
+  public static Packet copyFromHandle(long nativeHandle) {
+    return createForCallback(nativeHandle).copy();
+  }
+
   /**
    * Returns the native handle of the packet.
    */
@@ -60,7 +88,7 @@ public class Packet {
    *     native mediapipe packet.
    */
   public Packet copy() {
-    return new Packet(nativeCopyPacket(nativePacketHandle));
+    return create(nativeCopyPacket(nativePacketHandle));
   }
 
   /**
@@ -71,18 +99,39 @@ public class Packet {
    */
   public void release() {
     if (nativePacketHandle != 0) {
-      nativeReleasePacket(nativePacketHandle);
+      if (trackedPacket == null) {
+        nativeReleasePacket(nativePacketHandle);
+      } else {
+        // A tracked packet is already released if its graph was torn down.
+        PacketTracker.release(trackedPacket);
+      }
+      trackedPacket = null;
       nativePacketHandle = 0;
     }
   }
 
+  /** Releases a native packet whose Java packet is unreachable. */
+  static void releaseNativeHandle(long nativeHandle) {
+    nativeReleasePacket(nativeHandle);
+  }
+
+  /**
+   * Points a recycled packet object at another native packet, without releasing the previous one.
+   * The graph callbacks recycle their packet objects this way.
+   */
+  void resetNativeHandle(long handle) {
+    nativePacketHandle = handle;
+  }
+
   // Packet is not intended to be constructed directly.
   private Packet(long handle) {
     nativePacketHandle = handle;
   }
 
   // Releases the native memeory.
-  private native void nativeReleasePacket(long packetHandle);
+  private static native void nativeReleasePacket(long packetHandle);
+
+  private static native long nativeGetGraphHandle(long packetHandle);
 
   private native long nativeCopyPacket(long packetHandle);
 
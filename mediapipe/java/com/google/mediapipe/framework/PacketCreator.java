@@ -17,6 +17,7 @@ package com.google.mediapipe.framework;
 import com.google.mediapipe.framework.ProtoUtil.SerializedMessage;
 import com.google.protobuf.MessageLite;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 // TODO: use Preconditions in this file.
@@ -274,6 +275,38 @@ public class PacketCreator {
     return Packet.create(nativeCreateMatrix(mediapipeGraph.getNativeHandle(), rows, cols, data));
   }
 
+  /**
+   * Creates a MediaPipe::Matrix packet from the floats remaining in a direct buffer, in column
+   * major order.
+   *
+   * <p>The floats are copied once, straight from the buffer memory into the matrix, without going
+   * through a Java array. The buffer can be released or overwritten once this returns.
+   *
+   * @param rows the number of rows of the matrix.
+   * @param cols the number of columns of the matrix.
+   * @param data a direct buffer in the native byte order, e.g. a view of a {@link ByteBuffer}
+   *     created with {@link ByteBuffer#allocateDirect}, with exactly {@code rows * cols} floats
+   *     remaining.
+   * @throws IllegalArgumentException if the buffer is not direct, not in the native byte order, or
+   *     does not have {@code rows * cols} floats remaining.
+   */
+  public Packet createMatrix(int rows, int cols, FloatBuffer data) {
+    if (!data.isDirect() || data.order() != ByteOrder.nativeOrder()) {
+      throw new IllegalArgumentException(
+          "The buffer should be a direct buffer in the native byte order.");
+    }
+    if (data.remaining() != rows * cols) {
+      throw new IllegalArgumentException(
+          "The buffer should have "
+              + rows * cols
+              + " floats remaining, but has "
+              + data.remaining());
+    }
+    return Packet.create(
+        nativeCreateMatrixFromBuffer(
+            mediapipeGraph.getNativeHandle(), rows, cols, data, data.position()));
+  }
+
   /** Creates a {@link Packet} containing the serialized proto string. */
   public Packet createSerializedProto(MessageLite message) {
     return Packet.create(
@@ -374,24 +407,119 @@ public class PacketCreator {
    * <p>For 3 and 4 channel images, the pixel rows should have 4-byte alignment.
    */
   public Packet createImage(ByteBuffer buffer, int width, int height, int numChannels) {
-    int widthStep;
+    int widthStep = getWidthStep(width, numChannels);
+    checkImageBufferSize(buffer, widthStep * height);
+    return Packet.create(
+        nativeCreateCpuImage(
+            mediapipeGraph.getNativeHandle(), buffer, width, height, widthStep, numChannels));
+  }
+
+  /**
+   * Creates a 4 channel RGBA ImageFrame packet that uses an RGBA buffer without copying it.
+   *
+   * <p>The buffer must be a direct buffer, which MediaPipe reads until {@code releaseCallback} is
+   * called, once the packet and all the packets that share its pixel data are released. The buffer
+   * must not be modified in the meantime.
+   *
+   * @param releaseCallback a callback to be invoked with the buffer when MediaPipe no longer uses
+   *     it, e.g. to recycle it. Can be null.
+   */
+  public Packet wrapRgbaImageFrame(
+      ByteBuffer buffer, int width, int height, BufferReleaseCallback releaseCallback) {
+    return wrapImageFrame(buffer, width, height, /* numChannels= */ 4, releaseCallback);
+  }
+
+  /**
+   * Creates a 3 channel RGB ImageFrame packet that uses an RGB buffer without copying it. The pixel
+   * rows should have 4-byte alignment.
+   *
+   * <p>The buffer must be a direct buffer, which MediaPipe reads until {@code releaseCallback} is
+   * called, once the packet and all the packets that share its pixel data are released. The buffer
+   * must not be modified in the meantime.
+   *
+   * @param releaseCallback a callback to be invoked with the buffer when MediaPipe no longer uses
+   *     it, e.g. to recycle it. Can be null.
+   */
+  public Packet wrapRgbImage(
+      ByteBuffer buffer, int width, int height, BufferReleaseCallback releaseCallback) {
+    return wrapImageFrame(buffer, width, height, /* numChannels= */ 3, releaseCallback);
+  }
+
+  /**
+   * Creates a 1, 3, or 4 channel 8-bit Image packet that uses a U8, RGB, or RGBA byte buffer
+   * without copying it. For 3 and 4 channel images, the pixel rows should have 4-byte alignment.
+   *
+   * <p>The buffer must be a direct buffer, which MediaPipe reads until {@code releaseCallback} is
+   * called, once the packet and all the packets that share its pixel data are released. The buffer
+   * must not be modified in the meantime.
+   *
+   * @param releaseCallback a callback to be invoked with the buffer when MediaPipe no longer uses
+   *     it, e.g. to recycle it. Can be null.
+   */
+  public Packet wrapImage(
+      ByteBuffer buffer,
+      int width,
+      int height,
+      int numChannels,
+      BufferReleaseCallback releaseCallback) {
+    int widthStep = getWidthStep(width, numChannels);
+    checkWrappedBuffer(buffer, widthStep * height);
+    return Packet.create(
+        nativeWrapCpuImage(
+            mediapipeGraph.getNativeHandle(),
+            buffer,
+            width,
+            height,
+            widthStep,
+            numChannels,
+            releaseCallback));
+  }
+
+  private Packet wrapImageFrame(
+      ByteBuffer buffer,
+      int width,
+      int height,
+      int numChannels,
+      BufferReleaseCallback releaseCallback) {
+    int widthStep = getWidthStep(width, numChannels);
+    checkWrappedBuffer(buffer, widthStep * height);
+    return Packet.create(
+        nativeWrapImageFrame(
+            mediapipeGraph.getNativeHandle(),
+            buffer,
+            width,
+            height,
+            widthStep,
+            numChannels,
+            releaseCallback));
+  }
+
+  /** Returns the row size in bytes of a 1, 3, or 4 channel 8-bit image. */
+  private static int getWidthStep(int width, int numChannels) {
     if (numChannels == 4) {
-      widthStep = width * 4;
+      return width * 4;
     } else if (numChannels == 3) {
-      widthStep = (((width * 3) + 3) / 4) * 4;
+      return (((width * 3) + 3) / 4) * 4;
     } else if (numChannels == 1) {
-      widthStep = width;
+      return width;
     } else {
       throw new IllegalArgumentException("Channels should be: 1, 3, or 4, but is " + numChannels);
     }
-    int expectedSize = widthStep * height;
+  }
+
+  private static void checkImageBufferSize(ByteBuffer buffer, int expectedSize) {
     if (buffer.capacity() != expectedSize) {
       throw new IllegalArgumentException(
           "The size of the buffer should be: " + expectedSize + " but is " + buffer.capacity());
     }
-    return Packet.create(
-        nativeCreateCpuImage(
-            mediapipeGraph.getNativeHandle(), buffer, width, height, widthStep, numChannels));
+  }
+
+  private static void checkWrappedBuffer(ByteBuffer buffer, int expectedSize) {
+    if (!buffer.isDirect()) {
+      throw new IllegalArgumentException(
+          "Only direct buffers can be wrapped. Use ByteBuffer#allocateDirect.");
+    }
+    checkImageBufferSize(buffer, expectedSize);
   }
 
   /** Helper callback adaptor to create the Java {@link GlSyncToken}. This is called by JNI code. */
@@ -442,6 +570,27 @@ public class PacketCreator {
 
   private native long nativeCreateMatrix(long context, int rows, int cols, float[] data);
 
+  private native long nativeCreateMatrixFromBuffer(
+      long context, int rows, int cols, FloatBuffer data, int offset);
+
+  private native long nativeWrapImageFrame(
+      long context,
+      ByteBuffer buffer,
+      int width,
+      int height,
+      int widthStep,
+      int numChannels,
+      BufferReleaseCallback releaseCallback);
+
+  private native long nativeWrapCpuImage(
+      long context,
+      ByteBuffer buffer,
+      int width,
+      int height,
+      int widthStep,
+      int numChannels,
+      BufferReleaseCallback releaseCallback);
+
   private native long nativeCreateGpuBuffer(
       long context, int name, int width, int height, TextureReleaseCallback releaseCallback);
 
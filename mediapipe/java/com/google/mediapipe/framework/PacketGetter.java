@@ -17,10 +17,12 @@ package com.google.mediapipe.framework;
 import com.google.common.base.Preconditions;
 import com.google.common.flogger.FluentLogger;
 import com.google.mediapipe.framework.ProtoUtil.SerializedMessage;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.Internal;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.MessageLite;
 import com.google.protobuf.Parser;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +38,72 @@ import javax.annotation.Nullable;
  */
 public final class PacketGetter {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final int INITIAL_PROTO_VECTOR_BUFFER_SIZE = 16 * 1024;
+  // The buffer that decodeProtoVector serializes the messages into, reused across the calls on a
+  // thread, typically a graph output callback thread.
+  private static final ThreadLocal<ByteBuffer> protoVectorBuffer = new ThreadLocal<>();
+
+  /** Decodes a serialized protobuf message into an object of type {@code T}. */
+  public interface ProtoDecoder<T> {
+    /**
+     * Decodes one message.
+     *
+     * @param input the serialized message, limited to the bytes of the message. The decoder must
+     *     not keep a reference to {@code input} after returning.
+     */
+    T decode(CodedInputStream input) throws IOException;
+  }
+
+  /**
+   * The pixel layout of an image packet, read from native with a single call by {@link
+   * #getImageDescriptor}.
+   *
+   * <p>A descriptor can be reused across calls, e.g. by an output packet converter, to read the
+   * layout of every frame without allocation.
+   */
+  public static final class ImageDescriptor {
+    private static final int WIDTH = 0;
+    private static final int HEIGHT = 1;
+    private static final int NUM_CHANNELS = 2;
+    private static final int FORMAT = 3;
+    private static final int WIDTH_STEP = 4;
+    private static final int BYTE_DEPTH = 5;
+
+    // Packed as filled by the native getters, in the order of the indices above.
+    final int[] values = new int[6];
+
+    public int getWidth() {
+      return values[WIDTH];
+    }
+
+    public int getHeight() {
+      return values[HEIGHT];
+    }
+
+    public int getNumChannels() {
+      return values[NUM_CHANNELS];
+    }
+
+    /** Returns the {@code mediapipe.ImageFormat.Format} number of the image. */
+    public int getFormat() {
+      return values[FORMAT];
+    }
+
+    /** Returns the number of bytes between the starts of two rows of the native image. */
+    public int getWidthStep() {
+      return values[WIDTH_STEP];
+    }
+
+    /** Returns the number of bytes of a channel value. */
+    public int getByteDepth() {
+      return values[BYTE_DEPTH];
+    }
+
+    /** Returns the size of the pixel data stored contiguously, as {@link #getImageData} needs. */
+    public int getContiguousDataSize() {
+      return getWidth() * getHeight() * getNumChannels() * getByteDepth();
+    }
+  }
 
   /** Helper class for a list of exactly two Packets. */
   public static class PacketPair {
@@ -155,6 +223,16 @@ public final class PacketGetter {
     return nativeGetInt32Vector(packet.getNativeHandle());
   }
 
+  /**
+   * Copies the int32 vector of the packet into {@code result}, from its first element.
+   *
+   * @return the number of elements of the vector, or its negation if {@code result} is too small,
+   *     in which case nothing is copied.
+   */
+  public static int getInt32Vector(final Packet packet, int[] result) {
+    return nativeGetInt32VectorInto(packet.getNativeHandle(), result);
+  }
+
   public static long[] getInt64Vector(final Packet packet) {
     return nativeGetInt64Vector(packet.getNativeHandle());
   }
@@ -163,6 +241,27 @@ public final class PacketGetter {
     return nativeGetFloat32Vector(packet.getNativeHandle());
   }
 
+  /**
+   * Copies the float32 vector of the packet into {@code result}, from its first element.
+   *
+   * @return the number of elements of the vector, or its negation if {@code result} is too small,
+   *     in which case nothing is copied.
+   */
+  public static int getFloat32Vector(final Packet packet, float[] result) {
+    return nativeGetFloat32VectorInto(packet.getNativeHandle(), result);
+  }
+
+  /**
+   * Copies the float32 vector of the packet into the direct {@code buffer}, from its start and in
+   * the native byte order, regardless of the position of the buffer.
+   *
+   * @return the number of elements of the vector, or its negation if {@code buffer} is too small,
+   *     in which case nothing is copied.
+   */
+  public static int getFloat32Vector(final Packet packet, ByteBuffer buffer) {
+    return nativeGetFloat32VectorIntoBuffer(packet.getNativeHandle(), buffer);
+  }
+
   public static double[] getFloat64Vector(final Packet packet) {
     return nativeGetFloat64Vector(packet.getNativeHandle());
   }
@@ -190,6 +289,51 @@ public final class PacketGetter {
     return getProtoVector(packet, parser);
   }
 
+  /**
+   * Decodes a packet holding a vector of protobuf messages with a custom {@link ProtoDecoder}.
+   *
+   * <p>Unlike {@link #getProtoVector}, which copies every message into its own byte array and
+   * parses it into a proto object, this serializes all the messages into one direct buffer that is
+   * reused across calls, and lets {@code decoder} read each message from it in place. Decoders
+   * that fill the task containers straight from the wire format avoid the intermediate byte
+   * arrays and proto objects altogether.
+   *
+   * @param packet the packet holding a vector of protobuf messages.
+   * @param decoder the decoder of one message.
+   * @throws IllegalArgumentException if a message cannot be decoded.
+   */
+  public static <T> List<T> decodeProtoVector(final Packet packet, ProtoDecoder<T> decoder) {
+    long nativePacketHandle = packet.getNativeHandle();
+    ByteBuffer buffer = protoVectorBuffer.get();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(INITIAL_PROTO_VECTOR_BUFFER_SIZE);
+      protoVectorBuffer.set(buffer);
+    }
+    int size = nativeGetProtoVectorDelimited(nativePacketHandle, buffer);
+    if (size < 0) {
+      // The buffer is too small: grow it to the required size, and retry.
+      buffer = ByteBuffer.allocateDirect(Math.max(-size, 2 * buffer.capacity()));
+      protoVectorBuffer.set(buffer);
+      size = nativeGetProtoVectorDelimited(nativePacketHandle, buffer);
+    }
+    buffer.clear();
+    buffer.limit(size);
+    CodedInputStream input = CodedInputStream.newInstance(buffer);
+    List<T> decodedMessageList = new ArrayList<>();
+    try {
+      while (!input.isAtEnd()) {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        decodedMessageList.add(decoder.decode(input));
+        // Skips the fields that the decoder left unread.
+        input.skipRawBytes(input.getBytesUntilLimit());
+        input.popLimit(oldLimit);
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+    return decodedMessageList;
+  }
+
   public static int getImageWidth(final Packet packet) {
     return nativeGetImageWidth(packet.getNativeHandle());
   }
@@ -202,6 +346,21 @@ public final class PacketGetter {
     return nativeGetImageNumChannels(packet.getNativeHandle());
   }
 
+  /**
+   * Returns the {@link ImageDescriptor} of an image packet, read with a single native call in place
+   * of one per property.
+   */
+  public static ImageDescriptor getImageDescriptor(final Packet packet) {
+    return getImageDescriptor(packet, new ImageDescriptor());
+  }
+
+  /** Fills {@code descriptor} with the layout of an image packet, and returns it. */
+  public static ImageDescriptor getImageDescriptor(
+      final Packet packet, ImageDescriptor descriptor) {
+    nativeGetImageDescriptor(packet.getNativeHandle(), descriptor.values);
+    return descriptor;
+  }
+
   /**
    * Returns the native image buffer in ByteBuffer. It assumes the output buffer stores pixels
    * contiguously. It returns false if this assumption does not hold.
@@ -247,6 +406,16 @@ public final class PacketGetter {
     return nativeGetImageHeightFromImageList(packet.getNativeHandle());
   }
 
+  /**
+   * Fills {@code descriptor} with the layout of the first image in an image list, and returns it.
+   * Throws if the images of the list do not all have the same size.
+   */
+  public static ImageDescriptor getImageDescriptorFromImageList(
+      final Packet packet, ImageDescriptor descriptor) {
+    nativeGetImageDescriptorFromImageList(packet.getNativeHandle(), descriptor.values);
+    return descriptor;
+  }
+
   /**
    * Assign the native image buffer array in given ByteBuffer array. It assumes given ByteBuffer
    * array has the same size of image list packet, and assumes the output buffer stores pixels
@@ -282,6 +451,28 @@ public final class PacketGetter {
     return nativeGetAudioData(packet.getNativeHandle());
   }
 
+  /**
+   * Converts the audio matrix data into byte data, like {@link #getAudioByteData(Packet)}, written
+   * to {@code result} from its first element.
+   *
+   * @return the number of bytes of the data, or its negation if {@code result} is too small, in
+   *     which case nothing is written.
+   */
+  public static int getAudioByteData(final Packet packet, byte[] result) {
+    return nativeGetAudioDataInto(packet.getNativeHandle(), result);
+  }
+
+  /**
+   * Converts the audio matrix data into byte data, like {@link #getAudioByteData(Packet)}, written
+   * to the direct {@code buffer} from its start, regardless of the position of the buffer.
+   *
+   * @return the number of bytes of the data, or its negation if {@code buffer} is too small, in
+   *     which case nothing is written.
+   */
+  public static int getAudioByteData(final Packet packet, ByteBuffer buffer) {
+    return nativeGetAudioDataIntoBuffer(packet.getNativeHandle(), buffer);
+  }
+
   /**
    * Audio data is in MediaPipe Matrix format.
    *
@@ -339,6 +530,28 @@ public final class PacketGetter {
     return nativeGetMatrixData(packet.getNativeHandle());
   }
 
+  /**
+   * Copies the float data of the mediapipe Matrix, in column major order, into {@code result}
+   * from its first element.
+   *
+   * @return the number of elements of the matrix, or its negation if {@code result} is too small,
+   *     in which case nothing is copied.
+   */
+  public static int getMatrixData(final Packet packet, float[] result) {
+    return nativeGetMatrixDataInto(packet.getNativeHandle(), result);
+  }
+
+  /**
+   * Copies the float data of the mediapipe Matrix, in column major order, into the direct {@code
+   * buffer} from its start and in the native byte order, regardless of the position of the buffer.
+   *
+   * @return the number of elements of the matrix, or its negation if {@code buffer} is too small,
+   *     in which case nothing is copied.
+   */
+  public static int getMatrixData(final Packet packet, ByteBuffer buffer) {
+    return nativeGetMatrixDataIntoBuffer(packet.getNativeHandle(), buffer);
+  }
+
   public static int getMatrixRows(final Packet packet) {
     return nativeGetMatrixRows(packet.getNativeHandle());
   }
@@ -421,8 +634,18 @@ public final class PacketGetter {
 
   private static native double[] nativeGetFloat64Vector(long nativePacketHandle);
 
+  private static native int nativeGetInt32VectorInto(long nativePacketHandle, int[] result);
+
+  private static native int nativeGetFloat32VectorInto(long nativePacketHandle, float[] result);
+
+  private static native int nativeGetFloat32VectorIntoBuffer(
+      long nativePacketHandle, ByteBuffer buffer);
+
   private static native byte[][] nativeGetProtoVector(long nativePacketHandle);
 
+  private static native int nativeGetProtoVectorDelimited(
+      long nativePacketHandle, ByteBuffer buffer);
+
   private static native int nativeGetImageWidth(long nativePacketHandle);
 
   private static native int nativeGetImageHeight(long nativePacketHandle);
@@ -433,12 +656,17 @@ public final class PacketGetter {
 
   private static native ByteBuffer nativeGetImageDataDirect(long nativePacketHandle);
 
+  private static native void nativeGetImageDescriptor(long nativePacketHandle, int[] descriptor);
+
   private static native int nativeGetImageListSize(long nativePacketHandle);
 
   private static native int nativeGetImageWidthFromImageList(long nativePacketHandle);
 
   private static native int nativeGetImageHeightFromImageList(long nativePacketHandle);
 
+  private static native void nativeGetImageDescriptorFromImageList(
+      long nativePacketHandle, int[] descriptor);
+
   private static native boolean nativeGetImageList(
       long nativePacketHandle, ByteBuffer[] bufferArray, boolean deepCopy);
 
@@ -454,9 +682,20 @@ public final class PacketGetter {
 
   // Audio data in MediaPipe current uses MediaPipe Matrix format type.
   private static native byte[] nativeGetAudioData(long nativePacketHandle);
+
+  private static native int nativeGetAudioDataInto(long nativePacketHandle, byte[] result);
+
+  private static native int nativeGetAudioDataIntoBuffer(
+      long nativePacketHandle, ByteBuffer buffer);
+
   // Native helper functions to access the MediaPipe Matrix data.
   private static native float[] nativeGetMatrixData(long nativePacketHandle);
 
+  private static native int nativeGetMatrixDataInto(long nativePacketHandle, float[] result);
+
+  private static native int nativeGetMatrixDataIntoBuffer(
+      long nativePacketHandle, ByteBuffer buffer);
+
   private static native int nativeGetMatrixRows(long nativePacketHandle);
 
   private static native int nativeGetMatrixCols(long nativePacketHandle);
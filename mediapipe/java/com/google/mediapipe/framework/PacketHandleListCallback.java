@@ -0,0 +1,26 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.framework;
+
+/**
+ * Interface for MediaPipe callback with the native handles of the packets from multiple output
+ * streams.
+ *
+ * <p>The same array is passed to every call, and the handles are owned by the graph and only valid
+ * until the call returns. Use {@link Packet#copyFromHandle} to keep a packet beyond the call.
+ */
+public interface PacketHandleListCallback {
+  public void process(long[] packetHandles);
+}
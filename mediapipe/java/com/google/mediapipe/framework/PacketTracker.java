@@ -0,0 +1,220 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.framework;
+
+import com.google.common.flogger.FluentLogger;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Tracks the {@link Packet} objects, as a safety net for the packets that are never released.
+ *
+ * <p>A packet holds on to its native packet, e.g. an image frame, until {@link Packet#release} is
+ * called or its {@link Graph} is torn down, so a missed release keeps the native memory alive for
+ * as long as the graph runs. In the {@link Mode#DETECT_LEAKS} mode, the allocation site of each
+ * packet is recorded, and logged when the packet is found unreachable or its graph is torn down
+ * without it being released, to find the code that misses the release.
+ *
+ * <p>In the {@link Mode#RELEASE_UNREACHABLE_UNSAFE} mode, a packet that becomes unreachable without
+ * being released has its native packet released from a background thread, the way a {@code
+ * java.lang.ref.Cleaner}, which Android only provides from API level 33, would do. It's a safety
+ * net, not a replacement for {@link Packet#release}: the release comes at the next garbage
+ * collection at best, and a packet that is no longer used by the Java code while a native method,
+ * e.g. of {@link PacketGetter}, still uses its handle may be released in the middle of that call.
+ * The packets that a graph passes to its callbacks are released by the graph and never tracked.
+ *
+ * <p>The live packets of a graph can be monitored with {@link Graph#getLivePacketCount} and {@link
+ * Graph#getLivePacketBytes}, whether tracking is on or not.
+ */
+public final class PacketTracker {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** The tracking of the packets. */
+  public enum Mode {
+    /**
+     * The packets are not tracked: the packets that are never released are freed when their graph
+     * is torn down.
+     */
+    OFF,
+    /**
+     * The allocation sites of the packets that become unreachable, or whose graph is torn down,
+     * without being released are logged. The packets are still freed when their graph is torn
+     * down. It captures a stack trace per packet, so it is meant for debugging only.
+     */
+    DETECT_LEAKS,
+    /**
+     * The packets that become unreachable without being released are released. It's unsafe: a
+     * packet may be released while a native method still uses it, if the Java code doesn't use the
+     * packet after that call, so it should only be turned on for code that releases its packets
+     * explicitly.
+     */
+    RELEASE_UNREACHABLE_UNSAFE,
+  }
+
+  /** A tracked packet, which is enqueued once the packet becomes unreachable. */
+  static final class TrackedPacket extends PhantomReference<Packet> {
+    final long nativeHandle;
+    final long graphHandle;
+    // Set in the DETECT_LEAKS mode.
+    @Nullable final Throwable allocationSite;
+
+    private TrackedPacket(
+        Packet packet, long nativeHandle, long graphHandle, @Nullable Throwable allocationSite) {
+      super(packet, unreachablePackets);
+      this.nativeHandle = nativeHandle;
+      this.graphHandle = graphHandle;
+      this.allocationSite = allocationSite;
+    }
+  }
+
+  private static final ReferenceQueue<Packet> unreachablePackets = new ReferenceQueue<>();
+  // The packets that were neither released nor found unreachable, which also keeps their
+  // references reachable until then.
+  private static final Set<TrackedPacket> trackedPackets =
+      Collections.newSetFromMap(new ConcurrentHashMap<TrackedPacket, Boolean>());
+  // Keeps a graph from being torn down while one of its packets is released by the release thread.
+  private static final Object releaseLock = new Object();
+  private static final AtomicLong releasedUnreachableCount = new AtomicLong();
+  private static volatile Mode mode = Mode.OFF;
+  private static Thread releaseThread;
+
+  /**
+   * Sets the tracking of the packets created from now on. The packets that are already tracked
+   * remain so.
+   */
+  public static synchronized void setMode(Mode newMode) {
+    if (newMode != Mode.OFF && releaseThread == null) {
+      releaseThread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  releaseUnreachablePackets();
+                }
+              },
+              "MediaPipePacketTracker");
+      releaseThread.setDaemon(true);
+      releaseThread.start();
+    }
+    mode = newMode;
+  }
+
+  public static Mode getMode() {
+    return mode;
+  }
+
+  /** Returns the number of tracked packets that were neither released nor found unreachable. */
+  public static int getTrackedPacketCount() {
+    return trackedPackets.size();
+  }
+
+  /**
+   * Returns the number of packets that became unreachable without being released, and whose native
+   * packets were released by the tracker.
+   */
+  public static long getReleasedUnreachableCount() {
+    return releasedUnreachableCount.get();
+  }
+
+  /** Returns whether the packets created now are tracked. */
+  static boolean isTracking() {
+    return mode != Mode.OFF;
+  }
+
+  /** Starts tracking {@code packet}, the owner of the native packet {@code nativeHandle}. */
+  static TrackedPacket track(Packet packet, long nativeHandle, long graphHandle) {
+    Throwable allocationSite =
+        mode == Mode.DETECT_LEAKS ? new Throwable("Packet allocation site") : null;
+    TrackedPacket trackedPacket =
+        new TrackedPacket(packet, nativeHandle, graphHandle, allocationSite);
+    trackedPackets.add(trackedPacket);
+    return trackedPacket;
+  }
+
+  /**
+   * Stops tracking a packet that is being released, and releases its native packet unless it was
+   * already released along with its graph. Both happen under the lock that graph tear-down takes,
+   * so the native packet cannot be freed by the graph in between.
+   */
+  static void release(TrackedPacket trackedPacket) {
+    trackedPacket.clear();
+    synchronized (releaseLock) {
+      if (trackedPackets.remove(trackedPacket)) {
+        Packet.releaseNativeHandle(trackedPacket.nativeHandle);
+      }
+    }
+  }
+
+  /** Stops tracking the packets of a graph that is being torn down, which releases them. */
+  static void onGraphTearDown(long graphHandle) {
+    List<Throwable> leakedAllocationSites = new ArrayList<>();
+    synchronized (releaseLock) {
+      for (Iterator<TrackedPacket> iterator = trackedPackets.iterator(); iterator.hasNext(); ) {
+        TrackedPacket trackedPacket = iterator.next();
+        if (trackedPacket.graphHandle == graphHandle) {
+          if (trackedPacket.allocationSite != null) {
+            leakedAllocationSites.add(trackedPacket.allocationSite);
+          }
+          trackedPacket.clear();
+          iterator.remove();
+        }
+      }
+    }
+    for (Throwable allocationSite : leakedAllocationSites) {
+      logger.atWarning().withCause(allocationSite).log(
+          "A packet was not released before its graph was torn down. Call Packet#release() once"
+              + " the packet is no longer needed.");
+    }
+  }
+
+  private static void releaseUnreachablePackets() {
+    while (true) {
+      TrackedPacket trackedPacket;
+      try {
+        trackedPacket = (TrackedPacket) unreachablePackets.remove();
+      } catch (InterruptedException e) {
+        continue;
+      }
+      // In the DETECT_LEAKS mode, the native packet is left to its graph.
+      boolean release = trackedPacket.allocationSite == null;
+      synchronized (releaseLock) {
+        // The packet may have been released along with its graph in the meantime.
+        if (!trackedPackets.remove(trackedPacket)) {
+          continue;
+        }
+        if (release) {
+          Packet.releaseNativeHandle(trackedPacket.nativeHandle);
+        }
+      }
+      if (release) {
+        releasedUnreachableCount.incrementAndGet();
+      } else {
+        logger.atWarning().withCause(trackedPacket.allocationSite).log(
+            "A packet became unreachable without being released. Call Packet#release() once the"
+                + " packet is no longer needed.");
+      }
+    }
+  }
+
+  private PacketTracker() {}
+}
@@ -0,0 +1,56 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.framework;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adapts a {@link PacketListCallback} to the packet handles of a multi-stream callback, reusing the
+ * same {@link Packet} objects and list for every call.
+ *
+ * <p>The packets passed to the {@link PacketListCallback} are only valid until it returns, as
+ * before, and are reset afterwards.
+ */
+final class RecyclingPacketListCallback implements PacketHandleListCallback {
+  private final PacketListCallback callback;
+  private final Packet[] packets;
+  private final List<Packet> packetList;
+
+  RecyclingPacketListCallback(PacketListCallback callback, int numStreams) {
+    this.callback = callback;
+    this.packets = new Packet[numStreams];
+    for (int i = 0; i < numStreams; i++) {
+      packets[i] = Packet.createForCallback(0);
+    }
+    this.packetList = Collections.unmodifiableList(Arrays.asList(packets));
+  }
+
+  @Override
+  public void process(long[] packetHandles) {
+    for (int i = 0; i < packets.length; i++) {
+      packets[i].resetNativeHandle(packetHandles[i]);
+    }
+    try {
+      callback.process(packetList);
+    } finally {
+      // The native packets are released once this returns.
+      for (Packet packet : packets) {
+        packet.resetNativeHandle(0);
+      }
+    }
+  }
+}
@@ -36,6 +36,7 @@ public class ByteBufferImageBuilder {
 
   // Optional fields.
   private long timestamp;
+  private Runnable releaseCallback;
 
   /**
    * Creates the builder with mandatory {@link ByteBuffer} and the represented image.
@@ -64,8 +65,24 @@ public class ByteBufferImageBuilder {
     return this;
   }
 
+  /**
+   * Sets a callback that is run once the built {@link MPImage} is closed, i.e. when its reference
+   * count drops to zero.
+   *
+   * <p>This lets the owner of the {@link ByteBuffer} reuse it for a later image. The buffer must not
+   * be accessed through the closed {@link MPImage} after the callback has run.
+   */
+  public ByteBufferImageBuilder setReleaseCallback(Runnable releaseCallback) {
+    this.releaseCallback = releaseCallback;
+    return this;
+  }
+
   /** Builds a {@link MPImage} instance. */
   public MPImage build() {
-    return new MPImage(new ByteBufferImageContainer(buffer, imageFormat), timestamp, width, height);
+    return new MPImage(
+        new ByteBufferImageContainer(buffer, imageFormat, releaseCallback),
+        timestamp,
+        width,
+        height);
   }
 }
@@ -22,9 +22,16 @@ class ByteBufferImageContainer implements MPImageContainer {
 
   private final ByteBuffer buffer;
   private final MPImageProperties properties;
+  private Runnable releaseCallback;
 
   public ByteBufferImageContainer(ByteBuffer buffer, @MPImageFormat int imageFormat) {
+    this(buffer, imageFormat, /* releaseCallback= */ null);
+  }
+
+  ByteBufferImageContainer(
+      ByteBuffer buffer, @MPImageFormat int imageFormat, Runnable releaseCallback) {
     this.buffer = buffer;
+    this.releaseCallback = releaseCallback;
     this.properties =
         MPImageProperties.builder()
             .setStorageType(MPImage.STORAGE_TYPE_BYTEBUFFER)
@@ -49,6 +56,14 @@ class ByteBufferImageContainer implements MPImageContainer {
 
   @Override
   public void close() {
-    // No op for ByteBuffer.
+    // The buffer itself needs no release, but its owner may want it back for reuse.
+    Runnable callback;
+    synchronized (this) {
+      callback = releaseCallback;
+      releaseCallback = null;
+    }
+    if (callback != null) {
+      callback.run();
+    }
   }
 }
@@ -40,6 +40,8 @@ class ClassRegistry {
       "com/google/mediapipe/framework/AndroidAssetUtil";
   static constexpr char const* kAndroidPacketCreatorClassName =
       "com/google/mediapipe/framework/AndroidPacketCreator";
+  static constexpr char const* kBufferReleaseCallbackClassName =
+      "com/google/mediapipe/framework/BufferReleaseCallback";
   static constexpr char const* kCompatClassName =
       "com/google/mediapipe/framework/Compat";
   static constexpr char const* kGraphClassName =
@@ -52,6 +54,8 @@ class ClassRegistry {
       "com/google/mediapipe/framework/MediaPipeException";
   static constexpr char const* kPacketCallbackClassName =
       "com/google/mediapipe/framework/PacketCallback";
+  static constexpr char const* kPacketHandleListCallbackClassName =
+      "com/google/mediapipe/framework/PacketHandleListCallback";
   static constexpr char const* kPacketListCallbackClassName =
       "com/google/mediapipe/framework/PacketListCallback";
   static constexpr char const* kPacketCreatorClassName =
@@ -25,13 +25,19 @@
 #include <utility>
 #include <vector>
 
+#include "absl/container/flat_hash_set.h"
 #include "absl/log/absl_log.h"
 #include "absl/memory/memory.h"
 #include "absl/status/status.h"
+#include "absl/status/statusor.h"
 #include "absl/strings/str_cat.h"
 #include "absl/strings/str_format.h"
 #include "absl/synchronization/mutex.h"
 #include "mediapipe/framework/calculator_framework.h"
+#include "mediapipe/framework/formats/image.h"
+#include "mediapipe/framework/formats/image_format.pb.h"
+#include "mediapipe/framework/formats/image_frame.h"
+#include "mediapipe/framework/formats/matrix.h"
 #include "mediapipe/framework/graph_service.h"
 #include "mediapipe/framework/port/logging.h"
 #include "mediapipe/framework/port/status_macros.h"
@@ -79,8 +85,16 @@ class PacketWithContext {
 // execution through Graph.
 class CallbackHandler {
  public:
-  CallbackHandler(Graph* context, jobject callback)
-      : context_(context), java_callback_(callback) {}
+  // `process_method` is the process method of the java callback, resolved
+  // once when the callback is added. `java_packet_handles` is a global
+  // reference to the Java array that passes the packet handles to a packet
+  // list callback, or nullptr for the other callbacks.
+  CallbackHandler(Graph* context, jobject callback, jmethodID process_method,
+                  jlongArray java_packet_handles = nullptr)
+      : context_(context),
+        java_callback_(callback),
+        process_method_(process_method),
+        java_packet_handles_(java_packet_handles) {}
 
   ~CallbackHandler() {
     // The jobject global reference is managed by the Graph directly.
@@ -92,17 +106,20 @@ class CallbackHandler {
 
   void PacketCallback(const Packet& packet) {
     context_->CallbackToJava(mediapipe::java::GetJNIEnv(), java_callback_,
-                             packet);
+                             process_method_, packet);
   }
 
   void PacketWithHeaderCallback(const Packet& packet, const Packet& header) {
     context_->CallbackToJava(mediapipe::java::GetJNIEnv(), java_callback_,
-                             packet, header);
+                             process_method_, packet, header);
   }
 
   void PacketListCallback(const std::vector<Packet>& packets) {
+    // The callbacks of a handler never run concurrently, so the handle arrays
+    // are reused from one call to the next.
     context_->CallbackToJava(mediapipe::java::GetJNIEnv(), java_callback_,
-                             packets);
+                             process_method_, java_packet_handles_,
+                             &packet_handles_, packets);
   }
 
   std::function<void(const Packet&)> CreateCallback() {
@@ -120,23 +137,98 @@ class CallbackHandler {
                      std::placeholders::_1, std::placeholders::_2);
   }
 
-  // Releases the global reference to the java callback object.
+  // Releases the global references to the java callback object and the
+  // packet handle array.
   // This is called by the Graph, since releasing of a jni object
   // requires JNIEnv object that we can not keep a copy of.
   void ReleaseCallback(JNIEnv* env) {
     env->DeleteGlobalRef(java_callback_);
     java_callback_ = nullptr;
+    if (java_packet_handles_) {
+      env->DeleteGlobalRef(java_packet_handles_);
+      java_packet_handles_ = nullptr;
+    }
   }
 
  private:
   Graph* context_;
   // java callback object
   jobject java_callback_;
+  jmethodID process_method_;
+  jlongArray java_packet_handles_;
+  std::vector<jlong> packet_handles_;
 };
+
+// Returns the number of bytes of a pixel of an image format, or 0 for the
+// formats that are not stored as interleaved channels.
+int BytesPerPixel(ImageFormat::Format format) {
+  switch (format) {
+    case ImageFormat::GRAY8:
+      return 1;
+    case ImageFormat::GRAY16:
+      return 2;
+    case ImageFormat::SRGB:
+    case ImageFormat::LAB8:
+      return 3;
+    case ImageFormat::SRGBA:
+    case ImageFormat::SBGRA:
+    case ImageFormat::VEC32F1:
+      return 4;
+    case ImageFormat::SRGB48:
+      return 6;
+    case ImageFormat::SRGBA64:
+    case ImageFormat::VEC32F2:
+      return 8;
+    case ImageFormat::VEC32F4:
+      return 16;
+    default:
+      return 0;
+  }
+}
+
+// Returns an estimate of the bytes of the payload of a packet, for the image
+// and matrix payloads, or 0 for the other payloads.
+int64_t EstimatePayloadBytes(const Packet& packet) {
+  if (packet.ValidateAsType<ImageFrame>().ok()) {
+    return packet.Get<ImageFrame>().PixelDataSize();
+  }
+  if (packet.ValidateAsType<Image>().ok()) {
+    // Estimated from the format, as the row size of an image is only known
+    // once it is on the CPU.
+    const Image& image = packet.Get<Image>();
+    return static_cast<int64_t>(image.width()) * image.height() *
+           BytesPerPixel(image.image_format());
+  }
+  if (packet.ValidateAsType<Matrix>().ok()) {
+    return packet.Get<Matrix>().size() * sizeof(float);
+  }
+  return 0;
+}
+
+// Returns the method of the class of `java_callback` with the given name and
+// signature, or an error if there is none.
+absl::StatusOr<jmethodID> GetCallbackMethod(JNIEnv* env, jobject java_callback,
+                                            const std::string& method_name,
+                                            const std::string& signature) {
+  jclass callback_cls = env->GetObjectClass(java_callback);
+  jmethodID method =
+      env->GetMethodID(callback_cls, method_name.c_str(), signature.c_str());
+  env->DeleteLocalRef(callback_cls);
+  if (method == nullptr) {
+    // Clears the NoSuchMethodError, so that the error status can be thrown.
+    env->ExceptionClear();
+    return absl::InternalError(
+        absl::StrCat("Failed to find the callback method ", method_name,
+                     signature));
+  }
+  return method;
+}
 }  // namespace internal
 
 Graph::Graph()
-    : executor_stack_size_increased_(false), global_java_packet_cls_(nullptr) {}
+    : executor_stack_size_increased_(false),
+      global_java_packet_cls_(nullptr),
+      java_packet_create_method_(nullptr) {}
 
 Graph::~Graph() {
   if (running_graph_) {
@@ -159,13 +251,28 @@ Graph::~Graph() {
   }
 }
 
+Graph::PacketShard::~PacketShard() {
+  absl::MutexLock lock(&mutex);
+  for (internal::PacketWithContext* packet_with_context : packets) {
+    delete packet_with_context;
+  }
+  packets.clear();
+}
+
+Graph::PacketShard& Graph::GetPacketShard(
+    internal::PacketWithContext* packet_with_context) {
+  // Fibonacci hashing of the address, as the low bits of the addresses of the
+  // allocations are mostly the same.
+  uint64_t address = reinterpret_cast<uintptr_t>(packet_with_context);
+  return packet_shards_[(address * 0x9E3779B97F4A7C15ull) >>
+                        (64 - kPacketShardBits)];
+}
+
 int64_t Graph::WrapPacketIntoContext(const Packet& packet) {
-  absl::MutexLock lock(&all_packets_mutex_);
   auto packet_context = new internal::PacketWithContext(this, packet);
-  // Since the value of the all_packets_ map is a unique_ptr, resets it with the
-  // new allocated object.
-  all_packets_[packet_context].reset(packet_context);
-  VLOG(2) << "Graph packet reference buffer size: " << all_packets_.size();
+  PacketShard& shard = GetPacketShard(packet_context);
+  absl::MutexLock lock(&shard.mutex);
+  shard.packets.insert(packet_context);
   return reinterpret_cast<int64_t>(packet_context);
 }
 
@@ -188,19 +295,57 @@ bool Graph::RemovePacket(int64_t packet_handle) {
   internal::PacketWithContext* packet_with_context =
       reinterpret_cast<internal::PacketWithContext*>(packet_handle);
   Graph* context = packet_with_context->GetContext();
-  absl::MutexLock lock(&(context->all_packets_mutex_));
-  return context->all_packets_.erase(packet_with_context) != 0;
+  PacketShard& shard = context->GetPacketShard(packet_with_context);
+  {
+    absl::MutexLock lock(&shard.mutex);
+    if (shard.packets.erase(packet_with_context) == 0) {
+      return false;
+    }
+  }
+  // The packet is released outside of the lock, as releasing its payload,
+  // e.g. a GPU buffer, may take a while.
+  delete packet_with_context;
+  return true;
+}
+
+void Graph::GetLivePacketStats(int64_t* packet_count, int64_t* payload_bytes) {
+  *packet_count = 0;
+  *payload_bytes = 0;
+  absl::flat_hash_set<const packet_internal::HolderBase*> payloads;
+  for (PacketShard& shard : packet_shards_) {
+    absl::MutexLock lock(&shard.mutex);
+    *packet_count += shard.packets.size();
+    for (internal::PacketWithContext* packet_with_context : shard.packets) {
+      const Packet& packet = packet_with_context->packet();
+      if (packet.IsEmpty() ||
+          !payloads.insert(packet_internal::GetHolder(packet)).second) {
+        continue;
+      }
+      *payload_bytes += internal::EstimatePayloadBytes(packet);
+    }
+  }
 }
 
 void Graph::EnsureMinimumExecutorStackSizeForJava() {}
 
-absl::Status Graph::AddCallbackHandler(std::string output_stream_name,
+absl::Status Graph::AddCallbackHandler(JNIEnv* env,
+                                       std::string output_stream_name,
                                        jobject java_callback) {
   if (!graph_config()) {
     return absl::InternalError("Graph is not loaded!");
   }
+  auto& class_registry = ClassRegistry::GetInstance();
+  std::string packet_class_name =
+      class_registry.GetClassName(ClassRegistry::kPacketClassName);
+  std::string process_method_name = class_registry.GetMethodName(
+      ClassRegistry::kPacketCallbackClassName, "process");
+  MP_ASSIGN_OR_RETURN(
+      jmethodID process_method,
+      internal::GetCallbackMethod(
+          env, java_callback, process_method_name,
+          absl::StrFormat("(L%s;)V", packet_class_name)));
   std::unique_ptr<internal::CallbackHandler> handler(
-      new internal::CallbackHandler(this, java_callback));
+      new internal::CallbackHandler(this, java_callback, process_method));
   std::string side_packet_name;
   tool::AddCallbackCalculator(output_stream_name, graph_config(),
                               &side_packet_name,
@@ -214,13 +359,28 @@ absl::Status Graph::AddCallbackHandler(std::string output_stream_name,
 }
 
 absl::Status Graph::AddMultiStreamCallbackHandler(
-    std::vector<std::string> output_stream_names, jobject java_callback,
-    bool observe_timestamp_bounds) {
+    JNIEnv* env, std::vector<std::string> output_stream_names,
+    jobject java_callback, bool observe_timestamp_bounds) {
   if (!graph_config()) {
     return absl::InternalError("Graph is not loaded!");
   }
-  auto handler =
-      absl::make_unique<internal::CallbackHandler>(this, java_callback);
+  std::string process_method_name =
+      ClassRegistry::GetInstance().GetMethodName(
+          ClassRegistry::kPacketHandleListCallbackClassName, "process");
+  MP_ASSIGN_OR_RETURN(
+      jmethodID process_method,
+      internal::GetCallbackMethod(env, java_callback, process_method_name,
+                                  "([J)V"));
+  jlongArray java_packet_handles =
+      env->NewLongArray(output_stream_names.size());
+  if (java_packet_handles == nullptr) {
+    env->ExceptionClear();
+    return absl::InternalError("Failed to allocate the packet handle array.");
+  }
+  auto handler = absl::make_unique<internal::CallbackHandler>(
+      this, java_callback, process_method,
+      reinterpret_cast<jlongArray>(env->NewGlobalRef(java_packet_handles)));
+  env->DeleteLocalRef(java_packet_handles);
   tool::AddMultiStreamCallback(
       output_stream_names, handler->CreatePacketListCallback(), graph_config(),
       &side_packets_, observe_timestamp_bounds);
@@ -309,105 +469,62 @@ CalculatorGraphConfig Graph::GetCalculatorGraphConfig() {
 }
 
 void Graph::CallbackToJava(JNIEnv* env, jobject java_callback_obj,
-                           const Packet& packet) {
-  jclass callback_cls = env->GetObjectClass(java_callback_obj);
-
-  auto& class_registry = mediapipe::android::ClassRegistry::GetInstance();
-  std::string packet_class_name = class_registry.GetClassName(
-      mediapipe::android::ClassRegistry::kPacketClassName);
-  std::string process_method_name = class_registry.GetMethodName(
-      mediapipe::android::ClassRegistry::kPacketCallbackClassName, "process");
-
-  jmethodID processMethod =
-      env->GetMethodID(callback_cls, process_method_name.c_str(),
-                       absl::StrFormat("(L%s;)V", packet_class_name).c_str());
-
+                           jmethodID process_method, const Packet& packet) {
   int64_t packet_handle = WrapPacketIntoContext(packet);
   // Creates a Java Packet.
   VLOG(2) << "Creating java packet preparing for callback to java.";
-  jobject java_packet =
-      CreateJavaPacket(env, global_java_packet_cls_, packet_handle);
+  jobject java_packet = NewJavaPacket(env, packet_handle);
   VLOG(2) << "Calling java callback.";
-  env->CallVoidMethod(java_callback_obj, processMethod, java_packet);
+  env->CallVoidMethod(java_callback_obj, process_method, java_packet);
   // release the packet after callback.
   RemovePacket(packet_handle);
-  env->DeleteLocalRef(callback_cls);
   env->DeleteLocalRef(java_packet);
   VLOG(2) << "Returned from java callback.";
 }
 
 void Graph::CallbackToJava(JNIEnv* env, jobject java_callback_obj,
-                           const Packet& packet, const Packet& header_packet) {
-  jclass callback_cls = env->GetObjectClass(java_callback_obj);
-
-  auto& class_registry = mediapipe::android::ClassRegistry::GetInstance();
-  std::string packet_class_name = class_registry.GetClassName(
-      mediapipe::android::ClassRegistry::kPacketClassName);
-  std::string process_method_name = class_registry.GetMethodName(
-      mediapipe::android::ClassRegistry::kPacketWithHeaderCallbackClassName,
-      "process");
-
-  jmethodID processMethod = env->GetMethodID(
-      callback_cls, process_method_name.c_str(),
-      absl::StrFormat("(L%s;L%s;)V", packet_class_name, packet_class_name)
-          .c_str());
-
+                           jmethodID process_method, const Packet& packet,
+                           const Packet& header_packet) {
   int64_t packet_handle = WrapPacketIntoContext(packet);
   int64_t header_packet_handle = WrapPacketIntoContext(header_packet);
   // Creates a Java Packet.
-  jobject java_packet =
-      CreateJavaPacket(env, global_java_packet_cls_, packet_handle);
-  jobject java_header_packet =
-      CreateJavaPacket(env, global_java_packet_cls_, header_packet_handle);
-  env->CallVoidMethod(java_callback_obj, processMethod, java_packet,
+  jobject java_packet = NewJavaPacket(env, packet_handle);
+  jobject java_header_packet = NewJavaPacket(env, header_packet_handle);
+  env->CallVoidMethod(java_callback_obj, process_method, java_packet,
                       java_header_packet);
   // release the packet after callback.
   RemovePacket(packet_handle);
   RemovePacket(header_packet_handle);
-  env->DeleteLocalRef(callback_cls);
   env->DeleteLocalRef(java_packet);
   env->DeleteLocalRef(java_header_packet);
 }
 
 void Graph::CallbackToJava(JNIEnv* env, jobject java_callback_obj,
+                           jmethodID process_method,
+                           jlongArray java_packet_handles,
+                           std::vector<jlong>* packet_handles,
                            const std::vector<Packet>& packets) {
-  jclass callback_cls = env->GetObjectClass(java_callback_obj);
-
-  auto& class_registry = mediapipe::android::ClassRegistry::GetInstance();
-  const std::string process_method_name = class_registry.GetMethodName(
-      mediapipe::android::ClassRegistry::kPacketListCallbackClassName,
-      "process");
-  jmethodID processMethod = env->GetMethodID(
-      callback_cls, process_method_name.c_str(), "(Ljava/util/List;)V");
-
-  // TODO: move to register natives.
-  jclass list_cls = env->FindClass("java/util/ArrayList");
-  jobject java_list =
-      env->NewObject(list_cls, env->GetMethodID(list_cls, "<init>", "()V"));
-  jmethodID add_method =
-      env->GetMethodID(list_cls, "add", "(Ljava/lang/Object;)Z");
-  std::vector<int64_t> packet_handles;
+  packet_handles->clear();
   for (const Packet& packet : packets) {
-    int64_t packet_handle = WrapPacketIntoContext(packet);
-    packet_handles.push_back(packet_handle);
-    jobject java_packet =
-        CreateJavaPacket(env, global_java_packet_cls_, packet_handle);
-    env->CallBooleanMethod(java_list, add_method, java_packet);
-    env->DeleteLocalRef(java_packet);
+    packet_handles->push_back(WrapPacketIntoContext(packet));
   }
+  env->SetLongArrayRegion(java_packet_handles, 0, packet_handles->size(),
+                          packet_handles->data());
 
   VLOG(2) << "Calling java callback.";
-  env->CallVoidMethod(java_callback_obj, processMethod, java_list);
+  env->CallVoidMethod(java_callback_obj, process_method, java_packet_handles);
   // release the packet after callback.
-  for (int64_t packet_handle : packet_handles) {
+  for (jlong packet_handle : *packet_handles) {
     RemovePacket(packet_handle);
   }
-  env->DeleteLocalRef(callback_cls);
-  env->DeleteLocalRef(list_cls);
-  env->DeleteLocalRef(java_list);
   VLOG(2) << "Returned from java callback.";
 }
 
+jobject Graph::NewJavaPacket(JNIEnv* env, int64_t packet_handle) {
+  return env->CallStaticObjectMethod(global_java_packet_cls_,
+                                     java_packet_create_method_, packet_handle);
+}
+
 void Graph::SetPacketJavaClass(JNIEnv* env) {
   if (global_java_packet_cls_ == nullptr) {
     auto& class_registry = ClassRegistry::GetInstance();
@@ -416,6 +533,15 @@ void Graph::SetPacketJavaClass(JNIEnv* env) {
     jclass packet_cls = env->FindClass(packet_class_name.c_str());
     global_java_packet_cls_ =
         reinterpret_cast<jclass>(env->NewGlobalRef(packet_cls));
+    env->DeleteLocalRef(packet_cls);
+    // The callback packets are released by the graph once the callback
+    // returns, so they are created untracked.
+    std::string create_method_name = class_registry.GetMethodName(
+        mediapipe::android::ClassRegistry::kPacketClassName,
+        "createForCallback");
+    java_packet_create_method_ = env->GetStaticMethodID(
+        global_java_packet_cls_, create_method_name.c_str(),
+        absl::StrFormat("(J)L%s;", packet_class_name).c_str());
   }
 }
 
@@ -17,6 +17,7 @@
 
 #include <jni.h>
 
+#include <array>
 #include <cstdint>
 #include <map>
 #include <memory>
@@ -24,6 +25,8 @@
 #include <unordered_map>
 #include <vector>
 
+#include "absl/base/thread_annotations.h"
+#include "absl/container/flat_hash_set.h"
 #include "absl/status/status.h"
 #include "mediapipe/framework/graph_service.h"
 
@@ -56,12 +59,13 @@ class Graph {
   ~Graph();
 
   // Adds a callback for a given stream name.
-  absl::Status AddCallbackHandler(std::string output_stream_name,
+  absl::Status AddCallbackHandler(JNIEnv* env, std::string output_stream_name,
                                   jobject java_callback);
-  // Adds a callback for multiple output streams.
+  // Adds a callback for multiple output streams, which receives the handles
+  // of the output packets.
   absl::Status AddMultiStreamCallbackHandler(
-      std::vector<std::string> output_stream_names, jobject java_callback,
-      bool observe_timestamp_bounds);
+      JNIEnv* env, std::vector<std::string> output_stream_names,
+      jobject java_callback, bool observe_timestamp_bounds);
 
   // Loads a binary graph from a file.
   absl::Status LoadBinaryGraph(std::string path_to_graph);
@@ -155,6 +159,11 @@ class Graph {
   // Returns false if not in the context.
   static bool RemovePacket(int64_t packet_handle);
 
+  // Returns the number of packets that the Java code references through a
+  // handle, and an estimate of the bytes of their image and matrix payloads,
+  // counting the payloads shared by several packets once.
+  void GetLivePacketStats(int64_t* packet_count, int64_t* payload_bytes);
+
   // Returns the mediapipe Packet that is referenced by the handle.
   static Packet GetPacketFromHandle(int64_t packet_handle);
 
@@ -163,14 +172,18 @@ class Graph {
 
   // Invokes a Java packet callback.
   void CallbackToJava(JNIEnv* env, jobject java_callback_obj,
-                      const Packet& packet);
+                      jmethodID process_method, const Packet& packet);
 
   // Invokes a Java packet callback with header.
   void CallbackToJava(JNIEnv* env, jobject java_callback_obj,
-                      const Packet& packet, const Packet& header_packet);
+                      jmethodID process_method, const Packet& packet,
+                      const Packet& header_packet);
 
-  // Invokes a Java packet list callback.
+  // Invokes a Java packet handle list callback. The handles of `packets` are
+  // passed in `java_packet_handles`, through the `packet_handles` buffer.
   void CallbackToJava(JNIEnv* env, jobject java_callback_obj,
+                      jmethodID process_method, jlongArray java_packet_handles,
+                      std::vector<jlong>* packet_handles,
                       const std::vector<Packet>& packets);
 
 #ifdef MEDIAPIPE_PROFILER_AVAILABLE
@@ -185,6 +198,8 @@ class Graph {
   // small for Java's class loader. See bug 72414047.
   void EnsureMinimumExecutorStackSizeForJava();
   void SetPacketJavaClass(JNIEnv* env);
+  // Creates a Java Packet for a packet handle.
+  jobject NewJavaPacket(JNIEnv* env, int64_t packet_handle);
   std::map<std::string, Packet> CreateCombinedSidePackets();
   // Returns the top-level CalculatorGraphConfig, or nullptr if the top-level
   // CalculatorGraphConfig is not yet defined.
@@ -211,13 +226,30 @@ class Graph {
   // used from native attached thread. This is the suggested workaround for
   // jni findclass issue.
   jclass global_java_packet_cls_;
-  // All mediapipe Packet managed/referenced by the context.
-  // The map is used for the Java code to be able to look up the Packet
-  // based on the handler(pointer).
-  std::unordered_map<internal::PacketWithContext*,
-                     std::unique_ptr<internal::PacketWithContext>>
-      all_packets_;
-  absl::Mutex all_packets_mutex_;
+  // The static Packet.create method, resolved with global_java_packet_cls_.
+  jmethodID java_packet_create_method_;
+  // A shard of the packets managed/referenced by the context, aligned to a
+  // cache line so that the shards do not contend with each other.
+  struct alignas(64) PacketShard {
+    PacketShard() = default;
+    PacketShard(const PacketShard&) = delete;
+    PacketShard& operator=(const PacketShard&) = delete;
+    // Deletes the packets that are still referenced.
+    ~PacketShard();
+
+    absl::Mutex mutex;
+    absl::flat_hash_set<internal::PacketWithContext*> packets
+        ABSL_GUARDED_BY(mutex);
+  };
+  static constexpr int kPacketShardBits = 4;
+  // Returns the shard of a packet, picked by hashing its handle.
+  PacketShard& GetPacketShard(internal::PacketWithContext* packet_with_context);
+  // All mediapipe Packet managed/referenced by the context, owned by the
+  // shards. They are used for the Java code to be able to look up the Packet
+  // based on the handler(pointer), and to release the packets that are still
+  // referenced when the context is destroyed. The packets are sharded, as they
+  // are wrapped and removed concurrently by the callback and Java threads.
+  std::array<PacketShard, 1 << kPacketShardBits> packet_shards_;
   // All callback handlers managed by the context.
   std::vector<std::unique_ptr<internal::CallbackHandler>> callback_handlers_;
 
@@ -187,8 +187,12 @@ GRAPH_METHOD(nativeAddPacketCallback)(JNIEnv* env, jobject thiz, jlong context,
                  absl::InternalError("Failed to allocate packet callback"));
     return;
   }
-  ThrowIfError(env, mediapipe_graph->AddCallbackHandler(output_stream_name,
-                                                        global_callback_ref));
+  absl::Status status = mediapipe_graph->AddCallbackHandler(
+      env, output_stream_name, global_callback_ref);
+  if (!status.ok()) {
+    env->DeleteGlobalRef(global_callback_ref);
+  }
+  ThrowIfError(env, status);
 }
 
 JNIEXPORT void JNICALL GRAPH_METHOD(nativeAddMultiStreamCallback)(
@@ -215,9 +219,12 @@ JNIEXPORT void JNICALL GRAPH_METHOD(nativeAddMultiStreamCallback)(
                  absl::InternalError("Failed to allocate packets callback"));
     return;
   }
-  ThrowIfError(env, mediapipe_graph->AddMultiStreamCallbackHandler(
-                        output_stream_names, global_callback_ref,
-                        observe_timestamp_bounds));
+  absl::Status status = mediapipe_graph->AddMultiStreamCallbackHandler(
+      env, output_stream_names, global_callback_ref, observe_timestamp_bounds);
+  if (!status.ok()) {
+    env->DeleteGlobalRef(global_callback_ref);
+  }
+  ThrowIfError(env, status);
 }
 
 JNIEXPORT jlong JNICALL GRAPH_METHOD(nativeAddSurfaceOutput)(
@@ -374,3 +381,23 @@ JNIEXPORT jlong JNICALL GRAPH_METHOD(nativeGetProfiler)(JNIEnv* env,
   return 0;
 #endif  // MEDIAPIPE_PROFILER_AVAILABLE
 }
+
+JNIEXPORT jboolean JNICALL GRAPH_METHOD(nativeIsProfilerAvailable)(JNIEnv* env,
+                                                                  jclass clz) {
+#ifdef MEDIAPIPE_PROFILER_AVAILABLE
+  return JNI_TRUE;
+#else
+  return JNI_FALSE;
+#endif  // MEDIAPIPE_PROFILER_AVAILABLE
+}
+
+JNIEXPORT void JNICALL GRAPH_METHOD(nativeGetLivePacketStats)(
+    JNIEnv* env, jobject thiz, jlong context, jlongArray stats) {
+  mediapipe::android::Graph* mediapipe_graph =
+      reinterpret_cast<mediapipe::android::Graph*>(context);
+  int64_t packet_count;
+  int64_t payload_bytes;
+  mediapipe_graph->GetLivePacketStats(&packet_count, &payload_bytes);
+  jlong values[2] = {packet_count, payload_bytes};
+  env->SetLongArrayRegion(stats, 0, 2, values);
+}
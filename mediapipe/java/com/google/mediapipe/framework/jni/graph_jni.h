@@ -122,6 +122,14 @@ JNIEXPORT jlong JNICALL GRAPH_METHOD(nativeGetProfiler)(JNIEnv* env,
                                                         jobject thiz,
                                                         jlong context);
 
+JNIEXPORT jboolean JNICALL GRAPH_METHOD(nativeIsProfilerAvailable)(JNIEnv* env,
+                                                                  jclass clz);
+
+// Fills `stats` with the number of packets referenced by the Java code, and an
+// estimate of the bytes of their payloads.
+JNIEXPORT void JNICALL GRAPH_METHOD(nativeGetLivePacketStats)(
+    JNIEnv* env, jobject thiz, jlong context, jlongArray stats);
+
 #ifdef __cplusplus
 }  // extern "C"
 #endif  // __cplusplus
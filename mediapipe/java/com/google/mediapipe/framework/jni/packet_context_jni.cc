@@ -26,6 +26,13 @@ JNIEXPORT void JNICALL PACKET_METHOD(nativeReleasePacket)(JNIEnv* env,
   mediapipe::android::Graph::RemovePacket(packet);
 }
 
+JNIEXPORT jlong JNICALL PACKET_METHOD(nativeGetGraphHandle)(JNIEnv* env,
+                                                            jobject thiz,
+                                                            jlong packet) {
+  return reinterpret_cast<int64_t>(
+      mediapipe::android::Graph::GetContextFromHandle(packet));
+}
+
 JNIEXPORT jlong JNICALL PACKET_METHOD(nativeGetTimestamp)(JNIEnv* env,
                                                           jobject thiz,
                                                           jlong packet) {
@@ -29,6 +29,11 @@ JNIEXPORT void JNICALL PACKET_METHOD(nativeReleasePacket)(JNIEnv* env,
                                                           jobject thiz,
                                                           jlong packet);
 
+// Returns the handle of the native graph that manages the packet.
+JNIEXPORT jlong JNICALL PACKET_METHOD(nativeGetGraphHandle)(JNIEnv* env,
+                                                            jobject thiz,
+                                                            jlong packet);
+
 // Returns the timestamp of the packet.
 JNIEXPORT jlong JNICALL PACKET_METHOD(nativeGetTimestamp)(JNIEnv* env,
                                                           jobject thiz,
@@ -16,9 +16,12 @@
 
 #include <cstring>
 #include <memory>
+#include <string>
 #include <utility>
 
+#include "absl/log/absl_log.h"
 #include "absl/status/status.h"
+#include "absl/status/statusor.h"
 #include "absl/strings/str_cat.h"
 #include "mediapipe/framework/calculator.pb.h"
 #include "mediapipe/framework/camera_intrinsics.h"
@@ -31,6 +34,9 @@
 #include "mediapipe/framework/packet.h"
 #include "mediapipe/framework/port/core_proto_inc.h"
 #include "mediapipe/framework/port/logging.h"
+#include "mediapipe/framework/port/ret_check.h"
+#include "mediapipe/framework/port/status_macros.h"
+#include "mediapipe/java/com/google/mediapipe/framework/jni/class_registry.h"
 #include "mediapipe/java/com/google/mediapipe/framework/jni/colorspace.h"
 #include "mediapipe/java/com/google/mediapipe/framework/jni/graph.h"
 #include "mediapipe/java/com/google/mediapipe/framework/jni/jni_util.h"
@@ -129,10 +135,9 @@ CreateImageFrameFromByteBuffer(JNIEnv* env, jobject byte_buffer, jint width,
       << " but is: " << buffer_size;
 
   auto image_frame = std::make_unique<mediapipe::ImageFrame>();
-  // TODO: we could retain the buffer with a special deleter and use
-  // the data directly without a copy. May need a new Java API since existing
-  // code might expect to be able to overwrite the buffer after creating an
-  // ImageFrame from it.
+  // The buffer is copied, as existing code might expect to be able to
+  // overwrite the buffer after creating an ImageFrame from it. See
+  // WrapImageFrameFromByteBuffer for the variant without a copy.
   image_frame->CopyPixelData(
       format, width, height, width_step,
       static_cast<const uint8_t*>(buffer_data),
@@ -141,6 +146,90 @@ CreateImageFrameFromByteBuffer(JNIEnv* env, jobject byte_buffer, jint width,
   return image_frame;
 }
 
+// Returns the format of a 1, 3, or 4 channel 8-bit image.
+absl::StatusOr<mediapipe::ImageFormat::Format> GetImageFormat(
+    jint num_channels) {
+  switch (num_channels) {
+    case 4:
+      return mediapipe::ImageFormat::SRGBA;
+    case 3:
+      return mediapipe::ImageFormat::SRGB;
+    case 1:
+      return mediapipe::ImageFormat::GRAY8;
+    default:
+      return absl::InvalidArgumentError(absl::StrCat(
+          "Channels must be either 1, 3, or 4, but are ", num_channels));
+  }
+}
+
+// Creates a 1, 3, or 4 channel 8-bit ImageFrame that uses the memory of a
+// direct Java ByteBuffer without copying it. The ImageFrame holds a global
+// reference to the buffer until it is destroyed, and then passes the buffer to
+// the Java BufferReleaseCallback, if any.
+absl::StatusOr<std::unique_ptr<mediapipe::ImageFrame>>
+WrapImageFrameFromByteBuffer(JNIEnv* env, jobject byte_buffer, jint width,
+                             jint height, jint width_step, jint num_channels,
+                             jobject release_callback) {
+  MP_ASSIGN_OR_RETURN(mediapipe::ImageFormat::Format format,
+                      GetImageFormat(num_channels));
+  const int64_t buffer_size = env->GetDirectBufferCapacity(byte_buffer);
+  uint8_t* buffer_data =
+      static_cast<uint8_t*>(env->GetDirectBufferAddress(byte_buffer));
+  if (buffer_data == nullptr || buffer_size < 0) {
+    return absl::InvalidArgumentError(
+        "Cannot get direct access to the input buffer. It should be created "
+        "using allocateDirect.");
+  }
+  const int64_t expected_buffer_size =
+      static_cast<int64_t>(height) * width_step;
+  RET_CHECK_EQ(buffer_size, expected_buffer_size)
+      << "Input buffer size should be " << expected_buffer_size
+      << " but is: " << buffer_size;
+
+  jmethodID release_method = nullptr;
+  if (release_callback != nullptr) {
+    std::string release_method_name =
+        mediapipe::android::ClassRegistry::GetInstance().GetMethodName(
+            mediapipe::android::ClassRegistry::kBufferReleaseCallbackClassName,
+            "release");
+    jclass callback_class = env->GetObjectClass(release_callback);
+    release_method = env->GetMethodID(callback_class,
+                                      release_method_name.c_str(),
+                                      "(Ljava/nio/ByteBuffer;)V");
+    env->DeleteLocalRef(callback_class);
+    if (release_method == nullptr) {
+      env->ExceptionClear();
+      return absl::InvalidArgumentError(
+          "The release callback must be a BufferReleaseCallback.");
+    }
+  }
+  jobject buffer_ref = env->NewGlobalRef(byte_buffer);
+  jobject callback_ref =
+      release_callback != nullptr ? env->NewGlobalRef(release_callback)
+                                  : nullptr;
+  // The deleter runs on the thread that releases the last reference to the
+  // pixel data, which may be a graph thread.
+  auto deleter = [buffer_ref, callback_ref, release_method](uint8_t*) {
+    JNIEnv* env = mediapipe::java::GetJNIEnv();
+    if (env == nullptr) {
+      ABSL_LOG(ERROR) << "Cannot attach to the JVM to release a wrapped "
+                         "ByteBuffer, which is leaked.";
+      return;
+    }
+    if (callback_ref != nullptr) {
+      env->CallVoidMethod(callback_ref, release_method, buffer_ref);
+      if (env->ExceptionCheck()) {
+        env->ExceptionDescribe();
+        env->ExceptionClear();
+      }
+      env->DeleteGlobalRef(callback_ref);
+    }
+    env->DeleteGlobalRef(buffer_ref);
+  };
+  return std::make_unique<mediapipe::ImageFrame>(
+      format, width, height, width_step, buffer_data, deleter);
+}
+
 }  // namespace
 
 JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateReferencePacket)(
@@ -372,29 +461,71 @@ JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateMatrix)(
   return CreatePacketWithContext(context, packet);
 }
 
+JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateMatrixFromBuffer)(
+    JNIEnv* env, jobject thiz, jlong context, jint rows, jint cols,
+    jobject float_buffer, jint offset) {
+  const float* data =
+      static_cast<const float*>(env->GetDirectBufferAddress(float_buffer));
+  // The capacity of a FloatBuffer is in floats.
+  const int64_t capacity = env->GetDirectBufferCapacity(float_buffer);
+  if (data == nullptr || capacity < 0) {
+    ThrowIfError(env, absl::InvalidArgumentError(
+                          "Cannot get direct access to the input buffer. It "
+                          "should be created using allocateDirect."));
+    return 0L;
+  }
+  const int64_t size = static_cast<int64_t>(rows) * cols;
+  if (rows < 0 || cols < 0 || offset < 0 || offset + size > capacity) {
+    ThrowIfError(
+        env, absl::InvalidArgumentError(absl::StrCat(
+                 "Please check the matrix data size, has to be rows * cols = ",
+                 size, " floats from offset ", offset,
+                 " within the buffer capacity ", capacity)));
+    return 0L;
+  }
+  // The Matrix owns its storage, so the buffer is copied once, straight from
+  // its memory, without going through a Java array.
+  std::unique_ptr<mediapipe::Matrix> matrix(new mediapipe::Matrix(rows, cols));
+  std::memcpy(matrix->data(), data + offset, size * sizeof(float));
+  mediapipe::Packet packet = mediapipe::Adopt(matrix.release());
+  return CreatePacketWithContext(context, packet);
+}
+
 JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateCpuImage)(
     JNIEnv* env, jobject thiz, jlong context, jobject byte_buffer, jint width,
     jint height, jint width_step, jint num_channels) {
-  mediapipe::ImageFormat::Format format;
-  switch (num_channels) {
-    case 4:
-      format = mediapipe::ImageFormat::SRGBA;
-      break;
-    case 3:
-      format = mediapipe::ImageFormat::SRGB;
-      break;
-    case 1:
-      format = mediapipe::ImageFormat::GRAY8;
-      break;
-    default:
-      ThrowIfError(env, absl::InvalidArgumentError(absl::StrCat(
-                            "Channels must be either 1, 3, or 4, but are ",
-                            num_channels)));
-      return 0L;
-  }
+  auto format_or = GetImageFormat(num_channels);
+  if (ThrowIfError(env, format_or.status())) return 0L;
 
   auto image_frame_or = CreateImageFrameFromByteBuffer(
-      env, byte_buffer, width, height, width_step, format);
+      env, byte_buffer, width, height, width_step, *format_or);
+  if (ThrowIfError(env, image_frame_or.status())) return 0L;
+
+  mediapipe::Packet packet =
+      mediapipe::MakePacket<mediapipe::Image>(*std::move(image_frame_or));
+  return CreatePacketWithContext(context, packet);
+}
+
+JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeWrapImageFrame)(
+    JNIEnv* env, jobject thiz, jlong context, jobject byte_buffer, jint width,
+    jint height, jint width_step, jint num_channels,
+    jobject release_callback) {
+  auto image_frame_or =
+      WrapImageFrameFromByteBuffer(env, byte_buffer, width, height, width_step,
+                                   num_channels, release_callback);
+  if (ThrowIfError(env, image_frame_or.status())) return 0L;
+
+  mediapipe::Packet packet = mediapipe::Adopt(image_frame_or->release());
+  return CreatePacketWithContext(context, packet);
+}
+
+JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeWrapCpuImage)(
+    JNIEnv* env, jobject thiz, jlong context, jobject byte_buffer, jint width,
+    jint height, jint width_step, jint num_channels,
+    jobject release_callback) {
+  auto image_frame_or =
+      WrapImageFrameFromByteBuffer(env, byte_buffer, width, height, width_step,
+                                   num_channels, release_callback);
   if (ThrowIfError(env, image_frame_or.status())) return 0L;
 
   mediapipe::Packet packet =
@@ -97,10 +97,28 @@ JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateMatrix)(
     JNIEnv* env, jobject thiz, jlong context, jint rows, jint cols,
     jfloatArray data);
 
+// Creates a MediaPipe::Matrix packet from rows * cols floats of a direct
+// buffer, starting at the given offset in floats. The data must be in column
+// major order and in the native byte order.
+JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateMatrixFromBuffer)(
+    JNIEnv* env, jobject thiz, jlong context, jint rows, jint cols,
+    jobject float_buffer, jint offset);
+
 JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateCpuImage)(
     JNIEnv* env, jobject thiz, jlong context, jobject byte_buffer, jint width,
     jint height, jint width_step, jint num_channels);
 
+// Creates an ImageFrame packet, or an Image packet below, that uses the memory
+// of a direct buffer without copying it, and passes the buffer to the
+// BufferReleaseCallback, if any, once the pixel data is released.
+JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeWrapImageFrame)(
+    JNIEnv* env, jobject thiz, jlong context, jobject byte_buffer, jint width,
+    jint height, jint width_step, jint num_channels, jobject release_callback);
+
+JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeWrapCpuImage)(
+    JNIEnv* env, jobject thiz, jlong context, jobject byte_buffer, jint width,
+    jint height, jint width_step, jint num_channels, jobject release_callback);
+
 JNIEXPORT jlong JNICALL PACKET_CREATOR_METHOD(nativeCreateGpuImage)(
     JNIEnv* env, jobject thiz, jlong context, jint name, jint width,
     jint height, jobject texture_release_callback);
@@ -14,6 +14,11 @@
 
 #include "mediapipe/java/com/google/mediapipe/framework/jni/packet_getter_jni.h"
 
+#include <cstdint>
+#include <cstring>
+#include <limits>
+#include <vector>
+
 #include "absl/status/status.h"
 #include "absl/strings/str_cat.h"
 #include "absl/strings/str_format.h"
@@ -103,6 +108,112 @@ void CheckImageSizeInImageList(JNIEnv* env,
   }
 }
 
+// Returns the number of bytes of the base 128 varint encoding of `value`.
+size_t Varint32Size(uint32_t value) {
+  size_t size = 1;
+  while (value >= 0x80) {
+    value >>= 7;
+    ++size;
+  }
+  return size;
+}
+
+// Writes the base 128 varint encoding of `value` to `target`, and returns the
+// position after the written bytes.
+uint8_t* WriteVarint32(uint32_t value, uint8_t* target) {
+  while (value >= 0x80) {
+    *target++ = static_cast<uint8_t>(value | 0x80);
+    value >>= 7;
+  }
+  *target++ = static_cast<uint8_t>(value);
+  return target;
+}
+
+// Returns the ImageFrame of a packet holding either an Image or an ImageFrame.
+const mediapipe::ImageFrame& GetImageFrameFromNativeHandle(
+    int64_t packet_handle) {
+  mediapipe::Packet mediapipe_packet =
+      mediapipe::android::Graph::GetPacketFromHandle(packet_handle);
+  if (mediapipe_packet.ValidateAsType<mediapipe::Image>().ok()) {
+    return *GetFromNativeHandle<mediapipe::Image>(packet_handle)
+                .GetImageFrameSharedPtr()
+                .get();
+  }
+  return GetFromNativeHandle<mediapipe::ImageFrame>(packet_handle);
+}
+
+// The layout of the image descriptor filled by nativeGetImageDescriptor, which
+// must match PacketGetter.ImageDescriptor.
+enum ImageDescriptorIndex {
+  kImageDescriptorWidth = 0,
+  kImageDescriptorHeight,
+  kImageDescriptorNumChannels,
+  kImageDescriptorFormat,
+  kImageDescriptorWidthStep,
+  kImageDescriptorByteDepth,
+  kImageDescriptorSize,
+};
+
+// Fills the image descriptor `descriptor` with the layout of `image`.
+void FillImageDescriptor(JNIEnv* env, const mediapipe::ImageFrame& image,
+                         jintArray descriptor) {
+  if (env->GetArrayLength(descriptor) < kImageDescriptorSize) {
+    ThrowIfError(env, absl::InvalidArgumentError(absl::StrCat(
+                          "Image descriptor must have at least ",
+                          kImageDescriptorSize, " elements.")));
+    return;
+  }
+  jint values[kImageDescriptorSize];
+  values[kImageDescriptorWidth] = image.Width();
+  values[kImageDescriptorHeight] = image.Height();
+  values[kImageDescriptorNumChannels] = image.NumberOfChannels();
+  values[kImageDescriptorFormat] = image.Format();
+  values[kImageDescriptorWidthStep] = image.WidthStep();
+  values[kImageDescriptorByteDepth] = image.ByteDepth();
+  env->SetIntArrayRegion(descriptor, 0, kImageDescriptorSize, values);
+}
+
+// Returns whether the Java array `array` can hold `size` elements.
+bool FitsInJavaArray(JNIEnv* env, jarray array, size_t size) {
+  return static_cast<size_t>(env->GetArrayLength(array)) >= size;
+}
+
+// Copies `size` values of `element_size` bytes into the direct buffer
+// `byte_buffer`, from its start, and returns the number of values, or its
+// negation if the buffer is too small, in which case nothing is copied.
+jint CopyToDirectBuffer(JNIEnv* env, const void* values, size_t size,
+                        size_t element_size, jobject byte_buffer) {
+  void* buffer_data = env->GetDirectBufferAddress(byte_buffer);
+  int64_t buffer_size = env->GetDirectBufferCapacity(byte_buffer);
+  if (buffer_data == nullptr || buffer_size < 0) {
+    ThrowIfError(env, absl::InvalidArgumentError(
+                          "input buffer does not support direct access"));
+    return 0;
+  }
+  if (static_cast<size_t>(buffer_size) < size * element_size) {
+    return -static_cast<jint>(size);
+  }
+  std::memcpy(buffer_data, values, size * element_size);
+  return static_cast<jint>(size);
+}
+
+// Writes the samples of the audio matrix `audio_mat` to `data` as interleaved
+// 16 bit PCM, in the native byte order.
+void WriteAudioData(const mediapipe::Matrix& audio_mat, uint8_t* data) {
+  const int num_channels = audio_mat.rows();
+  const int num_samples = audio_mat.cols();
+  const int kMultiplier = 1 << 15;
+  for (int sample = 0; sample < num_samples; ++sample) {
+    for (int channel = 0; channel < num_channels; ++channel) {
+      int16_t value =
+          static_cast<int16_t>(audio_mat(channel, sample) * kMultiplier);
+      // The destination is not necessarily aligned for int16_t.
+      std::memcpy(data, &value, sizeof(value));
+      data += sizeof(value);
+    }
+  }
+}
+
 }  // namespace
 
 JNIEXPORT jlong JNICALL PACKET_GETTER_METHOD(nativeGetPacketFromReference)(
@@ -273,6 +384,49 @@ JNIEXPORT jobjectArray JNICALL PACKET_GETTER_METHOD(nativeGetProtoVector)(
   return proto_array;
 }
 
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetProtoVectorDelimited)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer) {
+  mediapipe::Packet mediapipe_packet =
+      mediapipe::android::Graph::GetPacketFromHandle(packet);
+  auto get_proto_vector = mediapipe_packet.GetVectorOfProtoMessageLitePtrs();
+  if (!get_proto_vector.ok()) {
+    env->Throw(mediapipe::android::CreateMediaPipeException(
+        env, get_proto_vector.status()));
+    return 0;
+  }
+  const std::vector<const ::mediapipe::proto_ns::MessageLite*>& proto_vector =
+      get_proto_vector.value();
+  // Computing the sizes caches them in the messages for the serialization.
+  size_t total_size = 0;
+  for (const ::mediapipe::proto_ns::MessageLite* proto_message : proto_vector) {
+    const size_t message_size = proto_message->ByteSizeLong();
+    total_size += Varint32Size(message_size) + message_size;
+  }
+  if (total_size > std::numeric_limits<jint>::max()) {
+    ThrowIfError(env, absl::ResourceExhaustedError(absl::StrCat(
+                          "Serialized proto vector is too large: ",
+                          total_size, " bytes.")));
+    return 0;
+  }
+  uint8_t* data =
+      static_cast<uint8_t*>(env->GetDirectBufferAddress(byte_buffer));
+  if (data == nullptr) {
+    ThrowIfError(env, absl::InvalidArgumentError(
+                          "input buffer does not support direct access"));
+    return 0;
+  }
+  // Lets the caller retry with a large enough buffer.
+  if (static_cast<size_t>(env->GetDirectBufferCapacity(byte_buffer)) <
+      total_size) {
+    return -static_cast<jint>(total_size);
+  }
+  for (const ::mediapipe::proto_ns::MessageLite* proto_message : proto_vector) {
+    data = WriteVarint32(proto_message->GetCachedSize(), data);
+    data = proto_message->SerializeWithCachedSizesToArray(data);
+  }
+  return static_cast<jint>(total_size);
+}
+
 JNIEXPORT jshortArray JNICALL PACKET_GETTER_METHOD(nativeGetInt16Vector)(
     JNIEnv* env, jobject thiz, jlong packet) {
   const std::vector<int16_t>& values =
@@ -322,6 +476,36 @@ JNIEXPORT jdoubleArray JNICALL PACKET_GETTER_METHOD(nativeGetFloat64Vector)(
   return result;
 }
 
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetInt32VectorInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jintArray result) {
+  const std::vector<int>& values =
+      GetFromNativeHandle<std::vector<int>>(packet);
+  if (!FitsInJavaArray(env, result, values.size())) {
+    return -static_cast<jint>(values.size());
+  }
+  env->SetIntArrayRegion(result, 0, values.size(), values.data());
+  return values.size();
+}
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetFloat32VectorInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jfloatArray result) {
+  const std::vector<float>& values =
+      GetFromNativeHandle<std::vector<float>>(packet);
+  if (!FitsInJavaArray(env, result, values.size())) {
+    return -static_cast<jint>(values.size());
+  }
+  env->SetFloatArrayRegion(result, 0, values.size(), values.data());
+  return values.size();
+}
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetFloat32VectorIntoBuffer)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer) {
+  const std::vector<float>& values =
+      GetFromNativeHandle<std::vector<float>>(packet);
+  return CopyToDirectBuffer(env, values.data(), values.size(), sizeof(float),
+                            byte_buffer);
+}
+
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageWidth)(JNIEnv* env,
                                                                  jobject thiz,
                                                                  jlong packet) {
@@ -404,6 +588,11 @@ JNIEXPORT jobject JNICALL PACKET_GETTER_METHOD(nativeGetImageDataDirect)(
                                   image.PixelDataSizeStoredContiguously());
 }
 
+JNIEXPORT void JNICALL PACKET_GETTER_METHOD(nativeGetImageDescriptor)(
+    JNIEnv* env, jobject thiz, jlong packet, jintArray descriptor) {
+  FillImageDescriptor(env, GetImageFrameFromNativeHandle(packet), descriptor);
+}
+
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageListSize)(
     JNIEnv* env, jobject thiz, jlong packet) {
   const auto& image_list =
@@ -437,6 +626,25 @@ JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageHeightFromImageList)(
   return image_list[0].height();
 }
 
+JNIEXPORT void JNICALL
+PACKET_GETTER_METHOD(nativeGetImageDescriptorFromImageList)(
+    JNIEnv* env, jobject thiz, jlong packet, jintArray descriptor) {
+  const auto& image_list =
+      GetFromNativeHandle<std::vector<mediapipe::Image>>(packet);
+  if (image_list.empty()) {
+    ThrowIfError(env, absl::InvalidArgumentError(
+                          "Image list from the packet is empty."));
+    return;
+  }
+  CheckImageSizeInImageList(env, image_list, image_list[0].height(),
+                            image_list[0].width(), image_list[0].channels());
+  if (env->ExceptionCheck()) {
+    return;
+  }
+  FillImageDescriptor(env, *image_list[0].GetImageFrameSharedPtr(),
+                      descriptor);
+}
+
 JNIEXPORT jboolean JNICALL PACKET_GETTER_METHOD(nativeGetImageList)(
     JNIEnv* env, jobject thiz, jlong packet, jobjectArray byte_buffer_array,
     jboolean deep_copy) {
@@ -538,27 +746,50 @@ JNIEXPORT jbyteArray JNICALL PACKET_GETTER_METHOD(nativeGetAudioData)(
     JNIEnv* env, jobject thiz, jlong packet) {
   const mediapipe::Matrix& audio_mat =
       GetFromNativeHandle<mediapipe::Matrix>(packet);
-  int num_channels = audio_mat.rows();
-  int num_samples = audio_mat.cols();
-  int data_size = num_channels * num_samples * 2;
-  const int kMultiplier = 1 << 15;
+  int data_size = audio_mat.rows() * audio_mat.cols() * 2;
   jbyteArray byte_data = env->NewByteArray(data_size);
-  int offset = 0;
-  for (int sample = 0; sample < num_samples; ++sample) {
-    for (int channel = 0; channel < num_channels; ++channel) {
-      int16_t value =
-          static_cast<int16_t>(audio_mat(channel, sample) * kMultiplier);
-      // The java and native has the same byte order, by default is little
-      // Endian, we can safely copy data directly, we have tests to cover
-      // this.
-      env->SetByteArrayRegion(byte_data, offset, 2,
-                              reinterpret_cast<const jbyte*>(&value));
-      offset += 2;
-    }
-  }
+  // The java and native has the same byte order, by default is little Endian,
+  // we can safely copy data directly, we have tests to cover this.
+  void* data = env->GetPrimitiveArrayCritical(byte_data, nullptr);
+  WriteAudioData(audio_mat, static_cast<uint8_t*>(data));
+  env->ReleasePrimitiveArrayCritical(byte_data, data, 0);
   return byte_data;
 }
 
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetAudioDataInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jbyteArray result) {
+  const mediapipe::Matrix& audio_mat =
+      GetFromNativeHandle<mediapipe::Matrix>(packet);
+  const size_t data_size = audio_mat.rows() * audio_mat.cols() * 2;
+  if (!FitsInJavaArray(env, result, data_size)) {
+    return -static_cast<jint>(data_size);
+  }
+  void* data = env->GetPrimitiveArrayCritical(result, nullptr);
+  WriteAudioData(audio_mat, static_cast<uint8_t*>(data));
+  env->ReleasePrimitiveArrayCritical(result, data, 0);
+  return data_size;
+}
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetAudioDataIntoBuffer)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer) {
+  const mediapipe::Matrix& audio_mat =
+      GetFromNativeHandle<mediapipe::Matrix>(packet);
+  const size_t data_size = audio_mat.rows() * audio_mat.cols() * 2;
+  uint8_t* data =
+      static_cast<uint8_t*>(env->GetDirectBufferAddress(byte_buffer));
+  int64_t buffer_size = env->GetDirectBufferCapacity(byte_buffer);
+  if (data == nullptr || buffer_size < 0) {
+    ThrowIfError(env, absl::InvalidArgumentError(
+                          "input buffer does not support direct access"));
+    return 0;
+  }
+  if (static_cast<size_t>(buffer_size) < data_size) {
+    return -static_cast<jint>(data_size);
+  }
+  WriteAudioData(audio_mat, data);
+  return data_size;
+}
+
 JNIEXPORT jfloatArray JNICALL PACKET_GETTER_METHOD(nativeGetMatrixData)(
     JNIEnv* env, jobject thiz, jlong packet) {
   const mediapipe::Matrix& audio_mat =
@@ -571,6 +802,27 @@ JNIEXPORT jfloatArray JNICALL PACKET_GETTER_METHOD(nativeGetMatrixData)(
   return float_data;
 }
 
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetMatrixDataInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jfloatArray result) {
+  const mediapipe::Matrix& matrix =
+      GetFromNativeHandle<mediapipe::Matrix>(packet);
+  const size_t size = matrix.size();
+  if (!FitsInJavaArray(env, result, size)) {
+    return -static_cast<jint>(size);
+  }
+  env->SetFloatArrayRegion(result, 0, size,
+                           reinterpret_cast<const jfloat*>(matrix.data()));
+  return size;
+}
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetMatrixDataIntoBuffer)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer) {
+  const mediapipe::Matrix& matrix =
+      GetFromNativeHandle<mediapipe::Matrix>(packet);
+  return CopyToDirectBuffer(env, matrix.data(), matrix.size(), sizeof(float),
+                            byte_buffer);
+}
+
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetMatrixRows)(JNIEnv* env,
                                                                  jobject thiz,
                                                                  jlong packet) {
@@ -77,6 +77,9 @@ JNIEXPORT void JNICALL PACKET_GETTER_METHOD(nativeGetProto)(JNIEnv* env,
 JNIEXPORT jobjectArray JNICALL PACKET_GETTER_METHOD(nativeGetProtoVector)(
     JNIEnv* env, jobject thiz, jlong packet);
 
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetProtoVectorDelimited)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer);
+
 JNIEXPORT jshortArray JNICALL PACKET_GETTER_METHOD(nativeGetInt16Vector)(
     JNIEnv* env, jobject thiz, jlong packet);
 
@@ -92,6 +95,18 @@ JNIEXPORT jfloatArray JNICALL PACKET_GETTER_METHOD(nativeGetFloat32Vector)(
 JNIEXPORT jdoubleArray JNICALL PACKET_GETTER_METHOD(nativeGetFloat64Vector)(
     JNIEnv* env, jobject thiz, jlong packet);
 
+// The Into variants copy the vector into a caller-provided Java array or direct
+// buffer, and return the number of elements, or its negation if the array or
+// buffer is too small, in which case nothing is copied.
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetInt32VectorInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jintArray result);
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetFloat32VectorInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jfloatArray result);
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetFloat32VectorIntoBuffer)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer);
+
 // ImageFrame jni functions.
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageWidth)(JNIEnv* env,
                                                                  jobject thiz,
@@ -113,6 +128,11 @@ JNIEXPORT jboolean JNICALL PACKET_GETTER_METHOD(nativeGetImageData)(
 JNIEXPORT jobject JNICALL PACKET_GETTER_METHOD(nativeGetImageDataDirect)(
     JNIEnv* env, jobject thiz, jlong packet);
 
+// Fills the int array descriptor with the width, height, number of channels,
+// format, width step and byte depth of a MediaPipe image, in this order.
+JNIEXPORT void JNICALL PACKET_GETTER_METHOD(nativeGetImageDescriptor)(
+    JNIEnv* env, jobject thiz, jlong packet, jintArray descriptor);
+
 // Return the image width of first image from std::vector<Image>.
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageWidthFromImageList)(
     JNIEnv* env, jobject thiz, jlong packet);
@@ -121,6 +141,13 @@ JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageWidthFromImageList)(
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageHeightFromImageList)(
     JNIEnv* env, jobject thiz, jlong packet);
 
+// Fills the int array descriptor like nativeGetImageDescriptor, with the first
+// image from std::vector<Image>, after checking that all images have the same
+// size.
+JNIEXPORT void JNICALL
+PACKET_GETTER_METHOD(nativeGetImageDescriptorFromImageList)(
+    JNIEnv* env, jobject thiz, jlong packet, jintArray descriptor);
+
 // Return the vector size of std::vector<Image>.
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetImageListSize)(
     JNIEnv* env, jobject thiz, jlong packet);
@@ -149,6 +176,15 @@ JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetVideoHeaderHeight)(
 JNIEXPORT jbyteArray JNICALL PACKET_GETTER_METHOD(nativeGetAudioData)(
     JNIEnv* env, jobject thiz, jlong packet);
 
+// Copies the MediaPipe audio data into a caller-provided byte array or direct
+// buffer, and returns the number of bytes, or its negation if the array or
+// buffer is too small.
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetAudioDataInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jbyteArray result);
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetAudioDataIntoBuffer)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer);
+
 // Gets number of channels in time series header packet.
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(
     nativeGetTimeSeriesHeaderNumChannels)(JNIEnv* env, jobject thiz,
@@ -164,6 +200,15 @@ JNIEXPORT jdouble JNICALL PACKET_GETTER_METHOD(
 JNIEXPORT jfloatArray JNICALL PACKET_GETTER_METHOD(nativeGetMatrixData)(
     JNIEnv* env, jobject thiz, jlong packet);
 
+// Copies the raw float data of the MediaPipe Matrix into a caller-provided
+// float array or direct buffer, and returns the number of elements, or its
+// negation if the array or buffer is too small.
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetMatrixDataInto)(
+    JNIEnv* env, jobject thiz, jlong packet, jfloatArray result);
+
+JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetMatrixDataIntoBuffer)(
+    JNIEnv* env, jobject thiz, jlong packet, jobject byte_buffer);
+
 // Returns the number of rows of the matrix.
 JNIEXPORT jint JNICALL PACKET_GETTER_METHOD(nativeGetMatrixRows)(JNIEnv* env,
                                                                  jobject thiz,
@@ -113,10 +113,10 @@ void RegisterGraphNatives(JNIEnv *env) {
   AddJNINativeMethod(&graph_methods, graph, "nativeAddPacketCallback",
                      native_add_packet_callback_signature.c_str(),
                      (void *)&GRAPH_METHOD(nativeAddPacketCallback));
-  std::string packet_list_callback_name = class_registry.GetClassName(
-      mediapipe::android::ClassRegistry::kPacketListCallbackClassName);
-  std::string native_add_multi_stream_callback_signature =
-      absl::StrFormat("(JLjava/util/List;L%s;Z)V", packet_list_callback_name);
+  std::string packet_handle_list_callback_name = class_registry.GetClassName(
+      mediapipe::android::ClassRegistry::kPacketHandleListCallbackClassName);
+  std::string native_add_multi_stream_callback_signature = absl::StrFormat(
+      "(JLjava/util/List;L%s;Z)V", packet_handle_list_callback_name);
   AddJNINativeMethod(&graph_methods, graph, "nativeAddMultiStreamCallback",
                      native_add_multi_stream_callback_signature.c_str(),
                      (void *)&GRAPH_METHOD(nativeAddMultiStreamCallback));
@@ -139,6 +139,10 @@ void RegisterGraphNatives(JNIEnv *env) {
                      (void *)&GRAPH_METHOD(nativeReleaseGraph));
   AddJNINativeMethod(&graph_methods, graph, "nativeGetProfiler", "(J)J",
                      (void *)&GRAPH_METHOD(nativeGetProfiler));
+  AddJNINativeMethod(&graph_methods, graph, "nativeIsProfilerAvailable", "()Z",
+                     (void *)&GRAPH_METHOD(nativeIsProfilerAvailable));
+  AddJNINativeMethod(&graph_methods, graph, "nativeGetLivePacketStats",
+                     "(J[J)V", (void *)&GRAPH_METHOD(nativeGetLivePacketStats));
   AddJNINativeMethod(&graph_methods, graph, "nativeAddPacketToInputStream",
                      "(JLjava/lang/String;JJ)V",
                      (void *)&GRAPH_METHOD(nativeAddPacketToInputStream));
@@ -278,6 +282,12 @@ void RegisterPacketGetterNatives(JNIEnv *env) {
   AddJNINativeMethod(&packet_getter_methods, packet_getter,
                      "nativeGetFloat32Vector", "(J)[F",
                      (void *)&PACKET_GETTER_METHOD(nativeGetFloat32Vector));
+  AddJNINativeMethod(&packet_getter_methods, packet_getter,
+                     "nativeGetFloat32VectorInto", "(J[F)I",
+                     (void *)&PACKET_GETTER_METHOD(nativeGetFloat32VectorInto));
+  AddJNINativeMethod(&packet_getter_methods, packet_getter,
+                     "nativeGetImageDescriptor", "(J[I)V",
+                     (void *)&PACKET_GETTER_METHOD(nativeGetImageDescriptor));
   AddJNINativeMethod(&packet_getter_methods, packet_getter,
                      "nativeGetProtoVector", "(J)[[B",
                      (void *)&PACKET_GETTER_METHOD(nativeGetProtoVector));
@@ -299,6 +309,8 @@ void RegisterPacketNatives(JNIEnv *env) {
                      (void *)&PACKET_METHOD(nativeReleasePacket));
   AddJNINativeMethod(&packet_methods, packet, "nativeCopyPacket", "(J)J",
                      (void *)&PACKET_METHOD(nativeCopyPacket));
+  AddJNINativeMethod(&packet_methods, packet, "nativeGetGraphHandle", "(J)J",
+                     (void *)&PACKET_METHOD(nativeGetGraphHandle));
   AddJNINativeMethod(&packet_methods, packet, "nativeGetTimestamp", "(J)J",
                      (void *)&PACKET_METHOD(nativeGetTimestamp));
   AddJNINativeMethod(&packet_methods, packet, "nativeIsEmpty", "(J)Z",
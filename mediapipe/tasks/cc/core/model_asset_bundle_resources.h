@@ -50,6 +50,11 @@ class ModelAssetBundleResources {
   // Returns the model asset bundle resources tag.
   std::string GetTag() const { return tag_; }
 
+  // Returns the model asset bundle file.
+  const proto::ExternalFile& GetModelAssetBundleFile() const {
+    return *model_asset_bundle_file_;
+  }
+
   // Gets the contents of the model file (either tflite model file, resource
   // file or model bundle file) with the provided name. An error is returned if
   // there is no such model file.
@@ -21,9 +21,11 @@ limitations under the License.
 #include <vector>
 
 #include "absl/container/flat_hash_map.h"
+#include "absl/functional/function_ref.h"
 #include "absl/status/status.h"
 #include "absl/status/statusor.h"
 #include "absl/strings/substitute.h"
+#include "absl/synchronization/mutex.h"
 #include "mediapipe/framework/api2/packet.h"
 #include "mediapipe/tasks/cc/common.h"
 #include "mediapipe/tasks/cc/core/model_asset_bundle_resources.h"
@@ -43,15 +45,23 @@ ModelResourcesCache::ModelResourcesCache(
 }
 
 bool ModelResourcesCache::Exists(const std::string& tag) const {
+  absl::MutexLock lock(&mutex_);
   return model_resources_collection_.contains(tag);
 }
 
 bool ModelResourcesCache::ModelAssetBundleExists(const std::string& tag) const {
+  absl::MutexLock lock(&mutex_);
   return model_asset_bundle_resources_collection_.contains(tag);
 }
 
 absl::Status ModelResourcesCache::AddModelResources(
     std::unique_ptr<ModelResources> model_resources) {
+  absl::MutexLock lock(&mutex_);
+  return AddModelResourcesLocked(std::move(model_resources));
+}
+
+absl::Status ModelResourcesCache::AddModelResourcesLocked(
+    std::unique_ptr<ModelResources> model_resources) {
   if (model_resources == nullptr) {
     return CreateStatusWithPayload(
         absl::StatusCode::kInvalidArgument, "ModelResources object is null.",
@@ -64,7 +74,7 @@ absl::Status ModelResourcesCache::AddModelResources(
         "ModelResources must have a non-empty tag.",
         MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
   }
-  if (Exists(tag)) {
+  if (model_resources_collection_.contains(tag)) {
     return CreateStatusWithPayload(
         absl::StatusCode::kInvalidArgument,
         absl::Substitute("ModelResources with tag \"$0\" already exists.", tag),
@@ -90,17 +100,50 @@ absl::StatusOr<const ModelResources*> ModelResourcesCache::GetModelResources(
         "ModelResources must be retrieved with a non-empty tag.",
         MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
   }
-  if (!Exists(tag)) {
+  absl::MutexLock lock(&mutex_);
+  auto it = model_resources_collection_.find(tag);
+  if (it == model_resources_collection_.end()) {
     return CreateStatusWithPayload(
         absl::StatusCode::kInvalidArgument,
         absl::Substitute("ModelResources with tag \"$0\" does not exist.", tag),
         MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
   }
-  return model_resources_collection_.at(tag).get();
+  return it->second.get();
+}
+
+absl::StatusOr<const ModelResources*>
+ModelResourcesCache::GetOrCreateModelResources(
+    const std::string& tag,
+    absl::FunctionRef<absl::StatusOr<std::unique_ptr<ModelResources>>()>
+        create) {
+  if (tag.empty()) {
+    return CreateStatusWithPayload(
+        absl::StatusCode::kInvalidArgument,
+        "ModelResources must be retrieved with a non-empty tag.",
+        MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
+  }
+  // The lock is held while the resources are created, so that a model is
+  // loaded only once when several graphs ask for it at the same time.
+  absl::MutexLock lock(&mutex_);
+  auto it = model_resources_collection_.find(tag);
+  if (it != model_resources_collection_.end()) {
+    return it->second.get();
+  }
+  MP_ASSIGN_OR_RETURN(auto model_resources, create());
+  const ModelResources* model_resources_ptr = model_resources.get();
+  MP_RETURN_IF_ERROR(AddModelResourcesLocked(std::move(model_resources)));
+  return model_resources_ptr;
 }
 
 absl::Status ModelResourcesCache::AddModelAssetBundleResources(
     std::unique_ptr<ModelAssetBundleResources> model_asset_bundle_resources) {
+  absl::MutexLock lock(&mutex_);
+  return AddModelAssetBundleResourcesLocked(
+      std::move(model_asset_bundle_resources));
+}
+
+absl::Status ModelResourcesCache::AddModelAssetBundleResourcesLocked(
+    std::unique_ptr<ModelAssetBundleResources> model_asset_bundle_resources) {
   if (model_asset_bundle_resources == nullptr) {
     return CreateStatusWithPayload(
         absl::StatusCode::kInvalidArgument,
@@ -114,7 +157,7 @@ absl::Status ModelResourcesCache::AddModelAssetBundleResources(
         "ModelAssetBundleResources must have a non-empty tag.",
         MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
   }
-  if (ModelAssetBundleExists(tag)) {
+  if (model_asset_bundle_resources_collection_.contains(tag)) {
     return CreateStatusWithPayload(
         absl::StatusCode::kInvalidArgument,
         absl::Substitute(
@@ -145,14 +188,41 @@ ModelResourcesCache::GetModelAssetBundleResources(
         "ModelAssetBundleResources must be retrieved with a non-empty tag.",
         MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
   }
-  if (!ModelAssetBundleExists(tag)) {
+  absl::MutexLock lock(&mutex_);
+  auto it = model_asset_bundle_resources_collection_.find(tag);
+  if (it == model_asset_bundle_resources_collection_.end()) {
     return CreateStatusWithPayload(
         absl::StatusCode::kInvalidArgument,
         absl::Substitute(
             "ModelAssetBundleResources with tag \"$0\" does not exist.", tag),
         MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
   }
-  return model_asset_bundle_resources_collection_.at(tag).get();
+  return it->second.get();
+}
+
+absl::StatusOr<const ModelAssetBundleResources*>
+ModelResourcesCache::GetOrCreateModelAssetBundleResources(
+    const std::string& tag,
+    absl::FunctionRef<
+        absl::StatusOr<std::unique_ptr<ModelAssetBundleResources>>()>
+        create) {
+  if (tag.empty()) {
+    return CreateStatusWithPayload(
+        absl::StatusCode::kInvalidArgument,
+        "ModelAssetBundleResources must be retrieved with a non-empty tag.",
+        MediaPipeTasksStatus::kRunnerModelResourcesCacheServiceError);
+  }
+  absl::MutexLock lock(&mutex_);
+  auto it = model_asset_bundle_resources_collection_.find(tag);
+  if (it != model_asset_bundle_resources_collection_.end()) {
+    return it->second.get();
+  }
+  MP_ASSIGN_OR_RETURN(auto model_asset_bundle_resources, create());
+  const ModelAssetBundleResources* model_asset_bundle_resources_ptr =
+      model_asset_bundle_resources.get();
+  MP_RETURN_IF_ERROR(AddModelAssetBundleResourcesLocked(
+      std::move(model_asset_bundle_resources)));
+  return model_asset_bundle_resources_ptr;
 }
 
 absl::StatusOr<api2::Packet<tflite::OpResolver>>
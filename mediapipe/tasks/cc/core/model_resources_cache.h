@@ -20,10 +20,13 @@ limitations under the License.
 #include <string>
 #include <vector>
 
+#include "absl/base/thread_annotations.h"
 #include "absl/container/flat_hash_map.h"
+#include "absl/functional/function_ref.h"
 #include "absl/memory/memory.h"
 #include "absl/status/status.h"
 #include "absl/status/statusor.h"
+#include "absl/synchronization/mutex.h"
 #include "mediapipe/framework/api2/packet.h"
 #include "mediapipe/framework/calculator_framework.h"
 #include "mediapipe/tasks/cc/core/model_asset_bundle_resources.h"
@@ -39,6 +42,9 @@ namespace core {
 // ModelResources object that bundles the model-related resources (e.g.,
 // flatbuffer model, op resolver, and model metadata extractor) of a particular
 // model.
+//
+// The cache is thread-safe, so that it can be shared by graphs that are
+// initialized concurrently.
 class ModelResourcesCache {
  public:
   explicit ModelResourcesCache(
@@ -67,6 +73,16 @@ class ModelResourcesCache {
   absl::StatusOr<const ModelResources*> GetModelResources(
       const std::string& tag) const;
 
+  // Retrieves the ModelResources object of the tag, or creates it with
+  // `create`, which must return a ModelResources object of the same tag, and
+  // adds it into the cache if the tag doesn't exist yet. The lookup and the
+  // insertion are atomic: concurrent callers with the same tag get the same
+  // ModelResources object, which is created only once.
+  absl::StatusOr<const ModelResources*> GetOrCreateModelResources(
+      const std::string& tag,
+      absl::FunctionRef<absl::StatusOr<std::unique_ptr<ModelResources>>()>
+          create);
+
   // Adds a ModelAssetBundleResources object into the cache.
   // The tag of the ModelAssetBundleResources must be unique; the ownership of
   // the ModelAssetBundleResources will be transferred into the cache.
@@ -84,22 +100,43 @@ class ModelResourcesCache {
   absl::StatusOr<const ModelAssetBundleResources*> GetModelAssetBundleResources(
       const std::string& tag) const;
 
+  // Retrieves the ModelAssetBundleResources object of the tag, or creates it
+  // with `create`, which must return a ModelAssetBundleResources object of the
+  // same tag, and adds it into the cache if the tag doesn't exist yet. The
+  // lookup and the insertion are atomic.
+  absl::StatusOr<const ModelAssetBundleResources*>
+  GetOrCreateModelAssetBundleResources(
+      const std::string& tag,
+      absl::FunctionRef<
+          absl::StatusOr<std::unique_ptr<ModelAssetBundleResources>>()>
+          create);
+
   // Retrieves the graph op resolver packet.
   absl::StatusOr<api2::Packet<tflite::OpResolver>> GetGraphOpResolverPacket()
       const;
 
  private:
+  absl::Status AddModelResourcesLocked(
+      std::unique_ptr<ModelResources> model_resources)
+      ABSL_EXCLUSIVE_LOCKS_REQUIRED(mutex_);
+
+  absl::Status AddModelAssetBundleResourcesLocked(
+      std::unique_ptr<ModelAssetBundleResources> model_asset_bundle_resources)
+      ABSL_EXCLUSIVE_LOCKS_REQUIRED(mutex_);
+
   // The packet stores all TFLite op resolvers for the models in the graph.
   api2::Packet<tflite::OpResolver> graph_op_resolver_packet_;
 
+  mutable absl::Mutex mutex_;
+
   // A collection of ModelResources objects for the models in the graph.
   absl::flat_hash_map<std::string, std::unique_ptr<ModelResources>>
-      model_resources_collection_;
+      model_resources_collection_ ABSL_GUARDED_BY(mutex_);
 
   // A collection of ModelAssetBundleResources objects for the model bundles in
   // the graph.
   absl::flat_hash_map<std::string, std::unique_ptr<ModelAssetBundleResources>>
-      model_asset_bundle_resources_collection_;
+      model_asset_bundle_resources_collection_ ABSL_GUARDED_BY(mutex_);
 };
 
 // Global service for mediapipe task model resources cache.
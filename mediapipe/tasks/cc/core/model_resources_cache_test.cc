@@ -0,0 +1,119 @@
+/* Copyright 2024 The MediaPipe Authors.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+==============================================================================*/
+
+#include "mediapipe/tasks/cc/core/model_resources_cache.h"
+
+#include <memory>
+#include <string>
+#include <utility>
+
+#include "absl/status/status.h"
+#include "absl/status/statusor.h"
+#include "mediapipe/framework/port/gmock.h"
+#include "mediapipe/framework/port/gtest.h"
+#include "mediapipe/framework/port/status_matchers.h"
+#include "mediapipe/tasks/cc/core/model_resources.h"
+#include "mediapipe/tasks/cc/core/proto/external_file.pb.h"
+#include "mediapipe/tasks/cc/core/utils.h"
+#include "tensorflow/lite/test_util.h"
+
+namespace mediapipe {
+namespace tasks {
+namespace core {
+namespace {
+
+constexpr char kTestModelPath[] =
+    "mediapipe/tasks/testdata/core/"
+    "test_model_without_custom_op.tflite";
+
+absl::StatusOr<std::unique_ptr<ModelResources>> CreateTestModelResources(
+    const std::string& tag) {
+  auto model_file = std::make_unique<proto::ExternalFile>();
+  model_file->set_file_content(LoadBinaryContent(kTestModelPath));
+  return ModelResources::Create(tag, std::move(model_file));
+}
+
+class ModelResourcesCacheTest : public tflite::testing::Test {};
+
+TEST_F(ModelResourcesCacheTest, GetOrCreateCreatesOnlyOnce) {
+  ModelResourcesCache cache;
+  int create_count = 0;
+  auto create = [&]() -> absl::StatusOr<std::unique_ptr<ModelResources>> {
+    ++create_count;
+    return CreateTestModelResources("tag");
+  };
+
+  MP_ASSERT_OK_AND_ASSIGN(const ModelResources* first,
+                          cache.GetOrCreateModelResources("tag", create));
+  MP_ASSERT_OK_AND_ASSIGN(const ModelResources* second,
+                          cache.GetOrCreateModelResources("tag", create));
+
+  EXPECT_EQ(create_count, 1);
+  EXPECT_EQ(first, second);
+  EXPECT_TRUE(cache.Exists("tag"));
+  MP_ASSERT_OK_AND_ASSIGN(const ModelResources* cached,
+                          cache.GetModelResources("tag"));
+  EXPECT_EQ(cached, first);
+}
+
+TEST_F(ModelResourcesCacheTest, GetOrCreateKeepsTagsApart) {
+  ModelResourcesCache cache;
+
+  MP_ASSERT_OK_AND_ASSIGN(
+      const ModelResources* first,
+      cache.GetOrCreateModelResources(
+          "first", [] { return CreateTestModelResources("first"); }));
+  MP_ASSERT_OK_AND_ASSIGN(
+      const ModelResources* second,
+      cache.GetOrCreateModelResources(
+          "second", [] { return CreateTestModelResources("second"); }));
+
+  EXPECT_NE(first, second);
+  EXPECT_EQ(first->GetTag(), "first");
+  EXPECT_EQ(second->GetTag(), "second");
+}
+
+TEST_F(ModelResourcesCacheTest, GetOrCreateDoesNotCacheFailures) {
+  ModelResourcesCache cache;
+
+  auto status = cache.GetOrCreateModelResources(
+      "tag", []() -> absl::StatusOr<std::unique_ptr<ModelResources>> {
+        return absl::InternalError("Failed to load the model.");
+      });
+
+  EXPECT_EQ(status.status().code(), absl::StatusCode::kInternal);
+  EXPECT_FALSE(cache.Exists("tag"));
+  MP_EXPECT_OK(cache.GetOrCreateModelResources(
+      "tag", [] { return CreateTestModelResources("tag"); }));
+}
+
+TEST_F(ModelResourcesCacheTest, GetOrCreateFailsWithEmptyTag) {
+  ModelResourcesCache cache;
+  int create_count = 0;
+
+  auto status = cache.GetOrCreateModelResources(
+      "", [&]() -> absl::StatusOr<std::unique_ptr<ModelResources>> {
+        ++create_count;
+        return CreateTestModelResources("");
+      });
+
+  EXPECT_EQ(status.status().code(), absl::StatusCode::kInvalidArgument);
+  EXPECT_EQ(create_count, 0);
+}
+
+}  // namespace
+}  // namespace core
+}  // namespace tasks
+}  // namespace mediapipe
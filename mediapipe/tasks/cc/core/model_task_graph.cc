@@ -15,16 +15,23 @@ limitations under the License.
 
 #include "mediapipe/tasks/cc/core/model_task_graph.h"
 
+#include <sys/stat.h>
+
 #include <algorithm>
+#include <atomic>
+#include <cstdint>
 #include <memory>
 #include <string>
 #include <utility>
 #include <vector>
 
+#include "absl/hash/hash.h"
 #include "absl/log/absl_log.h"
 #include "absl/status/status.h"
 #include "absl/status/statusor.h"
 #include "absl/strings/ascii.h"
+#include "absl/strings/match.h"
+#include "absl/strings/str_cat.h"
 #include "absl/strings/str_format.h"
 #include "absl/strings/str_split.h"
 #include "mediapipe/calculators/tensor/inference_calculator.pb.h"
@@ -83,6 +90,53 @@ std::string CreateModelAssetBundleResourcesTag(
                          node_type);
 }
 
+// Returns a tag suffix that no other model asset has.
+std::string CreateUnsharedModelAssetSuffix() {
+  static std::atomic<int64_t> unshared_model_count(0);
+  return absl::StrFormat("_unshared_%d", unshared_model_count.fetch_add(1));
+}
+
+// Returns a tag suffix that identifies the model asset of `external_file`.
+// Task graphs that share a ModelResourcesCache look up the resources of an
+// identical model asset under the same tag, instead of loading another copy.
+//
+// The suffix of a model set by content only holds a hash of the content, so
+// the content of the cached resources must be checked to match as well.
+std::string CreateModelAssetFingerprint(
+    const proto::ExternalFile& external_file) {
+  if (external_file.has_file_content()) {
+    return absl::StrFormat("_content_%d_%x",
+                           external_file.file_content().size(),
+                           absl::HashOf(external_file.file_content()));
+  }
+  if (external_file.has_file_name()) {
+    const std::string& file_name = external_file.file_name();
+    if (absl::StartsWith(file_name, "/")) {
+      // The path alone would match a file that has been replaced since.
+      struct stat file_stat;
+      if (stat(file_name.c_str(), &file_stat) == 0) {
+        return absl::StrFormat("_file_%s_%d_%d_%d_%d", file_name,
+                               static_cast<uint64_t>(file_stat.st_dev),
+                               static_cast<uint64_t>(file_stat.st_ino),
+                               static_cast<int64_t>(file_stat.st_size),
+                               static_cast<int64_t>(file_stat.st_mtime));
+      }
+    } else if (!absl::StartsWith(file_name, "content://")) {
+      // Any other name is an asset of the app, e.g. an Android asset, which
+      // doesn't change while the app runs. PathToResourceAsFile() may copy an
+      // asset to a new file every time it's resolved, so the asset is
+      // identified by its name rather than by the file.
+      return absl::StrCat("_asset_", file_name);
+    }
+  }
+  // A file descriptor may be reused for a different file once it is closed,
+  // and a memory buffer may be freed and another model loaded at the same
+  // address, while the cached resources still refer to the old one. So the
+  // resources loaded through a file descriptor or a file pointer are never
+  // shared.
+  return CreateUnsharedModelAssetSuffix();
+}
+
 }  // namespace
 
 // Defines the mediapipe task inference unit as a MediaPipe subgraph that
@@ -174,31 +228,36 @@ absl::StatusOr<const ModelResources*> ModelTaskGraph::CreateModelResources(
     local_model_resources_.push_back(std::move(local_model_resource));
     return local_model_resources_.back().get();
   }
-  MP_ASSIGN_OR_RETURN(
-      auto op_resolver_packet,
-      model_resources_cache_service.GetObject().GetGraphOpResolverPacket());
-  const std::string tag =
-      absl::StrCat(CreateModelResourcesTag(sc->OriginalNode()), tag_suffix);
-  MP_ASSIGN_OR_RETURN(auto model_resources,
-                      ModelResources::Create(tag, std::move(external_file),
-                                             op_resolver_packet));
-  MP_RETURN_IF_ERROR(
-      model_resources_cache_service.GetObject().AddModelResources(
-          std::move(model_resources)));
-  return model_resources_cache_service.GetObject().GetModelResources(tag);
+  std::string tag =
+      absl::StrCat(CreateModelResourcesTag(sc->OriginalNode()), tag_suffix,
+                   CreateModelAssetFingerprint(*external_file));
+  // The cache may be shared with other graphs that have loaded the same model,
+  // possibly concurrently.
+  auto& model_resources_cache = model_resources_cache_service.GetObject();
+  auto create = [&]() -> absl::StatusOr<std::unique_ptr<ModelResources>> {
+    MP_ASSIGN_OR_RETURN(auto op_resolver_packet,
+                        model_resources_cache.GetGraphOpResolverPacket());
+    return ModelResources::Create(tag, std::move(external_file),
+                                  op_resolver_packet);
+  };
+  MP_ASSIGN_OR_RETURN(const ModelResources* model_resources,
+                      model_resources_cache.GetOrCreateModelResources(
+                          tag, create));
+  // The external file is left only if the resources were found in the cache.
+  if (external_file != nullptr && external_file->has_file_content() &&
+      model_resources->GetModelFile().file_content() !=
+          external_file->file_content()) {
+    // Another model has the same content hash: it's loaded under its own tag.
+    absl::StrAppend(&tag, CreateUnsharedModelAssetSuffix());
+    return model_resources_cache.GetOrCreateModelResources(tag, create);
+  }
+  return model_resources;
 }
 
 absl::StatusOr<const ModelResources*> ModelTaskGraph::GetOrCreateModelResources(
     SubgraphContext* sc, std::unique_ptr<proto::ExternalFile> external_file,
     std::string tag_suffix) {
-  auto model_resources_cache_service = sc->Service(kModelResourcesCacheService);
-  if (model_resources_cache_service.IsAvailable()) {
-    std::string tag =
-        absl::StrCat(CreateModelResourcesTag(sc->OriginalNode()), tag_suffix);
-    if (model_resources_cache_service.GetObject().Exists(tag)) {
-      return model_resources_cache_service.GetObject().GetModelResources(tag);
-    }
-  }
+  // CreateModelResources reuses the cached resources of the same model asset.
   return ModelTaskGraph::CreateModelResources(sc, std::move(external_file),
                                               tag_suffix);
 }
@@ -226,16 +285,29 @@ ModelTaskGraph::CreateModelAssetBundleResources(
         std::move(local_model_asset_bundle_resource));
     return local_model_asset_bundle_resources_.back().get();
   }
-  const std::string tag = absl::StrCat(
-      CreateModelAssetBundleResourcesTag(sc->OriginalNode()), tag_suffix);
+  std::string tag = absl::StrCat(
+      CreateModelAssetBundleResourcesTag(sc->OriginalNode()), tag_suffix,
+      CreateModelAssetFingerprint(*external_file));
+  // The cache may be shared with other graphs that have loaded the same bundle,
+  // possibly concurrently.
+  auto& model_resources_cache = model_resources_cache_service.GetObject();
+  auto create =
+      [&]() -> absl::StatusOr<std::unique_ptr<ModelAssetBundleResources>> {
+    return ModelAssetBundleResources::Create(tag, std::move(external_file));
+  };
   MP_ASSIGN_OR_RETURN(
-      auto model_bundle_resources,
-      ModelAssetBundleResources::Create(tag, std::move(external_file)));
-  MP_RETURN_IF_ERROR(
-      model_resources_cache_service.GetObject().AddModelAssetBundleResources(
-          std::move(model_bundle_resources)));
-  return model_resources_cache_service.GetObject().GetModelAssetBundleResources(
-      tag);
+      const ModelAssetBundleResources* model_asset_bundle_resources,
+      model_resources_cache.GetOrCreateModelAssetBundleResources(tag, create));
+  // The external file is left only if the resources were found in the cache.
+  if (external_file != nullptr && external_file->has_file_content() &&
+      model_asset_bundle_resources->GetModelAssetBundleFile().file_content() !=
+          external_file->file_content()) {
+    // Another bundle has the same content hash: it's loaded under its own tag.
+    absl::StrAppend(&tag, CreateUnsharedModelAssetSuffix());
+    return model_resources_cache.GetOrCreateModelAssetBundleResources(tag,
+                                                                      create);
+  }
+  return model_asset_bundle_resources;
 }
 
 GenericNode& ModelTaskGraph::AddInference(
@@ -23,6 +23,7 @@ import com.google.mediapipe.framework.Packet;
 import com.google.mediapipe.framework.PacketGetter;
 import com.google.mediapipe.framework.ProtoUtil;
 import com.google.mediapipe.tasks.audio.audioclassifier.proto.AudioClassifierGraphOptionsProto;
+import com.google.mediapipe.tasks.audio.core.AudioClipReader;
 import com.google.mediapipe.tasks.audio.core.BaseAudioTaskApi;
 import com.google.mediapipe.tasks.audio.core.RunningMode;
 import com.google.mediapipe.tasks.components.containers.AudioData;
@@ -209,6 +210,7 @@ public final class AudioClassifier extends BaseAudioTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(options)
+                .setModelResourcesCache(options.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(false)
                 .build(),
             handler);
@@ -266,6 +268,37 @@ public final class AudioClassifier extends BaseAudioTaskApi {
     return (AudioClassifierResult) processAudioClip(audioClip);
   }
 
+  /*
+   * Performs audio classification on a long audio clip read window by window from an {@link
+   * AudioClipReader}, e.g. a recording of several hours. Only use this method when the
+   * AudioClassifier is created with the audio clips mode.
+   *
+   * <p>Only a single window of the audio clip is held in memory at a time. Each window is
+   * classified as an audio clip of its own, and its {@link AudioClassifierResult} is passed to
+   * the {@code resultListener} as soon as it is available, before the next window is read. The
+   * result timestamp is the start (in milliseconds) of the window, and the timestamps of its
+   * ClassificationResult objects are relative to the start of the whole audio clip.
+   *
+   * <p>For the results to match the ones of {@link #classify(AudioData)} on the whole clip, the
+   * window length should be a multiple of the duration of the model input, e.g. 975 ms for YAMNet:
+   * otherwise, the last chunk of each window is padded rather than continued in the next window.
+   *
+   * @param reader the {@link AudioClipReader} of the audio clip.
+   * @param resultListener the listener to receive the result of each window.
+   * @throws IOException if an I/O error occurs when reading the audio clip.
+   * @throws MediaPipeException if there is an internal error.
+   */
+  public void classify(
+      AudioClipReader reader, PureResultListener<AudioClassifierResult> resultListener)
+      throws IOException {
+    processAudioClipWindows(
+        reader,
+        (result, windowStartMs) ->
+            resultListener.run(
+                AudioClassifierResult.createFromWindowResult(
+                    (AudioClassifierResult) result, windowStartMs)));
+  }
+
   /*
    * Sends audio data (a block in a continuous audio stream) to perform audio classification, and
    * the results will be available via the {@link ResultListener} provided in the
@@ -281,6 +314,10 @@ public final class AudioClassifier extends BaseAudioTaskApi {
    * provided in the `AudioClassifierOptions`. The `classifyAsync` method is designed to process
    * auido stream data such as microphone input.
    *
+   * <p>The sample rate and the number of channels of the first audio block set the format of the
+   * audio stream. The later audio blocks may come from sources with other sample rates or channel
+   * counts: they are resampled and mixed to the format of the stream in Java before being sent.
+   *
    * <p>The input audio block may be longer than what the model is able to process in a single
    * inference. When this occurs, the input audio block is split into multiple chunks. For this
    * reason, the callback may be called multiple times (once per chunk) for each call to this
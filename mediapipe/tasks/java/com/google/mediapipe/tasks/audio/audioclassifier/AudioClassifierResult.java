@@ -20,6 +20,7 @@ import com.google.mediapipe.tasks.components.containers.proto.ClassificationsPro
 import com.google.mediapipe.tasks.core.TaskResult;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /** Represents the classification results generated by {@link AudioClassifier}. */
 @AutoValue
@@ -56,6 +57,28 @@ public abstract class AudioClassifierResult implements TaskResult {
     return new AutoValue_AudioClassifierResult(classificationResultList, timestampMs);
   }
 
+  /**
+   * Creates an {@link AudioClassifierResult} instance from the result of a window of a long audio
+   * clip, with the timestamps of its {@link ClassificationResult}s shifted from the start of the
+   * window to the start of the clip.
+   *
+   * @param windowResult the {@link AudioClassifierResult} of the window.
+   * @param windowStartMs the start (in milliseconds) of the window in the audio clip, which is also
+   *     the timestamp of the created result.
+   */
+  static AudioClassifierResult createFromWindowResult(
+      AudioClassifierResult windowResult, long windowStartMs) {
+    List<ClassificationResult> classificationResultList =
+        new ArrayList<>(windowResult.classificationResults().size());
+    for (ClassificationResult result : windowResult.classificationResults()) {
+      classificationResultList.add(
+          ClassificationResult.create(
+              result.classifications(),
+              Optional.of(result.timestampMs().orElse(0L) + windowStartMs)));
+    }
+    return new AutoValue_AudioClassifierResult(classificationResultList, windowStartMs);
+  }
+
   /**
    * A list of of timestamped {@link ClassificationResult} objects, each contains one set of results
    * per classifier head.
@@ -204,6 +204,7 @@ public final class AudioEmbedder extends BaseAudioTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(options)
+                .setModelResourcesCache(options.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(false)
                 .build(),
             handler);
@@ -257,6 +258,10 @@ public final class AudioEmbedder extends BaseAudioTaskApi {
    * provided in the `AudioEmbedderOptions`. The `embedAsync` method is designed to process
    * auido stream data such as microphone input.
    *
+   * <p>The sample rate and the number of channels of the first audio block set the format of the
+   * audio stream. The later audio blocks may come from sources with other sample rates or channel
+   * counts: they are resampled and mixed to the format of the stream in Java before being sent.
+   *
    * <p>The input audio block may be longer than what the model is able to process in a single
    * inference. When this occurs, the input audio block is split into multiple chunks. For this
    * reason, the callback may be called multiple times (once per chunk) for each call to this
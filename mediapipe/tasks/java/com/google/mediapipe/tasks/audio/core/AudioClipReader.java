@@ -0,0 +1,430 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.audio.core;
+
+import com.google.mediapipe.tasks.components.containers.AudioData;
+import com.google.mediapipe.tasks.components.containers.AudioData.AudioDataFormat;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads a long audio clip as a sequence of fixed-length windows of {@link AudioData}, so that a
+ * clip of any length can be processed with the memory of a single window.
+ *
+ * <p>The clip is made of interleaved little-endian 16-bit PCM or 32-bit float samples, either raw
+ * or in a WAV file, and is read from a {@link ReadableByteChannel}, an {@link InputStream} or a
+ * file. Channels and streams are read through a fixed-size buffer and must be blocking. Files are
+ * memory-mapped one region at a time, so that clips of any size can be read.
+ */
+public final class AudioClipReader implements AutoCloseable {
+  /** The encodings of the audio samples supported by {@link AudioClipReader}. */
+  public enum Encoding {
+    /** Signed 16-bit PCM samples. */
+    PCM_16BIT(2),
+    /** 32-bit floating point samples in [-1, 1]. */
+    PCM_FLOAT(4);
+
+    private final int bytesPerSample;
+
+    Encoding(int bytesPerSample) {
+      this.bytesPerSample = bytesPerSample;
+    }
+  }
+
+  private static final int READ_BUFFER_SIZE_IN_BYTES = 64 * 1024;
+  private static final long MAPPED_REGION_SIZE_IN_BYTES = 64L * 1024 * 1024;
+  private static final long MILLISECONDS_PER_SECOND = 1000;
+  private static final int WAVE_FORMAT_PCM = 1;
+  private static final int WAVE_FORMAT_IEEE_FLOAT = 3;
+  private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+  // The data chunk size written by recorders that don't know the length of the data upfront.
+  private static final long WAV_UNKNOWN_DATA_SIZE = 0xFFFFFFFFL;
+
+  private final ReadableByteChannel channel;
+  // Whether the channel is a file that is memory-mapped rather than read into the input buffer.
+  private final boolean mapped;
+  // The input buffer, or the mapped region of the file. Null once the reader is closed.
+  private ByteBuffer input;
+  // The offset of the mapped region in the file.
+  private long mappedRegionOffset;
+  private long mappedRegionSize = MAPPED_REGION_SIZE_IN_BYTES;
+  private AudioDataFormat format;
+  private Encoding encoding;
+  private final int windowLengthMs;
+  private float[] samples;
+  private AudioData window;
+  private long remainingBytes = Long.MAX_VALUE;
+  private long framesRead;
+  private long windowStartFrame;
+
+  /**
+   * Creates an {@link AudioClipReader} of raw PCM samples read from a {@link ReadableByteChannel}.
+   *
+   * @param channel the blocking {@link ReadableByteChannel} to read the samples from.
+   * @param format the {@link AudioDataFormat} of the samples.
+   * @param encoding the {@link Encoding} of the samples.
+   * @param windowLengthMs the length of the windows in milliseconds.
+   */
+  public static AudioClipReader createFromPcm(
+      ReadableByteChannel channel, AudioDataFormat format, Encoding encoding, int windowLengthMs) {
+    AudioClipReader reader =
+        new AudioClipReader(
+            channel,
+            /* mapped= */ false,
+            ByteBuffer.allocateDirect(READ_BUFFER_SIZE_IN_BYTES),
+            windowLengthMs);
+    reader.input.limit(0);
+    reader.setFormat(format, encoding);
+    return reader;
+  }
+
+  /**
+   * Creates an {@link AudioClipReader} of raw PCM samples read from an {@link InputStream}.
+   *
+   * @param stream the {@link InputStream} to read the samples from.
+   * @param format the {@link AudioDataFormat} of the samples.
+   * @param encoding the {@link Encoding} of the samples.
+   * @param windowLengthMs the length of the windows in milliseconds.
+   */
+  public static AudioClipReader createFromPcm(
+      InputStream stream, AudioDataFormat format, Encoding encoding, int windowLengthMs) {
+    return createFromPcm(Channels.newChannel(stream), format, encoding, windowLengthMs);
+  }
+
+  /**
+   * Creates an {@link AudioClipReader} of a raw PCM file, which is memory-mapped region by region
+   * rather than read into the Java heap.
+   *
+   * @param file the raw PCM {@link File}.
+   * @param format the {@link AudioDataFormat} of the samples.
+   * @param encoding the {@link Encoding} of the samples.
+   * @param windowLengthMs the length of the windows in milliseconds.
+   * @throws IOException if an I/O error occurs when mapping the file.
+   */
+  public static AudioClipReader createFromPcm(
+      File file, AudioDataFormat format, Encoding encoding, int windowLengthMs)
+      throws IOException {
+    AudioClipReader reader = openMapped(file, windowLengthMs);
+    reader.setFormat(format, encoding);
+    return reader;
+  }
+
+  /**
+   * Creates an {@link AudioClipReader} of a WAV file read from a {@link ReadableByteChannel}. The
+   * format and the encoding of the samples are read from the WAV header.
+   *
+   * @param channel the blocking {@link ReadableByteChannel} to read the WAV file from.
+   * @param windowLengthMs the length of the windows in milliseconds.
+   * @throws IOException if an I/O error occurs or the WAV header is malformed.
+   * @throws IllegalArgumentException if the encoding of the samples is not supported.
+   */
+  public static AudioClipReader createFromWav(ReadableByteChannel channel, int windowLengthMs)
+      throws IOException {
+    AudioClipReader reader =
+        new AudioClipReader(
+            channel,
+            /* mapped= */ false,
+            ByteBuffer.allocateDirect(READ_BUFFER_SIZE_IN_BYTES),
+            windowLengthMs);
+    reader.input.limit(0);
+    reader.readWavHeader();
+    return reader;
+  }
+
+  /**
+   * Creates an {@link AudioClipReader} of a WAV file read from an {@link InputStream}. The format
+   * and the encoding of the samples are read from the WAV header.
+   *
+   * @param stream the {@link InputStream} to read the WAV file from.
+   * @param windowLengthMs the length of the windows in milliseconds.
+   * @throws IOException if an I/O error occurs or the WAV header is malformed.
+   * @throws IllegalArgumentException if the encoding of the samples is not supported.
+   */
+  public static AudioClipReader createFromWav(InputStream stream, int windowLengthMs)
+      throws IOException {
+    return createFromWav(Channels.newChannel(stream), windowLengthMs);
+  }
+
+  /**
+   * Creates an {@link AudioClipReader} of a WAV file, which is memory-mapped region by region
+   * rather than read into the Java heap. The format and the encoding of the samples are read from
+   * the WAV header.
+   *
+   * @param file the WAV {@link File}.
+   * @param windowLengthMs the length of the windows in milliseconds.
+   * @throws IOException if an I/O error occurs or the WAV header is malformed.
+   * @throws IllegalArgumentException if the encoding of the samples is not supported.
+   */
+  public static AudioClipReader createFromWav(File file, int windowLengthMs) throws IOException {
+    AudioClipReader reader = openMapped(file, windowLengthMs);
+    try {
+      reader.readWavHeader();
+    } catch (IOException | RuntimeException e) {
+      reader.close();
+      throw e;
+    }
+    return reader;
+  }
+
+  /**
+   * Reads the next window of the clip.
+   *
+   * <p>The returned {@link AudioData} is reused by the reader and is only valid until the next
+   * call. All windows are {@code windowLengthMs} long, except for the last one which holds the
+   * remaining samples of the clip.
+   *
+   * @return the next window, or null at the end of the clip.
+   * @throws IOException if an I/O error occurs.
+   */
+  public AudioData readWindow() throws IOException {
+    int bytesPerSample = encoding.bytesPerSample;
+    int count = 0;
+    while (count < samples.length && remainingBytes >= bytesPerSample) {
+      if (input.remaining() < bytesPerSample && !fill()) {
+        break;
+      }
+      int n =
+          (int)
+              Math.min(
+                  samples.length - count,
+                  Math.min(input.remaining(), remainingBytes) / bytesPerSample);
+      if (encoding == Encoding.PCM_16BIT) {
+        for (int i = 0; i < n; i++) {
+          samples[count + i] = (float) input.getShort() / Short.MAX_VALUE;
+        }
+      } else {
+        input.asFloatBuffer().get(samples, count, n);
+        input.position(input.position() + n * bytesPerSample);
+      }
+      count += n;
+      remainingBytes -= (long) n * bytesPerSample;
+    }
+    int numChannels = format.getNumOfChannels();
+    // Drops the incomplete frame of a truncated clip, if any.
+    int frames = count / numChannels;
+    windowStartFrame = framesRead;
+    framesRead += frames;
+    if (frames == 0) {
+      return null;
+    }
+    if (count == samples.length) {
+      window.load(samples);
+      return window;
+    }
+    AudioData lastWindow = AudioData.create(format, frames);
+    lastWindow.load(samples, 0, frames * numChannels);
+    return lastWindow;
+  }
+
+  /** Returns the start (in milliseconds) of the last window read, from the start of the clip. */
+  public long getWindowStartMs() {
+    return (long) (windowStartFrame * MILLISECONDS_PER_SECOND / (double) format.getSampleRate());
+  }
+
+  /** Returns the {@link AudioDataFormat} of the clip. */
+  public AudioDataFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Closes the underlying channel, stream or file.
+   *
+   * <p>The reader drops its reference to the mapped region of a file, which is unmapped once it is
+   * garbage collected, as Java offers no way to unmap it explicitly.
+   */
+  @Override
+  public void close() throws IOException {
+    input = null;
+    channel.close();
+  }
+
+  /** Sets the size of the regions of a file to map at a time. Visible for testing. */
+  void setMappedRegionSize(long mappedRegionSize) {
+    this.mappedRegionSize = mappedRegionSize;
+  }
+
+  private AudioClipReader(
+      ReadableByteChannel channel, boolean mapped, ByteBuffer input, int windowLengthMs) {
+    if (windowLengthMs <= 0) {
+      throw new IllegalArgumentException("The window length must be positive.");
+    }
+    this.channel = channel;
+    this.mapped = mapped;
+    this.input = input;
+    this.input.order(ByteOrder.LITTLE_ENDIAN);
+    this.windowLengthMs = windowLengthMs;
+  }
+
+  private void setFormat(AudioDataFormat format, Encoding encoding) {
+    int windowSampleCounts =
+        (int) Math.ceil(format.getSampleRate() * windowLengthMs / MILLISECONDS_PER_SECOND);
+    this.format = format;
+    this.encoding = encoding;
+    this.samples = new float[windowSampleCounts * format.getNumOfChannels()];
+    this.window = AudioData.create(format, windowSampleCounts);
+  }
+
+  private void readWavHeader() throws IOException {
+    require(12);
+    if (input.getInt() != fourCc("RIFF")) {
+      throw new IOException("Not a WAV file: missing RIFF header.");
+    }
+    input.getInt();
+    if (input.getInt() != fourCc("WAVE")) {
+      throw new IOException("Not a WAV file: missing WAVE format.");
+    }
+    AudioDataFormat wavFormat = null;
+    Encoding wavEncoding = null;
+    while (true) {
+      require(8);
+      int chunkId = input.getInt();
+      long chunkSize = input.getInt() & 0xFFFFFFFFL;
+      if (chunkId == fourCc("fmt ")) {
+        if (chunkSize < 16) {
+          throw new IOException("Malformed WAV file: fmt chunk is too short.");
+        }
+        require(16);
+        int formatTag = input.getShort() & 0xFFFF;
+        int numChannels = input.getShort() & 0xFFFF;
+        int sampleRate = input.getInt();
+        input.getInt();
+        input.getShort();
+        int bitsPerSample = input.getShort() & 0xFFFF;
+        long skipped = 16;
+        if (formatTag == WAVE_FORMAT_EXTENSIBLE && chunkSize >= 26) {
+          // The format tag is the first two bytes of the sub-format GUID.
+          require(10);
+          input.position(input.position() + 8);
+          formatTag = input.getShort() & 0xFFFF;
+          skipped = 26;
+        }
+        wavEncoding = getWavEncoding(formatTag, bitsPerSample);
+        wavFormat =
+            AudioDataFormat.builder()
+                .setNumOfChannels(numChannels)
+                .setSampleRate(sampleRate)
+                .build();
+        skip(chunkSize - skipped + (chunkSize & 1));
+      } else if (chunkId == fourCc("data")) {
+        if (wavFormat == null) {
+          throw new IOException("Malformed WAV file: data chunk before fmt chunk.");
+        }
+        remainingBytes = chunkSize == WAV_UNKNOWN_DATA_SIZE ? Long.MAX_VALUE : chunkSize;
+        setFormat(wavFormat, wavEncoding);
+        return;
+      } else {
+        skip(chunkSize + (chunkSize & 1));
+      }
+    }
+  }
+
+  private static Encoding getWavEncoding(int formatTag, int bitsPerSample) {
+    if (formatTag == WAVE_FORMAT_PCM && bitsPerSample == 16) {
+      return Encoding.PCM_16BIT;
+    }
+    if (formatTag == WAVE_FORMAT_IEEE_FLOAT && bitsPerSample == 32) {
+      return Encoding.PCM_FLOAT;
+    }
+    throw new IllegalArgumentException(
+        String.format(
+            "Unsupported WAV encoding: format %d with %d bits per sample. Only 16-bit PCM and"
+                + " 32-bit float are supported.",
+            formatTag, bitsPerSample));
+  }
+
+  /** Returns the little-endian int value of a four-character code of a RIFF file. */
+  private static int fourCc(String code) {
+    return code.charAt(0) | code.charAt(1) << 8 | code.charAt(2) << 16 | code.charAt(3) << 24;
+  }
+
+  /** Ensures that at least {@code size} bytes are available in the input buffer. */
+  private void require(int size) throws IOException {
+    while (input.remaining() < size) {
+      if (!fill()) {
+        throw new EOFException("Unexpected end of the WAV file.");
+      }
+    }
+  }
+
+  private void skip(long size) throws IOException {
+    while (size > 0) {
+      if (!input.hasRemaining() && !fill()) {
+        throw new EOFException("Unexpected end of the WAV file.");
+      }
+      int n = (int) Math.min(size, input.remaining());
+      input.position(input.position() + n);
+      size -= n;
+    }
+  }
+
+  /**
+   * Reads more bytes from the channel into the input buffer, keeping the bytes not consumed yet.
+   *
+   * @return false at the end of the channel.
+   */
+  private boolean fill() throws IOException {
+    if (mapped) {
+      return mapNextRegion();
+    }
+    input.compact();
+    int n;
+    try {
+      do {
+        n = channel.read(input);
+      } while (n == 0 && input.hasRemaining());
+    } finally {
+      input.flip();
+    }
+    return n > 0;
+  }
+
+  /**
+   * Maps the region of the file that starts at the first byte not consumed yet. A single mapping is
+   * limited to 2 GiB, so larger files are read through several regions.
+   *
+   * @return false if the region would not hold more bytes than the current one.
+   */
+  private boolean mapNextRegion() throws IOException {
+    FileChannel fileChannel = (FileChannel) channel;
+    long offset = mappedRegionOffset + input.position();
+    long size = Math.min(mappedRegionSize, fileChannel.size() - offset);
+    if (size <= input.remaining()) {
+      return false;
+    }
+    input = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+    input.order(ByteOrder.LITTLE_ENDIAN);
+    mappedRegionOffset = offset;
+    return true;
+  }
+
+  private static AudioClipReader openMapped(File file, int windowLengthMs) throws IOException {
+    FileChannel fileChannel = new FileInputStream(file).getChannel();
+    try {
+      return new AudioClipReader(
+          fileChannel, /* mapped= */ true, ByteBuffer.allocate(0), windowLengthMs);
+    } catch (RuntimeException e) {
+      fileChannel.close();
+      throw e;
+    }
+  }
+}
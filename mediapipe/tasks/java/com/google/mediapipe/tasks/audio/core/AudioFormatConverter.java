@@ -0,0 +1,254 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.audio.core;
+
+import com.google.mediapipe.tasks.components.containers.AudioData;
+import com.google.mediapipe.tasks.components.containers.AudioData.AudioDataFormat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Converts consecutive blocks of an audio stream to a fixed output format, mixing the channels and
+ * resampling the audio in Java before it's sent to the task graph.
+ *
+ * <p>The channels are either averaged into a mono output or a mono input is copied to all the
+ * output channels. The resampler is a polyphase windowed-sinc filter for the rational ratio of the
+ * input and output sample rates, e.g. 160/441 from 44.1kHz to 16kHz. Its state is carried across
+ * the blocks of the stream, and is reset whenever the input format changes. All the buffers are
+ * reused across the calls, and only grow with the size of the input blocks.
+ */
+public final class AudioFormatConverter {
+  // The number of input samples each output sample is interpolated from.
+  private static final int TAPS_PER_PHASE = 32;
+  // The cutoff frequency of the low-pass filter relative to the lowest of the Nyquist frequencies.
+  private static final double CUTOFF_RATIO = 0.9;
+
+  private final AudioDataFormat outputFormat;
+  private AudioDataFormat inputFormat;
+  private int upsamplingFactor = 1;
+  private int downsamplingFactor = 1;
+  // The filter coefficients, grouped by phase: coefficients[phase * TAPS_PER_PHASE + tap].
+  private float[] coefficients = new float[0];
+  private float[] input = new float[0];
+  // The last TAPS_PER_PHASE - 1 frames of the previous block when resampling, followed by the
+  // mixed frames of the current block.
+  private float[] frames = new float[0];
+  private float[] output = new float[0];
+  private FloatBuffer outputBuffer = allocateDirectFloatBuffer(0);
+  // The time of the next output frame, in units of the upsampled rate, from the start of frames.
+  private long nextOutputTime;
+
+  /**
+   * Creates an {@link AudioFormatConverter} instance.
+   *
+   * @param outputFormat the {@link AudioDataFormat} to convert the audio to.
+   */
+  public AudioFormatConverter(AudioDataFormat outputFormat) {
+    this.outputFormat = outputFormat;
+  }
+
+  /** Returns the {@link AudioDataFormat} the audio is converted to. */
+  public AudioDataFormat getOutputFormat() {
+    return outputFormat;
+  }
+
+  /**
+   * Discards the state carried across the blocks, e.g. when the blocks of the stream bypass the
+   * converter for a while. The next block is converted as the first block of a new stream.
+   */
+  public void reset() {
+    inputFormat = null;
+  }
+
+  /**
+   * Converts the next block of the audio stream to the output format.
+   *
+   * <p>The returned buffer is a direct {@link FloatBuffer} in native byte order of the interleaved
+   * output samples, between its position and its limit. It's owned by the converter, and is only
+   * valid until the next call.
+   *
+   * @param audioData the next block of the audio stream.
+   * @throws IllegalArgumentException if the channels of the input can't be mixed into the output
+   *     channels.
+   */
+  public FloatBuffer convert(AudioData audioData) {
+    configure(audioData.getFormat());
+    int inputChannels = inputFormat.getNumOfChannels();
+    int outputChannels = outputFormat.getNumOfChannels();
+    int numFrames = audioData.getBufferLength();
+    if (input.length < numFrames * inputChannels) {
+      input = new float[numFrames * inputChannels];
+    }
+    audioData.getBuffer(input);
+
+    boolean resampling = upsamplingFactor != downsamplingFactor;
+    int historyLength = resampling ? (TAPS_PER_PHASE - 1) * outputChannels : 0;
+    int framesLength = historyLength + numFrames * outputChannels;
+    if (frames.length < framesLength) {
+      frames = Arrays.copyOf(frames, framesLength);
+    }
+    mix(input, numFrames, inputChannels, frames, historyLength, outputChannels);
+    if (!resampling) {
+      return fillOutputBuffer(frames, framesLength);
+    }
+
+    int maxOutputLength =
+        (int) ((long) numFrames * upsamplingFactor / downsamplingFactor + 1) * outputChannels;
+    if (output.length < maxOutputLength) {
+      output = new float[maxOutputLength];
+    }
+    int outputLength = resample(numFrames + TAPS_PER_PHASE - 1, outputChannels);
+    // Keeps the last frames as the history of the next block.
+    System.arraycopy(frames, numFrames * outputChannels, frames, 0, historyLength);
+    nextOutputTime -= (long) numFrames * upsamplingFactor;
+    return fillOutputBuffer(output, outputLength);
+  }
+
+  /** Interpolates the output frames from the first {@code numFrames} frames. */
+  private int resample(int numFrames, int numChannels) {
+    long endTime = (long) numFrames * upsamplingFactor;
+    int outputLength = 0;
+    long time = nextOutputTime;
+    for (; time < endTime; time += downsamplingFactor) {
+      int lastFrame = (int) (time / upsamplingFactor);
+      int coefficientsOffset =
+          (int) (time - (long) lastFrame * upsamplingFactor) * TAPS_PER_PHASE;
+      for (int channel = 0; channel < numChannels; channel++) {
+        int frameIndex = lastFrame * numChannels + channel;
+        float sum = 0;
+        for (int tap = 0; tap < TAPS_PER_PHASE; tap++) {
+          sum += coefficients[coefficientsOffset + tap] * frames[frameIndex - tap * numChannels];
+        }
+        output[outputLength++] = sum;
+      }
+    }
+    nextOutputTime = time;
+    return outputLength;
+  }
+
+  private static void mix(
+      float[] src, int numFrames, int srcChannels, float[] dst, int dstOffset, int dstChannels) {
+    if (srcChannels == dstChannels) {
+      System.arraycopy(src, 0, dst, dstOffset, numFrames * srcChannels);
+    } else if (dstChannels == 1) {
+      float scale = 1f / srcChannels;
+      for (int i = 0; i < numFrames; i++) {
+        float sum = 0;
+        for (int channel = 0; channel < srcChannels; channel++) {
+          sum += src[i * srcChannels + channel];
+        }
+        dst[dstOffset + i] = sum * scale;
+      }
+    } else {
+      for (int i = 0; i < numFrames; i++) {
+        Arrays.fill(dst, dstOffset + i * dstChannels, dstOffset + (i + 1) * dstChannels, src[i]);
+      }
+    }
+  }
+
+  private FloatBuffer fillOutputBuffer(float[] src, int length) {
+    if (outputBuffer.capacity() < length) {
+      outputBuffer = allocateDirectFloatBuffer(length);
+    }
+    outputBuffer.clear();
+    outputBuffer.put(src, 0, length);
+    outputBuffer.flip();
+    return outputBuffer;
+  }
+
+  /** Sets up the mixing and the resampling of a new input format, if any. */
+  private void configure(AudioDataFormat format) {
+    if (format.equals(inputFormat)) {
+      return;
+    }
+    int inputChannels = format.getNumOfChannels();
+    int outputChannels = outputFormat.getNumOfChannels();
+    if (inputChannels != outputChannels && inputChannels != 1 && outputChannels != 1) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Can't mix %d audio channels into %d channels. The input or the output must be mono.",
+              inputChannels, outputChannels));
+    }
+    int inputSampleRate = Math.round(format.getSampleRate());
+    int outputSampleRate = Math.round(outputFormat.getSampleRate());
+    if (inputSampleRate <= 0 || outputSampleRate <= 0) {
+      throw new IllegalArgumentException("The audio sample rates must be positive.");
+    }
+    int gcd = gcd(inputSampleRate, outputSampleRate);
+    if (upsamplingFactor != outputSampleRate / gcd
+        || downsamplingFactor != inputSampleRate / gcd
+        || coefficients.length == 0) {
+      upsamplingFactor = outputSampleRate / gcd;
+      downsamplingFactor = inputSampleRate / gcd;
+      coefficients = createCoefficients(upsamplingFactor, downsamplingFactor);
+    }
+    Arrays.fill(frames, 0f);
+    nextOutputTime = (long) (TAPS_PER_PHASE - 1) * upsamplingFactor;
+    inputFormat = format;
+  }
+
+  /**
+   * Designs the Blackman-windowed sinc low-pass filter of the resampler at the upsampled rate, and
+   * returns its coefficients grouped by phase.
+   */
+  private static float[] createCoefficients(int upsamplingFactor, int downsamplingFactor) {
+    if (upsamplingFactor == downsamplingFactor) {
+      return new float[] {1f};
+    }
+    int numTaps = TAPS_PER_PHASE * upsamplingFactor;
+    // The cutoff frequency in cycles per upsampled sample.
+    double cutoff = CUTOFF_RATIO * 0.5 / Math.max(upsamplingFactor, downsamplingFactor);
+    double center = (numTaps - 1) / 2.0;
+    double[] filter = new double[numTaps];
+    double sum = 0;
+    for (int i = 0; i < numTaps; i++) {
+      double x = i - center;
+      double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+      double window =
+          0.42
+              - 0.5 * Math.cos(2 * Math.PI * i / (numTaps - 1))
+              + 0.08 * Math.cos(4 * Math.PI * i / (numTaps - 1));
+      filter[i] = sinc * window;
+      sum += filter[i];
+    }
+    // Each phase sees one input sample out of upsamplingFactor, hence the gain to keep the level.
+    double gain = upsamplingFactor / sum;
+    float[] coefficients = new float[numTaps];
+    for (int phase = 0; phase < upsamplingFactor; phase++) {
+      for (int tap = 0; tap < TAPS_PER_PHASE; tap++) {
+        coefficients[phase * TAPS_PER_PHASE + tap] =
+            (float) (filter[phase + tap * upsamplingFactor] * gain);
+      }
+    }
+    return coefficients;
+  }
+
+  private static int gcd(int a, int b) {
+    while (b != 0) {
+      int remainder = a % b;
+      a = b;
+      b = remainder;
+    }
+    return a;
+  }
+
+  private static FloatBuffer allocateDirectFloatBuffer(int size) {
+    return ByteBuffer.allocateDirect(size * Float.BYTES)
+        .order(ByteOrder.nativeOrder())
+        .asFloatBuffer();
+  }
+}
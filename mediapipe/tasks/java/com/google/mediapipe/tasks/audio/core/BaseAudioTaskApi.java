@@ -20,8 +20,11 @@ import android.media.MediaRecorder;
 import com.google.mediapipe.framework.MediaPipeException;
 import com.google.mediapipe.framework.Packet;
 import com.google.mediapipe.tasks.components.containers.AudioData;
+import com.google.mediapipe.tasks.components.containers.AudioData.AudioDataFormat;
 import com.google.mediapipe.tasks.core.TaskResult;
 import com.google.mediapipe.tasks.core.TaskRunner;
+import java.io.IOException;
+import java.nio.FloatBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +38,10 @@ public class BaseAudioTaskApi implements AutoCloseable {
   private final String audioStreamName;
   private final String sampleRateStreamName;
   private double defaultSampleRate;
+  // Guards the converter, whose state and output buffer are shared by the calls of
+  // sendAudioStreamData.
+  private final Object streamLock = new Object();
+  private AudioFormatConverter streamFormatConverter;
 
   static {
     System.loadLibrary("mediapipe_tasks_audio_jni");
@@ -75,26 +82,41 @@ public class BaseAudioTaskApi implements AutoCloseable {
               + runningMode.name());
     }
     Map<String, Packet> inputPackets = new HashMap<>();
-    inputPackets.put(
-        audioStreamName,
-        runner
-            .getPacketCreator()
-            .createMatrix(
-                audioClip.getFormat().getNumOfChannels(),
-                audioClip.getBufferLength(),
-                audioClip.getBuffer()));
+    inputPackets.put(audioStreamName, createAudioMatrix(audioClip));
     inputPackets.put(
         sampleRateStreamName,
         runner.getPacketCreator().createFloat64(audioClip.getFormat().getSampleRate()));
     return runner.process(inputPackets);
   }
 
+  /**
+   * A synchronous method to process a long audio clip window by window, with the memory of a single
+   * window. Each window is processed as an audio clip of its own, and its result is passed to the
+   * {@code windowResultListener} before the next window is read. The call blocks the current thread
+   * until the whole clip is processed or a failure occurs.
+   *
+   * @param reader the {@link AudioClipReader} of the audio clip.
+   * @param windowResultListener the {@link WindowResultListener} to receive the result of each
+   *     window.
+   * @throws IOException if an I/O error occurs when reading the audio clip.
+   * @throws MediaPipeException if the task is not in the audio clips mode.
+   */
+  protected void processAudioClipWindows(
+      AudioClipReader reader, WindowResultListener windowResultListener) throws IOException {
+    AudioData window;
+    while ((window = reader.readWindow()) != null) {
+      windowResultListener.run(processAudioClip(window), reader.getWindowStartMs());
+    }
+  }
+
   /**
    * Checks or sets the audio sample rate in the audio stream mode.
    *
+   * <p>The first sample rate received is the sample rate of the audio stream. The audio blocks
+   * with a different sample rate are resampled to it by {@link #sendAudioStreamData}.
+   *
    * @param sampleRate the audio sample rate.
-   * @throws MediaPipeException if the task is not in the audio stream mode or the provided sample
-   *     rate is inconsistent with the previously received.
+   * @throws MediaPipeException if the task is not in the audio stream mode.
    */
   protected void checkOrSetSampleRate(double sampleRate) {
     if (runningMode != RunningMode.AUDIO_STREAM) {
@@ -103,16 +125,7 @@ public class BaseAudioTaskApi implements AutoCloseable {
           "Task is not initialized with the audio stream mode. Current running mode:"
               + runningMode.name());
     }
-    if (defaultSampleRate > 0) {
-      if (Double.compare(sampleRate, defaultSampleRate) != 0) {
-        throw new MediaPipeException(
-            MediaPipeException.StatusCode.INVALID_ARGUMENT.ordinal(),
-            "The input audio sample rate: "
-                + sampleRate
-                + " is inconsistent with the previously provided: "
-                + defaultSampleRate);
-      }
-    } else {
+    if (defaultSampleRate <= 0) {
       Map<String, Packet> inputPackets = new HashMap<>();
       inputPackets.put(sampleRateStreamName, runner.getPacketCreator().createFloat64(sampleRate));
       runner.send(inputPackets, PRESTREAM_TIMESTAMP);
@@ -124,6 +137,13 @@ public class BaseAudioTaskApi implements AutoCloseable {
    * An asynchronous method to send audio stream data to the {@link TaskRunner}. The results will be
    * available in the user-defined result listener.
    *
+   * <p>The format of the audio stream is set by the first audio block: its number of channels, and
+   * the sample rate set by {@link #checkOrSetSampleRate}. The audio blocks in other formats are
+   * converted to it by an {@link AudioFormatConverter} before being sent, so that a single task
+   * can serve sources with different sample rates and channel counts. The state of the converter
+   * is dropped whenever a block in the stream format comes in, so that the blocks converted after
+   * it don't resume from the blocks converted before it.
+   *
    * @param audioClip a MediaPipe {@link AudioDatra} object for processing.
    * @param timestampMs the corresponding timestamp of the input image in milliseconds.
    * @throws MediaPipeException if the task is not in the stream mode.
@@ -135,16 +155,61 @@ public class BaseAudioTaskApi implements AutoCloseable {
           "Task is not initialized with the audio stream mode. Current running mode:"
               + runningMode.name());
     }
-    Map<String, Packet> inputPackets = new HashMap<>();
-    inputPackets.put(
-        audioStreamName,
-        runner
-            .getPacketCreator()
-            .createMatrix(
-                audioClip.getFormat().getNumOfChannels(),
-                audioClip.getBufferLength(),
-                audioClip.getBuffer()));
-    runner.send(inputPackets, timestampMs * MICROSECONDS_PER_MILLISECOND);
+    AudioDataFormat format = audioClip.getFormat();
+    synchronized (streamLock) {
+      if (streamFormatConverter == null) {
+        streamFormatConverter =
+            new AudioFormatConverter(
+                AudioDataFormat.builder()
+                    .setNumOfChannels(format.getNumOfChannels())
+                    .setSampleRate(
+                        defaultSampleRate > 0 ? (float) defaultSampleRate : format.getSampleRate())
+                    .build());
+      }
+      Packet audioMatrix;
+      if (format.equals(streamFormatConverter.getOutputFormat())) {
+        streamFormatConverter.reset();
+        audioMatrix = createAudioMatrix(audioClip);
+      } else {
+        FloatBuffer samples = streamFormatConverter.convert(audioClip);
+        int numChannels = streamFormatConverter.getOutputFormat().getNumOfChannels();
+        if (samples.remaining() < numChannels) {
+          // The block is shorter than the resampling step.
+          return;
+        }
+        audioMatrix =
+            runner
+                .getPacketCreator()
+                .createMatrix(numChannels, samples.remaining() / numChannels, samples);
+      }
+      Map<String, Packet> inputPackets = new HashMap<>();
+      inputPackets.put(audioStreamName, audioMatrix);
+      runner.send(inputPackets, timestampMs * MICROSECONDS_PER_MILLISECOND);
+    }
+  }
+
+  /**
+   * Creates the matrix packet of the audio samples, copied once, straight from the {@link
+   * AudioData} ring buffer into the matrix.
+   */
+  private Packet createAudioMatrix(AudioData audioClip) {
+    return runner
+        .getPacketCreator()
+        .createMatrix(
+            audioClip.getFormat().getNumOfChannels(),
+            audioClip.getBufferLength(),
+            audioClip.getBufferView());
+  }
+
+  /** Interface for receiving the results of the windows of a long audio clip. */
+  protected interface WindowResultListener {
+    /**
+     * Receives the result of a window of the audio clip.
+     *
+     * @param result the result of the window, with timestamps relative to the start of the window.
+     * @param windowStartMs the start (in milliseconds) of the window in the audio clip.
+     */
+    void run(TaskResult result, long windowStartMs);
   }
 
   /** Closes and cleans up the MediaPipe audio task. */
@@ -56,6 +56,9 @@ public class AudioData {
   private static final String TAG = AudioData.class.getSimpleName();
   private final FloatRingBuffer buffer;
   private final AudioDataFormat format;
+  // The scratch arrays that load(AudioRecord) reads into, reused across the calls.
+  private float[] floatRecordBuffer = new float[0];
+  private short[] shortRecordBuffer = new short[0];
 
   /**
    * Creates a {@link android.media.AudioRecord} instance with a ring buffer whose size is {@code
@@ -186,12 +189,13 @@ public class AudioData {
               "Index out of range. offset (%d) + size (%d) should <= newData.length (%d)",
               offsetInShort, sizeInShort, src.length));
     }
-    float[] floatData = new float[sizeInShort];
-    for (int i = 0; i < sizeInShort; i++) {
-      // Convert the data to PCM Float encoding i.e. values between -1 and 1
-      floatData[i] = src[i + offsetInShort] * 1.f / Short.MAX_VALUE;
+    if (sizeInShort % format.getNumOfChannels() != 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Size (%d) needs to be a multiplier of the number of channels (%d)",
+              sizeInShort, format.getNumOfChannels()));
     }
-    load(floatData);
+    buffer.load(src, offsetInShort, sizeInShort);
   }
 
   /**
@@ -209,15 +213,22 @@ public class AudioData {
       throw new IllegalArgumentException("Incompatible audio format.");
     }
     int loadedValues = 0;
+    int recordBufferSize = record.getChannelCount() * record.getBufferSizeInFrames();
     if (record.getAudioFormat() == AudioFormat.ENCODING_PCM_FLOAT) {
-      float[] newData = new float[record.getChannelCount() * record.getBufferSizeInFrames()];
+      if (floatRecordBuffer.length != recordBufferSize) {
+        floatRecordBuffer = new float[recordBufferSize];
+      }
+      float[] newData = floatRecordBuffer;
       loadedValues = record.read(newData, 0, newData.length, AudioRecord.READ_NON_BLOCKING);
       if (loadedValues > 0) {
         load(newData, 0, loadedValues);
         return loadedValues;
       }
     } else if (record.getAudioFormat() == AudioFormat.ENCODING_PCM_16BIT) {
-      short[] newData = new short[record.getChannelCount() * record.getBufferSizeInFrames()];
+      if (shortRecordBuffer.length != recordBufferSize) {
+        shortRecordBuffer = new short[recordBufferSize];
+      }
+      short[] newData = shortRecordBuffer;
       loadedValues = record.read(newData, 0, newData.length, AudioRecord.READ_NON_BLOCKING);
       if (loadedValues > 0) {
         load(newData, 0, loadedValues);
@@ -252,11 +263,44 @@ public class AudioData {
    */
   public float[] getBuffer() {
     float[] bufferData = new float[buffer.getCapacity()];
-    ByteBuffer byteBuffer = buffer.getBuffer();
-    byteBuffer.asFloatBuffer().get(bufferData);
+    buffer.copyTo(bufferData);
     return bufferData;
   }
 
+  /**
+   * Copies all the available audio samples in {@link android.media.AudioFormat#ENCODING_PCM_FLOAT}
+   * i.e. values in the range of [-1, 1], into {@code dst}, without allocating.
+   *
+   * <p>Reusing {@code dst} across calls avoids allocating a new array of the whole buffer length
+   * for every inference, e.g. in the audio stream mode.
+   *
+   * @param dst the array to copy the samples into, whose first {@code getBufferLength() *
+   *     getFormat().getNumOfChannels()} values are overwritten.
+   * @throws IllegalArgumentException if {@code dst} is shorter than the buffer.
+   */
+  public void getBuffer(float[] dst) {
+    if (dst.length < buffer.getCapacity()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The destination array (%d) is shorter than the buffer (%d).",
+              dst.length, buffer.getCapacity()));
+    }
+    buffer.copyTo(dst);
+  }
+
+  /**
+   * Returns a read-only direct {@link FloatBuffer} over all the available audio samples in {@link
+   * android.media.AudioFormat#ENCODING_PCM_FLOAT}, oldest first, without copying them.
+   *
+   * <p>The view reads the ring buffer itself, in the native byte order, so its content is only
+   * valid until the next {@code load} call. It lets native code, e.g. {@link
+   * com.google.mediapipe.framework.PacketCreator#createMatrix(int, int, FloatBuffer)}, read the
+   * samples with a single copy.
+   */
+  public FloatBuffer getBufferView() {
+    return buffer.view();
+  }
+
   /* Returns the {@link AudioDataFormat} associated with the tensor. */
   public AudioDataFormat getFormat() {
     return format;
@@ -272,14 +316,26 @@ public class AudioData {
     this.buffer = new FloatRingBuffer(sampleCounts * format.getNumOfChannels());
   }
 
-  /** Actual implementation of the ring buffer. */
+  /**
+   * Actual implementation of the ring buffer.
+   *
+   * <p>The samples are stored twice in a direct buffer, sample {@code i} of the ring at both {@code
+   * i} and {@code i + capacity}, so that the whole ring is always contiguous, starting at {@code
+   * nextIndex}. This doubles the writes of the loaded chunks, but lets the whole ring be read, once
+   * per inference, with a single bulk copy or none at all.
+   */
   private static class FloatRingBuffer {
 
-    private final float[] buffer;
+    private final FloatBuffer buffer;
+    private final int capacity;
     private int nextIndex = 0;
 
     public FloatRingBuffer(int flatSize) {
-      buffer = new float[flatSize];
+      capacity = flatSize;
+      buffer =
+          ByteBuffer.allocateDirect(2 * flatSize * Float.BYTES)
+              .order(ByteOrder.nativeOrder())
+              .asFloatBuffer();
     }
 
     /**
@@ -287,48 +343,76 @@ public class AudioData {
      * buffer's capacity, samples with lower indices in the array will be ignored.
      */
     public void load(float[] newData, int offset, int size) {
-      if (offset + size > newData.length) {
-        throw new IllegalArgumentException(
-            String.format(
-                "Index out of range. offset (%d) + size (%d) should <= newData.length (%d)",
-                offset, size, newData.length));
+      checkRange(newData.length, offset, size);
+      // If buffer can't hold all the data, only keep the most recent data of size capacity
+      if (size > capacity) {
+        offset += (size - capacity);
+        size = capacity;
       }
-      // If buffer can't hold all the data, only keep the most recent data of size buffer.length
-      if (size > buffer.length) {
-        offset += (size - buffer.length);
-        size = buffer.length;
+      // Copy in at most two chunks, wrapping nextIndex around the end of the ring.
+      int firstChunkSize = Math.min(size, capacity - nextIndex);
+      put(newData, offset, nextIndex, firstChunkSize);
+      put(newData, offset + firstChunkSize, 0, size - firstChunkSize);
+
+      nextIndex = (nextIndex + size) % capacity;
+    }
+
+    /**
+     * Converts a slice of the PCM16 array to PCM Float and loads it to the ring buffer, in place.
+     * If the array is longer than ring buffer's capacity, samples with lower indices in the array
+     * will be ignored.
+     */
+    public void load(short[] newData, int offset, int size) {
+      checkRange(newData.length, offset, size);
+      // If buffer can't hold all the data, only keep the most recent data of size capacity
+      if (size > capacity) {
+        offset += (size - capacity);
+        size = capacity;
       }
-      if (nextIndex + size < buffer.length) {
-        // No need to wrap nextIndex, just copy newData[offset:offset + size]
-        // to buffer[nextIndex:nextIndex+size]
-        arraycopy(newData, offset, buffer, nextIndex, size);
-      } else {
-        // Need to wrap nextIndex, perform copy in two chunks.
-        int firstChunkSize = buffer.length - nextIndex;
-        // First copy newData[offset:offset+firstChunkSize] to buffer[nextIndex:buffer.length]
-        arraycopy(newData, offset, buffer, nextIndex, firstChunkSize);
-        // Then copy newData[offset+firstChunkSize:offset+size] to buffer[0:size-firstChunkSize]
-        arraycopy(newData, offset + firstChunkSize, buffer, 0, size - firstChunkSize);
+      int index = nextIndex;
+      for (int i = 0; i < size; i++) {
+        // Convert the data to PCM Float encoding i.e. values between -1 and 1
+        float value = newData[offset + i] * 1.f / Short.MAX_VALUE;
+        buffer.put(index, value);
+        buffer.put(index + capacity, value);
+        index = index + 1 == capacity ? 0 : index + 1;
       }
 
-      nextIndex = (nextIndex + size) % buffer.length;
+      nextIndex = index;
     }
 
-    public ByteBuffer getBuffer() {
-      // Create non-direct buffers. On Pixel 4, creating direct buffer costs around 0.1 ms, which
-      // can be 5x ~ 10x longer compared to non-direct buffer backed by arrays (around 0.01ms), so
-      // generally we don't create direct buffer for every invocation.
-      ByteBuffer byteBuffer = ByteBuffer.allocate(Float.SIZE / 8 * buffer.length);
-      byteBuffer.order(ByteOrder.nativeOrder());
-      FloatBuffer result = byteBuffer.asFloatBuffer();
-      result.put(buffer, nextIndex, buffer.length - nextIndex);
-      result.put(buffer, 0, nextIndex);
-      byteBuffer.rewind();
-      return byteBuffer;
+    /** Copies the samples, oldest first, into {@code dst}. */
+    public void copyTo(float[] dst) {
+      buffer.position(nextIndex);
+      buffer.get(dst, 0, capacity);
+    }
+
+    /** Returns a read-only view of the samples, oldest first. */
+    public FloatBuffer view() {
+      FloatBuffer view = buffer.asReadOnlyBuffer();
+      view.limit(nextIndex + capacity);
+      view.position(nextIndex);
+      return view;
     }
 
     public int getCapacity() {
-      return buffer.length;
+      return capacity;
+    }
+
+    private void put(float[] src, int srcPos, int index, int size) {
+      buffer.position(index);
+      buffer.put(src, srcPos, size);
+      buffer.position(index + capacity);
+      buffer.put(src, srcPos, size);
+    }
+
+    private static void checkRange(int length, int offset, int size) {
+      if (offset + size > length) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Index out of range. offset (%d) + size (%d) should <= newData.length (%d)",
+                offset, size, length));
+      }
     }
   }
 }
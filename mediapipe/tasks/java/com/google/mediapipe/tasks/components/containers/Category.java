@@ -18,6 +18,9 @@ import com.google.auto.value.AutoValue;
 import com.google.mediapipe.formats.proto.ClassificationProto;
 import com.google.mediapipe.formats.proto.ClassificationProto.Classification;
 import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -30,6 +33,13 @@ import java.util.Objects;
 @AutoValue
 public abstract class Category {
   private static final float TOLERANCE = 1e-6f;
+  // The wire tags, i.e. the field number followed by 3 bits of wire type, of the classification
+  // list and classification fields.
+  private static final int CLASSIFICATION_TAG = (1 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int INDEX_TAG = (1 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int SCORE_TAG = (2 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int LABEL_TAG = (3 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int DISPLAY_NAME_TAG = (4 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
 
   /**
    * Creates a {@link Category} instance.
@@ -69,6 +79,53 @@ public abstract class Category {
     return categoryList;
   }
 
+  /**
+   * Decodes a serialized {@link ClassificationProto.ClassificationList} straight into a list of
+   * {@link Category} objects, without creating the proto messages.
+   *
+   * @param input the serialized {@link ClassificationProto.ClassificationList}, read up to its end
+   *     or limit.
+   * @return A list of {@link Category} objects.
+   * @throws IOException if the input is not a valid classification list.
+   */
+  public static List<Category> parseListFrom(CodedInputStream input) throws IOException {
+    List<Category> categoryList = new ArrayList<>();
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag != CLASSIFICATION_TAG) {
+        input.skipField(tag);
+        continue;
+      }
+      int oldLimit = input.pushLimit(input.readRawVarint32());
+      categoryList.add(parseClassification(input));
+      input.popLimit(oldLimit);
+    }
+    return categoryList;
+  }
+
+  private static Category parseClassification(CodedInputStream input) throws IOException {
+    // The defaults of the proto fields.
+    int index = 0;
+    float score = 0;
+    String label = "";
+    String displayName = "";
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == INDEX_TAG) {
+        index = input.readInt32();
+      } else if (tag == SCORE_TAG) {
+        score = input.readFloat();
+      } else if (tag == LABEL_TAG) {
+        label = input.readString();
+      } else if (tag == DISPLAY_NAME_TAG) {
+        displayName = input.readString();
+      } else {
+        input.skipField(tag);
+      }
+    }
+    return create(score, index, label, displayName);
+  }
+
   /** The probability score of this label category. */
   public abstract float score();
 
@@ -18,6 +18,9 @@ import android.graphics.RectF;
 import com.google.auto.value.AutoValue;
 import com.google.mediapipe.formats.proto.LocationDataProto.LocationData.BoundingBox;
 import com.google.mediapipe.formats.proto.LocationDataProto.LocationData.RelativeKeypoint;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,6 +35,30 @@ public abstract class Detection {
 
   private static final int DEFAULT_CATEGORY_INDEX = -1;
 
+  // The wire tags, i.e. the field number followed by 3 bits of wire type, of the detection fields
+  // read by parseFrom(). The packed repeated fields may also be sent unpacked.
+  private static final int LABEL_TAG = (1 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int PACKED_LABEL_ID_TAG = (2 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int LABEL_ID_TAG = (2 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int PACKED_SCORE_TAG = (3 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int SCORE_TAG = (3 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int LOCATION_DATA_TAG = (4 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int DISPLAY_NAME_TAG = (9 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  // LocationData fields.
+  private static final int BOUNDING_BOX_TAG = (2 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int RELATIVE_KEYPOINT_TAG =
+      (5 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  // BoundingBox fields.
+  private static final int XMIN_TAG = (1 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int YMIN_TAG = (2 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int WIDTH_TAG = (3 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int HEIGHT_TAG = (4 << 3) | WireFormat.WIRETYPE_VARINT;
+  // RelativeKeypoint fields.
+  private static final int KEYPOINT_X_TAG = (1 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int KEYPOINT_Y_TAG = (2 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int KEYPOINT_LABEL_TAG = (3 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int KEYPOINT_SCORE_TAG = (4 << 3) | WireFormat.WIRETYPE_FIXED32;
+
   /**
    * Creates a {@link Detection} instance from a list of {@link Category} and a bounding box.
    *
@@ -116,6 +143,130 @@ public abstract class Detection {
     return create(categories, boundingBox, keypoints);
   }
 
+  /**
+   * Decodes a serialized {@link com.google.mediapipe.formats.proto.DetectionProto.Detection}
+   * straight into a {@link Detection}, without creating the proto message. The result is the same
+   * as the one of {@link #createFromProto}.
+   *
+   * @param input the serialized detection, read up to its end or limit.
+   * @throws IOException if the input is not a valid detection.
+   */
+  public static Detection parseFrom(CodedInputStream input) throws IOException {
+    List<String> labels = new ArrayList<>();
+    List<Integer> labelIds = new ArrayList<>();
+    List<Float> scores = new ArrayList<>();
+    List<String> displayNames = new ArrayList<>();
+    RectF boundingBox = new RectF();
+    List<NormalizedKeypoint> keypoints = new ArrayList<>();
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == LABEL_TAG) {
+        labels.add(input.readString());
+      } else if (tag == LABEL_ID_TAG) {
+        labelIds.add(input.readInt32());
+      } else if (tag == PACKED_LABEL_ID_TAG) {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        while (input.getBytesUntilLimit() > 0) {
+          labelIds.add(input.readInt32());
+        }
+        input.popLimit(oldLimit);
+      } else if (tag == SCORE_TAG) {
+        scores.add(input.readFloat());
+      } else if (tag == PACKED_SCORE_TAG) {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        while (input.getBytesUntilLimit() > 0) {
+          scores.add(input.readFloat());
+        }
+        input.popLimit(oldLimit);
+      } else if (tag == LOCATION_DATA_TAG) {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        parseLocationData(input, boundingBox, keypoints);
+        input.popLimit(oldLimit);
+      } else if (tag == DISPLAY_NAME_TAG) {
+        displayNames.add(input.readString());
+      } else {
+        input.skipField(tag);
+      }
+    }
+    List<Category> categories = new ArrayList<>(scores.size());
+    for (int idx = 0; idx < scores.size(); ++idx) {
+      categories.add(
+          Category.create(
+              scores.get(idx),
+              labelIds.size() > idx ? labelIds.get(idx) : DEFAULT_CATEGORY_INDEX,
+              labels.size() > idx ? labels.get(idx) : "",
+              displayNames.size() > idx ? displayNames.get(idx) : ""));
+    }
+    return create(
+        categories, boundingBox, keypoints.isEmpty() ? Optional.empty() : Optional.of(keypoints));
+  }
+
+  private static void parseLocationData(
+      CodedInputStream input, RectF boundingBox, List<NormalizedKeypoint> keypoints)
+      throws IOException {
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == BOUNDING_BOX_TAG) {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        parseBoundingBox(input, boundingBox);
+        input.popLimit(oldLimit);
+      } else if (tag == RELATIVE_KEYPOINT_TAG) {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        keypoints.add(parseRelativeKeypoint(input));
+        input.popLimit(oldLimit);
+      } else {
+        input.skipField(tag);
+      }
+    }
+  }
+
+  private static void parseBoundingBox(CodedInputStream input, RectF boundingBox)
+      throws IOException {
+    int xmin = 0;
+    int ymin = 0;
+    int width = 0;
+    int height = 0;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == XMIN_TAG) {
+        xmin = input.readInt32();
+      } else if (tag == YMIN_TAG) {
+        ymin = input.readInt32();
+      } else if (tag == WIDTH_TAG) {
+        width = input.readInt32();
+      } else if (tag == HEIGHT_TAG) {
+        height = input.readInt32();
+      } else {
+        input.skipField(tag);
+      }
+    }
+    boundingBox.set(
+        /* left= */ xmin, /* top= */ ymin, /* right= */ xmin + width, /* bottom= */ ymin + height);
+  }
+
+  private static NormalizedKeypoint parseRelativeKeypoint(CodedInputStream input)
+      throws IOException {
+    float x = 0;
+    float y = 0;
+    Optional<String> label = Optional.empty();
+    Optional<Float> score = Optional.empty();
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == KEYPOINT_X_TAG) {
+        x = input.readFloat();
+      } else if (tag == KEYPOINT_Y_TAG) {
+        y = input.readFloat();
+      } else if (tag == KEYPOINT_LABEL_TAG) {
+        label = Optional.of(input.readString());
+      } else if (tag == KEYPOINT_SCORE_TAG) {
+        score = Optional.of(input.readFloat());
+      } else {
+        input.skipField(tag);
+      }
+    }
+    return NormalizedKeypoint.create(x, y, label, score);
+  }
+
   /** A list of {@link Category} objects. */
   public abstract List<Category> categories();
 
@@ -0,0 +1,357 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.containers;
+
+import com.google.mediapipe.formats.proto.LandmarkProto;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+/**
+ * A list of landmarks stored as flat primitive arrays, one per landmark field.
+ *
+ * <p>Holding a few hundred landmarks, e.g. the landmarks of a face, takes a handful of arrays
+ * instead of one {@link NormalizedLandmark} and two boxed {@link Optional}s per landmark. Whether a
+ * landmark has a visibility or a presence is tracked in bitmasks. The same container holds both
+ * normalized landmarks and world landmarks, which share the same fields; {@link
+ * #asNormalizedLandmarks()} and {@link #asLandmarks()} view it as a list of landmark objects, which
+ * are only created when accessed.
+ */
+public final class LandmarkArray {
+  private static final int INITIAL_CAPACITY = 32;
+  // The wire tags, i.e. the field number followed by 3 bits of wire type, of the landmark list and
+  // landmark fields, which are the same in the Landmark and the NormalizedLandmark protos.
+  private static final int LANDMARK_TAG = (1 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int X_TAG = (1 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int Y_TAG = (2 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int Z_TAG = (3 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int VISIBILITY_TAG = (4 << 3) | WireFormat.WIRETYPE_FIXED32;
+  private static final int PRESENCE_TAG = (5 << 3) | WireFormat.WIRETYPE_FIXED32;
+
+  private int size;
+  private float[] x;
+  private float[] y;
+  private float[] z;
+  private float[] visibility;
+  private float[] presence;
+  private long[] visibilityMask;
+  private long[] presenceMask;
+
+  /** Creates a {@link LandmarkArray} from a {@link LandmarkProto.NormalizedLandmarkList}. */
+  public static LandmarkArray createFromProto(
+      LandmarkProto.NormalizedLandmarkList landmarkListProto) {
+    LandmarkArray landmarks = new LandmarkArray(landmarkListProto.getLandmarkCount());
+    for (LandmarkProto.NormalizedLandmark landmarkProto : landmarkListProto.getLandmarkList()) {
+      int index = landmarks.size++;
+      landmarks.x[index] = landmarkProto.getX();
+      landmarks.y[index] = landmarkProto.getY();
+      landmarks.z[index] = landmarkProto.getZ();
+      if (landmarkProto.hasVisibility()) {
+        landmarks.setVisibility(index, landmarkProto.getVisibility());
+      }
+      if (landmarkProto.hasPresence()) {
+        landmarks.setPresence(index, landmarkProto.getPresence());
+      }
+    }
+    return landmarks;
+  }
+
+  /** Creates a {@link LandmarkArray} from a {@link LandmarkProto.LandmarkList}. */
+  public static LandmarkArray createFromProto(LandmarkProto.LandmarkList landmarkListProto) {
+    LandmarkArray landmarks = new LandmarkArray(landmarkListProto.getLandmarkCount());
+    for (LandmarkProto.Landmark landmarkProto : landmarkListProto.getLandmarkList()) {
+      int index = landmarks.size++;
+      landmarks.x[index] = landmarkProto.getX();
+      landmarks.y[index] = landmarkProto.getY();
+      landmarks.z[index] = landmarkProto.getZ();
+      if (landmarkProto.hasVisibility()) {
+        landmarks.setVisibility(index, landmarkProto.getVisibility());
+      }
+      if (landmarkProto.hasPresence()) {
+        landmarks.setPresence(index, landmarkProto.getPresence());
+      }
+    }
+    return landmarks;
+  }
+
+  /**
+   * Decodes a serialized {@link LandmarkProto.NormalizedLandmarkList} or {@link
+   * LandmarkProto.LandmarkList} straight into a {@link LandmarkArray}, without creating the proto
+   * messages.
+   *
+   * @param serializedLandmarkList the serialized landmark list.
+   * @throws InvalidProtocolBufferException if the bytes are not a valid landmark list.
+   */
+  public static LandmarkArray parseFrom(byte[] serializedLandmarkList)
+      throws InvalidProtocolBufferException {
+    return parseFrom(CodedInputStream.newInstance(serializedLandmarkList));
+  }
+
+  /**
+   * Decodes a serialized {@link LandmarkProto.NormalizedLandmarkList} or {@link
+   * LandmarkProto.LandmarkList} from the remaining input.
+   *
+   * @param input the input holding the serialized landmark list, read up to its end or limit.
+   * @throws InvalidProtocolBufferException if the input is not a valid landmark list.
+   */
+  public static LandmarkArray parseFrom(CodedInputStream input)
+      throws InvalidProtocolBufferException {
+    LandmarkArray landmarks = new LandmarkArray(INITIAL_CAPACITY);
+    try {
+      int tag;
+      while ((tag = input.readTag()) != 0) {
+        if (tag != LANDMARK_TAG) {
+          input.skipField(tag);
+          continue;
+        }
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        landmarks.readLandmark(input);
+        input.popLimit(oldLimit);
+      }
+    } catch (InvalidProtocolBufferException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new InvalidProtocolBufferException(e.getMessage());
+    }
+    return landmarks;
+  }
+
+  /** Returns the number of landmarks. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the x coordinate of the landmark at {@code index}. */
+  public float getX(int index) {
+    checkIndex(index);
+    return x[index];
+  }
+
+  /** Returns the y coordinate of the landmark at {@code index}. */
+  public float getY(int index) {
+    checkIndex(index);
+    return y[index];
+  }
+
+  /** Returns the z coordinate of the landmark at {@code index}. */
+  public float getZ(int index) {
+    checkIndex(index);
+    return z[index];
+  }
+
+  /** Returns whether the landmark at {@code index} has a visibility. */
+  public boolean hasVisibility(int index) {
+    checkIndex(index);
+    return isSet(visibilityMask, index);
+  }
+
+  /** Returns the visibility of the landmark at {@code index}, or 0 if it has none. */
+  public float getVisibility(int index) {
+    checkIndex(index);
+    return visibility[index];
+  }
+
+  /** Returns whether the landmark at {@code index} has a presence. */
+  public boolean hasPresence(int index) {
+    checkIndex(index);
+    return isSet(presenceMask, index);
+  }
+
+  /** Returns the presence of the landmark at {@code index}, or 0 if it has none. */
+  public float getPresence(int index) {
+    checkIndex(index);
+    return presence[index];
+  }
+
+  /**
+   * Copies the x, y and z coordinates of all the landmarks into {@code dst} as consecutive triples,
+   * e.g. to upload them as a vertex buffer.
+   *
+   * @param dst the destination array, which must hold at least {@code offset + 3 * size()} floats.
+   * @param offset the index in {@code dst} of the x coordinate of the first landmark.
+   * @throws IndexOutOfBoundsException if {@code dst} is too small.
+   */
+  public void copyCoordinatesTo(float[] dst, int offset) {
+    if (offset < 0 || dst.length - offset < 3 * size) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "Cannot copy %d coordinates into an array of length %d at offset %d.",
+              3 * size, dst.length, offset));
+    }
+    for (int i = 0; i < size; i++) {
+      dst[offset++] = x[i];
+      dst[offset++] = y[i];
+      dst[offset++] = z[i];
+    }
+  }
+
+  /**
+   * Returns an unmodifiable view of the landmarks as {@link NormalizedLandmark}s. Each element is
+   * created when accessed.
+   */
+  public List<NormalizedLandmark> asNormalizedLandmarks() {
+    return new LandmarkView<NormalizedLandmark>() {
+      @Override
+      public NormalizedLandmark get(int index) {
+        checkIndex(index);
+        return NormalizedLandmark.create(
+            x[index], y[index], z[index], optionalVisibility(index), optionalPresence(index));
+      }
+    };
+  }
+
+  /**
+   * Returns an unmodifiable view of the landmarks as {@link Landmark}s. Each element is created
+   * when accessed.
+   */
+  public List<Landmark> asLandmarks() {
+    return new LandmarkView<Landmark>() {
+      @Override
+      public Landmark get(int index) {
+        checkIndex(index);
+        return Landmark.create(
+            x[index], y[index], z[index], optionalVisibility(index), optionalPresence(index));
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof LandmarkArray)) {
+      return false;
+    }
+    LandmarkArray other = (LandmarkArray) o;
+    if (other.size != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (Float.compare(other.x[i], x[i]) != 0
+          || Float.compare(other.y[i], y[i]) != 0
+          || Float.compare(other.z[i], z[i]) != 0
+          || Float.compare(other.visibility[i], visibility[i]) != 0
+          || Float.compare(other.presence[i], presence[i]) != 0
+          || isSet(other.visibilityMask, i) != isSet(visibilityMask, i)
+          || isSet(other.presenceMask, i) != isSet(presenceMask, i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = size;
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + Float.floatToIntBits(x[i]);
+      hash = 31 * hash + Float.floatToIntBits(y[i]);
+      hash = 31 * hash + Float.floatToIntBits(z[i]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "<LandmarkArray (size=" + size + ")>";
+  }
+
+  private abstract class LandmarkView<T> extends AbstractList<T> implements RandomAccess {
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  private LandmarkArray(int capacity) {
+    capacity = Math.max(capacity, 1);
+    x = new float[capacity];
+    y = new float[capacity];
+    z = new float[capacity];
+    visibility = new float[capacity];
+    presence = new float[capacity];
+    visibilityMask = new long[(capacity + 63) / 64];
+    presenceMask = new long[(capacity + 63) / 64];
+  }
+
+  private void readLandmark(CodedInputStream input) throws IOException {
+    if (size == x.length) {
+      grow();
+    }
+    int index = size++;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == X_TAG) {
+        x[index] = input.readFloat();
+      } else if (tag == Y_TAG) {
+        y[index] = input.readFloat();
+      } else if (tag == Z_TAG) {
+        z[index] = input.readFloat();
+      } else if (tag == VISIBILITY_TAG) {
+        setVisibility(index, input.readFloat());
+      } else if (tag == PRESENCE_TAG) {
+        setPresence(index, input.readFloat());
+      } else {
+        input.skipField(tag);
+      }
+    }
+  }
+
+  private void grow() {
+    int capacity = x.length * 2;
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    z = Arrays.copyOf(z, capacity);
+    visibility = Arrays.copyOf(visibility, capacity);
+    presence = Arrays.copyOf(presence, capacity);
+    visibilityMask = Arrays.copyOf(visibilityMask, (capacity + 63) / 64);
+    presenceMask = Arrays.copyOf(presenceMask, (capacity + 63) / 64);
+  }
+
+  private void setVisibility(int index, float value) {
+    visibility[index] = value;
+    visibilityMask[index >> 6] |= 1L << index;
+  }
+
+  private void setPresence(int index, float value) {
+    presence[index] = value;
+    presenceMask[index >> 6] |= 1L << index;
+  }
+
+  private Optional<Float> optionalVisibility(int index) {
+    return isSet(visibilityMask, index) ? Optional.of(visibility[index]) : Optional.empty();
+  }
+
+  private Optional<Float> optionalPresence(int index) {
+    return isSet(presenceMask, index) ? Optional.of(presence[index]) : Optional.empty();
+  }
+
+  private static boolean isSet(long[] mask, int index) {
+    return (mask[index >> 6] & (1L << index)) != 0;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
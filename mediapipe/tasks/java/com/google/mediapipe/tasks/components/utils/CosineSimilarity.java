@@ -15,8 +15,16 @@
 package com.google.mediapipe.tasks.components.utils;
 
 import com.google.mediapipe.tasks.components.containers.Embedding;
+import java.util.ArrayList;
+import java.util.List;
 
-/** Utility class for computing cosine similarity between {@link Embedding} objects. */
+/**
+ * Utility class for computing cosine similarity between {@link Embedding} objects.
+ *
+ * <p>To rank a query against many stored embeddings, prepare the embeddings once as {@link
+ * NormalizedEmbedding}s, or pack them into a row-major embedding matrix, and use the batch and
+ * top-k methods.
+ */
 public class CosineSimilarity {
 
   // Non-instantiable class.
@@ -85,4 +93,296 @@ public class CosineSimilarity {
     }
     return dotProduct / Math.sqrt(normU * normV);
   }
+
+  /**
+   * Computes cosine similarity between two {@link NormalizedEmbedding} objects.
+   *
+   * @throws IllegalArgumentException if the embeddings are of different types (float vs.
+   *     quantized) or have different sizes.
+   */
+  public static double compute(NormalizedEmbedding u, NormalizedEmbedding v) {
+    checkCompatible(u, v.isQuantized(), v.size());
+    if (u.isQuantized()) {
+      int dotProduct = dotProduct(u.quantizedValues(), v.quantizedValues(), 0, u.size());
+      return dotProduct / (u.norm() * v.norm());
+    }
+    return dotProduct(u.floatValues(), v.floatValues(), 0, u.size());
+  }
+
+  /**
+   * Computes cosine similarity between a query and each row of a matrix of unit-length embeddings.
+   *
+   * @param query the query embedding.
+   * @param normalizedMatrix the row-major matrix of unit-length embeddings, e.g. the concatenated
+   *     {@link NormalizedEmbedding#floatValues()} of the candidates.
+   * @param scores the output array that receives one score per matrix row.
+   * @throws IllegalArgumentException if the query is quantized, the matrix size is not a multiple
+   *     of the query size, or the output array is too small.
+   */
+  public static void computeBatch(
+      NormalizedEmbedding query, float[] normalizedMatrix, float[] scores) {
+    checkCompatible(query, /* quantized= */ false, query.size());
+    int rows = checkMatrix(normalizedMatrix.length, query.size(), scores.length);
+    float[] u = query.floatValues();
+    int size = u.length;
+    for (int row = 0; row < rows; row++) {
+      scores[row] = dotProduct(u, normalizedMatrix, row * size, size);
+    }
+  }
+
+  /**
+   * Computes cosine similarity between a quantized query and each row of a quantized matrix.
+   *
+   * @param query the quantized query embedding.
+   * @param quantizedMatrix the row-major matrix of quantized embeddings.
+   * @param rowNorms the L2-norms of the matrix rows, see {@link #computeRowNorms}.
+   * @param scores the output array that receives one score per matrix row.
+   * @throws IllegalArgumentException if the query is not quantized, the matrix size does not match
+   *     the query size and the number of row norms, or the output array is too small.
+   */
+  public static void computeBatch(
+      NormalizedEmbedding query, byte[] quantizedMatrix, float[] rowNorms, float[] scores) {
+    checkCompatible(query, /* quantized= */ true, query.size());
+    int rows = checkMatrix(quantizedMatrix.length, query.size(), scores.length);
+    if (rows != rowNorms.length) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The number of row norms does not match the number of matrix rows (%d vs. %d).",
+              rowNorms.length, rows));
+    }
+    byte[] u = query.quantizedValues();
+    int size = u.length;
+    double queryNorm = query.norm();
+    for (int row = 0; row < rows; row++) {
+      int dotProduct = dotProduct(u, quantizedMatrix, row * size, size);
+      scores[row] = (float) (dotProduct / (queryNorm * rowNorms[row]));
+    }
+  }
+
+  /**
+   * Computes the L2-norm of each row of a quantized embedding matrix.
+   *
+   * @param quantizedMatrix the row-major matrix of quantized embeddings.
+   * @param size the number of dimensions of the embeddings.
+   * @throws IllegalArgumentException if the matrix size is not a multiple of the embedding size.
+   */
+  public static float[] computeRowNorms(byte[] quantizedMatrix, int size) {
+    int rows = checkMatrix(quantizedMatrix.length, size, Integer.MAX_VALUE);
+    float[] rowNorms = new float[rows];
+    for (int row = 0; row < rows; row++) {
+      int offset = row * size;
+      rowNorms[row] =
+          (float) Math.sqrt(dotProduct(quantizedMatrix, offset, quantizedMatrix, offset, size));
+    }
+    return rowNorms;
+  }
+
+  /**
+   * Finds the k rows of a matrix of unit-length embeddings that are the most similar to a query.
+   *
+   * @param query the query embedding.
+   * @param normalizedMatrix the row-major matrix of unit-length embeddings.
+   * @param k the maximum number of matches to return.
+   * @return the matches ordered by decreasing similarity.
+   */
+  public static List<SimilarityMatch> topK(
+      NormalizedEmbedding query, float[] normalizedMatrix, int k) {
+    float[] scores = new float[normalizedMatrix.length / Math.max(query.size(), 1)];
+    computeBatch(query, normalizedMatrix, scores);
+    return selectTopK(scores, scores.length, k);
+  }
+
+  /**
+   * Finds the k rows of a quantized matrix that are the most similar to a quantized query.
+   *
+   * @param query the quantized query embedding.
+   * @param quantizedMatrix the row-major matrix of quantized embeddings.
+   * @param rowNorms the L2-norms of the matrix rows, see {@link #computeRowNorms}.
+   * @param k the maximum number of matches to return.
+   * @return the matches ordered by decreasing similarity.
+   */
+  public static List<SimilarityMatch> topK(
+      NormalizedEmbedding query, byte[] quantizedMatrix, float[] rowNorms, int k) {
+    float[] scores = new float[rowNorms.length];
+    computeBatch(query, quantizedMatrix, rowNorms, scores);
+    return selectTopK(scores, scores.length, k);
+  }
+
+  /**
+   * Finds the k candidates that are the most similar to a query.
+   *
+   * @param query the query embedding.
+   * @param candidates the candidate embeddings.
+   * @param k the maximum number of matches to return.
+   * @return the matches ordered by decreasing similarity, indexed by candidate position.
+   * @throws IllegalArgumentException if a candidate is of a different type or size than the query.
+   */
+  public static List<SimilarityMatch> topK(
+      NormalizedEmbedding query, List<NormalizedEmbedding> candidates, int k) {
+    float[] scores = new float[candidates.size()];
+    for (int i = 0; i < scores.length; i++) {
+      scores[i] = (float) compute(query, candidates.get(i));
+    }
+    return selectTopK(scores, scores.length, k);
+  }
+
+  /**
+   * Selects the k highest scores with a bounded min-heap.
+   *
+   * @param scores the scores of the candidates.
+   * @param count the number of valid scores.
+   * @param k the maximum number of matches to return.
+   * @return the matches ordered by decreasing score.
+   */
+  static List<SimilarityMatch> selectTopK(float[] scores, int count, int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k must be non-negative.");
+    }
+    int heapSize = 0;
+    int[] heap = new int[Math.min(k, count)];
+    for (int i = 0; i < count; i++) {
+      if (heapSize < heap.length) {
+        heap[heapSize++] = i;
+        siftUp(heap, heapSize - 1, scores);
+      } else if (heap.length > 0 && scores[i] > scores[heap[0]]) {
+        heap[0] = i;
+        siftDown(heap, heapSize, scores);
+      }
+    }
+    SimilarityMatch[] matches = new SimilarityMatch[heapSize];
+    while (heapSize > 0) {
+      int index = heap[0];
+      matches[--heapSize] = SimilarityMatch.create(index, scores[index]);
+      heap[0] = heap[heapSize];
+      siftDown(heap, heapSize, scores);
+    }
+    List<SimilarityMatch> result = new ArrayList<>(matches.length);
+    for (SimilarityMatch match : matches) {
+      result.add(match);
+    }
+    return result;
+  }
+
+  /** Computes the dot product of a floating-point vector and a slice of another vector. */
+  static float dotProduct(float[] u, float[] v, int vOffset, int length) {
+    return dotProduct(u, 0, v, vOffset, length);
+  }
+
+  /**
+   * Computes the dot product of two floating-point vector slices.
+   *
+   * <p>The loop keeps four independent accumulators, so that the multiply-adds of consecutive
+   * elements do not wait on each other.
+   */
+  static float dotProduct(float[] u, int uOffset, float[] v, int vOffset, int length) {
+    float sum0 = 0f;
+    float sum1 = 0f;
+    float sum2 = 0f;
+    float sum3 = 0f;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      sum0 += u[uOffset + i] * v[vOffset + i];
+      sum1 += u[uOffset + i + 1] * v[vOffset + i + 1];
+      sum2 += u[uOffset + i + 2] * v[vOffset + i + 2];
+      sum3 += u[uOffset + i + 3] * v[vOffset + i + 3];
+    }
+    for (; i < length; i++) {
+      sum0 += u[uOffset + i] * v[vOffset + i];
+    }
+    return (sum0 + sum1) + (sum2 + sum3);
+  }
+
+  /** Computes the dot product of a quantized vector and a slice of another quantized vector. */
+  static int dotProduct(byte[] u, byte[] v, int vOffset, int length) {
+    return dotProduct(u, 0, v, vOffset, length);
+  }
+
+  /**
+   * Computes the dot product of two quantized vector slices with integer arithmetic. The sum cannot
+   * overflow for embeddings of less than 131072 dimensions.
+   */
+  static int dotProduct(byte[] u, int uOffset, byte[] v, int vOffset, int length) {
+    int sum0 = 0;
+    int sum1 = 0;
+    int sum2 = 0;
+    int sum3 = 0;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      sum0 += u[uOffset + i] * v[vOffset + i];
+      sum1 += u[uOffset + i + 1] * v[vOffset + i + 1];
+      sum2 += u[uOffset + i + 2] * v[vOffset + i + 2];
+      sum3 += u[uOffset + i + 3] * v[vOffset + i + 3];
+    }
+    for (; i < length; i++) {
+      sum0 += u[uOffset + i] * v[vOffset + i];
+    }
+    return (sum0 + sum1) + (sum2 + sum3);
+  }
+
+  private static void checkCompatible(NormalizedEmbedding u, boolean quantized, int size) {
+    if (u.isQuantized() != quantized) {
+      throw new IllegalArgumentException(
+          "Cannot compute cosine similarity between quantized and float embeddings.");
+    }
+    if (u.size() != size) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Cannot compute cosine similarity between embeddings of different sizes (%d vs."
+                  + " %d).",
+              u.size(), size));
+    }
+  }
+
+  private static int checkMatrix(int matrixLength, int size, int maxRows) {
+    if (size <= 0 || matrixLength % size != 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The embedding matrix size %d is not a multiple of the embedding size %d.",
+              matrixLength, size));
+    }
+    int rows = matrixLength / size;
+    if (rows > maxRows) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The output array is too small for the embedding matrix (%d vs. %d rows).",
+              maxRows, rows));
+    }
+    return rows;
+  }
+
+  private static void siftUp(int[] heap, int position, float[] scores) {
+    int index = heap[position];
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (scores[heap[parent]] <= scores[index]) {
+        break;
+      }
+      heap[position] = heap[parent];
+      position = parent;
+    }
+    heap[position] = index;
+  }
+
+  private static void siftDown(int[] heap, int heapSize, float[] scores) {
+    if (heapSize == 0) {
+      return;
+    }
+    int index = heap[0];
+    int position = 0;
+    while (true) {
+      int child = 2 * position + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && scores[heap[child + 1]] < scores[heap[child]]) {
+        child++;
+      }
+      if (scores[index] <= scores[heap[child]]) {
+        break;
+      }
+      heap[position] = heap[child];
+      position = child;
+    }
+    heap[position] = index;
+  }
 }
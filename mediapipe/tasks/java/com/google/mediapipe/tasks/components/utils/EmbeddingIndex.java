@@ -0,0 +1,101 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import com.google.mediapipe.tasks.components.containers.Embedding;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A searchable collection of embeddings, ranked by cosine similarity.
+ *
+ * <p>An index holds either floating-point or quantized embeddings of one size, each associated with
+ * a caller-defined integer id. Implementations are not thread-safe; callers must synchronize
+ * concurrent access.
+ *
+ * <ul>
+ *   <li>{@link FlatEmbeddingIndex} compares the query against every embedding, and returns the
+ *       exact top-k.
+ *   <li>{@link HnswEmbeddingIndex} walks a hierarchical navigable small world graph, and returns an
+ *       approximate top-k in sub-linear time.
+ * </ul>
+ */
+public interface EmbeddingIndex {
+
+  /**
+   * Adds an embedding to the index.
+   *
+   * @param id the id of the embedding, returned in the search results.
+   * @param embedding the embedding, e.g. from {@code ImageEmbedderResult}.
+   * @throws IllegalArgumentException if the id is already in the index, or the embedding is of a
+   *     different type or size than the index.
+   */
+  void add(int id, Embedding embedding);
+
+  /**
+   * Adds a {@link NormalizedEmbedding} to the index.
+   *
+   * @param id the id of the embedding, returned in the search results.
+   * @param embedding the normalized embedding.
+   * @throws IllegalArgumentException if the id is already in the index, or the embedding is of a
+   *     different type or size than the index.
+   */
+  void add(int id, NormalizedEmbedding embedding);
+
+  /**
+   * Removes an embedding from the index.
+   *
+   * @param id the id of the embedding.
+   * @return whether the index contained the embedding.
+   */
+  boolean remove(int id);
+
+  /** Returns whether the index contains an embedding with the given id. */
+  boolean contains(int id);
+
+  /** Returns the number of embeddings in the index. */
+  int size();
+
+  /**
+   * Finds the k embeddings that are the most similar to the query.
+   *
+   * @param query the query embedding.
+   * @param k the maximum number of matches to return.
+   * @return the matches ordered by decreasing similarity, where {@link SimilarityMatch#index()} is
+   *     the id of the matched embedding.
+   * @throws IllegalArgumentException if the query is of a different type or size than the index.
+   */
+  List<SimilarityMatch> search(Embedding query, int k);
+
+  /**
+   * Finds the k embeddings that are the most similar to a {@link NormalizedEmbedding} query.
+   *
+   * @param query the normalized query embedding.
+   * @param k the maximum number of matches to return.
+   * @return the matches ordered by decreasing similarity, where {@link SimilarityMatch#index()} is
+   *     the id of the matched embedding.
+   * @throws IllegalArgumentException if the query is of a different type or size than the index.
+   */
+  List<SimilarityMatch> search(NormalizedEmbedding query, int k);
+
+  /**
+   * Saves the index to a file through a memory mapping. The file is overwritten.
+   *
+   * @param file the destination file.
+   * @throws IOException if the file cannot be written.
+   */
+  void save(File file) throws IOException;
+}
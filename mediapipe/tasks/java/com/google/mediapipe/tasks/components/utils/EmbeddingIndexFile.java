@@ -0,0 +1,105 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The file layout shared by the embedding indices.
+ *
+ * <p>A file starts with the header: the magic number, the format version, the index type, whether
+ * the embeddings are quantized, the embedding dimension and the number of stored embeddings, all as
+ * little-endian 32-bit integers. The index-specific payload follows.
+ */
+final class EmbeddingIndexFile {
+  static final int TYPE_FLAT = 0;
+  static final int TYPE_HNSW = 1;
+  static final int HEADER_SIZE = 6 * 4;
+
+  // "MPEI" in ASCII.
+  private static final int MAGIC = 0x4d504549;
+  private static final int VERSION = 1;
+
+  /**
+   * Creates or truncates the file and maps it for writing.
+   *
+   * @param file the destination file.
+   * @param size the total size of the file in bytes.
+   * @param type the index type.
+   * @param vectors the stored embeddings, whose properties are written to the header.
+   * @return the mapped buffer, positioned after the header. Call {@link MappedByteBuffer#force}
+   *     once the payload is written, so that it reaches the storage device.
+   */
+  static MappedByteBuffer mapForWriting(File file, long size, int type, EmbeddingVectors vectors)
+      throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("The embedding index is too large to be mapped: " + size + " bytes.");
+    }
+    MappedByteBuffer buffer;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      randomAccessFile.setLength(size);
+      buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer
+        .putInt(MAGIC)
+        .putInt(VERSION)
+        .putInt(type)
+        .putInt(vectors.isQuantized() ? 1 : 0)
+        .putInt(vectors.dimension())
+        .putInt(vectors.count());
+    return buffer;
+  }
+
+  /**
+   * Maps the file for reading, and validates its magic number, version and index type.
+   *
+   * @param file the source file.
+   * @param type the expected index type.
+   * @return the mapped buffer, positioned after the index type, at the quantization flag.
+   * @throws IOException if the file cannot be read, or is not an index of the expected type.
+   */
+  static ByteBuffer mapForReading(File file, int type) throws IOException {
+    ByteBuffer buffer;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+      buffer =
+          randomAccessFile
+              .getChannel()
+              .map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+      throw new IOException(file + " is not an embedding index file.");
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported embedding index file version: " + version + ".");
+    }
+    int fileType = buffer.getInt();
+    if (fileType != type) {
+      throw new IOException(
+          String.format("Expected an embedding index of type %d, but got %d.", type, fileType));
+    }
+    return buffer;
+  }
+
+  private EmbeddingIndexFile() {}
+}
@@ -0,0 +1,440 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import com.google.mediapipe.tasks.components.containers.Embedding;
+import com.google.mediapipe.tasks.components.containers.proto.EmbeddingsProto;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An append-only store of embeddings, backed by a memory-mapped file.
+ *
+ * <p>The embeddings live in the page cache rather than on the Java heap, so that millions of them
+ * can be kept without garbage collection pressure. Each embedding is a fixed-stride record that
+ * holds the head index and the float32 or int8 values. The head names are stored once per head
+ * index in the file header. Readers get zero-copy {@link FloatBuffer} and {@link ByteBuffer} views
+ * of the records instead of {@link Embedding} objects.
+ *
+ * <p>The records are mapped in segments of 64 MiB, and the backing file grows by one segment at a
+ * time. Appends are serialized, and the views of the appended records can be read from any thread.
+ */
+public final class EmbeddingStore implements Closeable {
+  // "MPES" in ASCII.
+  private static final int MAGIC = 0x4d504553;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4096;
+  private static final int QUANTIZED_OFFSET = 8;
+  private static final int DIMENSION_OFFSET = 12;
+  private static final int SIZE_OFFSET = 16;
+  private static final int HEAD_NAMES_OFFSET = 32;
+  private static final int MAX_HEADS = 32;
+  private static final int HEAD_NAME_ENTRY_SIZE = 64;
+  private static final int MAX_HEAD_NAME_BYTES = HEAD_NAME_ENTRY_SIZE - 4;
+  private static final int RECORD_HEADER_SIZE = 4;
+  // The records are mapped in segments of at most this size, as a mapping is limited to 2 GiB.
+  private static final int MAX_SEGMENT_SIZE = 1 << 26;
+
+  private final RandomAccessFile file;
+  private final boolean quantized;
+  private final int dimension;
+  private final int recordStride;
+  private final int recordsPerSegment;
+  private final MappedByteBuffer header;
+  // Appends add segments while readers may access the existing ones.
+  private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+  // Written by the appends and read by the readers without the lock.
+  private final AtomicReferenceArray<String> headNames = new AtomicReferenceArray<>(MAX_HEADS);
+  private volatile int size;
+
+  /**
+   * Creates an empty {@link EmbeddingStore}. An existing file is overwritten.
+   *
+   * @param file the backing file.
+   * @param dimension the size of the embeddings.
+   * @param quantized whether the store holds quantized embeddings.
+   * @throws IOException if the file cannot be created.
+   */
+  public static EmbeddingStore create(File file, int dimension, boolean quantized)
+      throws IOException {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("The embedding dimension must be positive.");
+    }
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      randomAccessFile.setLength(0);
+      MappedByteBuffer header = mapHeader(randomAccessFile);
+      header
+          .putInt(0, MAGIC)
+          .putInt(4, VERSION)
+          .putInt(QUANTIZED_OFFSET, quantized ? 1 : 0)
+          .putInt(DIMENSION_OFFSET, dimension)
+          .putInt(SIZE_OFFSET, 0);
+      return new EmbeddingStore(randomAccessFile, header, dimension, quantized, /* size= */ 0);
+    } catch (IOException | RuntimeException e) {
+      closeAfterFailure(randomAccessFile, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Opens an existing {@link EmbeddingStore} for reading and appending.
+   *
+   * @param file the backing file.
+   * @throws IOException if the file cannot be opened, or is not an embedding store, or is corrupt.
+   */
+  public static EmbeddingStore open(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      if (randomAccessFile.length() < HEADER_SIZE) {
+        throw new IOException(file + " is not an embedding store file.");
+      }
+      MappedByteBuffer header = mapHeader(randomAccessFile);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+        throw new IOException(
+            file + " is not an embedding store file of version " + VERSION + ".");
+      }
+      int quantizedFlag = header.getInt(QUANTIZED_OFFSET);
+      int dimension = header.getInt(DIMENSION_OFFSET);
+      int size = header.getInt(SIZE_OFFSET);
+      if ((quantizedFlag != 0 && quantizedFlag != 1) || dimension <= 0 || size < 0) {
+        throw new IOException(file + " has a corrupt embedding store header.");
+      }
+      boolean quantized = quantizedFlag != 0;
+      long recordStride = getRecordStride(dimension, quantized);
+      if (recordStride > MAX_SEGMENT_SIZE) {
+        throw new IOException(file + " has an embedding dimension too large: " + dimension);
+      }
+      // The file grows by whole segments, so it holds the segments of all the records.
+      long recordsPerSegment = MAX_SEGMENT_SIZE / recordStride;
+      long segmentCount = (size + recordsPerSegment - 1) / recordsPerSegment;
+      if (HEADER_SIZE + segmentCount * recordsPerSegment * recordStride
+          > randomAccessFile.length()) {
+        throw new IOException(file + " is too short for its " + size + " embeddings.");
+      }
+      EmbeddingStore store =
+          new EmbeddingStore(randomAccessFile, header, dimension, quantized, size);
+      for (int headIndex = 0; headIndex < MAX_HEADS; headIndex++) {
+        int entryOffset = HEAD_NAMES_OFFSET + headIndex * HEAD_NAME_ENTRY_SIZE;
+        int length = header.getInt(entryOffset);
+        if (length < 0 || length > MAX_HEAD_NAME_BYTES) {
+          throw new IOException(file + " has a corrupt head name of head " + headIndex + ".");
+        }
+        if (length > 0) {
+          byte[] name = new byte[length];
+          ByteBuffer entry = header.duplicate();
+          entry.position(entryOffset + 4);
+          entry.get(name);
+          store.headNames.set(headIndex, new String(name, StandardCharsets.UTF_8));
+        }
+      }
+      return store;
+    } catch (IOException | RuntimeException e) {
+      closeAfterFailure(randomAccessFile, e);
+      throw e;
+    }
+  }
+
+  /** Returns the number of stored embeddings. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the size of the stored embeddings. */
+  public int dimension() {
+    return dimension;
+  }
+
+  /** Returns whether the store holds quantized embeddings. */
+  public boolean isQuantized() {
+    return quantized;
+  }
+
+  /**
+   * Appends an {@link Embedding}.
+   *
+   * @return the record index of the embedding.
+   * @throws IllegalArgumentException if the embedding is of a different type or size than the
+   *     store, or its head name differs from the stored head name of its head index.
+   * @throws IOException if the backing file cannot be extended.
+   */
+  public synchronized int append(Embedding embedding) throws IOException {
+    ByteBuffer record =
+        beginAppend(
+            embedding.quantizedEmbedding().length > 0,
+            quantized ? embedding.quantizedEmbedding().length : embedding.floatEmbedding().length,
+            embedding.headIndex(),
+            embedding.headName());
+    if (quantized) {
+      record.put(embedding.quantizedEmbedding());
+    } else {
+      record.asFloatBuffer().put(embedding.floatEmbedding());
+    }
+    return commitAppend(embedding.headIndex(), embedding.headName());
+  }
+
+  /**
+   * Appends an {@link EmbeddingsProto.Embedding} protobuf message, e.g. one of the embeddings of
+   * the {@link EmbeddingsProto.EmbeddingResult} carried by the output packet of an embedder graph.
+   * The values are written straight into the mapped file, without an intermediate array.
+   *
+   * @return the record index of the embedding.
+   * @throws IllegalArgumentException if the embedding is of a different type or size than the
+   *     store, or its head name differs from the stored head name of its head index.
+   * @throws IOException if the backing file cannot be extended.
+   */
+  public synchronized int append(EmbeddingsProto.Embedding proto) throws IOException {
+    boolean isQuantized = proto.hasQuantizedEmbedding();
+    Optional<String> headName =
+        proto.hasHeadName() ? Optional.of(proto.getHeadName()) : Optional.empty();
+    ByteBuffer record =
+        beginAppend(
+            isQuantized,
+            isQuantized
+                ? proto.getQuantizedEmbedding().getValues().size()
+                : proto.getFloatEmbedding().getValuesCount(),
+            proto.getHeadIndex(),
+            headName);
+    if (isQuantized) {
+      proto.getQuantizedEmbedding().getValues().copyTo(record);
+    } else {
+      FloatBuffer values = record.asFloatBuffer();
+      for (int i = 0; i < dimension; i++) {
+        values.put(i, proto.getFloatEmbedding().getValues(i));
+      }
+    }
+    return commitAppend(proto.getHeadIndex(), headName);
+  }
+
+  /**
+   * Appends all embeddings of an {@link EmbeddingsProto.EmbeddingResult} protobuf message.
+   *
+   * @return the record index of the first appended embedding.
+   * @throws IllegalArgumentException if one of the embeddings cannot be appended, see {@link
+   *     #append(EmbeddingsProto.Embedding)}. The embeddings before it remain appended.
+   * @throws IOException if the backing file cannot be extended.
+   */
+  public synchronized int appendAll(EmbeddingsProto.EmbeddingResult proto) throws IOException {
+    int firstRecord = size;
+    for (EmbeddingsProto.Embedding embedding : proto.getEmbeddingsList()) {
+      append(embedding);
+    }
+    return firstRecord;
+  }
+
+  /** Returns the head index of a stored embedding. */
+  public int getHeadIndex(int record) {
+    return recordBuffer(record).getInt(0);
+  }
+
+  /** Returns the head name of a stored embedding. */
+  public Optional<String> getHeadName(int record) {
+    return Optional.ofNullable(headNames.get(getHeadIndex(record)));
+  }
+
+  /**
+   * Returns a read-only view of the values of a stored floating-point embedding.
+   *
+   * @throws IllegalStateException if the store holds quantized embeddings.
+   */
+  public FloatBuffer getFloatEmbedding(int record) {
+    if (quantized) {
+      throw new IllegalStateException("The store holds quantized embeddings.");
+    }
+    return valuesBuffer(record).asFloatBuffer().asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns a read-only view of the values of a stored quantized embedding.
+   *
+   * @throws IllegalStateException if the store holds floating-point embeddings.
+   */
+  public ByteBuffer getQuantizedEmbedding(int record) {
+    if (!quantized) {
+      throw new IllegalStateException("The store holds floating-point embeddings.");
+    }
+    return valuesBuffer(record).asReadOnlyBuffer();
+  }
+
+  /** Flushes the appended embeddings to the backing file. */
+  public synchronized void flush() {
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+    header.force();
+  }
+
+  /** Flushes the appended embeddings and closes the backing file. */
+  @Override
+  public synchronized void close() throws IOException {
+    flush();
+    file.close();
+  }
+
+  private ByteBuffer beginAppend(
+      boolean isQuantized, int length, int headIndex, Optional<String> headName)
+      throws IOException {
+    if (isQuantized != quantized) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The store holds %s embeddings, but got a %s embedding.",
+              quantized ? "quantized" : "float", isQuantized ? "quantized" : "float"));
+    }
+    if (length != dimension) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The store holds embeddings of size %d, but got an embedding of size %d.",
+              dimension, length));
+    }
+    checkHeadName(headIndex, headName);
+    int segment = size / recordsPerSegment;
+    while (segments.size() <= segment) {
+      segments.add(mapSegment(segments.size()));
+    }
+    ByteBuffer record = recordBuffer(segments.get(segment), size % recordsPerSegment);
+    record.putInt(0, headIndex);
+    return valuesBuffer(record);
+  }
+
+  /**
+   * Completes an append, and stores the head name of the embedding if it's the first one of its
+   * head index, so that a failed append leaves no head name behind.
+   */
+  private int commitAppend(int headIndex, Optional<String> headName) {
+    if (headName.isPresent() && headNames.get(headIndex) == null) {
+      storeHeadName(headIndex, headName.get());
+    }
+    header.putInt(SIZE_OFFSET, size + 1);
+    return size++;
+  }
+
+  private void checkHeadName(int headIndex, Optional<String> headName) {
+    if (headIndex < 0 || headIndex >= MAX_HEADS) {
+      throw new IllegalArgumentException(
+          String.format("The head index must be in [0, %d), but got %d.", MAX_HEADS, headIndex));
+    }
+    if (!headName.isPresent()) {
+      return;
+    }
+    String storedName = headNames.get(headIndex);
+    if (storedName != null) {
+      if (!storedName.equals(headName.get())) {
+        throw new IllegalArgumentException(
+            String.format(
+                "The head %d is named \"%s\" in the store, but got \"%s\".",
+                headIndex, storedName, headName.get()));
+      }
+      return;
+    }
+    byte[] name = headName.get().getBytes(StandardCharsets.UTF_8);
+    if (name.length > MAX_HEAD_NAME_BYTES) {
+      throw new IllegalArgumentException(
+          "The head name must be at most " + MAX_HEAD_NAME_BYTES + " bytes long.");
+    }
+  }
+
+  /** Stores the head name of a head index that has none yet. */
+  private void storeHeadName(int headIndex, String headName) {
+    byte[] name = headName.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer entry = header.duplicate();
+    entry.position(HEAD_NAMES_OFFSET + headIndex * HEAD_NAME_ENTRY_SIZE + 4);
+    entry.put(name);
+    header.putInt(HEAD_NAMES_OFFSET + headIndex * HEAD_NAME_ENTRY_SIZE, name.length);
+    headNames.set(headIndex, headName);
+  }
+
+  private ByteBuffer valuesBuffer(int record) {
+    return valuesBuffer(recordBuffer(record));
+  }
+
+  private ByteBuffer valuesBuffer(ByteBuffer record) {
+    record.position(RECORD_HEADER_SIZE);
+    record.limit(RECORD_HEADER_SIZE + dimension * (quantized ? 1 : 4));
+    return record.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private ByteBuffer recordBuffer(int record) {
+    if (record < 0 || record >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Record %d is out of range [0, %d).", record, size));
+    }
+    return recordBuffer(segments.get(record / recordsPerSegment), record % recordsPerSegment);
+  }
+
+  private ByteBuffer recordBuffer(MappedByteBuffer segment, int recordInSegment) {
+    ByteBuffer buffer = segment.duplicate();
+    buffer.position(recordInSegment * recordStride);
+    buffer.limit(recordInSegment * recordStride + recordStride);
+    return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private MappedByteBuffer mapSegment(int segment) throws IOException {
+    long segmentSize = (long) recordsPerSegment * recordStride;
+    return file.getChannel()
+        .map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + segment * segmentSize, segmentSize);
+  }
+
+  /** Returns the size of a record, rounded up to 4 bytes to align the values of float records. */
+  private static long getRecordStride(int dimension, boolean quantized) {
+    return (RECORD_HEADER_SIZE + (long) dimension * (quantized ? 1 : 4) + 3) & ~3L;
+  }
+
+  private static void closeAfterFailure(RandomAccessFile file, Exception e) {
+    try {
+      file.close();
+    } catch (IOException closeException) {
+      e.addSuppressed(closeException);
+    }
+  }
+
+  private static MappedByteBuffer mapHeader(RandomAccessFile file) throws IOException {
+    MappedByteBuffer header =
+        file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    return header;
+  }
+
+  private EmbeddingStore(
+      RandomAccessFile file, MappedByteBuffer header, int dimension, boolean quantized, int size)
+      throws IOException {
+    this.file = file;
+    this.header = header;
+    this.dimension = dimension;
+    this.quantized = quantized;
+    long recordStride = getRecordStride(dimension, quantized);
+    if (recordStride > MAX_SEGMENT_SIZE) {
+      throw new IllegalArgumentException("The embedding dimension is too large: " + dimension);
+    }
+    this.recordStride = (int) recordStride;
+    this.recordsPerSegment = MAX_SEGMENT_SIZE / this.recordStride;
+    this.size = size;
+    int segmentCount = (size + recordsPerSegment - 1) / recordsPerSegment;
+    for (int segment = 0; segment < segmentCount; segment++) {
+      segments.add(mapSegment(segment));
+    }
+  }
+}
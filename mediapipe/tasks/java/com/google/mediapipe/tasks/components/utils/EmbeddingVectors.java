@@ -0,0 +1,179 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable row-major matrix of embeddings of the same type and size, used as the vector storage
+ * of the embedding indices.
+ *
+ * <p>Float embeddings are stored at unit length. Quantized embeddings are stored as int8 values,
+ * along with their L2-norms.
+ */
+final class EmbeddingVectors {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int dimension;
+  private final boolean quantized;
+  private float[] floatValues;
+  private byte[] quantizedValues;
+  private float[] norms;
+  private int count;
+
+  EmbeddingVectors(int dimension, boolean quantized) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("The embedding dimension must be positive.");
+    }
+    this.dimension = dimension;
+    this.quantized = quantized;
+    this.floatValues = new float[quantized ? 0 : INITIAL_CAPACITY * dimension];
+    this.quantizedValues = new byte[quantized ? INITIAL_CAPACITY * dimension : 0];
+    this.norms = new float[quantized ? INITIAL_CAPACITY : 0];
+  }
+
+  int dimension() {
+    return dimension;
+  }
+
+  boolean isQuantized() {
+    return quantized;
+  }
+
+  /** Returns the number of stored rows. */
+  int count() {
+    return count;
+  }
+
+  /**
+   * Checks that the embedding can be stored in, or compared against, this matrix.
+   *
+   * @throws IllegalArgumentException if the embedding is of a different type or size.
+   */
+  void checkCompatible(NormalizedEmbedding embedding) {
+    if (embedding.isQuantized() != quantized) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The index holds %s embeddings, but got a %s embedding.",
+              quantized ? "quantized" : "float", embedding.isQuantized() ? "quantized" : "float"));
+    }
+    if (embedding.size() != dimension) {
+      throw new IllegalArgumentException(
+          String.format(
+              "The index holds embeddings of size %d, but got an embedding of size %d.",
+              dimension, embedding.size()));
+    }
+  }
+
+  /** Appends an embedding and returns its row. */
+  int add(NormalizedEmbedding embedding) {
+    checkCompatible(embedding);
+    ensureCapacity(count + 1);
+    if (quantized) {
+      System.arraycopy(
+          embedding.quantizedValues(), 0, quantizedValues, count * dimension, dimension);
+      norms[count] = (float) embedding.norm();
+    } else {
+      System.arraycopy(embedding.floatValues(), 0, floatValues, count * dimension, dimension);
+    }
+    return count++;
+  }
+
+  /** Overwrites the row {@code to} with the row {@code from}. */
+  void move(int from, int to) {
+    if (quantized) {
+      System.arraycopy(
+          quantizedValues, from * dimension, quantizedValues, to * dimension, dimension);
+      norms[to] = norms[from];
+    } else {
+      System.arraycopy(floatValues, from * dimension, floatValues, to * dimension, dimension);
+    }
+  }
+
+  /** Drops the last row. */
+  void removeLast() {
+    count--;
+  }
+
+  /** Returns the cosine similarity between a compatible query and the given row. */
+  float score(NormalizedEmbedding query, int row) {
+    if (quantized) {
+      int dotProduct =
+          CosineSimilarity.dotProduct(
+              query.quantizedValues(), quantizedValues, row * dimension, dimension);
+      return (float) (dotProduct / (query.norm() * norms[row]));
+    }
+    return CosineSimilarity.dotProduct(
+        query.floatValues(), floatValues, row * dimension, dimension);
+  }
+
+  /** Returns the cosine similarity between two rows. */
+  float score(int row, int otherRow) {
+    if (quantized) {
+      int dotProduct =
+          CosineSimilarity.dotProduct(
+              quantizedValues, row * dimension, quantizedValues, otherRow * dimension, dimension);
+      return (float) ((double) dotProduct / ((double) norms[row] * norms[otherRow]));
+    }
+    return CosineSimilarity.dotProduct(
+        floatValues, row * dimension, floatValues, otherRow * dimension, dimension);
+  }
+
+  /** Returns the number of bytes written by {@link #writeTo}. */
+  long serializedSize() {
+    return quantized ? (long) count * dimension + 4L * count : 4L * count * dimension;
+  }
+
+  /** Writes the stored rows to the buffer. */
+  void writeTo(ByteBuffer buffer) {
+    if (quantized) {
+      buffer.put(quantizedValues, 0, count * dimension);
+      buffer.asFloatBuffer().put(norms, 0, count);
+      buffer.position(buffer.position() + 4 * count);
+    } else {
+      buffer.asFloatBuffer().put(floatValues, 0, count * dimension);
+      buffer.position(buffer.position() + 4 * count * dimension);
+    }
+  }
+
+  /** Reads {@code count} rows written by {@link #writeTo} from the buffer. */
+  void readFrom(ByteBuffer buffer, int count) {
+    ensureCapacity(count);
+    if (quantized) {
+      buffer.get(quantizedValues, 0, count * dimension);
+      buffer.asFloatBuffer().get(norms, 0, count);
+      buffer.position(buffer.position() + 4 * count);
+    } else {
+      buffer.asFloatBuffer().get(floatValues, 0, count * dimension);
+      buffer.position(buffer.position() + 4 * count * dimension);
+    }
+    this.count = count;
+  }
+
+  private void ensureCapacity(int rows) {
+    int capacity = quantized ? norms.length : floatValues.length / dimension;
+    if (rows <= capacity) {
+      return;
+    }
+    int newCapacity = Math.max(rows, capacity * 2);
+    if (quantized) {
+      quantizedValues = Arrays.copyOf(quantizedValues, newCapacity * dimension);
+      norms = Arrays.copyOf(norms, newCapacity);
+    } else {
+      floatValues = Arrays.copyOf(floatValues, newCapacity * dimension);
+    }
+  }
+}
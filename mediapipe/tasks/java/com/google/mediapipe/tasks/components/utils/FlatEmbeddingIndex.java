@@ -0,0 +1,156 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import com.google.mediapipe.tasks.components.containers.Embedding;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link EmbeddingIndex} that compares the query against every stored embedding.
+ *
+ * <p>The embeddings are kept in a dense row-major matrix, so that the search is a single pass of
+ * the dot-product kernels over contiguous memory. The results are exact, and the search time grows
+ * linearly with the number of embeddings. Removing an embedding moves the last row into its place.
+ */
+public final class FlatEmbeddingIndex implements EmbeddingIndex {
+  private final EmbeddingVectors vectors;
+  // The ids of the embeddings, by matrix row.
+  private int[] ids;
+  // The matrix rows of the embeddings, by id.
+  private final Map<Integer, Integer> rows = new HashMap<>();
+
+  /**
+   * Creates an empty {@link FlatEmbeddingIndex}.
+   *
+   * @param dimension the size of the embeddings.
+   * @param quantized whether the index holds quantized embeddings.
+   * @throws IllegalArgumentException if the dimension is not positive.
+   */
+  public static FlatEmbeddingIndex create(int dimension, boolean quantized) {
+    return new FlatEmbeddingIndex(new EmbeddingVectors(dimension, quantized));
+  }
+
+  /**
+   * Loads a {@link FlatEmbeddingIndex} saved by {@link #save}.
+   *
+   * @param file the index file.
+   * @throws IOException if the file cannot be read, or is not a flat embedding index.
+   */
+  public static FlatEmbeddingIndex load(File file) throws IOException {
+    ByteBuffer buffer = EmbeddingIndexFile.mapForReading(file, EmbeddingIndexFile.TYPE_FLAT);
+    boolean quantized = buffer.getInt() != 0;
+    int dimension = buffer.getInt();
+    int count = buffer.getInt();
+    FlatEmbeddingIndex index = new FlatEmbeddingIndex(new EmbeddingVectors(dimension, quantized));
+    index.ids = new int[Math.max(count, 1)];
+    buffer.asIntBuffer().get(index.ids, 0, count);
+    buffer.position(buffer.position() + 4 * count);
+    index.vectors.readFrom(buffer, count);
+    for (int row = 0; row < count; row++) {
+      index.rows.put(index.ids[row], row);
+    }
+    return index;
+  }
+
+  @Override
+  public void add(int id, Embedding embedding) {
+    add(id, NormalizedEmbedding.create(embedding));
+  }
+
+  @Override
+  public void add(int id, NormalizedEmbedding embedding) {
+    if (rows.containsKey(id)) {
+      throw new IllegalArgumentException("The index already contains an embedding with id " + id);
+    }
+    int row = vectors.add(embedding);
+    if (row == ids.length) {
+      ids = Arrays.copyOf(ids, ids.length * 2);
+    }
+    ids[row] = id;
+    rows.put(id, row);
+  }
+
+  @Override
+  public boolean remove(int id) {
+    Integer row = rows.remove(id);
+    if (row == null) {
+      return false;
+    }
+    int lastRow = vectors.count() - 1;
+    if (row != lastRow) {
+      vectors.move(lastRow, row);
+      ids[row] = ids[lastRow];
+      rows.put(ids[row], row);
+    }
+    vectors.removeLast();
+    return true;
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return rows.containsKey(id);
+  }
+
+  @Override
+  public int size() {
+    return vectors.count();
+  }
+
+  @Override
+  public List<SimilarityMatch> search(Embedding query, int k) {
+    return search(NormalizedEmbedding.create(query), k);
+  }
+
+  @Override
+  public List<SimilarityMatch> search(NormalizedEmbedding query, int k) {
+    vectors.checkCompatible(query);
+    int count = vectors.count();
+    float[] scores = new float[count];
+    for (int row = 0; row < count; row++) {
+      scores[row] = vectors.score(query, row);
+    }
+    List<SimilarityMatch> rowMatches = CosineSimilarity.selectTopK(scores, count, k);
+    List<SimilarityMatch> matches = new ArrayList<>(rowMatches.size());
+    for (SimilarityMatch match : rowMatches) {
+      matches.add(SimilarityMatch.create(ids[match.index()], match.score()));
+    }
+    return matches;
+  }
+
+  @Override
+  public void save(File file) throws IOException {
+    int count = vectors.count();
+    long size = EmbeddingIndexFile.HEADER_SIZE + 4L * count + vectors.serializedSize();
+    MappedByteBuffer buffer =
+        EmbeddingIndexFile.mapForWriting(file, size, EmbeddingIndexFile.TYPE_FLAT, vectors);
+    buffer.asIntBuffer().put(ids, 0, count);
+    buffer.position(buffer.position() + 4 * count);
+    vectors.writeTo(buffer);
+    buffer.force();
+  }
+
+  private FlatEmbeddingIndex(EmbeddingVectors vectors) {
+    this.vectors = vectors;
+    this.ids = new int[16];
+  }
+}
@@ -0,0 +1,536 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import com.google.auto.value.AutoValue;
+import com.google.mediapipe.tasks.components.containers.Embedding;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * An {@link EmbeddingIndex} based on a hierarchical navigable small world (HNSW) graph.
+ *
+ * <p>Every embedding is a node of a layered proximity graph. A search descends greedily through
+ * the sparse upper layers and explores the dense bottom layer with a bounded beam, which visits a
+ * small fraction of the nodes. The results are approximate; a larger {@link
+ * Options#efSearch()} trades speed for recall.
+ *
+ * <p>Removed embeddings are marked as deleted and excluded from the results, but their nodes keep
+ * connecting the graph. Rebuild the index after removing a large share of its embeddings.
+ */
+public final class HnswEmbeddingIndex implements EmbeddingIndex {
+  private static final int MAX_LEVEL = 16;
+  private static final long RANDOM_SEED = 42;
+
+  /** Options for configuring a {@link HnswEmbeddingIndex}. */
+  @AutoValue
+  public abstract static class Options {
+
+    /** Builder for {@link HnswEmbeddingIndex.Options}. */
+    @AutoValue.Builder
+    public abstract static class Builder {
+      /** Sets the size of the embeddings. */
+      public abstract Builder setDimension(int value);
+
+      /** Sets whether the index holds quantized embeddings. Defaults to false. */
+      public abstract Builder setQuantized(boolean value);
+
+      /**
+       * Sets the number of neighbors of a node in the upper layers. The bottom layer allows twice
+       * as many. Defaults to 16.
+       */
+      public abstract Builder setMaxConnections(int value);
+
+      /** Sets the beam width used while inserting embeddings. Defaults to 100. */
+      public abstract Builder setEfConstruction(int value);
+
+      /**
+       * Sets the beam width used while searching. The effective width is at least the number of
+       * requested matches, and widens when removed embeddings crowd the matches out of the beam.
+       * Defaults to 50.
+       */
+      public abstract Builder setEfSearch(int value);
+
+      abstract Options autoBuild();
+
+      /**
+       * Validates and builds the {@link HnswEmbeddingIndex.Options} instance.
+       *
+       * @throws IllegalArgumentException if the dimension or the beam widths are not positive, or
+       *     the number of connections is less than 2.
+       */
+      public final Options build() {
+        Options options = autoBuild();
+        if (options.dimension() <= 0) {
+          throw new IllegalArgumentException("The embedding dimension must be positive.");
+        }
+        if (options.maxConnections() < 2) {
+          throw new IllegalArgumentException("The max connections must be at least 2.");
+        }
+        if (options.efConstruction() <= 0 || options.efSearch() <= 0) {
+          throw new IllegalArgumentException("The beam widths must be positive.");
+        }
+        return options;
+      }
+    }
+
+    public abstract int dimension();
+
+    public abstract boolean quantized();
+
+    public abstract int maxConnections();
+
+    public abstract int efConstruction();
+
+    public abstract int efSearch();
+
+    public static Builder builder() {
+      return new AutoValue_HnswEmbeddingIndex_Options.Builder()
+          .setQuantized(false)
+          .setMaxConnections(16)
+          .setEfConstruction(100)
+          .setEfSearch(50);
+    }
+  }
+
+  /** A graph node reached during a search, along with its similarity to the target. */
+  private static final class Candidate {
+    final int node;
+    final float score;
+
+    Candidate(int node, float score) {
+      this.node = node;
+      this.score = score;
+    }
+  }
+
+  private final Options options;
+  private final EmbeddingVectors vectors;
+  private final Random random = new Random(RANDOM_SEED);
+  private final double levelMultiplier;
+  // The ids of the embeddings, by node.
+  private int[] ids;
+  // Whether the embeddings have been removed, by node.
+  private boolean[] deleted;
+  // The neighbors of the nodes, by node and layer. The first element of a neighbor list holds the
+  // number of neighbors.
+  private int[][][] links;
+  // The live nodes, by id.
+  private final Map<Integer, Integer> nodes = new HashMap<>();
+  private int entryPoint = -1;
+  private int topLevel = -1;
+  // The search generation that last visited each node, which avoids clearing a visited set.
+  private int[] visitedGenerations;
+  private int generation;
+
+  /**
+   * Creates an empty {@link HnswEmbeddingIndex}.
+   *
+   * @param options the {@link HnswEmbeddingIndex.Options} of the index.
+   */
+  public static HnswEmbeddingIndex create(Options options) {
+    return new HnswEmbeddingIndex(options);
+  }
+
+  /**
+   * Loads a {@link HnswEmbeddingIndex} saved by {@link #save}.
+   *
+   * @param file the index file.
+   * @throws IOException if the file cannot be read, is not an HNSW embedding index, or is corrupt.
+   */
+  public static HnswEmbeddingIndex load(File file) throws IOException {
+    ByteBuffer buffer = EmbeddingIndexFile.mapForReading(file, EmbeddingIndexFile.TYPE_HNSW);
+    try {
+      return readFrom(buffer);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("The HNSW embedding index is corrupt.", e);
+    }
+  }
+
+  /** Reads the index payload that follows the index type, and validates the graph. */
+  private static HnswEmbeddingIndex readFrom(ByteBuffer buffer) throws IOException {
+    int quantizedFlag = buffer.getInt();
+    int dimension = buffer.getInt();
+    int count = buffer.getInt();
+    if ((quantizedFlag != 0 && quantizedFlag != 1) || count < 0) {
+      throw new IOException("The HNSW embedding index header is corrupt.");
+    }
+    boolean quantized = quantizedFlag != 0;
+    Options options =
+        Options.builder()
+            .setDimension(dimension)
+            .setQuantized(quantized)
+            .setMaxConnections(buffer.getInt())
+            .setEfConstruction(buffer.getInt())
+            .setEfSearch(buffer.getInt())
+            .build();
+    // The bottom layer holds twice as many neighbors, which must not overflow.
+    if (options.maxConnections() > Integer.MAX_VALUE / 4) {
+      throw new IOException("The HNSW embedding index header is corrupt.");
+    }
+    HnswEmbeddingIndex index = new HnswEmbeddingIndex(options);
+    index.entryPoint = buffer.getInt();
+    index.topLevel = buffer.getInt();
+    boolean empty = index.entryPoint == -1 && index.topLevel == -1;
+    boolean rooted =
+        index.entryPoint >= 0
+            && index.entryPoint < count
+            && index.topLevel >= 0
+            && index.topLevel <= MAX_LEVEL;
+    if (count == 0 ? !empty : !rooted) {
+      throw new IOException("The HNSW embedding index has an invalid entry point.");
+    }
+    // The ids, the deletion flags and the embeddings, before allocating room for them.
+    long vectorBytes =
+        quantized ? (long) count * dimension + 4L * count : 4L * count * dimension;
+    if (buffer.remaining() < 5L * count + vectorBytes) {
+      throw new IOException("The HNSW embedding index file is too short.");
+    }
+    index.ensureCapacity(count);
+    buffer.asIntBuffer().get(index.ids, 0, count);
+    buffer.position(buffer.position() + 4 * count);
+    for (int node = 0; node < count; node++) {
+      index.deleted[node] = buffer.get() != 0;
+      if (!index.deleted[node] && index.nodes.put(index.ids[node], node) != null) {
+        throw new IOException("The HNSW embedding index has a duplicate id " + index.ids[node]);
+      }
+    }
+    index.vectors.readFrom(buffer, count);
+    for (int node = 0; node < count; node++) {
+      int levels = buffer.getInt();
+      if (levels < 1 || levels > index.topLevel + 1) {
+        throw new IOException("The HNSW embedding index has an invalid node level: " + levels);
+      }
+      index.links[node] = new int[levels][];
+      for (int level = 0; level < levels; level++) {
+        int[] neighbors = new int[index.capacity(level) + 1];
+        neighbors[0] = buffer.getInt();
+        if (neighbors[0] < 0 || neighbors[0] > index.capacity(level)) {
+          throw new IOException(
+              "The HNSW embedding index has an invalid neighbor count: " + neighbors[0]);
+        }
+        buffer.asIntBuffer().get(neighbors, 1, neighbors[0]);
+        buffer.position(buffer.position() + 4 * neighbors[0]);
+        index.links[node][level] = neighbors;
+      }
+    }
+    if (count > 0 && index.links[index.entryPoint].length != index.topLevel + 1) {
+      throw new IOException("The HNSW embedding index entry point is not on the top layer.");
+    }
+    // A search follows the links of a layer into the same layer of the neighbors.
+    for (int node = 0; node < count; node++) {
+      for (int level = 0; level < index.links[node].length; level++) {
+        int[] neighbors = index.links[node][level];
+        for (int i = 1; i <= neighbors[0]; i++) {
+          int neighbor = neighbors[i];
+          if (neighbor < 0 || neighbor >= count || index.links[neighbor].length <= level) {
+            throw new IOException("The HNSW embedding index has an invalid link to " + neighbor);
+          }
+        }
+      }
+    }
+    return index;
+  }
+
+  @Override
+  public void add(int id, Embedding embedding) {
+    add(id, NormalizedEmbedding.create(embedding));
+  }
+
+  @Override
+  public void add(int id, NormalizedEmbedding embedding) {
+    if (nodes.containsKey(id)) {
+      throw new IllegalArgumentException("The index already contains an embedding with id " + id);
+    }
+    int node = vectors.add(embedding);
+    ensureCapacity(node + 1);
+    ids[node] = id;
+    int level = randomLevel();
+    links[node] = new int[level + 1][];
+    for (int i = 0; i <= level; i++) {
+      links[node][i] = new int[capacity(i) + 1];
+    }
+    nodes.put(id, node);
+    if (entryPoint < 0) {
+      entryPoint = node;
+      topLevel = level;
+      return;
+    }
+    Candidate nearest = descend(embedding, level);
+    List<Candidate> entryPoints = Collections.singletonList(nearest);
+    for (int i = Math.min(level, topLevel); i >= 0; i--) {
+      List<Candidate> found = searchLayer(embedding, entryPoints, options.efConstruction(), i);
+      for (Candidate neighbor : selectNeighbors(found, options.maxConnections())) {
+        links[node][i][++links[node][i][0]] = neighbor.node;
+        addLink(neighbor.node, node, neighbor.score, i);
+      }
+      entryPoints = found;
+    }
+    if (level > topLevel) {
+      topLevel = level;
+      entryPoint = node;
+    }
+  }
+
+  @Override
+  public boolean remove(int id) {
+    Integer node = nodes.remove(id);
+    if (node == null) {
+      return false;
+    }
+    deleted[node] = true;
+    return true;
+  }
+
+  @Override
+  public boolean contains(int id) {
+    return nodes.containsKey(id);
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  @Override
+  public List<SimilarityMatch> search(Embedding query, int k) {
+    return search(NormalizedEmbedding.create(query), k);
+  }
+
+  @Override
+  public List<SimilarityMatch> search(NormalizedEmbedding query, int k) {
+    vectors.checkCompatible(query);
+    if (k < 0) {
+      throw new IllegalArgumentException("k must be non-negative.");
+    }
+    List<SimilarityMatch> matches = new ArrayList<>();
+    if (entryPoint < 0 || k == 0) {
+      return matches;
+    }
+    Candidate nearest = descend(query, 0);
+    int count = vectors.count();
+    int ef = Math.min(Math.max(options.efSearch(), k), count);
+    while (true) {
+      List<Candidate> found = searchLayer(query, Collections.singletonList(nearest), ef, 0);
+      for (Candidate candidate : found) {
+        if (matches.size() == k) {
+          break;
+        }
+        if (!deleted[candidate.node]) {
+          matches.add(SimilarityMatch.create(ids[candidate.node], candidate.score));
+        }
+      }
+      // The deleted nodes take up room in the beam. Widen it until it holds k live nodes, or
+      // reaches every node of the bottom layer.
+      if (matches.size() == k || found.size() < ef || ef == count) {
+        return matches;
+      }
+      matches.clear();
+      ef = (int) Math.min(2L * ef, count);
+    }
+  }
+
+  @Override
+  public void save(File file) throws IOException {
+    int count = vectors.count();
+    long size = EmbeddingIndexFile.HEADER_SIZE + 5 * 4 + 5L * count + vectors.serializedSize();
+    for (int node = 0; node < count; node++) {
+      size += 4;
+      for (int[] neighbors : links[node]) {
+        size += 4L * (neighbors[0] + 1);
+      }
+    }
+    MappedByteBuffer buffer =
+        EmbeddingIndexFile.mapForWriting(file, size, EmbeddingIndexFile.TYPE_HNSW, vectors);
+    buffer
+        .putInt(options.maxConnections())
+        .putInt(options.efConstruction())
+        .putInt(options.efSearch())
+        .putInt(entryPoint)
+        .putInt(topLevel);
+    buffer.asIntBuffer().put(ids, 0, count);
+    buffer.position(buffer.position() + 4 * count);
+    for (int node = 0; node < count; node++) {
+      buffer.put((byte) (deleted[node] ? 1 : 0));
+    }
+    vectors.writeTo(buffer);
+    for (int node = 0; node < count; node++) {
+      buffer.putInt(links[node].length);
+      for (int[] neighbors : links[node]) {
+        buffer.asIntBuffer().put(neighbors, 0, neighbors[0] + 1);
+        buffer.position(buffer.position() + 4 * (neighbors[0] + 1));
+      }
+    }
+    buffer.force();
+  }
+
+  /** Greedily walks from the entry point down to the given layer, and returns the nearest node. */
+  private Candidate descend(NormalizedEmbedding target, int level) {
+    Candidate nearest = new Candidate(entryPoint, vectors.score(target, entryPoint));
+    for (int i = topLevel; i > level; i--) {
+      nearest = searchLayer(target, Collections.singletonList(nearest), /* ef= */ 1, i).get(0);
+    }
+    return nearest;
+  }
+
+  /**
+   * Explores a layer of the graph with a beam of width {@code ef}.
+   *
+   * @return the nearest nodes found, ordered by decreasing similarity.
+   */
+  private List<Candidate> searchLayer(
+      NormalizedEmbedding target, List<Candidate> entryPoints, int ef, int level) {
+    generation++;
+    PriorityQueue<Candidate> pending =
+        new PriorityQueue<>(ef + 1, (a, b) -> Float.compare(b.score, a.score));
+    PriorityQueue<Candidate> nearest =
+        new PriorityQueue<>(ef + 1, (a, b) -> Float.compare(a.score, b.score));
+    for (Candidate entryPoint : entryPoints) {
+      visitedGenerations[entryPoint.node] = generation;
+      pending.add(entryPoint);
+      nearest.add(entryPoint);
+      if (nearest.size() > ef) {
+        nearest.poll();
+      }
+    }
+    while (!pending.isEmpty()) {
+      Candidate current = pending.poll();
+      if (nearest.size() >= ef && current.score < nearest.peek().score) {
+        break;
+      }
+      int[] neighbors = links[current.node][level];
+      for (int i = 1; i <= neighbors[0]; i++) {
+        int neighbor = neighbors[i];
+        if (visitedGenerations[neighbor] == generation) {
+          continue;
+        }
+        visitedGenerations[neighbor] = generation;
+        float score = vectors.score(target, neighbor);
+        if (nearest.size() < ef || score > nearest.peek().score) {
+          Candidate candidate = new Candidate(neighbor, score);
+          pending.add(candidate);
+          nearest.add(candidate);
+          if (nearest.size() > ef) {
+            nearest.poll();
+          }
+        }
+      }
+    }
+    List<Candidate> found = new ArrayList<>(nearest);
+    Collections.sort(found, (a, b) -> Float.compare(b.score, a.score));
+    return found;
+  }
+
+  /**
+   * Links {@code node} to {@code neighbor} in the given layer. When the neighbor list is full, it
+   * is pruned with {@link #selectNeighbors}.
+   */
+  private void addLink(int node, int neighbor, float score, int level) {
+    int[] neighbors = links[node][level];
+    int count = neighbors[0];
+    if (count < neighbors.length - 1) {
+      neighbors[count + 1] = neighbor;
+      neighbors[0] = count + 1;
+      return;
+    }
+    List<Candidate> candidates = new ArrayList<>(count + 1);
+    candidates.add(new Candidate(neighbor, score));
+    for (int i = 1; i <= count; i++) {
+      candidates.add(new Candidate(neighbors[i], vectors.score(node, neighbors[i])));
+    }
+    Collections.sort(candidates, (a, b) -> Float.compare(b.score, a.score));
+    List<Candidate> selected = selectNeighbors(candidates, count);
+    for (int i = 0; i < selected.size(); i++) {
+      neighbors[i + 1] = selected.get(i).node;
+    }
+    neighbors[0] = selected.size();
+  }
+
+  /**
+   * Selects up to {@code maxCount} neighbors among candidates ordered by decreasing similarity.
+   *
+   * <p>A candidate is preferred when it is more similar to the target than to any neighbor selected
+   * so far, which spreads the links in different directions and keeps clusters connected. The
+   * remaining slots are filled with the most similar of the other candidates.
+   */
+  private List<Candidate> selectNeighbors(List<Candidate> candidates, int maxCount) {
+    List<Candidate> selected = new ArrayList<>(maxCount);
+    List<Candidate> skipped = new ArrayList<>();
+    for (Candidate candidate : candidates) {
+      if (selected.size() == maxCount) {
+        break;
+      }
+      boolean diverse = true;
+      for (Candidate neighbor : selected) {
+        if (vectors.score(candidate.node, neighbor.node) > candidate.score) {
+          diverse = false;
+          break;
+        }
+      }
+      if (diverse) {
+        selected.add(candidate);
+      } else {
+        skipped.add(candidate);
+      }
+    }
+    for (int i = 0; i < skipped.size() && selected.size() < maxCount; i++) {
+      selected.add(skipped.get(i));
+    }
+    return selected;
+  }
+
+  /** Returns the maximum number of neighbors of a node in the given layer. */
+  private int capacity(int level) {
+    return level == 0 ? 2 * options.maxConnections() : options.maxConnections();
+  }
+
+  /** Draws the top layer of a new node from an exponentially decaying distribution. */
+  private int randomLevel() {
+    double level = -Math.log(1.0 - random.nextDouble()) * levelMultiplier;
+    return (int) Math.min(level, MAX_LEVEL);
+  }
+
+  private void ensureCapacity(int count) {
+    if (count <= ids.length) {
+      return;
+    }
+    int newCapacity = Math.max(count, ids.length * 2);
+    ids = Arrays.copyOf(ids, newCapacity);
+    deleted = Arrays.copyOf(deleted, newCapacity);
+    links = Arrays.copyOf(links, newCapacity);
+    visitedGenerations = Arrays.copyOf(visitedGenerations, newCapacity);
+  }
+
+  private HnswEmbeddingIndex(Options options) {
+    this.options = options;
+    this.vectors = new EmbeddingVectors(options.dimension(), options.quantized());
+    this.levelMultiplier = 1.0 / Math.log(options.maxConnections());
+    this.ids = new int[16];
+    this.deleted = new boolean[16];
+    this.links = new int[16][][];
+    this.visitedGenerations = new int[16];
+  }
+}
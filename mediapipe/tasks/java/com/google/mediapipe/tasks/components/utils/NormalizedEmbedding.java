@@ -0,0 +1,119 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import com.google.mediapipe.tasks.components.containers.Embedding;
+
+/**
+ * An embedding prepared for repeated cosine similarity computations.
+ *
+ * <p>The L2-norm of the embedding is computed once on creation. Floating-point embeddings are
+ * scaled to unit length, so that their cosine similarity reduces to a dot product. Quantized
+ * embeddings keep their int8 values and cached norm, so that their similarity is an integer dot
+ * product followed by a single division.
+ */
+public final class NormalizedEmbedding {
+  private final float[] floatValues;
+  private final byte[] quantizedValues;
+  private final double norm;
+
+  /**
+   * Creates a {@link NormalizedEmbedding} from an {@link Embedding}.
+   *
+   * @throws IllegalArgumentException if the embedding is empty or has an L2-norm of 0.
+   */
+  public static NormalizedEmbedding create(Embedding embedding) {
+    if (embedding.floatEmbedding().length > 0) {
+      return createFromFloat(embedding.floatEmbedding());
+    }
+    return createFromQuantized(embedding.quantizedEmbedding());
+  }
+
+  /**
+   * Creates a {@link NormalizedEmbedding} from floating-point values. The values are copied.
+   *
+   * @throws IllegalArgumentException if the values are empty or have an L2-norm of 0.
+   */
+  public static NormalizedEmbedding createFromFloat(float[] values) {
+    double squaredNorm = 0.0;
+    for (float value : values) {
+      squaredNorm += value * value;
+    }
+    double norm = checkNorm(squaredNorm);
+    float[] normalizedValues = new float[values.length];
+    for (int i = 0; i < values.length; i++) {
+      normalizedValues[i] = (float) (values[i] / norm);
+    }
+    return new NormalizedEmbedding(normalizedValues, new byte[0], norm);
+  }
+
+  /**
+   * Creates a {@link NormalizedEmbedding} from quantized values. The values are not copied and
+   * must not be modified afterwards.
+   *
+   * @throws IllegalArgumentException if the values are empty or have an L2-norm of 0.
+   */
+  public static NormalizedEmbedding createFromQuantized(byte[] values) {
+    double norm = checkNorm(CosineSimilarity.dotProduct(values, values, 0, values.length));
+    return new NormalizedEmbedding(new float[0], values, norm);
+  }
+
+  /** Returns whether the embedding holds quantized values. */
+  public boolean isQuantized() {
+    return quantizedValues.length > 0;
+  }
+
+  /** Returns the number of dimensions of the embedding. */
+  public int size() {
+    return isQuantized() ? quantizedValues.length : floatValues.length;
+  }
+
+  /**
+   * The floating-point values scaled to unit length.
+   *
+   * <p>Empty if the embedding is quantized.
+   */
+  public float[] floatValues() {
+    return floatValues;
+  }
+
+  /**
+   * The quantized values.
+   *
+   * <p>Empty if the embedding is not quantized.
+   */
+  public byte[] quantizedValues() {
+    return quantizedValues;
+  }
+
+  /** The L2-norm of the original embedding values. */
+  public double norm() {
+    return norm;
+  }
+
+  private static double checkNorm(double squaredNorm) {
+    if (squaredNorm <= 0) {
+      throw new IllegalArgumentException(
+          "Cannot compute cosine similarity on embedding with 0 norm.");
+    }
+    return Math.sqrt(squaredNorm);
+  }
+
+  private NormalizedEmbedding(float[] floatValues, byte[] quantizedValues, double norm) {
+    this.floatValues = floatValues;
+    this.quantizedValues = quantizedValues;
+    this.norm = norm;
+  }
+}
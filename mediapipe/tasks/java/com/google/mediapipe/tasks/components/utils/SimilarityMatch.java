@@ -0,0 +1,41 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import com.google.auto.value.AutoValue;
+
+/** A candidate embedding that matches a query, as returned by the top-k similarity searches. */
+@AutoValue
+public abstract class SimilarityMatch {
+
+  /**
+   * Creates a {@link SimilarityMatch} instance.
+   *
+   * @param index the index of the candidate embedding.
+   * @param score the cosine similarity between the query and the candidate embedding.
+   */
+  public static SimilarityMatch create(int index, float score) {
+    return new AutoValue_SimilarityMatch(index, score);
+  }
+
+  /**
+   * The index of the candidate embedding, e.g. the row of the embedding matrix, or the id of an
+   * embedding in an {@code EmbeddingIndex}.
+   */
+  public abstract int index();
+
+  /** The cosine similarity between the query and the candidate embedding. */
+  public abstract float score();
+}
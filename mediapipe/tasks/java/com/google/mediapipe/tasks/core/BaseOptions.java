@@ -57,6 +57,32 @@ public abstract class BaseOptions {
     /** Options for the chosen delegate. If not set, the default delegate options is used. */
     public abstract Builder setDelegateOptions(DelegateOptions delegateOptions);
 
+    /**
+     * Sets the {@link FlowControlPolicy} that throttles the task inputs in the live stream mode. If
+     * not set, {@link FlowControlPolicy#defaultPolicy()} is used.
+     */
+    public abstract Builder setFlowControlPolicy(FlowControlPolicy flowControlPolicy);
+
+    /**
+     * Sets a {@link ModelResourcesCache} shared with other task instances, so that the instances
+     * loading the same model reuse a single copy of the model resources. If not set, the task
+     * instance creates its own cache.
+     *
+     * <p>Models set by buffer are matched by content. Models set by an absolute file path are
+     * matched by the identity of the file, so a file replaced at the same path is loaded anew.
+     * Models set by any other path, e.g. the name of an Android asset, are matched by that name,
+     * as the assets of an app don't change while it runs. Models set by file descriptor or by a
+     * content URI are never shared.
+     */
+    public abstract Builder setModelResourcesCache(ModelResourcesCache modelResourcesCache);
+
+    /**
+     * Sets whether to profile the calculators of the task graph. The profiles are available from
+     * the {@link TaskProfiler} of the task, unless the MediaPipe native library is built without
+     * the profiler. Default to false.
+     */
+    public abstract Builder setEnableProfiling(Boolean enableProfiling);
+
     abstract BaseOptions autoBuild();
 
     /**
@@ -113,6 +139,15 @@ public abstract class BaseOptions {
 
   abstract Optional<DelegateOptions> delegateOptions();
 
+  /** Returns the {@link FlowControlPolicy} applied to the task inputs in the live stream mode. */
+  public abstract FlowControlPolicy flowControlPolicy();
+
+  /** Returns the {@link ModelResourcesCache} shared with other task instances, if any. */
+  public abstract Optional<ModelResourcesCache> modelResourcesCache();
+
+  /** Returns whether the calculators of the task graph are profiled. */
+  public abstract Boolean enableProfiling();
+
   /** Advanced config options for the used delegate. */
   public abstract static class DelegateOptions {
 
@@ -173,6 +208,9 @@ public abstract class BaseOptions {
   }
 
   public static Builder builder() {
-    return new AutoValue_BaseOptions.Builder().setDelegate(Delegate.CPU);
+    return new AutoValue_BaseOptions.Builder()
+        .setDelegate(Delegate.CPU)
+        .setFlowControlPolicy(FlowControlPolicy.defaultPolicy())
+        .setEnableProfiling(false);
   }
 }
@@ -0,0 +1,115 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import com.google.auto.value.AutoValue;
+import com.google.mediapipe.calculator.proto.FlowLimiterCalculatorProto.FlowLimiterCalculatorOptions;
+
+/**
+ * Flow-control policy applied to the inputs of a MediaPipe task running in the live stream mode.
+ *
+ * <p>The policy configures the flow limiter that sits in front of the task graph. The default
+ * policy admits one frame in flight and keeps one frame queued, dropping the oldest queued frame
+ * when a newer one arrives. Graphs with a high degree of pipeline parallelism can achieve a higher
+ * throughput by allowing more frames in flight.
+ */
+@AutoValue
+public abstract class FlowControlPolicy {
+  private static final long MICROSECONDS_PER_MILLISECOND = 1000;
+
+  /** Which queued frames are dropped when the input queue overflows. */
+  public enum DropPolicy {
+    /** Drops the oldest queued frames, so that the latest frames are always processed. */
+    DROP_OLDEST,
+    /** Drops the newly arrived frames, so that the queued frames are processed in order. */
+    DROP_NEWEST,
+  }
+
+  /** Builder for {@link FlowControlPolicy}. */
+  @AutoValue.Builder
+  public abstract static class Builder {
+    /** Sets the maximum number of frames processed by the task graph at one time. Defaults to 1. */
+    public abstract Builder setMaxInFlight(int value);
+
+    /** Sets the maximum number of frames waiting for processing. Defaults to 1. */
+    public abstract Builder setMaxInQueue(int value);
+
+    /** Sets which queued frames are dropped when the input queue overflows. */
+    public abstract Builder setDropPolicy(DropPolicy value);
+
+    /**
+     * Sets the per-frame processing budget in milliseconds. A frame that is still in flight after
+     * the budget elapses is abandoned and no longer holds back newer frames. Defaults to 0, which
+     * disables the budget.
+     */
+    public abstract Builder setFrameBudgetMs(long value);
+
+    abstract FlowControlPolicy autoBuild();
+
+    /**
+     * Validates and builds the {@link FlowControlPolicy} instance.
+     *
+     * @throws IllegalArgumentException if the in-flight limit is not positive, or the queue size
+     *     or the frame budget is negative.
+     */
+    public final FlowControlPolicy build() {
+      FlowControlPolicy policy = autoBuild();
+      if (policy.maxInFlight() < 1) {
+        throw new IllegalArgumentException("The max in flight frames must be at least 1.");
+      }
+      if (policy.maxInQueue() < 0) {
+        throw new IllegalArgumentException("The max queued frames must be non-negative.");
+      }
+      if (policy.frameBudgetMs() < 0) {
+        throw new IllegalArgumentException("The frame budget must be non-negative.");
+      }
+      return policy;
+    }
+  }
+
+  public abstract int maxInFlight();
+
+  public abstract int maxInQueue();
+
+  public abstract DropPolicy dropPolicy();
+
+  public abstract long frameBudgetMs();
+
+  public static Builder builder() {
+    return new AutoValue_FlowControlPolicy.Builder()
+        .setMaxInFlight(1)
+        .setMaxInQueue(1)
+        .setDropPolicy(DropPolicy.DROP_OLDEST)
+        .setFrameBudgetMs(0);
+  }
+
+  /** Returns the default policy: one frame in flight and one frame queued, dropping the oldest. */
+  public static FlowControlPolicy defaultPolicy() {
+    return builder().build();
+  }
+
+  /** Converts the policy to a {@link FlowLimiterCalculatorOptions} protobuf message. */
+  FlowLimiterCalculatorOptions convertToProto() {
+    return FlowLimiterCalculatorOptions.newBuilder()
+        .setMaxInFlight(maxInFlight())
+        .setMaxInQueue(maxInQueue())
+        .setInFlightTimeout(frameBudgetMs() * MICROSECONDS_PER_MILLISECOND)
+        .setDropPolicy(
+            dropPolicy() == DropPolicy.DROP_NEWEST
+                ? FlowLimiterCalculatorOptions.DropPolicy.DROP_NEWEST
+                : FlowLimiterCalculatorOptions.DropPolicy.DROP_OLDEST)
+        .build();
+  }
+}
@@ -18,11 +18,12 @@ import android.content.Context;
 import com.google.mediapipe.tasks.core.OutputHandler.ProgressListener;
 import com.google.mediapipe.tasks.core.jni.proto.LlmOptionsProto.LlmSessionConfig;
 import com.google.mediapipe.tasks.core.jni.proto.LlmResponseContextProto.LlmResponseContext;
-import com.google.mediapipe.tasks.core.logging.TasksStatsDummyLogger;
+import com.google.mediapipe.tasks.core.logging.TasksStatsInProcessLogger;
 import com.google.mediapipe.tasks.core.logging.TasksStatsLogger;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Internal Task Runner class for all LLM Tasks.
@@ -34,13 +35,17 @@ public final class LlmTaskRunner implements AutoCloseable {
   private final Optional<ProgressListener<List<String>>> resultListener;
   private final long callbackHandle;
   private final TasksStatsLogger statsLogger;
+  // The identifiers of the invocations for the stats logger, in place of the packet timestamps.
+  private final AtomicLong invocationCount = new AtomicLong();
+  private volatile long asyncInvocationId;
 
   public LlmTaskRunner(
       Context context,
       String taskName,
       LlmSessionConfig sessionConfig,
       Optional<ProgressListener<List<String>>> resultListener) {
-    statsLogger = TasksStatsDummyLogger.create(context, taskName, /* taskRunningModeStr= */ "");
+    statsLogger =
+        TasksStatsInProcessLogger.create(context, taskName, /* taskRunningModeStr= */ "");
     this.sessionHandle = nativeCreateSession(sessionConfig.toByteArray());
 
     this.resultListener = resultListener;
@@ -54,7 +59,10 @@ public final class LlmTaskRunner implements AutoCloseable {
 
   /** Invokes the LLM with the provided input and waits for the result. */
   public List<String> predictSync(String input) {
+    long invocationId = invocationCount.incrementAndGet();
+    statsLogger.recordCpuInputArrival(invocationId);
     byte[] responseBytes = nativePredictSync(sessionHandle, input);
+    statsLogger.recordInvocationEnd(invocationId);
     return parseResponse(responseBytes).getResponsesList();
   }
 
@@ -63,6 +71,8 @@ public final class LlmTaskRunner implements AutoCloseable {
     if (callbackHandle == 0) {
       throw new IllegalStateException("No result listener provided.");
     }
+    asyncInvocationId = invocationCount.incrementAndGet();
+    statsLogger.recordCpuInputArrival(asyncInvocationId);
     nativePredictAsync(sessionHandle, callbackHandle, input);
   }
 
@@ -81,6 +91,9 @@ public final class LlmTaskRunner implements AutoCloseable {
 
   private void onAsyncResponse(byte[] responseBytes) {
     LlmResponseContext respone = parseResponse(responseBytes);
+    if (respone.getDone()) {
+      statsLogger.recordInvocationEnd(asyncInvocationId);
+    }
     resultListener.get().run(respone.getResponsesList(), respone.getDone());
   }
 
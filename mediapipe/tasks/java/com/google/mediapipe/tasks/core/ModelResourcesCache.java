@@ -15,31 +15,93 @@
 package com.google.mediapipe.tasks.core;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Facilitates creation and destruction of the native ModelResourcesCache.
+ *
+ * <p>A {@link ModelResourcesCache} can be shared across MediaPipe task instances through {@link
+ * BaseOptions.Builder#setModelResourcesCache}, so that the task graphs loading the same model reuse
+ * a single copy of the model resources. The cache is reference counted: each task instance using it
+ * holds a reference until it is closed, and the native cache is released once the creator has
+ * called {@link #close()} and all task instances using it are closed.
+ */
+public final class ModelResourcesCache implements AutoCloseable {
+  /** Releases the native cache of a handle. */
+  interface NativeReleaser {
+    void release(long nativeHandle);
+  }
 
-/** Facilitates creation and destruction of the native ModelResourcesCache. */
-class ModelResourcesCache {
   private final long nativeHandle;
-  private final AtomicBoolean isHandleValid;
+  private final NativeReleaser nativeReleaser;
+  // The number of references held by the creator and the task runners using the cache.
+  private final AtomicInteger refCount;
+  private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+  /** Creates a {@link ModelResourcesCache} that is owned by the caller until {@link #close()}. */
+  public static ModelResourcesCache create() {
+    return new ModelResourcesCache();
+  }
 
-  public ModelResourcesCache() {
+  ModelResourcesCache() {
     nativeHandle = nativeCreateModelResourcesCache();
-    isHandleValid = new AtomicBoolean(true);
+    nativeReleaser = this::nativeReleaseModelResourcesCache;
+    refCount = new AtomicInteger(1);
+  }
+
+  /** Creates a {@link ModelResourcesCache} of a native cache released by {@code nativeReleaser}. */
+  ModelResourcesCache(long nativeHandle, NativeReleaser nativeReleaser) {
+    this.nativeHandle = nativeHandle;
+    this.nativeReleaser = nativeReleaser;
+    refCount = new AtomicInteger(1);
   }
 
   public boolean isHandleValid() {
-    return isHandleValid.get();
+    return refCount.get() > 0;
   }
 
   public long getNativeHandle() {
-    if (isHandleValid.get()) {
+    if (isHandleValid()) {
       return nativeHandle;
     }
     return 0;
   }
 
-  public void release() {
-    if (isHandleValid.compareAndSet(true, false)) {
-      nativeReleaseModelResourcesCache(nativeHandle);
+  /**
+   * Acquires an additional reference to the cache.
+   *
+   * @throws IllegalStateException if the cache has already been released.
+   */
+  ModelResourcesCache acquire() {
+    int count;
+    do {
+      count = refCount.get();
+      if (count <= 0) {
+        throw new IllegalStateException("The ModelResourcesCache has already been released.");
+      }
+    } while (!refCount.compareAndSet(count, count + 1));
+    return this;
+  }
+
+  /** Releases a reference to the cache, and the native cache once no reference is left. */
+  void release() {
+    int count;
+    do {
+      count = refCount.get();
+      if (count <= 0) {
+        return;
+      }
+    } while (!refCount.compareAndSet(count, count - 1));
+    if (count == 1) {
+      nativeReleaser.release(nativeHandle);
+    }
+  }
+
+  /** Releases the reference held by the creator of the cache. */
+  @Override
+  public void close() {
+    if (isClosed.compareAndSet(false, true)) {
+      release();
     }
   }
 
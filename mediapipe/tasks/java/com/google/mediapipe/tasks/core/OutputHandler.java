@@ -18,6 +18,15 @@ import android.util.Log;
 import com.google.mediapipe.framework.MediaPipeException;
 import com.google.mediapipe.framework.Packet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /** Base class for handling MediaPipe task graph outputs. */
 public class OutputHandler<OutputT extends TaskResult, InputT> {
@@ -64,18 +73,55 @@ public class OutputHandler<OutputT extends TaskResult, InputT> {
   }
 
   private static final String TAG = "OutputHandler";
+  private static final long DEFAULT_RESULT_EXPIRATION_MS = 10000;
+  private static final long NANOS_PER_MILLISECOND = 1000000;
+
+  /** A slot of the result demultiplexer that holds the task result of one input timestamp. */
+  private static final class ResultSlot<OutputT> {
+    final CompletableFuture<OutputT> future = new CompletableFuture<>();
+    // Whether an asynchronous invocation registered the slot. The errors of a registered slot
+    // complete its future rather than going to the error listener.
+    final boolean registered;
+    // When the result became available to be claimed, which starts its expiration time.
+    volatile long completionTimeNanos;
+
+    ResultSlot(boolean registered) {
+      this.registered = registered;
+    }
+  }
+
+  /** A task result waiting to be claimed, in the queue of the results to evict. */
+  private static final class UnclaimedResult {
+    final long inputTimestamp;
+    final long completionTimeNanos;
+
+    UnclaimedResult(long inputTimestamp, long completionTimeNanos) {
+      this.inputTimestamp = inputTimestamp;
+      this.completionTimeNanos = completionTimeNanos;
+    }
+  }
+
   // A task-specific graph output packet converter that should be implemented per task.
   private OutputPacketConverter<OutputT, InputT> outputPacketConverter;
   // The user-defined task result listener.
   private ResultListener<OutputT, InputT> resultListener;
+  // The user-defined task result listener that doesn't need the task input.
+  private PureResultListener<OutputT> pureResultListener;
   // The user-defined error listener.
   protected ErrorListener errorListener;
-  // The cached task result for non latency sensitive use cases.
-  protected OutputT cachedTaskResult;
   // The latest output timestamp.
-  protected long latestOutputTimestamp = -1;
+  protected volatile long latestOutputTimestamp = -1;
   // Whether the output handler should react to timestamp-bound changes by outputting empty packets.
   private boolean handleTimestampBoundChanges = false;
+  // How long an unclaimed task result is kept before it is evicted.
+  private volatile long resultExpirationNanos =
+      DEFAULT_RESULT_EXPIRATION_MS * NANOS_PER_MILLISECOND;
+  // The task results that are pending or waiting to be claimed, keyed by the input timestamp.
+  private final ConcurrentNavigableMap<Long, ResultSlot<OutputT>> results =
+      new ConcurrentSkipListMap<>();
+  // The task results waiting to be claimed in completion order, which is also their expiration
+  // order. The results claimed in the meantime are skipped when they reach the head.
+  private final Queue<UnclaimedResult> unclaimedResults = new ConcurrentLinkedQueue<>();
 
   /**
    * Sets a callback to be invoked to convert a {@link Packet} list to a task result object and a
@@ -94,6 +140,19 @@ public class OutputHandler<OutputT extends TaskResult, InputT> {
    */
   public void setResultListener(ResultListener<OutputT, InputT> listener) {
     this.resultListener = listener;
+    this.pureResultListener = null;
+  }
+
+  /**
+   * Sets a callback to be invoked when task result objects become available, without the task
+   * input. Unlike {@link #setResultListener}, the output packets are never converted to a task
+   * input object, which saves e.g. a copy of the input image per result.
+   *
+   * @param listener the user-defined {@link PureResultListener} callback.
+   */
+  public void setPureResultListener(PureResultListener<OutputT> listener) {
+    this.pureResultListener = listener;
+    this.resultListener = null;
   }
 
   /**
@@ -120,11 +179,28 @@ public class OutputHandler<OutputT extends TaskResult, InputT> {
     return handleTimestampBoundChanges;
   }
 
-  /* Returns the cached task result object. */
+  /**
+   * Sets how long a task result that nobody has claimed is kept before it is evicted. Defaults to
+   * 10 seconds.
+   *
+   * @param expirationMs the expiration time in milliseconds.
+   */
+  public void setResultExpirationMs(long expirationMs) {
+    if (expirationMs < 0) {
+      throw new IllegalArgumentException("The result expiration time must be non-negative.");
+    }
+    this.resultExpirationNanos = expirationMs * NANOS_PER_MILLISECOND;
+  }
+
+  /**
+   * Returns the cached task result object of the latest output timestamp.
+   *
+   * @deprecated Use {@link #takeResult} or {@link #waitForResult} to claim the task result of a
+   *     specific input timestamp.
+   */
+  @Deprecated
   public OutputT retrieveCachedTaskResult() {
-    OutputT taskResult = cachedTaskResult;
-    cachedTaskResult = null;
-    return taskResult;
+    return takeResult(latestOutputTimestamp);
   }
 
   /* Returns the latest output timestamp. */
@@ -132,28 +208,216 @@ public class OutputHandler<OutputT extends TaskResult, InputT> {
     return latestOutputTimestamp;
   }
 
+  /** Returns the number of task results that are pending or waiting to be claimed. */
+  public int getPendingResultCount() {
+    return results.size();
+  }
+
+  /**
+   * Claims the task result of the given input timestamp if it is available, without blocking.
+   *
+   * @param inputTimestamp the timestamp of the input packets.
+   * @return the task result, or null if the task graph has not produced an output at the timestamp.
+   */
+  public OutputT takeResult(long inputTimestamp) {
+    ResultSlot<OutputT> slot = results.get(inputTimestamp);
+    if (slot == null || slot.registered || !slot.future.isDone()) {
+      return null;
+    }
+    results.remove(inputTimestamp, slot);
+    return slot.future.getNow(null);
+  }
+
+  /**
+   * Claims the task results at or after the given input timestamp, and returns the latest one. This
+   * serves synchronous invocations of graphs that emit their output at a later timestamp than the
+   * input, such as the audio graphs that split an audio clip into timestamped chunks.
+   *
+   * @param inputTimestamp the timestamp of the input packets.
+   * @return the latest task result, or null if the task graph has not produced an output.
+   */
+  OutputT takeLatestResult(long inputTimestamp) {
+    OutputT latestResult = null;
+    for (Map.Entry<Long, ResultSlot<OutputT>> entry :
+        results.tailMap(inputTimestamp, /* inclusive= */ true).entrySet()) {
+      ResultSlot<OutputT> slot = entry.getValue();
+      if (!slot.registered && slot.future.isDone() && results.remove(entry.getKey(), slot)) {
+        latestResult = slot.future.getNow(null);
+      }
+    }
+    return latestResult;
+  }
+
+  /**
+   * Blocks until the task result of the given input timestamp becomes available and claims it.
+   *
+   * @param inputTimestamp the timestamp of the input packets.
+   * @param timeoutMs the maximum time to wait in milliseconds.
+   * @return the task result, or null if the task graph has moved past the timestamp without
+   *     producing an output.
+   * @throws MediaPipeException if the result does not arrive within the timeout, or the wait is
+   *     interrupted.
+   */
+  public OutputT waitForResult(long inputTimestamp, long timeoutMs) {
+    ResultSlot<OutputT> slot =
+        results.computeIfAbsent(
+            inputTimestamp, unused -> new ResultSlot<>(/* registered= */ false));
+    try {
+      return slot.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new MediaPipeException(
+          MediaPipeException.StatusCode.DEADLINE_EXCEEDED.ordinal(),
+          "Timed out waiting for the task result at timestamp " + inputTimestamp + ".");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MediaPipeException(
+          MediaPipeException.StatusCode.CANCELLED.ordinal(),
+          "Interrupted while waiting for the task result at timestamp " + inputTimestamp + ".");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof MediaPipeException) {
+        throw (MediaPipeException) e.getCause();
+      }
+      throw new MediaPipeException(
+          MediaPipeException.StatusCode.INTERNAL.ordinal(), String.valueOf(e.getCause()));
+    } finally {
+      if (!slot.registered) {
+        results.remove(inputTimestamp, slot);
+      }
+    }
+  }
+
+  /**
+   * Evicts the task results that nobody has claimed within the result expiration time.
+   *
+   * @return the number of evicted task results.
+   */
+  public int evictExpiredResults() {
+    long now = System.nanoTime();
+    int evicted = 0;
+    // Only the results at the head of the queue can have expired.
+    UnclaimedResult unclaimedResult;
+    while ((unclaimedResult = unclaimedResults.peek()) != null
+        && now - unclaimedResult.completionTimeNanos > resultExpirationNanos) {
+      // Removes the peeked entry itself, which a concurrent eviction may have taken already.
+      if (!unclaimedResults.remove(unclaimedResult)) {
+        continue;
+      }
+      ResultSlot<OutputT> slot = results.get(unclaimedResult.inputTimestamp);
+      if (slot != null
+          && !slot.registered
+          && slot.completionTimeNanos == unclaimedResult.completionTimeNanos
+          && results.remove(unclaimedResult.inputTimestamp, slot)) {
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * Registers an asynchronous invocation whose result will be delivered through the returned
+   * {@link CompletableFuture} instead of being kept until it is claimed.
+   *
+   * @param inputTimestamp the timestamp of the input packets of the invocation.
+   */
+  CompletableFuture<OutputT> registerPendingResult(long inputTimestamp) {
+    ResultSlot<OutputT> slot = new ResultSlot<>(/* registered= */ true);
+    results.put(inputTimestamp, slot);
+    return slot.future;
+  }
+
+  /**
+   * Completes the pending results up to and including the given timestamp that have not received
+   * any output with a null result, as the task graph will not produce an output for them anymore.
+   * The results that are waiting to be claimed are kept.
+   *
+   * @param timestamp the timestamp bound that the task graph has settled.
+   */
+  void settlePendingResults(long timestamp) {
+    settlePendingResults(timestamp, /* inclusive= */ true);
+  }
+
+  /**
+   * Fails all pending results with the given exception.
+   *
+   * @param e the {@link RuntimeException} to complete the pending results with.
+   */
+  void cancelPendingResults(RuntimeException e) {
+    for (ResultSlot<OutputT> slot : results.values()) {
+      slot.future.completeExceptionally(e);
+    }
+    results.clear();
+    unclaimedResults.clear();
+  }
+
+  private void settlePendingResults(long timestamp, boolean inclusive) {
+    for (Map.Entry<Long, ResultSlot<OutputT>> entry :
+        results.headMap(timestamp, inclusive).entrySet()) {
+      ResultSlot<OutputT> slot = entry.getValue();
+      if (slot.future.complete(null) || slot.registered) {
+        results.remove(entry.getKey(), slot);
+      }
+    }
+  }
+
   /**
    * Handles a list of output {@link Packet}s. Invoked when a packet list become available.
    *
    * @param packets A list of output {@link Packet}s.
    */
   void run(List<Packet> packets) {
+    run(packets, packets.get(0).getTimestamp());
+  }
+
+  /**
+   * Handles a list of output {@link Packet}s of the given timestamp.
+   *
+   * @param packets A list of output {@link Packet}s.
+   * @param timestamp The timestamp of the output packets.
+   */
+  void run(List<Packet> packets, long timestamp) {
     OutputT taskResult = null;
+    ResultSlot<OutputT> slot = results.get(timestamp);
+    // Outputs arrive in timestamp order, so older invocations without an output are done.
+    settlePendingResults(timestamp, /* inclusive= */ false);
+    evictExpiredResults();
     try {
       taskResult = outputPacketConverter.convertToTaskResult(packets);
-      if (resultListener == null) {
-        cachedTaskResult = taskResult;
-        latestOutputTimestamp = packets.get(0).getTimestamp();
+      if (slot != null && slot.registered) {
+        latestOutputTimestamp = timestamp;
+        results.remove(timestamp, slot);
+        slot.future.complete(taskResult);
+      } else if (pureResultListener != null) {
+        pureResultListener.run(taskResult);
+      } else if (resultListener == null) {
+        latestOutputTimestamp = timestamp;
+        if (slot == null) {
+          slot = new ResultSlot<>(/* registered= */ false);
+          ResultSlot<OutputT> existingSlot = results.putIfAbsent(timestamp, slot);
+          slot = existingSlot == null ? slot : existingSlot;
+        }
+        slot.completionTimeNanos = System.nanoTime();
+        if (slot.future.complete(taskResult)) {
+          unclaimedResults.add(new UnclaimedResult(timestamp, slot.completionTimeNanos));
+        }
       } else {
         InputT taskInput = outputPacketConverter.convertToTaskInput(packets);
         resultListener.run(taskResult, taskInput);
       }
     } catch (MediaPipeException e) {
+      if (slot != null && slot.registered) {
+        results.remove(timestamp, slot);
+        slot.future.completeExceptionally(e);
+        return;
+      }
       if (errorListener != null) {
         errorListener.onError(e);
       } else {
         Log.e(TAG, "Error occurs when getting MediaPipe task result. " + e);
       }
+      // Unblocks the callers waiting on the timestamp, as no result will arrive.
+      if (slot != null && slot.future.complete(null)) {
+        results.remove(timestamp, slot);
+      }
     }
   }
 }
@@ -24,6 +24,7 @@ import com.google.mediapipe.framework.MediaPipeException;
 import com.google.protobuf.Any;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * {@link TaskInfo} contains all needed information to initialize a MediaPipe Task {@link
@@ -31,6 +32,12 @@ import java.util.List;
  */
 @AutoValue
 public abstract class TaskInfo<T extends TaskOptions> {
+  // The flow limiter output stream that signals whether each input frame was admitted or dropped.
+  private static final String FLOW_LIMITER_ALLOW_STREAM_NAME = "flow_limiter_allow";
+  // The ALLOW packets of the dropped input frames only, so that the admitted frames don't cross
+  // over to Java to be counted.
+  static final String FLOW_LIMITER_DROPPED_STREAM_NAME = "flow_limiter_dropped";
+
   /** Builder for {@link TaskInfo}. */
   @AutoValue.Builder
   public abstract static class Builder<T extends TaskOptions> {
@@ -52,6 +59,24 @@ public abstract class TaskInfo<T extends TaskOptions> {
     /** Sets to true if the task requires a flow limiter. */
     public abstract Builder<T> setEnableFlowLimiting(Boolean value);
 
+    /**
+     * Sets the {@link FlowControlPolicy} of the flow limiter. Only used when flow limiting is
+     * enabled. Defaults to {@link FlowControlPolicy#defaultPolicy()}.
+     */
+    public abstract Builder<T> setFlowControlPolicy(FlowControlPolicy value);
+
+    /**
+     * Sets the {@link ModelResourcesCache} shared with other task graphs. If empty, the task graph
+     * uses its own cache.
+     */
+    public abstract Builder<T> setModelResourcesCache(Optional<ModelResourcesCache> value);
+
+    /**
+     * Sets to true to profile the calculators of the task graph with a {@link TaskProfiler}.
+     * Defaults to false.
+     */
+    public abstract Builder<T> setEnableProfiling(Boolean value);
+
     /**
      * Sets a task-specific options instance.
      *
@@ -93,8 +118,18 @@ public abstract class TaskInfo<T extends TaskOptions> {
 
   abstract Boolean enableFlowLimiting();
 
+  abstract FlowControlPolicy flowControlPolicy();
+
+  abstract Optional<ModelResourcesCache> modelResourcesCache();
+
+  abstract Boolean enableProfiling();
+
   public static <T extends TaskOptions> Builder<T> builder() {
-    return new AutoValue_TaskInfo.Builder<T>().setTaskName("").setTaskRunningModeName("");
+    return new AutoValue_TaskInfo.Builder<T>()
+        .setTaskName("")
+        .setTaskRunningModeName("")
+        .setFlowControlPolicy(FlowControlPolicy.defaultPolicy())
+        .setEnableProfiling(false);
   }
 
   /* Returns a list of the output stream names without the stream tags. */
@@ -112,6 +147,9 @@ public abstract class TaskInfo<T extends TaskOptions> {
    */
   CalculatorGraphConfig generateGraphConfig() {
     CalculatorGraphConfig.Builder graphBuilder = CalculatorGraphConfig.newBuilder();
+    if (enableProfiling()) {
+      graphBuilder.setProfilerConfig(TaskProfiler.PROFILER_CONFIG);
+    }
     CalculatorOptions options = taskOptions().convertToCalculatorOptionsProto();
     Any anyOptions = taskOptions().convertToAnyProto();
     if (!(options == null ^ anyOptions == null)) {
@@ -147,12 +185,9 @@ public abstract class TaskInfo<T extends TaskOptions> {
             .setOptions(
                 CalculatorOptions.newBuilder()
                     .setExtension(
-                        FlowLimiterCalculatorOptions.ext,
-                        FlowLimiterCalculatorOptions.newBuilder()
-                            .setMaxInFlight(1)
-                            .setMaxInQueue(1)
-                            .build())
-                    .build());
+                        FlowLimiterCalculatorOptions.ext, flowControlPolicy().convertToProto())
+                    .build())
+            .addOutputStream("ALLOW:" + FLOW_LIMITER_ALLOW_STREAM_NAME);
     for (String inputStream : inputStreams()) {
       graphBuilder.addInputStream(inputStream);
       flowLimiterCalculatorBuilder.addInputStream(stripTagIndex(inputStream));
@@ -163,6 +198,14 @@ public abstract class TaskInfo<T extends TaskOptions> {
     flowLimiterCalculatorBuilder.addInputStream(
         "FINISHED:" + stripTagIndex(outputStreams().get(0)));
     graphBuilder.addNode(flowLimiterCalculatorBuilder.build());
+    // Lets an ALLOW packet through only when it's false.
+    graphBuilder.addNode(
+        Node.newBuilder()
+            .setCalculator("GateCalculator")
+            .addInputStream(FLOW_LIMITER_ALLOW_STREAM_NAME)
+            .addInputStream("DISALLOW:" + FLOW_LIMITER_ALLOW_STREAM_NAME)
+            .addOutputStream(FLOW_LIMITER_DROPPED_STREAM_NAME)
+            .build());
     graphBuilder.addNode(taskSubgraphBuilder.build());
     return graphBuilder.build();
   }
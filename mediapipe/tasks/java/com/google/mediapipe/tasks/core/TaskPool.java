@@ -0,0 +1,442 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import android.util.Log;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Ticker;
+import com.google.mediapipe.framework.MediaPipeException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of MediaPipe task instances created from the same options, for serving concurrent
+ * callers.
+ *
+ * <p>Each task instance wraps a single {@link TaskRunner} whose graph serializes the calls made on
+ * it. {@link TaskPool} leases a distinct instance to each concurrent caller, creating new instances
+ * on demand up to {@link Options#maxSize()} and closing the instances that stay idle longer than
+ * {@link Options#idleTimeoutMs()}, down to {@link Options#minSize()}. Callers wait up to {@link
+ * Options#leaseTimeoutMs()} for an instance when the pool is exhausted.
+ *
+ * <pre>{@code
+ * TaskPool<ImageClassifier> pool =
+ *     TaskPool.create(
+ *         () -> ImageClassifier.createFromOptions(context, options),
+ *         TaskPool.Options.builder().setMaxSize(8).build());
+ * ImageClassifierResult result = pool.run(classifier -> classifier.classify(image));
+ * }</pre>
+ *
+ * @param <T> the MediaPipe task type, such as {@code ImageClassifier}.
+ */
+public final class TaskPool<T extends AutoCloseable> implements AutoCloseable {
+  private static final String TAG = TaskPool.class.getSimpleName();
+  private static final long NANOS_PER_MILLISECOND = 1000000;
+
+  /** Interface for creating a new task instance of the pool. */
+  public interface TaskFactory<T> {
+    T create();
+  }
+
+  /** Interface for a unit of work that runs on a leased task instance. */
+  public interface TaskFunction<T, R> {
+    R apply(T task);
+  }
+
+  /** Options for setting up a {@link TaskPool}. */
+  @AutoValue
+  public abstract static class Options {
+
+    /** Builder for {@link Options}. */
+    @AutoValue.Builder
+    public abstract static class Builder {
+      /** Sets the number of task instances that are kept open even when idle. Defaults to 1. */
+      public abstract Builder setMinSize(int value);
+
+      /** Sets the maximum number of task instances. Defaults to 4. */
+      public abstract Builder setMaxSize(int value);
+
+      /**
+       * Sets the maximum time in milliseconds that a caller waits for a task instance when all
+       * instances are leased. Defaults to 1000 milliseconds.
+       */
+      public abstract Builder setLeaseTimeoutMs(long value);
+
+      /**
+       * Sets the time in milliseconds after which an idle task instance above the minimum pool size
+       * is closed. Defaults to 60000 milliseconds.
+       */
+      public abstract Builder setIdleTimeoutMs(long value);
+
+      abstract Options autoBuild();
+
+      /**
+       * Validates and builds the {@link Options} instance.
+       *
+       * @throws IllegalArgumentException if the pool sizes are inconsistent, or if any timeout is
+       *     negative.
+       */
+      public final Options build() {
+        Options options = autoBuild();
+        if (options.minSize() < 0 || options.maxSize() < 1) {
+          throw new IllegalArgumentException(
+              "The min pool size must be non-negative and the max pool size must be positive.");
+        }
+        if (options.minSize() > options.maxSize()) {
+          throw new IllegalArgumentException(
+              "The min pool size must not be greater than the max pool size.");
+        }
+        if (options.leaseTimeoutMs() < 0 || options.idleTimeoutMs() < 0) {
+          throw new IllegalArgumentException("The pool timeouts must be non-negative.");
+        }
+        return options;
+      }
+    }
+
+    public abstract int minSize();
+
+    public abstract int maxSize();
+
+    public abstract long leaseTimeoutMs();
+
+    public abstract long idleTimeoutMs();
+
+    public static Builder builder() {
+      return new AutoValue_TaskPool_Options.Builder()
+          .setMinSize(1)
+          .setMaxSize(4)
+          .setLeaseTimeoutMs(1000)
+          .setIdleTimeoutMs(60000);
+    }
+  }
+
+  /** A snapshot of the {@link TaskPool} utilization metrics. */
+  @AutoValue
+  public abstract static class PoolStats {
+    static PoolStats create(
+        int size,
+        int leasedCount,
+        int peakLeasedCount,
+        long leaseCount,
+        long waitCount,
+        long timeoutCount,
+        long totalWaitMs) {
+      return new AutoValue_TaskPool_PoolStats(
+          size, leasedCount, peakLeasedCount, leaseCount, waitCount, timeoutCount, totalWaitMs);
+    }
+
+    /** The number of open task instances. */
+    public abstract int size();
+
+    /** The number of task instances currently leased to callers. */
+    public abstract int leasedCount();
+
+    /** The highest number of task instances leased at the same time. */
+    public abstract int peakLeasedCount();
+
+    /** The total number of successful leases. */
+    public abstract long leaseCount();
+
+    /** The number of leases that had to wait for a task instance to be returned. */
+    public abstract long waitCount();
+
+    /** The number of leases that timed out. */
+    public abstract long timeoutCount();
+
+    /** The total time in milliseconds that callers spent waiting for a task instance. */
+    public abstract long totalWaitMs();
+
+    /** Returns the fraction of the open task instances that are currently leased. */
+    public float utilization() {
+      return size() == 0 ? 0f : (float) leasedCount() / size();
+    }
+  }
+
+  /** An idle task instance and the time at which it was returned to the pool. */
+  private static final class IdleTask<T> {
+    final T task;
+    final long idleSinceNanos;
+
+    IdleTask(T task, long idleSinceNanos) {
+      this.task = task;
+      this.idleSinceNanos = idleSinceNanos;
+    }
+  }
+
+  private final TaskFactory<T> factory;
+  private final Options options;
+  private final Ticker ticker;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition taskReturned = lock.newCondition();
+  // The following fields are guarded by the lock.
+  // Idle task instances, the most recently returned one first.
+  private final Deque<IdleTask<T>> idleTasks = new ArrayDeque<>();
+  // The task instances currently leased to callers, by identity.
+  private final Set<T> leasedTasks = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+  private int size = 0;
+  private int leasedCount = 0;
+  private int peakLeasedCount = 0;
+  private long leaseCount = 0;
+  private long waitCount = 0;
+  private long timeoutCount = 0;
+  private long totalWaitNanos = 0;
+  private boolean closed = false;
+
+  /**
+   * Creates a {@link TaskPool} instance and eagerly creates {@link Options#minSize()} task
+   * instances.
+   *
+   * @param factory a {@link TaskFactory} that creates a task instance from the shared options.
+   * @param options the {@link Options} of the pool.
+   * @throws MediaPipeException if there is an error during the task instance creation.
+   */
+  public static <T extends AutoCloseable> TaskPool<T> create(
+      TaskFactory<T> factory, Options options) {
+    return create(factory, options, Ticker.systemTicker());
+  }
+
+  /** Creates a {@link TaskPool} instance that measures time with the given {@link Ticker}. */
+  static <T extends AutoCloseable> TaskPool<T> create(
+      TaskFactory<T> factory, Options options, Ticker ticker) {
+    TaskPool<T> pool = new TaskPool<>(factory, options, ticker);
+    List<T> createdTasks = new ArrayList<>();
+    try {
+      for (int i = 0; i < options.minSize(); ++i) {
+        createdTasks.add(factory.create());
+      }
+    } catch (RuntimeException e) {
+      // Don't leak the task instances created before the failure.
+      pool.closeTasks(createdTasks);
+      throw e;
+    }
+    long now = ticker.read();
+    for (T task : createdTasks) {
+      pool.idleTasks.push(new IdleTask<>(task, now));
+      pool.size++;
+    }
+    return pool;
+  }
+
+  private TaskPool(TaskFactory<T> factory, Options options, Ticker ticker) {
+    this.factory = factory;
+    this.options = options;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Leases a task instance, runs the function on it and returns the instance to the pool.
+   *
+   * @param function the {@link TaskFunction} to run on the leased task instance.
+   * @throws MediaPipeException if no task instance becomes available before the lease timeout, or
+   *     if the pool is closed.
+   */
+  public <R> R run(TaskFunction<T, R> function) {
+    T task = lease();
+    try {
+      return function.apply(task);
+    } finally {
+      release(task);
+    }
+  }
+
+  /**
+   * Leases a task instance for the exclusive use of the caller. The caller must return the instance
+   * with {@link #release} once done with it.
+   *
+   * @throws MediaPipeException if no task instance becomes available before the lease timeout, or
+   *     if the pool is closed.
+   */
+  public T lease() {
+    List<T> expiredTasks = new ArrayList<>();
+    boolean createTask = false;
+    T task = null;
+    lock.lock();
+    try {
+      long startNanos = ticker.read();
+      long remainingNanos = options.leaseTimeoutMs() * NANOS_PER_MILLISECOND;
+      boolean waited = false;
+      while (task == null && !createTask) {
+        checkNotClosed();
+        if (!idleTasks.isEmpty()) {
+          task = idleTasks.pop().task;
+        } else if (size < options.maxSize()) {
+          // Reserves a slot and creates the task instance outside of the lock.
+          size++;
+          createTask = true;
+        } else if (remainingNanos <= 0) {
+          timeoutCount++;
+          totalWaitNanos += ticker.read() - startNanos;
+          throw new MediaPipeException(
+              MediaPipeException.StatusCode.DEADLINE_EXCEEDED.ordinal(),
+              "No task instance became available within " + options.leaseTimeoutMs() + " ms.");
+        } else {
+          waited = true;
+          remainingNanos = taskReturned.awaitNanos(remainingNanos);
+        }
+      }
+      if (waited) {
+        waitCount++;
+        totalWaitNanos += ticker.read() - startNanos;
+      }
+      if (task != null) {
+        leasedTasks.add(task);
+      }
+      leasedCount++;
+      leaseCount++;
+      peakLeasedCount = Math.max(peakLeasedCount, leasedCount);
+      collectExpiredTasks(expiredTasks);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MediaPipeException(
+          MediaPipeException.StatusCode.CANCELLED.ordinal(),
+          "Interrupted while waiting for a task instance.");
+    } finally {
+      lock.unlock();
+    }
+    closeTasks(expiredTasks);
+    if (createTask) {
+      try {
+        task = factory.create();
+      } catch (RuntimeException e) {
+        lock.lock();
+        try {
+          size--;
+          leasedCount--;
+          leaseCount--;
+          taskReturned.signal();
+        } finally {
+          lock.unlock();
+        }
+        throw e;
+      }
+      lock.lock();
+      try {
+        leasedTasks.add(task);
+      } finally {
+        lock.unlock();
+      }
+    }
+    return task;
+  }
+
+  /**
+   * Returns a task instance leased by {@link #lease} to the pool.
+   *
+   * @param task the leased task instance.
+   * @throws MediaPipeException if the task instance is not currently leased from this pool, e.g.
+   *     if it has already been released.
+   */
+  public void release(T task) {
+    List<T> tasksToClose = new ArrayList<>();
+    lock.lock();
+    try {
+      if (!leasedTasks.remove(task)) {
+        throw new MediaPipeException(
+            MediaPipeException.StatusCode.INVALID_ARGUMENT.ordinal(),
+            "The task instance is not leased from this pool, or has already been released.");
+      }
+      leasedCount--;
+      if (closed) {
+        size--;
+        tasksToClose.add(task);
+      } else {
+        idleTasks.push(new IdleTask<>(task, ticker.read()));
+        collectExpiredTasks(tasksToClose);
+        taskReturned.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+    closeTasks(tasksToClose);
+  }
+
+  /** Returns a snapshot of the pool utilization metrics. */
+  public PoolStats getStats() {
+    lock.lock();
+    try {
+      return PoolStats.create(
+          size,
+          leasedCount,
+          peakLeasedCount,
+          leaseCount,
+          waitCount,
+          timeoutCount,
+          totalWaitNanos / NANOS_PER_MILLISECOND);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes the idle task instances and marks the pool as closed. Leased task instances are closed
+   * when they are returned to the pool.
+   */
+  @Override
+  public void close() {
+    List<T> tasksToClose = new ArrayList<>();
+    lock.lock();
+    try {
+      closed = true;
+      while (!idleTasks.isEmpty()) {
+        tasksToClose.add(idleTasks.pop().task);
+        size--;
+      }
+      taskReturned.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    closeTasks(tasksToClose);
+  }
+
+  /**
+   * Removes the task instances that have been idle for longer than the idle timeout, keeping at
+   * least {@link Options#minSize()} instances open. Must be called with the lock held.
+   */
+  private void collectExpiredTasks(List<T> expiredTasks) {
+    long expiryNanos = ticker.read() - options.idleTimeoutMs() * NANOS_PER_MILLISECOND;
+    // The least recently returned task instances are at the end of the deque.
+    while (size > options.minSize()
+        && !idleTasks.isEmpty()
+        && idleTasks.peekLast().idleSinceNanos - expiryNanos < 0) {
+      expiredTasks.add(idleTasks.pollLast().task);
+      size--;
+    }
+  }
+
+  private void checkNotClosed() {
+    if (closed) {
+      throw new MediaPipeException(
+          MediaPipeException.StatusCode.FAILED_PRECONDITION.ordinal(),
+          "The task pool has been closed.");
+    }
+  }
+
+  private void closeTasks(List<T> tasks) {
+    for (T task : tasks) {
+      try {
+        task.close();
+      } catch (Exception e) {
+        Log.e(TAG, "Failed to close a pooled task instance.", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,387 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import android.util.Log;
+import com.google.auto.value.AutoValue;
+import com.google.mediapipe.framework.GraphProfiler;
+import com.google.mediapipe.proto.CalculatorProfileProto.CalculatorProfile;
+import com.google.mediapipe.proto.CalculatorProfileProto.TimeHistogram;
+import com.google.mediapipe.proto.CalculatorProto.ProfilerConfig;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles the calculators of a task graph, created by the {@link TaskRunner} of the tasks with
+ * profiling enabled in their {@link BaseOptions}.
+ *
+ * <p>The graph profiler only keeps the totals and the histograms of the calculator process times,
+ * without tracing individual packets, which keeps its overhead low enough for production builds.
+ * The {@link TaskProfiler} samples these profiles, on demand or periodically on a background
+ * thread, into {@link Snapshot}s of per-calculator stats over the interval since the previous
+ * snapshot. The most recent snapshots can be exported as Chrome trace events or CSV.
+ */
+public final class TaskProfiler implements AutoCloseable {
+  private static final String TAG = TaskProfiler.class.getSimpleName();
+  // The process time histograms cover 0 to 50 ms in 100 us intervals, and the last interval
+  // extends to +inf.
+  private static final long HISTOGRAM_INTERVAL_SIZE_USEC = 100;
+  private static final long NUM_HISTOGRAM_INTERVALS = 500;
+  // The number of snapshots kept for the exports, e.g. 10 minutes at one snapshot per second.
+  private static final int MAX_SNAPSHOTS = 600;
+
+  /** The profiler config of the task graphs with profiling enabled. */
+  static final ProfilerConfig PROFILER_CONFIG =
+      ProfilerConfig.newBuilder()
+          .setEnableProfiler(true)
+          .setHistogramIntervalSizeUsec(HISTOGRAM_INTERVAL_SIZE_USEC)
+          .setNumHistogramIntervals(NUM_HISTOGRAM_INTERVALS)
+          .build();
+
+  /** The stats of the calculators of the task graph, as sampled at a point in time. */
+  @AutoValue
+  public abstract static class Snapshot {
+    static Snapshot create(long timestampMs, List<CalculatorStats> calculatorStats) {
+      return new AutoValue_TaskProfiler_Snapshot(
+          timestampMs, Collections.unmodifiableList(calculatorStats));
+    }
+
+    /** The time of the snapshot, in milliseconds since the creation of the profiler. */
+    public abstract long timestampMs();
+
+    /**
+     * The stats of each calculator, sorted by decreasing process time over the interval since the
+     * previous snapshot.
+     */
+    public abstract List<CalculatorStats> calculatorStats();
+  }
+
+  /** The process time stats of a calculator. */
+  @AutoValue
+  public abstract static class CalculatorStats {
+    static CalculatorStats create(
+        String calculatorName,
+        long processCount,
+        long processTimeUs,
+        long intervalProcessCount,
+        long intervalProcessTimeUs,
+        long p50ProcessTimeUs,
+        long p95ProcessTimeUs,
+        long p99ProcessTimeUs) {
+      return new AutoValue_TaskProfiler_CalculatorStats(
+          calculatorName,
+          processCount,
+          processTimeUs,
+          intervalProcessCount,
+          intervalProcessTimeUs,
+          p50ProcessTimeUs,
+          p95ProcessTimeUs,
+          p99ProcessTimeUs);
+    }
+
+    /** The name of the calculator node. */
+    public abstract String calculatorName();
+
+    /** The number of Process() calls since the start of the graph or the last reset. */
+    public abstract long processCount();
+
+    /** The time spent in Process() since the start of the graph or the last reset. */
+    public abstract long processTimeUs();
+
+    /** The number of Process() calls since the previous snapshot. */
+    public abstract long intervalProcessCount();
+
+    /** The time spent in Process() since the previous snapshot. */
+    public abstract long intervalProcessTimeUs();
+
+    /** The median Process() time since the previous snapshot. */
+    public abstract long p50ProcessTimeUs();
+
+    /** The 95th percentile Process() time since the previous snapshot. */
+    public abstract long p95ProcessTimeUs();
+
+    /** The 99th percentile Process() time since the previous snapshot. */
+    public abstract long p99ProcessTimeUs();
+  }
+
+  private final GraphProfiler graphProfiler;
+  private final long startNanos = System.nanoTime();
+  private final ArrayDeque<Snapshot> snapshots = new ArrayDeque<>();
+  // The process time histograms of the previous snapshot, by calculator name.
+  private final Map<String, TimeHistogram> previousHistograms = new HashMap<>();
+  private ScheduledExecutorService sampler;
+
+  TaskProfiler(GraphProfiler graphProfiler) {
+    this.graphProfiler = graphProfiler;
+  }
+
+  /**
+   * Starts sampling the calculator profiles periodically on a background thread, in place of any
+   * previous schedule.
+   *
+   * @param periodMs the sampling period, in milliseconds.
+   */
+  public synchronized void startSampling(long periodMs) {
+    stopSampling();
+    sampler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, TAG);
+              thread.setDaemon(true);
+              thread.setPriority(Thread.MIN_PRIORITY);
+              return thread;
+            });
+    sampler.scheduleAtFixedRate(this::sampleQuietly, periodMs, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops the periodic sampling, if any. */
+  public synchronized void stopSampling() {
+    if (sampler != null) {
+      sampler.shutdownNow();
+      sampler = null;
+    }
+  }
+
+  /**
+   * Samples the calculator profiles into a new {@link Snapshot}, which is also kept for the
+   * exports.
+   *
+   * @throws IllegalStateException if the task graph has been closed.
+   */
+  public Snapshot sample() {
+    List<CalculatorProfile> profiles = graphProfiler.getCalculatorProfiles();
+    long timestampMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    synchronized (snapshots) {
+      Snapshot snapshot = createSnapshot(timestampMs, profiles, previousHistograms);
+      if (snapshots.size() == MAX_SNAPSHOTS) {
+        snapshots.removeFirst();
+      }
+      snapshots.addLast(snapshot);
+      return snapshot;
+    }
+  }
+
+  /** Returns the most recent snapshots, oldest first. */
+  public List<Snapshot> getSnapshots() {
+    synchronized (snapshots) {
+      return new ArrayList<>(snapshots);
+    }
+  }
+
+  /** Resets the calculator profiles of the graph, and drops the snapshots taken so far. */
+  public void reset() {
+    graphProfiler.reset();
+    synchronized (snapshots) {
+      snapshots.clear();
+      previousHistograms.clear();
+    }
+  }
+
+  /**
+   * Writes the snapshots as a Chrome trace event JSON file, which can be opened in {@code
+   * chrome://tracing} or Perfetto. Each calculator has a counter track of its Process() time
+   * percentiles and one of its Process() calls per snapshot.
+   *
+   * @param writer the {@link Writer} to write the JSON to.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void writeChromeTrace(Writer writer) throws IOException {
+    writeChromeTrace(getSnapshots(), writer);
+  }
+
+  /**
+   * Writes the snapshots as CSV, with one row per calculator and snapshot.
+   *
+   * @param writer the {@link Writer} to write the CSV to.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void writeCsv(Writer writer) throws IOException {
+    writeCsv(getSnapshots(), writer);
+  }
+
+  /** Stops the periodic sampling, if any. */
+  @Override
+  public void close() {
+    stopSampling();
+  }
+
+  private void sampleQuietly() {
+    try {
+      sample();
+    } catch (RuntimeException e) {
+      Log.w(TAG, "Failed to sample the calculator profiles, stopping the sampling.", e);
+      stopSampling();
+    }
+  }
+
+  /**
+   * Creates the {@link Snapshot} of the calculator profiles, with the interval stats computed from
+   * the differences with {@code previousHistograms}, which are then replaced with the current ones.
+   */
+  static Snapshot createSnapshot(
+      long timestampMs,
+      List<CalculatorProfile> profiles,
+      Map<String, TimeHistogram> previousHistograms) {
+    List<CalculatorStats> calculatorStats = new ArrayList<>(profiles.size());
+    for (CalculatorProfile profile : profiles) {
+      TimeHistogram histogram = profile.getProcessRuntime();
+      TimeHistogram previous = previousHistograms.put(profile.getName(), histogram);
+      long[] counts = new long[histogram.getCountCount()];
+      long processCount = 0;
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = histogram.getCount(i);
+        processCount += counts[i];
+      }
+      long intervalProcessTimeUs = histogram.getTotal();
+      // The previous histogram is ignored if the profiles were reset since.
+      if (previous != null
+          && previous.getCountCount() == counts.length
+          && previous.getTotal() <= histogram.getTotal()) {
+        for (int i = 0; i < counts.length; i++) {
+          counts[i] -= previous.getCount(i);
+        }
+        intervalProcessTimeUs -= previous.getTotal();
+      }
+      long intervalProcessCount = 0;
+      for (long count : counts) {
+        intervalProcessCount += count;
+      }
+      long intervalSizeUs = histogram.getIntervalSizeUsec();
+      calculatorStats.add(
+          CalculatorStats.create(
+              profile.getName(),
+              processCount,
+              histogram.getTotal(),
+              intervalProcessCount,
+              intervalProcessTimeUs,
+              getPercentile(counts, intervalProcessCount, intervalSizeUs, 50),
+              getPercentile(counts, intervalProcessCount, intervalSizeUs, 95),
+              getPercentile(counts, intervalProcessCount, intervalSizeUs, 99)));
+    }
+    Collections.sort(
+        calculatorStats,
+        (a, b) -> Long.compare(b.intervalProcessTimeUs(), a.intervalProcessTimeUs()));
+    return Snapshot.create(timestampMs, calculatorStats);
+  }
+
+  /**
+   * Returns the midpoint of the histogram interval of the {@code percentile}, or the start of the
+   * last interval, which extends to +inf.
+   */
+  private static long getPercentile(
+      long[] counts, long totalCount, long intervalSizeUs, double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long targetCount = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+    long count = 0;
+    for (int i = 0; i < counts.length; i++) {
+      count += counts[i];
+      if (count >= targetCount) {
+        long intervalStartUs = i * intervalSizeUs;
+        return i == counts.length - 1 ? intervalStartUs : intervalStartUs + intervalSizeUs / 2;
+      }
+    }
+    return (counts.length - 1) * intervalSizeUs;
+  }
+
+  static void writeChromeTrace(List<Snapshot> snapshots, Writer writer) throws IOException {
+    writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    boolean first = true;
+    for (Snapshot snapshot : snapshots) {
+      long timestampUs = snapshot.timestampMs() * 1000;
+      for (CalculatorStats stats : snapshot.calculatorStats()) {
+        String name = escapeJson(stats.calculatorName());
+        writer.write(first ? "\n" : ",\n");
+        first = false;
+        writer.write(
+            String.format(
+                Locale.ROOT,
+                "{\"name\":\"%s process time (us)\",\"ph\":\"C\",\"ts\":%d,\"pid\":0,\"tid\":0,"
+                    + "\"args\":{\"p50\":%d,\"p95\":%d,\"p99\":%d}},\n",
+                name,
+                timestampUs,
+                stats.p50ProcessTimeUs(),
+                stats.p95ProcessTimeUs(),
+                stats.p99ProcessTimeUs()));
+        writer.write(
+            String.format(
+                Locale.ROOT,
+                "{\"name\":\"%s process calls\",\"ph\":\"C\",\"ts\":%d,\"pid\":0,\"tid\":0,"
+                    + "\"args\":{\"calls\":%d}}",
+                name, timestampUs, stats.intervalProcessCount()));
+      }
+    }
+    writer.write("\n]}\n");
+    writer.flush();
+  }
+
+  static void writeCsv(List<Snapshot> snapshots, Writer writer) throws IOException {
+    writer.write(
+        "timestamp_ms,calculator,process_count,process_time_us,interval_process_count,"
+            + "interval_process_time_us,p50_process_time_us,p95_process_time_us,"
+            + "p99_process_time_us\n");
+    for (Snapshot snapshot : snapshots) {
+      for (CalculatorStats stats : snapshot.calculatorStats()) {
+        writer.write(
+            String.format(
+                Locale.ROOT,
+                "%d,%s,%d,%d,%d,%d,%d,%d,%d\n",
+                snapshot.timestampMs(),
+                escapeCsv(stats.calculatorName()),
+                stats.processCount(),
+                stats.processTimeUs(),
+                stats.intervalProcessCount(),
+                stats.intervalProcessTimeUs(),
+                stats.p50ProcessTimeUs(),
+                stats.p95ProcessTimeUs(),
+                stats.p99ProcessTimeUs()));
+      }
+    }
+    writer.flush();
+  }
+
+  private static String escapeJson(String value) {
+    StringBuilder escaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        escaped.append('\\').append(c);
+      } else if (c < 0x20) {
+        escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+      } else {
+        escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+
+  private static String escapeCsv(String value) {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
@@ -22,9 +22,13 @@ import com.google.mediapipe.framework.AndroidPacketCreator;
 import com.google.mediapipe.framework.Graph;
 import com.google.mediapipe.framework.MediaPipeException;
 import com.google.mediapipe.framework.Packet;
-import com.google.mediapipe.tasks.core.logging.TasksStatsDummyLogger;
+import com.google.mediapipe.tasks.core.logging.TasksStatsInProcessLogger;
 import com.google.mediapipe.tasks.core.logging.TasksStatsLogger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /** The runner of MediaPipe task graphs. */
@@ -38,6 +42,7 @@ public class TaskRunner implements AutoCloseable {
   private final ModelResourcesCache modelResourcesCache;
   private final AndroidPacketCreator packetCreator;
   private final TasksStatsLogger statsLogger;
+  private final Optional<TaskProfiler> profiler;
   private long lastSeenTimestamp = Long.MIN_VALUE;
   private ErrorListener errorListener;
 
@@ -56,23 +61,57 @@ public class TaskRunner implements AutoCloseable {
       TaskInfo<? extends TaskOptions> taskInfo,
       OutputHandler<? extends TaskResult, ?> outputHandler) {
     TasksStatsLogger statsLogger =
-        TasksStatsDummyLogger.create(context, taskInfo.taskName(), taskInfo.taskRunningModeName());
+        TasksStatsInProcessLogger.create(
+            context, taskInfo.taskName(), taskInfo.taskRunningModeName());
     AndroidAssetUtil.initializeNativeAssetManager(context);
+    // Checked before the graph is started, as the profiler handle is null without the profiler.
+    boolean enableProfiling = taskInfo.enableProfiling() && Graph.isProfilerAvailable();
+    if (taskInfo.enableProfiling() && !enableProfiling) {
+      Log.w(TAG, "Profiling is not available in this build of the MediaPipe native library.");
+    }
     Graph mediapipeGraph = new Graph();
-    mediapipeGraph.loadBinaryGraph(taskInfo.generateGraphConfig());
-    ModelResourcesCache graphModelResourcesCache = new ModelResourcesCache();
-    mediapipeGraph.setServiceObject(new ModelResourcesCacheService(), graphModelResourcesCache);
-    mediapipeGraph.addMultiStreamCallback(
-        taskInfo.outputStreamNames(),
-        packets -> {
-          outputHandler.run(packets);
-          statsLogger.recordInvocationEnd(packets.get(0).getTimestamp());
-        },
-        /* observeTimestampBounds= */ outputHandler.handleTimestampBoundChanges());
-    mediapipeGraph.startRunningGraph();
-    // Waits until all calculators are opened and the graph is fully started.
-    mediapipeGraph.waitUntilGraphIdle();
-    return new TaskRunner(mediapipeGraph, graphModelResourcesCache, outputHandler, statsLogger);
+    ModelResourcesCache graphModelResourcesCache = null;
+    try {
+      mediapipeGraph.loadBinaryGraph(taskInfo.generateGraphConfig());
+      // Each task runner holds a reference to a shared cache, or owns a cache of its own.
+      graphModelResourcesCache =
+          taskInfo.modelResourcesCache().isPresent()
+              ? taskInfo.modelResourcesCache().get().acquire()
+              : new ModelResourcesCache();
+      mediapipeGraph.setServiceObject(new ModelResourcesCacheService(), graphModelResourcesCache);
+      mediapipeGraph.addMultiStreamCallback(
+          taskInfo.outputStreamNames(),
+          packets -> {
+            outputHandler.run(packets);
+            statsLogger.recordInvocationEnd(packets.get(0).getTimestamp());
+          },
+          /* observeTimestampBounds= */ outputHandler.handleTimestampBoundChanges());
+      if (taskInfo.enableFlowLimiting()) {
+        mediapipeGraph.addPacketCallback(
+            TaskInfo.FLOW_LIMITER_DROPPED_STREAM_NAME,
+            packet -> statsLogger.recordInvocationDropped(packet.getTimestamp()));
+      }
+      mediapipeGraph.startRunningGraph();
+      // Waits until all calculators are opened and the graph is fully started.
+      mediapipeGraph.waitUntilGraphIdle();
+      Optional<TaskProfiler> profiler =
+          enableProfiling
+              ? Optional.of(new TaskProfiler(mediapipeGraph.getProfiler()))
+              : Optional.empty();
+      return new TaskRunner(
+          mediapipeGraph, graphModelResourcesCache, outputHandler, statsLogger, profiler);
+    } catch (RuntimeException e) {
+      // Don't leak the native graph, nor the reference to a shared cache.
+      try {
+        mediapipeGraph.tearDown();
+      } catch (RuntimeException tearDownException) {
+        e.addSuppressed(tearDownException);
+      }
+      if (graphModelResourcesCache != null) {
+        graphModelResourcesCache.release();
+      }
+      throw e;
+    }
   }
 
   /**
@@ -89,6 +128,14 @@ public class TaskRunner implements AutoCloseable {
     return packetCreator;
   }
 
+  /**
+   * Returns the {@link TaskProfiler} of the task graph, if profiling is enabled in the {@link
+   * TaskInfo} and the MediaPipe native library is built with the profiler.
+   */
+  public Optional<TaskProfiler> getProfiler() {
+    return profiler;
+  }
+
   /**
    * A synchronous method for processing batch data.
    *
@@ -105,8 +152,65 @@ public class TaskRunner implements AutoCloseable {
     statsLogger.recordCpuInputArrival(syntheticInputTimestamp);
     addPackets(inputs, syntheticInputTimestamp);
     graph.waitUntilGraphIdle();
-    lastSeenTimestamp = outputHandler.getLatestOutputTimestamp();
-    return outputHandler.retrieveCachedTaskResult();
+    outputHandler.settlePendingResults(syntheticInputTimestamp);
+    lastSeenTimestamp = Math.max(lastSeenTimestamp, outputHandler.getLatestOutputTimestamp());
+    return outputHandler.takeLatestResult(syntheticInputTimestamp);
+  }
+
+  /**
+   * An asynchronous method for processing batch data.
+   *
+   * <p>Note: This method is designed for keeping the task graph saturated with unrelated batch
+   * inputs such as images and texts. The call returns as soon as the inputs are sent to the graph,
+   * and an internal timestamp is assigned per invocation. The returned {@link CompletableFuture}
+   * completes when the graph emits the output at that timestamp, or with a null result once the
+   * graph has moved past the timestamp without producing an output. This method is thread-safe.
+   *
+   * @param inputs a map contains (input stream {@link String}, data {@link Packet}) pairs.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized CompletableFuture<TaskResult> processAsync(Map<String, Packet> inputs) {
+    long syntheticInputTimestamp = generateSyntheticTimestamp();
+    CompletableFuture<TaskResult> result =
+        (CompletableFuture<TaskResult>)
+            outputHandler.registerPendingResult(syntheticInputTimestamp);
+    statsLogger.recordCpuInputArrival(syntheticInputTimestamp);
+    try {
+      addPacketsOrThrow(inputs, syntheticInputTimestamp);
+    } catch (RuntimeException e) {
+      // The graph won't produce an output for the invocation, whether an error listener is set or
+      // not, so the failure goes to the returned future.
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * A pipelined method for processing a batch of unrelated inputs.
+   *
+   * <p>Note: All inputs are sent to the graph before any result is awaited, so that the calculators
+   * of the graph can work on several inputs at a time. The call blocks the current thread until
+   * the graph is idle, and all returned {@link CompletableFuture}s are complete when it returns.
+   * This method is thread-safe.
+   *
+   * @param inputs a list of maps that contain (input stream {@link String}, data {@link Packet})
+   *     pairs, one map per invocation.
+   */
+  public synchronized List<CompletableFuture<TaskResult>> processBatch(
+      List<Map<String, Packet>> inputs) {
+    List<CompletableFuture<TaskResult>> results = new ArrayList<>(inputs.size());
+    for (Map<String, Packet> input : inputs) {
+      results.add(processAsync(input));
+    }
+    try {
+      graph.waitUntilGraphIdle();
+    } catch (MediaPipeException e) {
+      // The graph has failed, and won't produce the outputs of the pending results anymore.
+      outputHandler.cancelPendingResults(e);
+      throw e;
+    }
+    outputHandler.settlePendingResults(lastSeenTimestamp);
+    return results;
   }
 
   /**
@@ -127,7 +231,7 @@ public class TaskRunner implements AutoCloseable {
     statsLogger.recordCpuInputArrival(inputTimestamp);
     addPackets(inputs, inputTimestamp);
     graph.waitUntilGraphIdle();
-    return outputHandler.retrieveCachedTaskResult();
+    return outputHandler.takeLatestResult(inputTimestamp);
   }
 
   /**
@@ -178,27 +282,45 @@ public class TaskRunner implements AutoCloseable {
   /** Closes and cleans up the {@link TaskRunner} instance. */
   @Override
   public void close() {
+    profiler.ifPresent(TaskProfiler::close);
     if (!graphStarted.get()) {
       return;
     }
+    MediaPipeException graphException = null;
     try {
       graphStarted.set(false);
       graph.closeAllPacketSources();
       graph.waitUntilGraphDone();
       statsLogger.logSessionEnd();
+    } catch (MediaPipeException e) {
+      graphException = e;
+    } finally {
+      // The pending results fail with the error of the graph, if any.
+      outputHandler.cancelPendingResults(
+          graphException != null
+              ? graphException
+              : new MediaPipeException(
+                  MediaPipeException.StatusCode.CANCELLED.ordinal(),
+                  "The task runner was closed before the result became available."));
+      try {
+        graph.tearDown();
+      } catch (MediaPipeException e) {
+        if (graphException == null) {
+          graphException = e;
+        } else {
+          graphException.addSuppressed(e);
+        }
+      }
+      // Released after the tear-down, as the graph may use the cache until then.
       if (modelResourcesCache != null) {
         modelResourcesCache.release();
       }
-    } catch (MediaPipeException e) {
+    }
+    if (graphException != null) {
       // Note: errors during Process are reported at the earliest opportunity,
       // which may be addPacket or waitUntilDone, depending on timing. For consistency,
       // we want to always report them using the same async handler if installed.
-      reportError(e);
-    }
-    try {
-      graph.tearDown();
-    } catch (MediaPipeException e) {
-      reportError(e);
+      reportError(graphException);
     }
   }
 
@@ -208,20 +330,13 @@ public class TaskRunner implements AutoCloseable {
 
   private synchronized void addPackets(Map<String, Packet> inputs, long inputTimestamp) {
     if (!graphStarted.get()) {
-      reportError(
-          new MediaPipeException(
-              MediaPipeException.StatusCode.FAILED_PRECONDITION.ordinal(),
-              "The task graph hasn't been successfully started or error occurs during graph"
-                  + " initializaton."));
+      releasePackets(inputs);
+      // Reported once, and the inputs are not sent to the graph that isn't running.
+      reportError(createGraphNotStartedException());
+      return;
     }
     try {
-      for (Map.Entry<String, Packet> entry : inputs.entrySet()) {
-        // addConsumablePacketToInputStream allows the graph to take exclusive ownership of the
-        // packet, which may allow for more memory optimizations.
-        graph.addConsumablePacketToInputStream(entry.getKey(), entry.getValue(), inputTimestamp);
-        // If addConsumablePacket succeeded, we don't need to release the packet ourselves.
-        entry.setValue(null);
-      }
+      addPacketsOrThrow(inputs, inputTimestamp);
     } catch (MediaPipeException e) {
       // TODO: do not suppress exceptions here!
       if (errorListener == null) {
@@ -229,17 +344,48 @@ public class TaskRunner implements AutoCloseable {
       } else {
         throw e;
       }
+    }
+  }
+
+  /**
+   * Adds the input packets to the graph, and throws if any of them can't be added. The packets are
+   * released in either case.
+   */
+  private synchronized void addPacketsOrThrow(Map<String, Packet> inputs, long inputTimestamp) {
+    try {
+      if (!graphStarted.get()) {
+        throw createGraphNotStartedException();
+      }
+      for (Map.Entry<String, Packet> entry : inputs.entrySet()) {
+        // addConsumablePacketToInputStream allows the graph to take exclusive ownership of the
+        // packet, which may allow for more memory optimizations.
+        graph.addConsumablePacketToInputStream(entry.getKey(), entry.getValue(), inputTimestamp);
+        // If addConsumablePacket succeeded, we don't need to release the packet ourselves.
+        entry.setValue(null);
+      }
     } finally {
-      for (Packet packet : inputs.values()) {
-        // In case of error, addConsumablePacketToInputStream will not release the packet, so we
-        // have to release it ourselves.
-        if (packet != null) {
-          packet.release();
-        }
+      // In case of error, addConsumablePacketToInputStream will not release the packet, so we
+      // have to release it ourselves.
+      releasePackets(inputs);
+    }
+  }
+
+  /** Releases the input packets that haven't been passed to the graph. */
+  private static void releasePackets(Map<String, Packet> inputs) {
+    for (Packet packet : inputs.values()) {
+      if (packet != null) {
+        packet.release();
       }
     }
   }
 
+  private static MediaPipeException createGraphNotStartedException() {
+    return new MediaPipeException(
+        MediaPipeException.StatusCode.FAILED_PRECONDITION.ordinal(),
+        "The task graph hasn't been successfully started or error occurs during graph"
+            + " initializaton.");
+  }
+
   /**
    * Checks if the input timestamp is strictly greater than the last timestamp that has been
    * processed.
@@ -269,12 +415,14 @@ public class TaskRunner implements AutoCloseable {
       Graph graph,
       ModelResourcesCache modelResourcesCache,
       OutputHandler<? extends TaskResult, ?> outputHandler,
-      TasksStatsLogger statsLogger) {
+      TasksStatsLogger statsLogger,
+      Optional<TaskProfiler> profiler) {
     this.outputHandler = outputHandler;
     this.graph = graph;
     this.modelResourcesCache = modelResourcesCache;
     this.packetCreator = new AndroidPacketCreator(graph);
     this.statsLogger = statsLogger;
+    this.profiler = profiler;
     graphStarted.set(true);
     this.statsLogger.logSessionStart();
   }
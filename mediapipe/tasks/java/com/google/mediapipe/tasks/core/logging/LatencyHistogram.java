@@ -0,0 +1,88 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core.logging;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in microseconds, with log-linear buckets in the manner of HDR
+ * histograms: each power of two range is split into {@code 2^SUB_BUCKET_BITS} linear buckets, so
+ * that any recorded value is known within about 3%, from 1 us up to about 19 hours.
+ */
+final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // The values are clamped below 2^MAX_EXPONENT us.
+  private static final int MAX_EXPONENT = 36;
+  private static final long MAX_VALUE_US = (1L << MAX_EXPONENT) - 1;
+  private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  /** Records a latency, in microseconds. Negative values are ignored. */
+  void record(long valueUs) {
+    if (valueUs >= 0) {
+      counts.incrementAndGet(bucketIndex(Math.min(valueUs, MAX_VALUE_US)));
+    }
+  }
+
+  /**
+   * Returns the latency, in microseconds, below which {@code percentile}% of the recorded latencies
+   * fall, or 0 if no latency was recorded. Concurrent recordings may or may not be accounted for.
+   */
+  long getValueAtPercentile(double percentile) {
+    long totalCount = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      totalCount += counts.get(i);
+    }
+    if (totalCount == 0) {
+      return 0;
+    }
+    long targetCount = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      count += counts.get(i);
+      if (count >= targetCount) {
+        return bucketMidpoint(i);
+      }
+    }
+    return bucketMidpoint(BUCKET_COUNT - 1);
+  }
+
+  /** Clears the recorded latencies. */
+  void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  private static int bucketIndex(long valueUs) {
+    if (valueUs < SUB_BUCKET_COUNT) {
+      return (int) valueUs;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(valueUs);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) ((valueUs >> shift) - SUB_BUCKET_COUNT);
+  }
+
+  private static long bucketMidpoint(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    return lowerBound + (1L << shift) / 2;
+  }
+}
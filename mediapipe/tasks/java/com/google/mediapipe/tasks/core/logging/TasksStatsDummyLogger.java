@@ -64,6 +64,15 @@ public class TasksStatsDummyLogger implements TasksStatsLogger {
   @Override
   public void recordInvocationEnd(long packetTimestamp) {}
 
+  /**
+   * Records an input that was dropped by the flow limiter before reaching the task graph.
+   *
+   * @param packetTimestamp the input packet timestamp that acts as the identifier of the api
+   *     invocation.
+   */
+  @Override
+  public void recordInvocationDropped(long packetTimestamp) {}
+
   /** Logs the MediaPipe Tasks API periodic invocation report. */
   @Override
   public void logInvocationReport(StatsSnapshot stats) {}
@@ -0,0 +1,241 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core.logging;
+
+import android.content.Context;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A MediaPipe Tasks stats logger that measures the invocations in process, and reports them to a
+ * {@link ReportSink}.
+ *
+ * <p>The start of an invocation, recorded by {@link #recordCpuInputArrival} or {@link
+ * #recordGpuInputArrival}, is matched with its end, recorded by {@link #recordInvocationEnd}, by
+ * packet timestamp. The latencies go to a log-linear histogram for the latency percentiles. All the
+ * recording methods are lock-free and allocation-free. The stats of the session are reported to
+ * the sink periodically, from the thread that records an invocation end, and at the end of the
+ * session.
+ *
+ * <p>The logger is only used once a sink is set with {@link #setReportSink}. Until then, the
+ * tasks use the {@link TasksStatsDummyLogger}.
+ */
+public final class TasksStatsInProcessLogger implements TasksStatsLogger {
+  /** Interface for receiving the invocation reports of the MediaPipe Tasks. */
+  public interface ReportSink {
+    /**
+     * Receives an invocation report. It's called from the task threads and should return quickly.
+     *
+     * @param taskName the task api name.
+     * @param taskRunningMode the task running mode string representation.
+     * @param stats the {@link StatsSnapshot} of the session so far.
+     */
+    void onInvocationReport(String taskName, String taskRunningMode, StatsSnapshot stats);
+  }
+
+  // The number of invocations that can be in flight at once, as a power of two.
+  private static final int PENDING_INVOCATIONS_BITS = 8;
+  private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+  private static volatile ReportSink reportSink;
+  private static volatile long reportIntervalNanos;
+
+  private final String taskName;
+  private final String taskRunningMode;
+  // The input timestamps of the invocations in flight, and their start times.
+  private final AtomicLongArray pendingTimestamps =
+      new AtomicLongArray(1 << PENDING_INVOCATIONS_BITS);
+  private final AtomicLongArray pendingStartNanos =
+      new AtomicLongArray(1 << PENDING_INVOCATIONS_BITS);
+  private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+  private final AtomicInteger cpuInputCount = new AtomicInteger();
+  private final AtomicInteger gpuInputCount = new AtomicInteger();
+  private final AtomicInteger finishedCount = new AtomicInteger();
+  private final AtomicInteger droppedCount = new AtomicInteger();
+  private final AtomicLong totalLatencyNanos = new AtomicLong();
+  private final AtomicLong peakLatencyNanos = new AtomicLong();
+  private final AtomicLong lastReportNanos = new AtomicLong();
+  private volatile long sessionStartNanos;
+
+  /**
+   * Sets the sink of the invocation reports of all the tasks created from now on. A null sink
+   * turns the stats logging off for the tasks created from now on.
+   *
+   * @param sink the {@link ReportSink} to receive the reports, or null.
+   * @param reportIntervalMs the minimum interval between two periodic reports of a task, in
+   *     milliseconds.
+   */
+  public static void setReportSink(ReportSink sink, long reportIntervalMs) {
+    reportIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reportIntervalMs);
+    reportSink = sink;
+  }
+
+  /**
+   * Creates the MediaPipe Tasks stats logger of a task: a {@link TasksStatsInProcessLogger} if a
+   * report sink is set, or a {@link TasksStatsDummyLogger} otherwise.
+   *
+   * @param context a {@link Context}.
+   * @param taskNameStr the task api name.
+   * @param taskRunningModeStr the task running mode string representation.
+   */
+  public static TasksStatsLogger create(
+      Context context, String taskNameStr, String taskRunningModeStr) {
+    if (reportSink == null) {
+      return TasksStatsDummyLogger.create(context, taskNameStr, taskRunningModeStr);
+    }
+    return new TasksStatsInProcessLogger(taskNameStr, taskRunningModeStr);
+  }
+
+  private TasksStatsInProcessLogger(String taskName, String taskRunningMode) {
+    this.taskName = taskName;
+    this.taskRunningMode = taskRunningMode;
+    for (int i = 0; i < pendingTimestamps.length(); i++) {
+      pendingTimestamps.set(i, NO_TIMESTAMP);
+    }
+  }
+
+  /** Logs the start of a MediaPipe Tasks API session, and resets the stats. */
+  @Override
+  public void logSessionStart() {
+    for (int i = 0; i < pendingTimestamps.length(); i++) {
+      pendingTimestamps.set(i, NO_TIMESTAMP);
+    }
+    latencyHistogram.reset();
+    cpuInputCount.set(0);
+    gpuInputCount.set(0);
+    finishedCount.set(0);
+    droppedCount.set(0);
+    totalLatencyNanos.set(0);
+    peakLatencyNanos.set(0);
+    sessionStartNanos = System.nanoTime();
+    lastReportNanos.set(sessionStartNanos);
+  }
+
+  /**
+   * Records MediaPipe Tasks API receiving CPU input data.
+   *
+   * @param packetTimestamp the input packet timestamp that acts as the identifier of the api
+   *     invocation.
+   */
+  @Override
+  public void recordCpuInputArrival(long packetTimestamp) {
+    cpuInputCount.incrementAndGet();
+    recordInvocationStart(packetTimestamp);
+  }
+
+  /**
+   * Records MediaPipe Tasks API receiving GPU input data.
+   *
+   * @param packetTimestamp the input packet timestamp that acts as the identifier of the api
+   *     invocation.
+   */
+  @Override
+  public void recordGpuInputArrival(long packetTimestamp) {
+    gpuInputCount.incrementAndGet();
+    recordInvocationStart(packetTimestamp);
+  }
+
+  /**
+   * Records the end of a Mediapipe Tasks API invocation.
+   *
+   * @param packetTimestamp the output packet timestamp that acts as the identifier of the api
+   *     invocation.
+   */
+  @Override
+  public void recordInvocationEnd(long packetTimestamp) {
+    long endNanos = System.nanoTime();
+    int slot = pendingSlot(packetTimestamp);
+    long startNanos = pendingStartNanos.get(slot);
+    if (!pendingTimestamps.compareAndSet(slot, packetTimestamp, NO_TIMESTAMP)) {
+      // Not an invocation of this session, or an output without input at this timestamp.
+      return;
+    }
+    long latencyNanos = endNanos - startNanos;
+    finishedCount.incrementAndGet();
+    totalLatencyNanos.addAndGet(latencyNanos);
+    long peak;
+    do {
+      peak = peakLatencyNanos.get();
+    } while (latencyNanos > peak && !peakLatencyNanos.compareAndSet(peak, latencyNanos));
+    latencyHistogram.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+
+    long lastReport = lastReportNanos.get();
+    if (endNanos - lastReport >= reportIntervalNanos
+        && lastReportNanos.compareAndSet(lastReport, endNanos)) {
+      logInvocationReport(getStatsSnapshot());
+    }
+  }
+
+  /**
+   * Records an input that was dropped by the flow limiter before reaching the task graph.
+   *
+   * @param packetTimestamp the input packet timestamp that acts as the identifier of the api
+   *     invocation.
+   */
+  @Override
+  public void recordInvocationDropped(long packetTimestamp) {
+    pendingTimestamps.compareAndSet(pendingSlot(packetTimestamp), packetTimestamp, NO_TIMESTAMP);
+    droppedCount.incrementAndGet();
+  }
+
+  /** Logs the MediaPipe Tasks API periodic invocation report to the report sink. */
+  @Override
+  public void logInvocationReport(StatsSnapshot stats) {
+    ReportSink sink = reportSink;
+    if (sink != null) {
+      sink.onInvocationReport(taskName, taskRunningMode, stats);
+    }
+  }
+
+  /** Logs the Tasks API session end event, with a last invocation report. */
+  @Override
+  public void logSessionEnd() {
+    logInvocationReport(getStatsSnapshot());
+  }
+
+  /** Logs the MediaPipe Tasks API initialization error. */
+  @Override
+  public void logInitError() {}
+
+  /** Returns the {@link StatsSnapshot} of the session so far. */
+  public StatsSnapshot getStatsSnapshot() {
+    return StatsSnapshot.create(
+        cpuInputCount.get(),
+        gpuInputCount.get(),
+        finishedCount.get(),
+        droppedCount.get(),
+        TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get()),
+        TimeUnit.NANOSECONDS.toMillis(peakLatencyNanos.get()),
+        latencyHistogram.getValueAtPercentile(50) / 1000.0,
+        latencyHistogram.getValueAtPercentile(95) / 1000.0,
+        latencyHistogram.getValueAtPercentile(99) / 1000.0,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sessionStartNanos));
+  }
+
+  private void recordInvocationStart(long packetTimestamp) {
+    int slot = pendingSlot(packetTimestamp);
+    // An invocation that never ended, if any, is overwritten.
+    pendingStartNanos.set(slot, System.nanoTime());
+    pendingTimestamps.set(slot, packetTimestamp);
+  }
+
+  /** Returns the slot of an invocation in the pending invocation arrays. */
+  private static int pendingSlot(long packetTimestamp) {
+    // Fibonacci hashing, as the timestamps are often multiples of a large power of ten.
+    return (int) ((packetTimestamp * 0x9E3779B97F4A7C15L) >>> (64 - PENDING_INVOCATIONS_BITS));
+  }
+}
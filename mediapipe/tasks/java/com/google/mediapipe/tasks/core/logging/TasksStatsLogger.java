@@ -28,6 +28,9 @@ public interface TasksStatsLogger {
         int droppedCount,
         long totalLatencyMs,
         long peakLatencyMs,
+        double p50LatencyMs,
+        double p95LatencyMs,
+        double p99LatencyMs,
         long elapsedTimeMs) {
       return new AutoValue_TasksStatsLogger_StatsSnapshot(
           cpuInputCount,
@@ -36,26 +39,50 @@ public interface TasksStatsLogger {
           droppedCount,
           totalLatencyMs,
           peakLatencyMs,
+          p50LatencyMs,
+          p95LatencyMs,
+          p99LatencyMs,
           elapsedTimeMs);
     }
 
     static StatsSnapshot createDefault() {
-      return new AutoValue_TasksStatsLogger_StatsSnapshot(0, 0, 0, 0, 0, 0, 0);
+      return new AutoValue_TasksStatsLogger_StatsSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
     }
 
-    abstract int cpuInputCount();
+    /** The number of invocations with CPU input data. */
+    public abstract int cpuInputCount();
 
-    abstract int gpuInputCount();
+    /** The number of invocations with GPU input data. */
+    public abstract int gpuInputCount();
 
-    abstract int finishedCount();
+    /** The number of invocations that produced an output. */
+    public abstract int finishedCount();
 
-    abstract int droppedCount();
+    /** The number of inputs dropped by the flow limiter. */
+    public abstract int droppedCount();
 
-    abstract long totalLatencyMs();
+    /** The sum of the latencies of the finished invocations, in milliseconds. */
+    public abstract long totalLatencyMs();
 
-    abstract long peakLatencyMs();
+    /** The highest latency of the finished invocations, in milliseconds. */
+    public abstract long peakLatencyMs();
 
-    abstract long elapsedTimeMs();
+    /** The median latency of the finished invocations, in milliseconds. */
+    public abstract double p50LatencyMs();
+
+    /** The 95th percentile latency of the finished invocations, in milliseconds. */
+    public abstract double p95LatencyMs();
+
+    /** The 99th percentile latency of the finished invocations, in milliseconds. */
+    public abstract double p99LatencyMs();
+
+    /** The time elapsed since the start of the session, in milliseconds. */
+    public abstract long elapsedTimeMs();
+
+    /** Returns the number of finished invocations per second over the elapsed time. */
+    public double throughputPerSecond() {
+      return elapsedTimeMs() > 0 ? finishedCount() * 1000.0 / elapsedTimeMs() : 0;
+    }
   }
 
   /** Logs the start of a MediaPipe Tasks API session. */
@@ -85,6 +112,14 @@ public interface TasksStatsLogger {
    */
   public void recordInvocationEnd(long packetTimestamp);
 
+  /**
+   * Records an input that was dropped by the flow limiter before reaching the task graph.
+   *
+   * @param packetTimestamp the input packet timestamp that acts as the identifier of the api
+   *     invocation.
+   */
+  public void recordInvocationDropped(long packetTimestamp);
+
   /** Logs the MediaPipe Tasks API periodic invocation report. */
   public void logInvocationReport(StatsSnapshot stats);
 
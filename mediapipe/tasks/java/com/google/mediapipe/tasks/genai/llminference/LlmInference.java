@@ -14,9 +14,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 /** LlmInference Task Java API */
 public class LlmInference implements AutoCloseable {
-  private static final char TOKEN_SPLITTER = '▁'; // Note this is NOT an underscore: ▁(U+2581)
-  private static final String NEW_LINE = "<0x0A>";
-  private static final String EOD = "\\[eod\\]";
   private static final String STATS_TAG = LlmInference.class.getSimpleName();
 
   private static final int NUM_DECODE_STEPS_PER_SYNC = 3;
@@ -65,7 +62,7 @@ public class LlmInference implements AutoCloseable {
                 @Override
                 public void run(List<String> partialResult, boolean done) {
                   String result =
-                      decodeResponse(
+                      LlmResponseDecoder.decode(
                           partialResult, /* stripLeadingWhitespace= */ !receivedFirstToken);
                   if (done) {
                     receivedFirstToken = false; // Reset to initial state
@@ -96,7 +93,7 @@ public class LlmInference implements AutoCloseable {
     isProcessing.set(true);
     try {
       List<String> tokens = taskRunner.predictSync(inputText);
-      return decodeResponse(tokens, /* stripLeadingWhitespace= */ true);
+      return LlmResponseDecoder.decode(tokens, /* stripLeadingWhitespace= */ true);
     } finally {
       isProcessing.set(false);
     }
@@ -140,24 +137,6 @@ public class LlmInference implements AutoCloseable {
     }
   }
 
-  /** Decodes the response from the LLM engine and returns a human-readable string. */
-  private static String decodeResponse(List<String> responses, boolean stripLeadingWhitespace) {
-    if (responses.isEmpty()) {
-      // Technically, this is an error. We should always get at least one response.
-      return "";
-    }
-
-    String response = responses.get(0); // We only use the first response
-    response = response.replace(TOKEN_SPLITTER, ' '); // Note this is NOT an underscore: ▁(U+2581)
-    response = response.replace(NEW_LINE, "\n"); // Replace <0x0A> token with newline
-
-    if (stripLeadingWhitespace) {
-      response = stripLeading(response); // Strip all leading spaces for the first output
-    }
-
-    return response.split(EOD, -1)[0];
-  }
-
   private void validateState() {
     if (isProcessing.get()) {
       throw new IllegalStateException("Previous invocation still processing. Wait for done=true.");
@@ -260,17 +239,4 @@ public class LlmInference implements AutoCloseable {
           .setRandomSeed(0);
     }
   }
-
-  static String stripLeading(String text) {
-    // stripLeading() implementation for Android < 33
-    int left = 0;
-    while (left < text.length()) {
-      final int codepoint = text.codePointAt(left);
-      if (!Character.isWhitespace(codepoint)) {
-        break;
-      }
-      left += Character.charCount(codepoint);
-    }
-    return text.substring(left);
-  }
 }
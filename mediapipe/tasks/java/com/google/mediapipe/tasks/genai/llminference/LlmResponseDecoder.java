@@ -0,0 +1,62 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.genai.llminference;
+
+import java.util.List;
+
+/**
+ * Turns the raw responses of the LLM engine into human-readable text.
+ *
+ * <p>Kept apart from {@link LlmInference}, which loads the native engine, so that the decoding can
+ * be exercised on its own.
+ */
+final class LlmResponseDecoder {
+  private static final char TOKEN_SPLITTER = '▁'; // Note this is NOT an underscore: ▁(U+2581)
+  private static final String NEW_LINE = "<0x0A>";
+  private static final String EOD = "\\[eod\\]";
+
+  /** Decodes the response from the LLM engine and returns a human-readable string. */
+  static String decode(List<String> responses, boolean stripLeadingWhitespace) {
+    if (responses.isEmpty()) {
+      // Technically, this is an error. We should always get at least one response.
+      return "";
+    }
+
+    String response = responses.get(0); // We only use the first response
+    response = response.replace(TOKEN_SPLITTER, ' '); // Note this is NOT an underscore: ▁(U+2581)
+    response = response.replace(NEW_LINE, "\n"); // Replace <0x0A> token with newline
+
+    if (stripLeadingWhitespace) {
+      response = stripLeading(response); // Strip all leading spaces for the first output
+    }
+
+    return response.split(EOD, -1)[0];
+  }
+
+  static String stripLeading(String text) {
+    // stripLeading() implementation for Android < 33
+    int left = 0;
+    while (left < text.length()) {
+      final int codepoint = text.codePointAt(left);
+      if (!Character.isWhitespace(codepoint)) {
+        break;
+      }
+      left += Character.charCount(codepoint);
+    }
+    return text.substring(left);
+  }
+
+  private LlmResponseDecoder() {}
+}
@@ -175,6 +175,7 @@ public final class LanguageDetector implements AutoCloseable {
                 .setInputStreams(inputStreams)
                 .setOutputStreams(outputStreams)
                 .setTaskOptions(options)
+                .setModelResourcesCache(options.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(false)
                 .build(),
             handler);
@@ -174,6 +174,7 @@ public final class TextClassifier implements AutoCloseable {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(options)
+                .setModelResourcesCache(options.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(false)
                 .build(),
             handler);
@@ -31,16 +31,19 @@ import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.OutputHandler;
 import com.google.mediapipe.tasks.core.TaskInfo;
 import com.google.mediapipe.tasks.core.TaskOptions;
+import com.google.mediapipe.tasks.core.TaskResult;
 import com.google.mediapipe.tasks.core.TaskRunner;
 import com.google.mediapipe.tasks.core.proto.BaseOptionsProto;
 import com.google.mediapipe.tasks.text.textembedder.proto.TextEmbedderGraphOptionsProto;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Performs embedding extraction on text.
@@ -164,6 +167,7 @@ public final class TextEmbedder implements AutoCloseable {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(options)
+                .setModelResourcesCache(options.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(false)
                 .build(),
             handler);
@@ -190,6 +194,27 @@ public final class TextEmbedder implements AutoCloseable {
     return (TextEmbedderResult) runner.process(inputPackets);
   }
 
+  /**
+   * Performs embedding extraction on a batch of texts. The texts are pipelined through the task
+   * graph, and the call blocks until all returned futures are complete.
+   *
+   * @param inputTexts a list of input texts.
+   * @throws MediaPipeException if there is an internal error.
+   */
+  public List<CompletableFuture<TextEmbedderResult>> embedBatch(List<String> inputTexts) {
+    List<Map<String, Packet>> batchInputPackets = new ArrayList<>(inputTexts.size());
+    for (String inputText : inputTexts) {
+      Map<String, Packet> inputPackets = new HashMap<>();
+      inputPackets.put(TEXT_IN_STREAM_NAME, runner.getPacketCreator().createString(inputText));
+      batchInputPackets.add(inputPackets);
+    }
+    List<CompletableFuture<TextEmbedderResult>> results = new ArrayList<>(inputTexts.size());
+    for (CompletableFuture<TaskResult> result : runner.processBatch(batchInputPackets)) {
+      results.add(result.thenApply(TextEmbedderResult.class::cast));
+    }
+    return results;
+  }
+
   /** Closes and cleans up the {@link TextEmbedder}. */
   @Override
   public void close() {
@@ -20,10 +20,15 @@ import com.google.mediapipe.framework.MediaPipeException;
 import com.google.mediapipe.framework.Packet;
 import com.google.mediapipe.framework.ProtoUtil;
 import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.core.TaskProfiler;
 import com.google.mediapipe.tasks.core.TaskResult;
 import com.google.mediapipe.tasks.core.TaskRunner;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /** The base class of MediaPipe vision tasks. */
 public class BaseVisionTaskApi implements AutoCloseable {
@@ -32,6 +37,7 @@ public class BaseVisionTaskApi implements AutoCloseable {
   protected final RunningMode runningMode;
   protected final String imageStreamName;
   protected final String normRectStreamName;
+  private final InputPacketBuilder inputPacketBuilder;
 
   static {
     ProtoUtil.registerTypeName(NormalizedRect.class, "mediapipe.NormalizedRect");
@@ -55,6 +61,8 @@ public class BaseVisionTaskApi implements AutoCloseable {
     this.runningMode = runningMode;
     this.imageStreamName = imageStreamName;
     this.normRectStreamName = normRectStreamName;
+    this.inputPacketBuilder =
+        new InputPacketBuilder(runner.getPacketCreator(), imageStreamName, normRectStreamName);
   }
 
   /**
@@ -68,16 +76,9 @@ public class BaseVisionTaskApi implements AutoCloseable {
    */
   protected TaskResult processImageData(
       MPImage image, ImageProcessingOptions imageProcessingOptions) {
-    Map<String, Packet> inputPackets = new HashMap<>();
-    inputPackets.put(imageStreamName, runner.getPacketCreator().createImage(image));
-    if (!normRectStreamName.isEmpty()) {
-      inputPackets.put(
-          normRectStreamName,
-          runner
-              .getPacketCreator()
-              .createProto(convertToNormalizedRect(imageProcessingOptions, image)));
+    synchronized (inputPacketBuilder) {
+      return processImageData(inputPacketBuilder.build(image, imageProcessingOptions));
     }
-    return processImageData(inputPackets);
   }
 
   /**
@@ -97,6 +98,36 @@ public class BaseVisionTaskApi implements AutoCloseable {
     return runner.process(inputPackets);
   }
 
+  /**
+   * A pipelined method to process a batch of unrelated images. All images are sent to the task
+   * graph before any result is awaited, and the call blocks the current thread until every returned
+   * {@link CompletableFuture} is complete.
+   *
+   * @param images a list of MediaPipe {@link MPImage} objects for processing.
+   * @param imageProcessingOptions the {@link ImageProcessingOptions} specifying how to process the
+   *     input images before running inference.
+   * @throws MediaPipeException if the task is not in the image mode.
+   */
+  protected List<CompletableFuture<TaskResult>> processImageBatch(
+      List<MPImage> images, ImageProcessingOptions imageProcessingOptions) {
+    if (runningMode != RunningMode.IMAGE) {
+      throw new MediaPipeException(
+          MediaPipeException.StatusCode.FAILED_PRECONDITION.ordinal(),
+          "Task is not initialized with the image mode. Current running mode:"
+              + runningMode.name());
+    }
+    List<Map<String, Packet>> batchInputPackets = new ArrayList<>(images.size());
+    for (MPImage image : images) {
+      Map<String, Packet> inputPackets = new HashMap<>();
+      inputPackets.put(imageStreamName, runner.getPacketCreator().createImage(image));
+      if (!normRectStreamName.isEmpty()) {
+        inputPackets.put(normRectStreamName, createNormRectPacket(image, imageProcessingOptions));
+      }
+      batchInputPackets.add(inputPackets);
+    }
+    return runner.processBatch(batchInputPackets);
+  }
+
   /**
    * A synchronous method to process continuous video frames. The call blocks the current thread
    * until a failure status or a successful result is returned.
@@ -109,16 +140,9 @@ public class BaseVisionTaskApi implements AutoCloseable {
    */
   protected TaskResult processVideoData(
       MPImage image, ImageProcessingOptions imageProcessingOptions, long timestampMs) {
-    Map<String, Packet> inputPackets = new HashMap<>();
-    inputPackets.put(imageStreamName, runner.getPacketCreator().createImage(image));
-    if (!normRectStreamName.isEmpty()) {
-      inputPackets.put(
-          normRectStreamName,
-          runner
-              .getPacketCreator()
-              .createProto(convertToNormalizedRect(imageProcessingOptions, image)));
+    synchronized (inputPacketBuilder) {
+      return processVideoData(inputPacketBuilder.build(image, imageProcessingOptions), timestampMs);
     }
-    return processVideoData(inputPackets, timestampMs);
   }
 
   /**
@@ -151,16 +175,9 @@ public class BaseVisionTaskApi implements AutoCloseable {
    */
   protected void sendLiveStreamData(
       MPImage image, ImageProcessingOptions imageProcessingOptions, long timestampMs) {
-    Map<String, Packet> inputPackets = new HashMap<>();
-    inputPackets.put(imageStreamName, runner.getPacketCreator().createImage(image));
-    if (!normRectStreamName.isEmpty()) {
-      inputPackets.put(
-          normRectStreamName,
-          runner
-              .getPacketCreator()
-              .createProto(convertToNormalizedRect(imageProcessingOptions, image)));
+    synchronized (inputPacketBuilder) {
+      sendLiveStreamData(inputPacketBuilder.build(image, imageProcessingOptions), timestampMs);
     }
-    sendLiveStreamData(inputPackets, timestampMs);
   }
 
   /**
@@ -181,12 +198,38 @@ public class BaseVisionTaskApi implements AutoCloseable {
     runner.send(inputPackets, timestampMs * MICROSECONDS_PER_MILLISECOND);
   }
 
+  /**
+   * Returns the {@link TaskProfiler} of the calculators of the task graph, if profiling is enabled
+   * in the {@link com.google.mediapipe.tasks.core.BaseOptions} of the task.
+   */
+  public Optional<TaskProfiler> getProfiler() {
+    return runner.getProfiler();
+  }
+
   /** Closes and cleans up the MediaPipe vision task. */
   @Override
   public void close() {
+    synchronized (inputPacketBuilder) {
+      inputPacketBuilder.release();
+    }
     runner.close();
   }
 
+  /**
+   * Creates the normalized rect packet of an image from an {@link ImageProcessingOptions}. The
+   * packets of the recently used options are prebuilt, so that the proto is not rebuilt per frame.
+   *
+   * @param image a MediaPipe {@link MPImage} object for processing.
+   * @param imageProcessingOptions the {@link ImageProcessingOptions} specifying how to process the
+   *     input image before running inference.
+   */
+  protected Packet createNormRectPacket(
+      MPImage image, ImageProcessingOptions imageProcessingOptions) {
+    synchronized (inputPacketBuilder) {
+      return inputPacketBuilder.createNormRectPacket(image, imageProcessingOptions);
+    }
+  }
+
   /**
    * Converts an {@link ImageProcessingOptions} instance into a {@link NormalizedRect} protobuf
    * message.
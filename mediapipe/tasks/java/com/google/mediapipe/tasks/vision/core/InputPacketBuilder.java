@@ -0,0 +1,151 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.vision.core;
+
+import android.graphics.RectF;
+import com.google.mediapipe.framework.AndroidPacketCreator;
+import com.google.mediapipe.framework.Packet;
+import com.google.mediapipe.framework.image.MPImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the image and normalized rect input packets of a vision task, with as little allocation
+ * per frame as possible.
+ *
+ * <p>The {@link com.google.mediapipe.formats.proto.RectProto.NormalizedRect} of a frame only
+ * depends on the region of interest, the rotation and, for the rotations of 90° and 270°, the
+ * aspect ratio of the image, which rarely change from frame to frame. The builder keeps a prebuilt
+ * packet for the few most recent of these, and sends a copy of it, which shares the same proto, in
+ * place of building, serializing and parsing a new proto per frame. The input packet map is reused
+ * too, as the {@link com.google.mediapipe.tasks.core.TaskRunner} consumes its packets before
+ * returning.
+ *
+ * <p>The builder is not thread-safe; the callers synchronize on it until the map is consumed.
+ */
+final class InputPacketBuilder {
+  // The number of cached rect packets, e.g. for a few regions of interest used in turn.
+  private static final int MAX_CACHED_RECTS = 4;
+  private static final RectF FULL_IMAGE = new RectF(0, 0, 1, 1);
+
+  private final AndroidPacketCreator packetCreator;
+  private final String imageStreamName;
+  private final String normRectStreamName;
+  private final Map<String, Packet> inputPackets = new HashMap<>(4);
+  private final CachedRect[] cachedRects = new CachedRect[MAX_CACHED_RECTS];
+  private int nextEvictedRect = 0;
+
+  /** A prebuilt normalized rect packet and the inputs it was built from. */
+  private static final class CachedRect {
+    final RectF regionOfInterest;
+    final int rotationDegrees;
+    final int imageWidth;
+    final int imageHeight;
+    final Packet packet;
+
+    CachedRect(
+        RectF regionOfInterest,
+        int rotationDegrees,
+        int imageWidth,
+        int imageHeight,
+        Packet packet) {
+      this.regionOfInterest = regionOfInterest;
+      this.rotationDegrees = rotationDegrees;
+      this.imageWidth = imageWidth;
+      this.imageHeight = imageHeight;
+      this.packet = packet;
+    }
+
+    boolean matches(
+        RectF regionOfInterest, int rotationDegrees, int imageWidth, int imageHeight) {
+      return this.regionOfInterest.equals(regionOfInterest)
+          && this.rotationDegrees == rotationDegrees
+          && this.imageWidth == imageWidth
+          && this.imageHeight == imageHeight;
+    }
+  }
+
+  InputPacketBuilder(
+      AndroidPacketCreator packetCreator, String imageStreamName, String normRectStreamName) {
+    this.packetCreator = packetCreator;
+    this.imageStreamName = imageStreamName;
+    this.normRectStreamName = normRectStreamName;
+  }
+
+  /**
+   * Returns the reused input packet map, filled with the packets of {@code image}. The map must be
+   * consumed by the task runner before the next call.
+   */
+  Map<String, Packet> build(MPImage image, ImageProcessingOptions imageProcessingOptions) {
+    releaseInputPackets();
+    inputPackets.put(imageStreamName, packetCreator.createImage(image));
+    if (!normRectStreamName.isEmpty()) {
+      inputPackets.put(normRectStreamName, createNormRectPacket(image, imageProcessingOptions));
+    }
+    return inputPackets;
+  }
+
+  /**
+   * Returns a new normalized rect packet for {@code image}, which may share its proto with the
+   * previous packets.
+   */
+  Packet createNormRectPacket(MPImage image, ImageProcessingOptions imageProcessingOptions) {
+    RectF regionOfInterest = imageProcessingOptions.regionOfInterest().orElse(FULL_IMAGE);
+    int rotationDegrees = imageProcessingOptions.rotationDegrees();
+    // The image size only matters when the width and height of the rect are swapped.
+    boolean requiresSwap = rotationDegrees % 180 != 0;
+    int imageWidth = requiresSwap ? image.getWidth() : 0;
+    int imageHeight = requiresSwap ? image.getHeight() : 0;
+    for (CachedRect cachedRect : cachedRects) {
+      if (cachedRect != null
+          && cachedRect.matches(regionOfInterest, rotationDegrees, imageWidth, imageHeight)) {
+        return cachedRect.packet.copy();
+      }
+    }
+    Packet packet =
+        packetCreator.createProto(
+            BaseVisionTaskApi.convertToNormalizedRect(imageProcessingOptions, image));
+    CachedRect evicted = cachedRects[nextEvictedRect];
+    if (evicted != null) {
+      evicted.packet.release();
+    }
+    cachedRects[nextEvictedRect] =
+        new CachedRect(
+            new RectF(regionOfInterest), rotationDegrees, imageWidth, imageHeight, packet);
+    nextEvictedRect = (nextEvictedRect + 1) % MAX_CACHED_RECTS;
+    return packet.copy();
+  }
+
+  /** Releases the cached packets, and the input packets that were not consumed, if any. */
+  void release() {
+    releaseInputPackets();
+    for (int i = 0; i < cachedRects.length; i++) {
+      if (cachedRects[i] != null) {
+        cachedRects[i].packet.release();
+        cachedRects[i] = null;
+      }
+    }
+  }
+
+  private void releaseInputPackets() {
+    // The packets are left in the map if the task runner failed before consuming them.
+    for (Packet packet : inputPackets.values()) {
+      if (packet != null) {
+        packet.release();
+      }
+    }
+    inputPackets.clear();
+  }
+}
@@ -23,6 +23,7 @@ import com.google.mediapipe.framework.Packet;
 import com.google.mediapipe.framework.PacketGetter;
 import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.components.containers.Detection;
 import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.ErrorListener;
 import com.google.mediapipe.tasks.core.OutputHandler;
@@ -35,7 +36,6 @@ import com.google.mediapipe.tasks.vision.core.BaseVisionTaskApi;
 import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
 import com.google.mediapipe.tasks.vision.core.RunningMode;
 import com.google.mediapipe.tasks.vision.facedetector.proto.FaceDetectorGraphOptionsProto;
-import com.google.mediapipe.formats.proto.DetectionProto.Detection;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -155,9 +155,9 @@ public final class FaceDetector extends BaseVisionTaskApi {
                   BaseVisionTaskApi.generateResultTimestampMs(
                       detectorOptions.runningMode(), packets.get(DETECTIONS_OUT_STREAM_INDEX)));
             }
-            return FaceDetectorResult.create(
-                PacketGetter.getProtoVector(
-                    packets.get(DETECTIONS_OUT_STREAM_INDEX), Detection.parser()),
+            return FaceDetectorResult.createFromDetections(
+                PacketGetter.decodeProtoVector(
+                    packets.get(DETECTIONS_OUT_STREAM_INDEX), Detection::parseFrom),
                 BaseVisionTaskApi.generateResultTimestampMs(
                     detectorOptions.runningMode(), packets.get(DETECTIONS_OUT_STREAM_INDEX)));
           }
@@ -181,7 +181,10 @@ public final class FaceDetector extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(detectorOptions)
+                .setModelResourcesCache(detectorOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(detectorOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(detectorOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(detectorOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new FaceDetector(runner, detectorOptions.runningMode());
@@ -44,6 +44,18 @@ public abstract class FaceDetectorResult implements TaskResult {
           com.google.mediapipe.tasks.components.containers.Detection.createFromProto(
               detectionProto));
     }
+    return createFromDetections(detections, timestampMs);
+  }
+
+  /**
+   * Creates an {@link FaceDetectorResult} instance from a list of already decoded detections.
+   *
+   * @param detections a list of {@link com.google.mediapipe.tasks.components.containers.Detection}.
+   * @param timestampMs a timestamp for this result.
+   */
+  static FaceDetectorResult createFromDetections(
+      List<com.google.mediapipe.tasks.components.containers.Detection> detections,
+      long timestampMs) {
     return new AutoValue_FaceDetectorResult(timestampMs, Collections.unmodifiableList(detections));
   }
 }
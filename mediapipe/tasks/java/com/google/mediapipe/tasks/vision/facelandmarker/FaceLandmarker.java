@@ -17,15 +17,15 @@ package com.google.mediapipe.tasks.vision.facelandmarker;
 import android.content.Context;
 import android.os.ParcelFileDescriptor;
 import com.google.auto.value.AutoValue;
-import com.google.mediapipe.formats.proto.LandmarkProto.NormalizedLandmarkList;
 import com.google.mediapipe.proto.CalculatorOptionsProto.CalculatorOptions;
-import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
 import com.google.mediapipe.framework.AndroidPacketGetter;
 import com.google.mediapipe.framework.Packet;
 import com.google.mediapipe.framework.PacketGetter;
 import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.components.containers.Category;
 import com.google.mediapipe.tasks.components.containers.Connection;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.ErrorListener;
 import com.google.mediapipe.tasks.core.OutputHandler;
@@ -176,12 +176,12 @@ public final class FaceLandmarker extends BaseVisionTaskApi {
                       landmarkerOptions.runningMode(), packets.get(LANDMARKS_OUT_STREAM_INDEX)));
             }
 
-            Optional<List<ClassificationList>> blendshapes = Optional.empty();
+            Optional<List<List<Category>>> blendshapes = Optional.empty();
             if (landmarkerOptions.outputFaceBlendshapes()) {
               blendshapes =
                   Optional.of(
-                      PacketGetter.getProtoVector(
-                          packets.get(blendshapesOutStreamIndex), ClassificationList.parser()));
+                      PacketGetter.decodeProtoVector(
+                          packets.get(blendshapesOutStreamIndex), Category::parseListFrom));
             }
 
             Optional<List<MatrixData>> facialTransformationMatrixes = Optional.empty();
@@ -195,9 +195,9 @@ public final class FaceLandmarker extends BaseVisionTaskApi {
               }
             }
 
-            return FaceLandmarkerResult.create(
-                PacketGetter.getProtoVector(
-                    packets.get(LANDMARKS_OUT_STREAM_INDEX), NormalizedLandmarkList.parser()),
+            return FaceLandmarkerResult.createFromLandmarkArrays(
+                PacketGetter.decodeProtoVector(
+                    packets.get(LANDMARKS_OUT_STREAM_INDEX), LandmarkArray::parseFrom),
                 blendshapes,
                 facialTransformationMatrixes,
                 BaseVisionTaskApi.generateResultTimestampMs(
@@ -223,7 +223,10 @@ public final class FaceLandmarker extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(outputStreams)
                 .setTaskOptions(landmarkerOptions)
+                .setModelResourcesCache(landmarkerOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(landmarkerOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(landmarkerOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(landmarkerOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new FaceLandmarker(runner, landmarkerOptions.runningMode());
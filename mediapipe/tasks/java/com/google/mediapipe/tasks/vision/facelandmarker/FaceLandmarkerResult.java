@@ -18,6 +18,7 @@ import com.google.auto.value.AutoValue;
 import com.google.mediapipe.formats.proto.LandmarkProto;
 import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
 import com.google.mediapipe.tasks.components.containers.Category;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
 import com.google.mediapipe.tasks.core.TaskResult;
 import com.google.mediapipe.formats.proto.MatrixDataProto.MatrixData;
@@ -44,18 +45,50 @@ public abstract class FaceLandmarkerResult implements TaskResult {
       Optional<List<ClassificationList>> multiFaceBendshapesProto,
       Optional<List<MatrixData>> multiFaceTransformationMatrixesProto,
       long timestampMs) {
-    List<List<NormalizedLandmark>> multiFaceLandmarks = new ArrayList<>();
+    List<LandmarkArray> multiFaceLandmarkArrays = new ArrayList<>(multiFaceLandmarksProto.size());
     for (LandmarkProto.NormalizedLandmarkList faceLandmarksProto : multiFaceLandmarksProto) {
-      List<NormalizedLandmark> faceLandmarks =
-          NormalizedLandmark.createListFromProto(faceLandmarksProto);
-      multiFaceLandmarks.add(Collections.unmodifiableList(faceLandmarks));
+      multiFaceLandmarkArrays.add(LandmarkArray.createFromProto(faceLandmarksProto));
     }
-
     Optional<List<List<Category>>> multiFaceBlendshapes = Optional.empty();
     if (multiFaceBendshapesProto.isPresent()) {
-      List<List<Category>> blendshapes = new ArrayList<>();
+      List<List<Category>> blendshapes = new ArrayList<>(multiFaceBendshapesProto.get().size());
       for (ClassificationList faceBendshapeProto : multiFaceBendshapesProto.get()) {
-        List<Category> blendshape = Category.createListFromProto(faceBendshapeProto);
+        blendshapes.add(Category.createListFromProto(faceBendshapeProto));
+      }
+      multiFaceBlendshapes = Optional.of(blendshapes);
+    }
+    return createFromLandmarkArrays(
+        multiFaceLandmarkArrays,
+        multiFaceBlendshapes,
+        multiFaceTransformationMatrixesProto,
+        timestampMs);
+  }
+
+  /**
+   * Creates a {@link FaceLandmarkerResult} instance from the landmarks of the faces, already
+   * decoded into {@link LandmarkArray}s, the face blendshapes categories, and the facial
+   * transformation matrixes protobuf messages.
+   *
+   * @param multiFaceLandmarkArrays a List of {@link LandmarkArray}
+   * @param multiFaceBendshapeCategories an Optional List of the blendshapes {@link Category} lists
+   * @param multiFaceTransformationMatrixesProto an Optional List of {@link MatrixData}
+   * @throws IllegalArgumentException if there is error creating {@link FaceLandmarkerResult}
+   */
+  static FaceLandmarkerResult createFromLandmarkArrays(
+      List<LandmarkArray> multiFaceLandmarkArrays,
+      Optional<List<List<Category>>> multiFaceBendshapeCategories,
+      Optional<List<MatrixData>> multiFaceTransformationMatrixesProto,
+      long timestampMs) {
+    List<List<NormalizedLandmark>> multiFaceLandmarks =
+        new ArrayList<>(multiFaceLandmarkArrays.size());
+    for (LandmarkArray faceLandmarks : multiFaceLandmarkArrays) {
+      multiFaceLandmarks.add(faceLandmarks.asNormalizedLandmarks());
+    }
+
+    Optional<List<List<Category>>> multiFaceBlendshapes = Optional.empty();
+    if (multiFaceBendshapeCategories.isPresent()) {
+      List<List<Category>> blendshapes = new ArrayList<>();
+      for (List<Category> blendshape : multiFaceBendshapeCategories.get()) {
         blendshapes.add(Collections.unmodifiableList(blendshape));
       }
       multiFaceBlendshapes = Optional.of(Collections.unmodifiableList(blendshapes));
@@ -84,13 +117,19 @@ public abstract class FaceLandmarkerResult implements TaskResult {
         timestampMs,
         Collections.unmodifiableList(multiFaceLandmarks),
         multiFaceBlendshapes,
-        multiFaceTransformationMatrixes);
+        multiFaceTransformationMatrixes,
+        Collections.unmodifiableList(multiFaceLandmarkArrays));
   }
 
   @Override
   public abstract long timestampMs();
 
-  /** Face landmarks of detected faces. */
+  /**
+   * Face landmarks of detected faces.
+   *
+   * <p>The landmarks of each face are a view of the corresponding {@link #faceLandmarkArrays()}
+   * element, whose {@link NormalizedLandmark} objects are created when accessed.
+   */
   public abstract List<List<NormalizedLandmark>> faceLandmarks();
 
   /** Optional face blendshapes classifications. */
@@ -101,4 +140,10 @@ public abstract class FaceLandmarkerResult implements TaskResult {
    * The 4x4 facial transformation matrix is represetned as a flat column-major float array.
    */
   public abstract Optional<List<float[]>> facialTransformationMatrixes();
+
+  /**
+   * Face landmarks of detected faces, as flat arrays of coordinates. Prefer this over {@link
+   * #faceLandmarks()} to read all the landmarks of every frame without allocating per landmark.
+   */
+  public abstract List<LandmarkArray> faceLandmarkArrays();
 }
@@ -105,6 +105,10 @@ public final class FaceStylizer extends BaseVisionTaskApi {
     OutputHandler<FaceStylizerResult, MPImage> handler = new OutputHandler<>();
     handler.setOutputPacketConverter(
         new OutputHandler.OutputPacketConverter<FaceStylizerResult, MPImage>() {
+          // The graph calls the converter from one thread at a time.
+          private final PacketGetter.ImageDescriptor reusedImageDescriptor =
+              new PacketGetter.ImageDescriptor();
+
           @Override
           public FaceStylizerResult convertToTaskResult(List<Packet> packets)
               throws MediaPipeException {
@@ -115,9 +119,11 @@ public final class FaceStylizer extends BaseVisionTaskApi {
                   BaseVisionTaskApi.generateResultTimestampMs(
                       RunningMode.IMAGE, packets.get(IMAGE_OUT_STREAM_INDEX)));
             }
-            int width = PacketGetter.getImageWidth(packet);
-            int height = PacketGetter.getImageHeight(packet);
-            int numChannels = PacketGetter.getImageNumChannels(packet);
+            PacketGetter.ImageDescriptor imageDescriptor =
+                PacketGetter.getImageDescriptor(packet, reusedImageDescriptor);
+            int width = imageDescriptor.getWidth();
+            int height = imageDescriptor.getHeight();
+            int numChannels = imageDescriptor.getNumChannels();
             int imageFormat =
                 numChannels == 3 ? MPImage.IMAGE_FORMAT_RGB : MPImage.IMAGE_FORMAT_RGBA;
 
@@ -170,6 +176,7 @@ public final class FaceStylizer extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(stylizerOptions)
+                .setModelResourcesCache(stylizerOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(false)
                 .build(),
             handler);
@@ -17,15 +17,14 @@ package com.google.mediapipe.tasks.vision.gesturerecognizer;
 import android.content.Context;
 import android.os.ParcelFileDescriptor;
 import com.google.auto.value.AutoValue;
-import com.google.mediapipe.formats.proto.LandmarkProto.LandmarkList;
-import com.google.mediapipe.formats.proto.LandmarkProto.NormalizedLandmarkList;
 import com.google.mediapipe.proto.CalculatorOptionsProto.CalculatorOptions;
-import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
 import com.google.mediapipe.framework.AndroidPacketGetter;
 import com.google.mediapipe.framework.Packet;
 import com.google.mediapipe.framework.PacketGetter;
 import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.components.containers.Category;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.components.processors.ClassifierOptions;
 import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.ErrorListener;
@@ -172,15 +171,15 @@ public final class GestureRecognizer extends BaseVisionTaskApi {
                       recognizerOptions.runningMode(),
                       packets.get(HAND_GESTURES_OUT_STREAM_INDEX)));
             }
-            return GestureRecognizerResult.create(
-                PacketGetter.getProtoVector(
-                    packets.get(LANDMARKS_OUT_STREAM_INDEX), NormalizedLandmarkList.parser()),
-                PacketGetter.getProtoVector(
-                    packets.get(WORLD_LANDMARKS_OUT_STREAM_INDEX), LandmarkList.parser()),
-                PacketGetter.getProtoVector(
-                    packets.get(HANDEDNESS_OUT_STREAM_INDEX), ClassificationList.parser()),
-                PacketGetter.getProtoVector(
-                    packets.get(HAND_GESTURES_OUT_STREAM_INDEX), ClassificationList.parser()),
+            return GestureRecognizerResult.createFromDecoded(
+                PacketGetter.decodeProtoVector(
+                    packets.get(LANDMARKS_OUT_STREAM_INDEX), LandmarkArray::parseFrom),
+                PacketGetter.decodeProtoVector(
+                    packets.get(WORLD_LANDMARKS_OUT_STREAM_INDEX), LandmarkArray::parseFrom),
+                PacketGetter.decodeProtoVector(
+                    packets.get(HANDEDNESS_OUT_STREAM_INDEX), Category::parseListFrom),
+                PacketGetter.decodeProtoVector(
+                    packets.get(HAND_GESTURES_OUT_STREAM_INDEX), Category::parseListFrom),
                 BaseVisionTaskApi.generateResultTimestampMs(
                     recognizerOptions.runningMode(), packets.get(HAND_GESTURES_OUT_STREAM_INDEX)));
           }
@@ -204,7 +203,10 @@ public final class GestureRecognizer extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(recognizerOptions)
+                .setModelResourcesCache(recognizerOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(recognizerOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(recognizerOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(recognizerOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new GestureRecognizer(runner, recognizerOptions.runningMode());
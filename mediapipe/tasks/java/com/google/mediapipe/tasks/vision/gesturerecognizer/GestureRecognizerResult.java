@@ -16,10 +16,10 @@ package com.google.mediapipe.tasks.vision.gesturerecognizer;
 
 import com.google.auto.value.AutoValue;
 import com.google.mediapipe.formats.proto.LandmarkProto;
-import com.google.mediapipe.formats.proto.ClassificationProto.Classification;
 import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
 import com.google.mediapipe.tasks.components.containers.Category;
 import com.google.mediapipe.tasks.components.containers.Landmark;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
 import com.google.mediapipe.tasks.core.TaskResult;
 import java.util.ArrayList;
@@ -47,49 +47,80 @@ public abstract class GestureRecognizerResult implements TaskResult {
       List<ClassificationList> handednessesProto,
       List<ClassificationList> gesturesProto,
       long timestampMs) {
+    List<LandmarkArray> landmarkArrays = new ArrayList<>(landmarksProto.size());
+    for (LandmarkProto.NormalizedLandmarkList handLandmarksProto : landmarksProto) {
+      landmarkArrays.add(LandmarkArray.createFromProto(handLandmarksProto));
+    }
+    List<LandmarkArray> worldLandmarkArrays = new ArrayList<>(worldLandmarksProto.size());
+    for (LandmarkProto.LandmarkList handWorldLandmarksProto : worldLandmarksProto) {
+      worldLandmarkArrays.add(LandmarkArray.createFromProto(handWorldLandmarksProto));
+    }
+    List<List<Category>> handednesses = new ArrayList<>(handednessesProto.size());
+    for (ClassificationList handednessProto : handednessesProto) {
+      handednesses.add(Category.createListFromProto(handednessProto));
+    }
+    List<List<Category>> gestures = new ArrayList<>(gesturesProto.size());
+    for (ClassificationList gestureProto : gesturesProto) {
+      gestures.add(Category.createListFromProto(gestureProto));
+    }
+    return createFromDecoded(
+        landmarkArrays, worldLandmarkArrays, handednesses, gestures, timestampMs);
+  }
+
+  /**
+   * Creates a {@link GestureRecognizerResult} instance from the landmarks, handedness, and gestures
+   * of the hands, already decoded into {@link LandmarkArray}s and {@link Category} lists.
+   *
+   * @param landmarkArrays a List of {@link LandmarkArray} of normalized landmarks
+   * @param worldLandmarkArrays a List of {@link LandmarkArray} of world landmarks
+   * @param handednesses a List of the handedness {@link Category} lists
+   * @param gestures a List of the gesture {@link Category} lists, whose indices are discarded
+   */
+  static GestureRecognizerResult createFromDecoded(
+      List<LandmarkArray> landmarkArrays,
+      List<LandmarkArray> worldLandmarkArrays,
+      List<List<Category>> handednesses,
+      List<List<Category>> gestures,
+      long timestampMs) {
     List<List<NormalizedLandmark>> multiHandLandmarks = new ArrayList<>();
     List<List<Landmark>> multiHandWorldLandmarks = new ArrayList<>();
     List<List<Category>> multiHandHandednesses = new ArrayList<>();
     List<List<Category>> multiHandGestures = new ArrayList<>();
-    for (LandmarkProto.NormalizedLandmarkList handLandmarksProto : landmarksProto) {
-      List<NormalizedLandmark> handLandmarks = new ArrayList<>();
+    for (LandmarkArray handLandmarkArray : landmarkArrays) {
+      List<NormalizedLandmark> handLandmarks = new ArrayList<>(handLandmarkArray.size());
       multiHandLandmarks.add(handLandmarks);
-      for (LandmarkProto.NormalizedLandmark handLandmarkProto :
-          handLandmarksProto.getLandmarkList()) {
+      for (int i = 0; i < handLandmarkArray.size(); i++) {
         handLandmarks.add(
-            com.google.mediapipe.tasks.components.containers.NormalizedLandmark.create(
-                handLandmarkProto.getX(), handLandmarkProto.getY(), handLandmarkProto.getZ()));
+            NormalizedLandmark.create(
+                handLandmarkArray.getX(i), handLandmarkArray.getY(i), handLandmarkArray.getZ(i)));
       }
     }
-    for (LandmarkProto.LandmarkList handWorldLandmarksProto : worldLandmarksProto) {
-      List<com.google.mediapipe.tasks.components.containers.Landmark> handWorldLandmarks =
-          new ArrayList<>();
+    for (LandmarkArray handWorldLandmarkArray : worldLandmarkArrays) {
+      List<Landmark> handWorldLandmarks = new ArrayList<>(handWorldLandmarkArray.size());
       multiHandWorldLandmarks.add(handWorldLandmarks);
-      for (LandmarkProto.Landmark handWorldLandmarkProto :
-          handWorldLandmarksProto.getLandmarkList()) {
+      for (int i = 0; i < handWorldLandmarkArray.size(); i++) {
         handWorldLandmarks.add(
-            com.google.mediapipe.tasks.components.containers.Landmark.create(
-                handWorldLandmarkProto.getX(),
-                handWorldLandmarkProto.getY(),
-                handWorldLandmarkProto.getZ()));
+            Landmark.create(
+                handWorldLandmarkArray.getX(i),
+                handWorldLandmarkArray.getY(i),
+                handWorldLandmarkArray.getZ(i)));
       }
     }
-    for (ClassificationList handednessProto : handednessesProto) {
-      List<Category> handedness = Category.createListFromProto(handednessProto);
+    for (List<Category> handedness : handednesses) {
       multiHandHandednesses.add(Collections.unmodifiableList(handedness));
     }
-    for (ClassificationList gestureProto : gesturesProto) {
-      List<Category> gestures = new ArrayList<>();
-      multiHandGestures.add(gestures);
-      for (Classification classification : gestureProto.getClassificationList()) {
-        gestures.add(
+    for (List<Category> gesture : gestures) {
+      List<Category> handGestures = new ArrayList<>(gesture.size());
+      multiHandGestures.add(handGestures);
+      for (Category category : gesture) {
+        handGestures.add(
             Category.create(
-                classification.getScore(),
+                category.score(),
                 // Gesture index is not used, because the final gesture result comes from multiple
                 // classifiers.
                 kGestureDefaultIndex,
-                classification.getLabel(),
-                classification.getDisplayName()));
+                category.categoryName(),
+                category.displayName()));
       }
     }
     return new AutoValue_GestureRecognizerResult(
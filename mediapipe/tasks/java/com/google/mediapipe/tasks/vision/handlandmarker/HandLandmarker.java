@@ -17,16 +17,15 @@ package com.google.mediapipe.tasks.vision.handlandmarker;
 import android.content.Context;
 import android.os.ParcelFileDescriptor;
 import com.google.auto.value.AutoValue;
-import com.google.mediapipe.formats.proto.LandmarkProto.LandmarkList;
-import com.google.mediapipe.formats.proto.LandmarkProto.NormalizedLandmarkList;
 import com.google.mediapipe.proto.CalculatorOptionsProto.CalculatorOptions;
-import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
 import com.google.mediapipe.framework.AndroidPacketGetter;
 import com.google.mediapipe.framework.Packet;
 import com.google.mediapipe.framework.PacketGetter;
 import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.components.containers.Category;
 import com.google.mediapipe.tasks.components.containers.Connection;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.ErrorListener;
 import com.google.mediapipe.tasks.core.OutputHandler;
@@ -165,13 +164,13 @@ public final class HandLandmarker extends BaseVisionTaskApi {
                   BaseVisionTaskApi.generateResultTimestampMs(
                       landmarkerOptions.runningMode(), packets.get(LANDMARKS_OUT_STREAM_INDEX)));
             }
-            return HandLandmarkerResult.create(
-                PacketGetter.getProtoVector(
-                    packets.get(LANDMARKS_OUT_STREAM_INDEX), NormalizedLandmarkList.parser()),
-                PacketGetter.getProtoVector(
-                    packets.get(WORLD_LANDMARKS_OUT_STREAM_INDEX), LandmarkList.parser()),
-                PacketGetter.getProtoVector(
-                    packets.get(HANDEDNESS_OUT_STREAM_INDEX), ClassificationList.parser()),
+            return HandLandmarkerResult.createFromLandmarkArrays(
+                PacketGetter.decodeProtoVector(
+                    packets.get(LANDMARKS_OUT_STREAM_INDEX), LandmarkArray::parseFrom),
+                PacketGetter.decodeProtoVector(
+                    packets.get(WORLD_LANDMARKS_OUT_STREAM_INDEX), LandmarkArray::parseFrom),
+                PacketGetter.decodeProtoVector(
+                    packets.get(HANDEDNESS_OUT_STREAM_INDEX), Category::parseListFrom),
                 BaseVisionTaskApi.generateResultTimestampMs(
                     landmarkerOptions.runningMode(), packets.get(LANDMARKS_OUT_STREAM_INDEX)));
           }
@@ -195,7 +194,10 @@ public final class HandLandmarker extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(landmarkerOptions)
+                .setModelResourcesCache(landmarkerOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(landmarkerOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(landmarkerOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(landmarkerOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new HandLandmarker(runner, landmarkerOptions.runningMode());
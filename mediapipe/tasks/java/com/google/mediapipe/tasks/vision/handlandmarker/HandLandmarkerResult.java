@@ -19,6 +19,7 @@ import com.google.mediapipe.formats.proto.LandmarkProto;
 import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
 import com.google.mediapipe.tasks.components.containers.Category;
 import com.google.mediapipe.tasks.components.containers.Landmark;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
 import com.google.mediapipe.tasks.core.TaskResult;
 import java.util.ArrayList;
@@ -42,29 +43,57 @@ public abstract class HandLandmarkerResult implements TaskResult {
       List<LandmarkProto.LandmarkList> worldLandmarksProtos,
       List<ClassificationList> handednessesProtos,
       long timestampMs) {
-    List<List<NormalizedLandmark>> handLandmarks = new ArrayList<>();
+    List<LandmarkArray> handLandmarkArrays = new ArrayList<>(landmarksProtos.size());
     for (LandmarkProto.NormalizedLandmarkList handLandmarksProto : landmarksProtos) {
-      handLandmarks.add(
-          Collections.unmodifiableList(NormalizedLandmark.createListFromProto(handLandmarksProto)));
+      handLandmarkArrays.add(LandmarkArray.createFromProto(handLandmarksProto));
     }
-
-    List<List<Landmark>> handWorldLandmarks = new ArrayList<>();
+    List<LandmarkArray> handWorldLandmarkArrays = new ArrayList<>(worldLandmarksProtos.size());
     for (LandmarkProto.LandmarkList handWorldLandmarksProto : worldLandmarksProtos) {
-      handWorldLandmarks.add(
-          Collections.unmodifiableList(Landmark.createListFromProto(handWorldLandmarksProto)));
+      handWorldLandmarkArrays.add(LandmarkArray.createFromProto(handWorldLandmarksProto));
     }
-
-    List<List<Category>> handHandednesses = new ArrayList<>();
+    List<List<Category>> handHandednesses = new ArrayList<>(handednessesProtos.size());
     for (ClassificationList handednessProto : handednessesProtos) {
-      handHandednesses.add(
-          Collections.unmodifiableList(Category.createListFromProto(handednessProto)));
+      handHandednesses.add(Category.createListFromProto(handednessProto));
+    }
+    return createFromLandmarkArrays(
+        handLandmarkArrays, handWorldLandmarkArrays, handHandednesses, timestampMs);
+  }
+
+  /**
+   * Creates a {@link HandLandmarkerResult} instance from the landmarks of the hands, already
+   * decoded into {@link LandmarkArray}s, and the handedness categories of the hands.
+   *
+   * @param handLandmarkArrays a List of {@link LandmarkArray} of normalized landmarks
+   * @param handWorldLandmarkArrays a List of {@link LandmarkArray} of world landmarks
+   * @param handHandednesses a List of the handedness {@link Category} lists
+   */
+  static HandLandmarkerResult createFromLandmarkArrays(
+      List<LandmarkArray> handLandmarkArrays,
+      List<LandmarkArray> handWorldLandmarkArrays,
+      List<List<Category>> handHandednesses,
+      long timestampMs) {
+    List<List<NormalizedLandmark>> handLandmarks = new ArrayList<>(handLandmarkArrays.size());
+    for (LandmarkArray landmarks : handLandmarkArrays) {
+      handLandmarks.add(landmarks.asNormalizedLandmarks());
+    }
+
+    List<List<Landmark>> handWorldLandmarks = new ArrayList<>(handWorldLandmarkArrays.size());
+    for (LandmarkArray worldLandmarks : handWorldLandmarkArrays) {
+      handWorldLandmarks.add(worldLandmarks.asLandmarks());
+    }
+
+    List<List<Category>> handednesses = new ArrayList<>(handHandednesses.size());
+    for (List<Category> handedness : handHandednesses) {
+      handednesses.add(Collections.unmodifiableList(handedness));
     }
 
     return new AutoValue_HandLandmarkerResult(
         timestampMs,
         Collections.unmodifiableList(handLandmarks),
         Collections.unmodifiableList(handWorldLandmarks),
-        Collections.unmodifiableList(handHandednesses));
+        Collections.unmodifiableList(handednesses),
+        Collections.unmodifiableList(handLandmarkArrays),
+        Collections.unmodifiableList(handWorldLandmarkArrays));
   }
 
   @Override
@@ -88,4 +117,16 @@ public abstract class HandLandmarkerResult implements TaskResult {
 
   /** Handedness of detected hands. */
   public abstract List<List<Category>> handedness();
+
+  /**
+   * Hand landmarks of detected hands, as flat arrays of coordinates. {@link #landmarks()} views the
+   * same data as {@link NormalizedLandmark} objects created when accessed.
+   */
+  public abstract List<LandmarkArray> landmarkArrays();
+
+  /**
+   * Hand landmarks in world coordinates of detected hands, as flat arrays of coordinates. {@link
+   * #worldLandmarks()} views the same data as {@link Landmark} objects created when accessed.
+   */
+  public abstract List<LandmarkArray> worldLandmarkArrays();
 }
@@ -256,7 +256,10 @@ public final class HolisticLandmarker extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(outputStreams)
                 .setTaskOptions(landmarkerOptions)
+                .setModelResourcesCache(landmarkerOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(landmarkerOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(landmarkerOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(landmarkerOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new HolisticLandmarker(runner, landmarkerOptions.runningMode());
@@ -633,9 +636,11 @@ public final class HolisticLandmarker extends BaseVisionTaskApi {
   }
 
   private static MPImage getSegmentationMask(List<Packet> packets, int packetIndex) {
-    int width = PacketGetter.getImageWidth(packets.get(packetIndex));
-    int height = PacketGetter.getImageHeight(packets.get(packetIndex));
-    ByteBuffer buffer = ByteBuffer.allocateDirect(width * height * 4);
+    PacketGetter.ImageDescriptor imageDescriptor =
+        PacketGetter.getImageDescriptor(packets.get(packetIndex));
+    int width = imageDescriptor.getWidth();
+    int height = imageDescriptor.getHeight();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(imageDescriptor.getContiguousDataSize());
 
     if (!PacketGetter.getImageData(packets.get(packetIndex), buffer)) {
       throw new MediaPipeException(
@@ -21,9 +21,9 @@ import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList
 import com.google.mediapipe.framework.image.MPImage;
 import com.google.mediapipe.tasks.components.containers.Category;
 import com.google.mediapipe.tasks.components.containers.Landmark;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
 import com.google.mediapipe.tasks.core.TaskResult;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -61,33 +61,66 @@ public abstract class HolisticLandmarkerResult implements TaskResult {
       NormalizedLandmarkList rightHandLandmarkListProto,
       LandmarkList rightHandWorldLandmarkListProto,
       long timestampMs) {
-    List<NormalizedLandmark> faceLandmarks =
-        NormalizedLandmark.createListFromProto(faceLandmarkListProto);
+    return createFromLandmarkArrays(
+        LandmarkArray.createFromProto(faceLandmarkListProto),
+        faceBlendshapeProtos,
+        LandmarkArray.createFromProto(poseLandmarkListProtos),
+        LandmarkArray.createFromProto(poseWorldLandmarkListProto),
+        segmentationMask,
+        LandmarkArray.createFromProto(leftHandLandmarkListProto),
+        LandmarkArray.createFromProto(leftHandWorldLandmarkListProto),
+        LandmarkArray.createFromProto(rightHandLandmarkListProto),
+        LandmarkArray.createFromProto(rightHandWorldLandmarkListProto),
+        timestampMs);
+  }
+
+  /**
+   * Creates a {@link HolisticLandmarkerResult} instance from landmarks already decoded into {@link
+   * LandmarkArray}s, and the face blendshapes and segmentation mask outputs.
+   *
+   * @param faceLandmarks the detected face landmarks in normalized image coordinates
+   * @param faceBlendshapeProtos the optional face blendshapes result
+   * @param poseLandmarks the detected pose landmarks in normalized image coordinates
+   * @param poseWorldLandmarks the pose landmarks in world coordinates of detected poses
+   * @param segmentationMask the segmentation mask for the detected pose
+   * @param leftHandLandmarks left hand landmarks of detected left hands
+   * @param leftHandWorldLandmarks left hand landmarks in world coordinates of detected left hands
+   * @param rightHandLandmarks right hand landmarks of detected right hands
+   * @param rightHandWorldLandmarks right hand landmarks in world coordinates of detected right
+   *     hands
+   * @param timestampMs the time in milliseconds this result was created at
+   */
+  static HolisticLandmarkerResult createFromLandmarkArrays(
+      LandmarkArray faceLandmarks,
+      Optional<ClassificationList> faceBlendshapeProtos,
+      LandmarkArray poseLandmarks,
+      LandmarkArray poseWorldLandmarks,
+      Optional<MPImage> segmentationMask,
+      LandmarkArray leftHandLandmarks,
+      LandmarkArray leftHandWorldLandmarks,
+      LandmarkArray rightHandLandmarks,
+      LandmarkArray rightHandWorldLandmarks,
+      long timestampMs) {
     Optional<List<Category>> faceBlendshapes =
         faceBlendshapeProtos.map(Category::createListFromProto);
-    List<NormalizedLandmark> poseLandmarks =
-        NormalizedLandmark.createListFromProto(poseLandmarkListProtos);
-    List<Landmark> poseWorldLandmarks = Landmark.createListFromProto(poseWorldLandmarkListProto);
-    List<NormalizedLandmark> leftHandLandmarks =
-        NormalizedLandmark.createListFromProto(leftHandLandmarkListProto);
-    List<Landmark> leftHandWorldLandmarks =
-        Landmark.createListFromProto(leftHandWorldLandmarkListProto);
-    List<NormalizedLandmark> rightHandLandmarks =
-        NormalizedLandmark.createListFromProto(rightHandLandmarkListProto);
-    List<Landmark> rightHandWorldLandmarks =
-        Landmark.createListFromProto(rightHandWorldLandmarkListProto);
-
     return new AutoValue_HolisticLandmarkerResult(
         timestampMs,
-        Collections.unmodifiableList(faceLandmarks),
+        faceLandmarks.asNormalizedLandmarks(),
         faceBlendshapes,
-        Collections.unmodifiableList(poseLandmarks),
-        Collections.unmodifiableList(poseWorldLandmarks),
+        poseLandmarks.asNormalizedLandmarks(),
+        poseWorldLandmarks.asLandmarks(),
         segmentationMask,
-        Collections.unmodifiableList(leftHandLandmarks),
-        Collections.unmodifiableList(leftHandWorldLandmarks),
-        Collections.unmodifiableList(rightHandLandmarks),
-        Collections.unmodifiableList(rightHandWorldLandmarks));
+        leftHandLandmarks.asNormalizedLandmarks(),
+        leftHandWorldLandmarks.asLandmarks(),
+        rightHandLandmarks.asNormalizedLandmarks(),
+        rightHandWorldLandmarks.asLandmarks(),
+        faceLandmarks,
+        poseLandmarks,
+        poseWorldLandmarks,
+        leftHandLandmarks,
+        leftHandWorldLandmarks,
+        rightHandLandmarks,
+        rightHandWorldLandmarks);
   }
 
   /**
@@ -96,17 +129,19 @@ public abstract class HolisticLandmarkerResult implements TaskResult {
    * @param timestampMs the time in milliseconds this result was created at
    */
   static HolisticLandmarkerResult createEmpty(long timestampMs) {
-    return new AutoValue_HolisticLandmarkerResult(
-        timestampMs,
-        Collections.emptyList(),
+    LandmarkArray empty =
+        LandmarkArray.createFromProto(NormalizedLandmarkList.getDefaultInstance());
+    return createFromLandmarkArrays(
+        empty,
         Optional.empty(),
-        Collections.emptyList(),
-        Collections.emptyList(),
+        empty,
+        empty,
         Optional.empty(),
-        Collections.emptyList(),
-        Collections.emptyList(),
-        Collections.emptyList(),
-        Collections.emptyList());
+        empty,
+        empty,
+        empty,
+        empty,
+        timestampMs);
   }
 
   @Override
@@ -138,4 +173,29 @@ public abstract class HolisticLandmarkerResult implements TaskResult {
 
   /** Hand landmarks in world coordinates of detected right hands. */
   public abstract List<Landmark> rightHandWorldLandmarks();
+
+  /**
+   * Detected face landmarks in normalized image coordinates, as flat arrays of coordinates. {@link
+   * #faceLandmarks()} views the same data as {@link NormalizedLandmark} objects created when
+   * accessed.
+   */
+  public abstract LandmarkArray faceLandmarkArray();
+
+  /** Detected pose landmarks in normalized image coordinates, as flat arrays of coordinates. */
+  public abstract LandmarkArray poseLandmarkArray();
+
+  /** Pose landmarks in world coordinates of the detected pose, as flat arrays of coordinates. */
+  public abstract LandmarkArray poseWorldLandmarkArray();
+
+  /** Hand landmarks of detected left hands, as flat arrays of coordinates. */
+  public abstract LandmarkArray leftHandLandmarkArray();
+
+  /** Hand landmarks in world coordinates of detected left hands, as flat arrays of coordinates. */
+  public abstract LandmarkArray leftHandWorldLandmarkArray();
+
+  /** Hand landmarks of detected right hands, as flat arrays of coordinates. */
+  public abstract LandmarkArray rightHandLandmarkArray();
+
+  /** Hand landmarks in world coordinates of detected right hands, as flat arrays of coordinates. */
+  public abstract LandmarkArray rightHandWorldLandmarkArray();
 }
@@ -34,6 +34,7 @@ import com.google.mediapipe.tasks.core.OutputHandler;
 import com.google.mediapipe.tasks.core.OutputHandler.ResultListener;
 import com.google.mediapipe.tasks.core.TaskInfo;
 import com.google.mediapipe.tasks.core.TaskOptions;
+import com.google.mediapipe.tasks.core.TaskResult;
 import com.google.mediapipe.tasks.core.TaskRunner;
 import com.google.mediapipe.tasks.core.proto.BaseOptionsProto;
 import com.google.mediapipe.tasks.vision.core.BaseVisionTaskApi;
@@ -43,10 +44,12 @@ import com.google.mediapipe.tasks.vision.imageclassifier.proto.ImageClassifierGr
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Performs classification on images.
@@ -204,7 +207,10 @@ public final class ImageClassifier extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(options)
+                .setModelResourcesCache(options.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(options.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(options.baseOptions().flowControlPolicy())
+                .setEnableProfiling(options.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new ImageClassifier(runner, options.runningMode());
@@ -259,6 +265,38 @@ public final class ImageClassifier extends BaseVisionTaskApi {
     return (ImageClassifierResult) processImageData(image, imageProcessingOptions);
   }
 
+  /**
+   * Performs classification on a batch of unrelated images, using the whole images as
+   * region-of-interest and without any rotation applied. The images are pipelined through the task
+   * graph, and the call blocks until all returned futures are complete. Only use this method when
+   * the {@link ImageClassifier} is created with {@link RunningMode.IMAGE}.
+   *
+   * @param images a list of MediaPipe {@link MPImage} objects for processing.
+   * @throws MediaPipeException if there is an internal error.
+   */
+  public List<CompletableFuture<ImageClassifierResult>> classifyBatch(List<MPImage> images) {
+    return classifyBatch(images, ImageProcessingOptions.builder().build());
+  }
+
+  /**
+   * Performs classification on a batch of unrelated images. The images are pipelined through the
+   * task graph, and the call blocks until all returned futures are complete. Only use this method
+   * when the {@link ImageClassifier} is created with {@link RunningMode.IMAGE}.
+   *
+   * @param images a list of MediaPipe {@link MPImage} objects for processing.
+   * @param imageProcessingOptions the {@link ImageProcessingOptions} specifying how to process the
+   *     input images before running inference.
+   * @throws MediaPipeException if there is an internal error.
+   */
+  public List<CompletableFuture<ImageClassifierResult>> classifyBatch(
+      List<MPImage> images, ImageProcessingOptions imageProcessingOptions) {
+    List<CompletableFuture<ImageClassifierResult>> results = new ArrayList<>(images.size());
+    for (CompletableFuture<TaskResult> result : processImageBatch(images, imageProcessingOptions)) {
+      results.add(result.thenApply(ImageClassifierResult.class::cast));
+    }
+    return results;
+  }
+
   /**
    * Performs classification on the provided video frame with default image processing options, i.e.
    * using the whole image as region-of-interest and without any rotation applied. Only use this
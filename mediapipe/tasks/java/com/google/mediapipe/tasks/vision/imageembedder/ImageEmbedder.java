@@ -187,7 +187,10 @@ public final class ImageEmbedder extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(options)
+                .setModelResourcesCache(options.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(options.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(options.baseOptions().flowControlPolicy())
+                .setEnableProfiling(options.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new ImageEmbedder(runner, options.runningMode());
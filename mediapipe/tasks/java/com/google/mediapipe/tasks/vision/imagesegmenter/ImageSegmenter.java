@@ -29,6 +29,7 @@ import com.google.mediapipe.tasks.TensorsToSegmentationCalculatorOptionsProto;
 import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.ErrorListener;
 import com.google.mediapipe.tasks.core.OutputHandler;
+import com.google.mediapipe.tasks.core.OutputHandler.PureResultListener;
 import com.google.mediapipe.tasks.core.OutputHandler.ResultListener;
 import com.google.mediapipe.tasks.core.TaskInfo;
 import com.google.mediapipe.tasks.core.TaskOptions;
@@ -127,41 +128,57 @@ public final class ImageSegmenter extends BaseVisionTaskApi {
             : -1;
     final int qualityScoresOutStreamIndex =
         getStreamIndex.apply(outputStreams, "QUALITY_SCORES:quality_scores");
-    final int imageOutStreamIndex = getStreamIndex.apply(outputStreams, "IMAGE:image_out");
+    // A pure result listener never sees the input image, so the graph doesn't need to output it.
+    final int imageOutStreamIndex =
+        segmenterOptions.pureResultListener().isPresent()
+            ? -1
+            : getStreamIndex.apply(outputStreams, "IMAGE:image_out");
+    // The stream whose packets carry the timestamp and the emptiness of a result.
+    final int timestampStreamIndex =
+        imageOutStreamIndex >= 0 ? imageOutStreamIndex : qualityScoresOutStreamIndex;
+    final boolean hasResultListener =
+        segmenterOptions.resultListener().isPresent()
+            || segmenterOptions.pureResultListener().isPresent();
+    final MaskBufferPool maskBufferPool =
+        new MaskBufferPool(segmenterOptions.maskBufferPoolSize());
 
     // TODO: Consolidate OutputHandler and TaskRunner.
     OutputHandler<ImageSegmenterResult, MPImage> handler = new OutputHandler<>();
     handler.setOutputPacketConverter(
         new OutputHandler.OutputPacketConverter<ImageSegmenterResult, MPImage>() {
+          // Reused across the results, as the graph calls the converter from one thread at a time.
+          private final PacketGetter.ImageDescriptor reusedImageDescriptor =
+              new PacketGetter.ImageDescriptor();
+          private float[] reusedQualityScores = new float[0];
+
           @Override
           public ImageSegmenterResult convertToTaskResult(List<Packet> packets)
               throws MediaPipeException {
-            if (packets.get(imageOutStreamIndex).isEmpty()) {
+            if (packets.get(timestampStreamIndex).isEmpty()) {
               return ImageSegmenterResult.create(
                   Optional.empty(),
                   Optional.empty(),
                   new ArrayList<>(),
-                  packets.get(imageOutStreamIndex).getTimestamp());
+                  packets.get(timestampStreamIndex).getTimestamp());
             }
-            boolean copyImage = !segmenterOptions.resultListener().isPresent();
+            boolean copyImage = !hasResultListener;
             Optional<List<MPImage>> confidenceMasks = Optional.empty();
             if (segmenterOptions.outputConfidenceMasks()) {
-              int width =
-                  PacketGetter.getImageWidthFromImageList(
-                      packets.get(confidenceMasksOutStreamIndex));
-              int height =
-                  PacketGetter.getImageHeightFromImageList(
-                      packets.get(confidenceMasksOutStreamIndex));
+              PacketGetter.getImageDescriptorFromImageList(
+                  packets.get(confidenceMasksOutStreamIndex), reusedImageDescriptor);
+              int width = reusedImageDescriptor.getWidth();
+              int height = reusedImageDescriptor.getHeight();
               confidenceMasks = Optional.of(new ArrayList<MPImage>());
               int confidenceMasksListSize =
                   PacketGetter.getImageListSize(packets.get(confidenceMasksOutStreamIndex));
               ByteBuffer[] buffersArray = new ByteBuffer[confidenceMasksListSize];
               // If resultListener is not provided, the resulted MPImage is deep copied from
-              // mediapipe graph. If provided, the result MPImage is wrapping the mediapipe packet
-              // memory.
+              // mediapipe graph into pooled buffers, which are recycled once the MPImage is closed.
+              // If provided, the result MPImage is wrapping the mediapipe packet memory.
               if (copyImage) {
                 for (int i = 0; i < confidenceMasksListSize; i++) {
-                  buffersArray[i] = ByteBuffer.allocateDirect(width * height * 4);
+                  buffersArray[i] =
+                      maskBufferPool.acquire(width * height * 4, confidenceMasksListSize);
                 }
               }
               if (!PacketGetter.getImageList(
@@ -171,52 +188,77 @@ public final class ImageSegmenter extends BaseVisionTaskApi {
                     "There is an error getting confidence masks.");
               }
               for (ByteBuffer buffer : buffersArray) {
-                ByteBufferImageBuilder builder =
-                    new ByteBufferImageBuilder(buffer, width, height, MPImage.IMAGE_FORMAT_VEC32F1);
-                confidenceMasks.get().add(builder.build());
+                if (copyImage) {
+                  confidenceMasks
+                      .get()
+                      .add(
+                          maskBufferPool.createMask(
+                              buffer, width, height, MPImage.IMAGE_FORMAT_VEC32F1));
+                } else {
+                  ByteBufferImageBuilder builder =
+                      new ByteBufferImageBuilder(
+                          buffer, width, height, MPImage.IMAGE_FORMAT_VEC32F1);
+                  confidenceMasks.get().add(builder.build());
+                }
               }
             }
             Optional<MPImage> categoryMask = Optional.empty();
             if (segmenterOptions.outputCategoryMask()) {
-              int width = PacketGetter.getImageWidth(packets.get(categoryMaskOutStreamIndex));
-              int height = PacketGetter.getImageHeight(packets.get(categoryMaskOutStreamIndex));
-              ByteBuffer buffer;
+              PacketGetter.getImageDescriptor(
+                  packets.get(categoryMaskOutStreamIndex), reusedImageDescriptor);
+              int width = reusedImageDescriptor.getWidth();
+              int height = reusedImageDescriptor.getHeight();
               if (copyImage) {
-                buffer = ByteBuffer.allocateDirect(width * height);
+                ByteBuffer buffer = maskBufferPool.acquire(width * height, 1);
                 if (!PacketGetter.getImageData(packets.get(categoryMaskOutStreamIndex), buffer)) {
                   throw new MediaPipeException(
                       MediaPipeException.StatusCode.INTERNAL.ordinal(),
                       "There is an error getting category mask.");
                 }
+                categoryMask =
+                    Optional.of(
+                        maskBufferPool.createMask(
+                            buffer, width, height, MPImage.IMAGE_FORMAT_ALPHA));
               } else {
-                buffer = PacketGetter.getImageDataDirectly(packets.get(categoryMaskOutStreamIndex));
+                ByteBuffer buffer =
+                    PacketGetter.getImageDataDirectly(packets.get(categoryMaskOutStreamIndex));
+                ByteBufferImageBuilder builder =
+                    new ByteBufferImageBuilder(buffer, width, height, MPImage.IMAGE_FORMAT_ALPHA);
+                categoryMask = Optional.of(builder.build());
               }
-              ByteBufferImageBuilder builder =
-                  new ByteBufferImageBuilder(buffer, width, height, MPImage.IMAGE_FORMAT_ALPHA);
-              categoryMask = Optional.of(builder.build());
             }
-            float[] qualityScores =
-                PacketGetter.getFloat32Vector(packets.get(qualityScoresOutStreamIndex));
-            List<Float> qualityScoresList = new ArrayList<>(qualityScores.length);
-            for (float score : qualityScores) {
-              qualityScoresList.add(score);
+            Packet qualityScoresPacket = packets.get(qualityScoresOutStreamIndex);
+            int qualityScoresCount =
+                PacketGetter.getFloat32Vector(qualityScoresPacket, reusedQualityScores);
+            if (qualityScoresCount < 0) {
+              reusedQualityScores = new float[-qualityScoresCount];
+              qualityScoresCount =
+                  PacketGetter.getFloat32Vector(qualityScoresPacket, reusedQualityScores);
+            }
+            List<Float> qualityScoresList = new ArrayList<>(qualityScoresCount);
+            for (int i = 0; i < qualityScoresCount; i++) {
+              qualityScoresList.add(reusedQualityScores[i]);
             }
             return ImageSegmenterResult.create(
                 confidenceMasks,
                 categoryMask,
                 qualityScoresList,
                 BaseVisionTaskApi.generateResultTimestampMs(
-                    segmenterOptions.runningMode(), packets.get(imageOutStreamIndex)));
+                    segmenterOptions.runningMode(), packets.get(timestampStreamIndex)));
           }
 
           @Override
           public MPImage convertToTaskInput(List<Packet> packets) {
+            if (imageOutStreamIndex < 0) {
+              return null;
+            }
             return new BitmapImageBuilder(
                     AndroidPacketGetter.getBitmapFromRgb(packets.get(imageOutStreamIndex)))
                 .build();
           }
         });
     segmenterOptions.resultListener().ifPresent(handler::setResultListener);
+    segmenterOptions.pureResultListener().ifPresent(handler::setPureResultListener);
     segmenterOptions.errorListener().ifPresent(handler::setErrorListener);
     TaskRunner runner =
         TaskRunner.create(
@@ -228,11 +270,13 @@ public final class ImageSegmenter extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(outputStreams)
                 .setTaskOptions(segmenterOptions)
+                .setModelResourcesCache(segmenterOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(segmenterOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(segmenterOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(segmenterOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
-    return new ImageSegmenter(
-        runner, segmenterOptions.runningMode(), segmenterOptions.resultListener().isPresent());
+    return new ImageSegmenter(runner, segmenterOptions.runningMode(), hasResultListener);
   }
 
   /**
@@ -828,9 +872,37 @@ public final class ImageSegmenter extends BaseVisionTaskApi {
       public abstract Builder setResultListener(
           ResultListener<ImageSegmenterResult, MPImage> value);
 
+      /**
+       * Sets an optional {@link PureResultListener} to receive the segmentation results when the
+       * graph pipeline is done processing an image, without the input image.
+       *
+       * <p>Prefer this over {@link #setResultListener} when the listener doesn't use the input
+       * image: the graph then doesn't output the image at all, which saves converting it into a
+       * new {@link android.graphics.Bitmap} for every result. Mutually exclusive with {@link
+       * #setResultListener}.
+       */
+      public abstract Builder setPureResultListener(PureResultListener<ImageSegmenterResult> value);
+
       /** Sets an optional {@link ErrorListener}}. */
       public abstract Builder setErrorListener(ErrorListener value);
 
+      /**
+       * Sets the number of frames worth of mask buffers to keep for reuse. Defaults to 0, which
+       * disables pooling: each result then gets newly allocated masks.
+       *
+       * <p>Only applies when no {@link ResultListener} is set, in which case the masks are deep
+       * copied out of the graph. Closing the returned mask {@link MPImage}s gives their buffers
+       * back to the pool, so that later results don't need to allocate new direct memory. Masks
+       * that are not closed are garbage collected as usual.
+       *
+       * <p>With pooling on, {@link MPImage#close()} hands the mask's buffer over to the pool, and a
+       * later result overwrites it. The buffers returned by {@link
+       * com.google.mediapipe.framework.image.ByteBufferExtractor} for a mask alias that buffer, so
+       * they must not be used once the mask is closed; copy the data out first if it is needed
+       * longer.
+       */
+      public abstract Builder setMaskBufferPoolSize(int value);
+
       abstract ImageSegmenterOptions autoBuild();
 
       /**
@@ -842,8 +914,15 @@ public final class ImageSegmenter extends BaseVisionTaskApi {
        */
       public final ImageSegmenterOptions build() {
         ImageSegmenterOptions options = autoBuild();
+        if (options.maskBufferPoolSize() < 0) {
+          throw new IllegalArgumentException("maskBufferPoolSize must not be negative.");
+        }
+        if (options.resultListener().isPresent() && options.pureResultListener().isPresent()) {
+          throw new IllegalArgumentException(
+              "Only one of resultListener and pureResultListener can be set.");
+        }
         if (options.runningMode() == RunningMode.LIVE_STREAM) {
-          if (!options.resultListener().isPresent()) {
+          if (!options.resultListener().isPresent() && !options.pureResultListener().isPresent()) {
             throw new IllegalArgumentException(
                 "The image segmenter is in the live stream mode, a user-defined result listener"
                     + " must be provided in ImageSegmenterOptions.");
@@ -865,14 +944,19 @@ public final class ImageSegmenter extends BaseVisionTaskApi {
 
     abstract Optional<ResultListener<ImageSegmenterResult, MPImage>> resultListener();
 
+    abstract Optional<PureResultListener<ImageSegmenterResult>> pureResultListener();
+
     abstract Optional<ErrorListener> errorListener();
 
+    abstract int maskBufferPoolSize();
+
     public static Builder builder() {
       return new AutoValue_ImageSegmenter_ImageSegmenterOptions.Builder()
           .setRunningMode(RunningMode.IMAGE)
           .setDisplayNamesLocale("en")
           .setOutputConfidenceMasks(true)
-          .setOutputCategoryMask(false);
+          .setOutputCategoryMask(false)
+          .setMaskBufferPoolSize(0);
     }
 
     /**
@@ -913,10 +997,7 @@ public final class ImageSegmenter extends BaseVisionTaskApi {
     if (!normRectStreamName.isEmpty()) {
       inputPackets.put(
           normRectStreamName,
-          runner
-              .getPacketCreator()
-              .createProto(
-                  convertToNormalizedRect(segmentationOptions.imageProcessingOptions(), image)));
+          createNormRectPacket(image, segmentationOptions.imageProcessingOptions()));
     }
     return inputPackets;
   }
@@ -0,0 +1,130 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.vision.imagesegmenter;
+
+import com.google.mediapipe.framework.image.ByteBufferImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pool of direct {@link ByteBuffer}s that back the masks deep copied out of the segmentation
+ * graph.
+ *
+ * <p>Buffers are grouped by capacity, i.e. by mask resolution and format. Each group keeps at most
+ * {@code maxPooledFrames} frames worth of buffers, where a frame holds one buffer per class for the
+ * confidence masks and one for the category mask. A buffer returns to the pool when the {@link
+ * MPImage} wrapping it is closed; images that are never closed are simply garbage collected.
+ */
+final class MaskBufferPool {
+  // Bounds the number of mask resolutions kept, so that resolution changes don't pin memory.
+  private static final int MAX_POOLED_CAPACITIES = 4;
+
+  private final int maxPooledFrames;
+  // The pooled buffers by capacity, in least recently acquired order.
+  private final Map<Integer, Bucket> buckets =
+      new LinkedHashMap<Integer, Bucket>(
+          MAX_POOLED_CAPACITIES + 1, 0.75f, /* accessOrder= */ true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Bucket> eldest) {
+          return size() > MAX_POOLED_CAPACITIES;
+        }
+      };
+
+  /**
+   * Creates a {@link MaskBufferPool}.
+   *
+   * @param maxPooledFrames the number of frames worth of mask buffers to keep for reuse. 0 disables
+   *     pooling.
+   */
+  MaskBufferPool(int maxPooledFrames) {
+    this.maxPooledFrames = maxPooledFrames;
+  }
+
+  /**
+   * Returns a cleared direct buffer of the given capacity, reusing a recycled one if available.
+   *
+   * @param capacity the size of the buffer in bytes.
+   * @param buffersPerFrame the number of buffers of this capacity needed per frame, which sizes the
+   *     pool for this capacity.
+   */
+  ByteBuffer acquire(int capacity, int buffersPerFrame) {
+    if (maxPooledFrames > 0) {
+      synchronized (this) {
+        Bucket bucket = buckets.get(capacity);
+        if (bucket == null) {
+          bucket = new Bucket();
+          buckets.put(capacity, bucket);
+        }
+        bucket.limit = maxPooledFrames * buffersPerFrame;
+        if (!bucket.freeBuffers.isEmpty()) {
+          return bucket.freeBuffers.pop();
+        }
+      }
+    }
+    return ByteBuffer.allocateDirect(capacity);
+  }
+
+  /**
+   * Wraps a buffer returned by {@link #acquire} in an {@link MPImage}, which gives the buffer back
+   * to the pool when closed.
+   *
+   * @param buffer the buffer holding the mask data.
+   * @param width the width of the mask.
+   * @param height the height of the mask.
+   * @param imageFormat the format of the mask, either {@link MPImage#IMAGE_FORMAT_VEC32F1} or
+   *     {@link MPImage#IMAGE_FORMAT_ALPHA}.
+   */
+  MPImage createMask(ByteBuffer buffer, int width, int height, int imageFormat) {
+    ByteBufferImageBuilder builder = new ByteBufferImageBuilder(buffer, width, height, imageFormat);
+    if (maxPooledFrames > 0) {
+      builder.setReleaseCallback(() -> recycle(buffer));
+    }
+    return builder.build();
+  }
+
+  /** Returns the number of buffers currently available for reuse. */
+  synchronized int getFreeBufferCount() {
+    int count = 0;
+    for (Bucket bucket : buckets.values()) {
+      count += bucket.freeBuffers.size();
+    }
+    return count;
+  }
+
+  /** Drops all the pooled buffers. */
+  synchronized void clear() {
+    buckets.clear();
+  }
+
+  private synchronized void recycle(ByteBuffer buffer) {
+    Bucket bucket = buckets.get(buffer.capacity());
+    if (bucket == null || bucket.freeBuffers.size() >= bucket.limit) {
+      return;
+    }
+    // Restore the state of a freshly allocated buffer.
+    buffer.clear();
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    bucket.freeBuffers.push(buffer);
+  }
+
+  private static final class Bucket {
+    final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+    int limit;
+  }
+}
@@ -140,6 +140,11 @@ public final class InteractiveSegmenter extends BaseVisionTaskApi {
     OutputHandler<ImageSegmenterResult, MPImage> handler = new OutputHandler<>();
     handler.setOutputPacketConverter(
         new OutputHandler.OutputPacketConverter<ImageSegmenterResult, MPImage>() {
+          // Reused across the results, as the graph calls the converter from one thread at a time.
+          private final PacketGetter.ImageDescriptor reusedImageDescriptor =
+              new PacketGetter.ImageDescriptor();
+          private float[] reusedQualityScores = new float[0];
+
           @Override
           public ImageSegmenterResult convertToTaskResult(List<Packet> packets)
               throws MediaPipeException {
@@ -157,12 +162,10 @@ public final class InteractiveSegmenter extends BaseVisionTaskApi {
             Optional<List<MPImage>> confidenceMasks = Optional.empty();
             if (segmenterOptions.outputConfidenceMasks()) {
               confidenceMasks = Optional.of(new ArrayList<>());
-              int width =
-                  PacketGetter.getImageWidthFromImageList(
-                      packets.get(confidenceMasksOutStreamIndex));
-              int height =
-                  PacketGetter.getImageHeightFromImageList(
-                      packets.get(confidenceMasksOutStreamIndex));
+              PacketGetter.getImageDescriptorFromImageList(
+                  packets.get(confidenceMasksOutStreamIndex), reusedImageDescriptor);
+              int width = reusedImageDescriptor.getWidth();
+              int height = reusedImageDescriptor.getHeight();
               int imageListSize =
                   PacketGetter.getImageListSize(packets.get(confidenceMasksOutStreamIndex));
               ByteBuffer[] buffersArray = new ByteBuffer[imageListSize];
@@ -187,8 +190,10 @@ public final class InteractiveSegmenter extends BaseVisionTaskApi {
             }
             Optional<MPImage> categoryMask = Optional.empty();
             if (segmenterOptions.outputCategoryMask()) {
-              int width = PacketGetter.getImageWidth(packets.get(categoryMaskOutStreamIndex));
-              int height = PacketGetter.getImageHeight(packets.get(categoryMaskOutStreamIndex));
+              PacketGetter.getImageDescriptor(
+                  packets.get(categoryMaskOutStreamIndex), reusedImageDescriptor);
+              int width = reusedImageDescriptor.getWidth();
+              int height = reusedImageDescriptor.getHeight();
               ByteBuffer buffer;
               if (copyImage) {
                 buffer = ByteBuffer.allocateDirect(width * height);
@@ -205,11 +210,17 @@ public final class InteractiveSegmenter extends BaseVisionTaskApi {
               categoryMask = Optional.of(builder.build());
             }
 
-            float[] qualityScores =
-                PacketGetter.getFloat32Vector(packets.get(qualityScoresOutStreamIndex));
-            List<Float> qualityScoresList = new ArrayList<>(qualityScores.length);
-            for (float score : qualityScores) {
-              qualityScoresList.add(score);
+            Packet qualityScoresPacket = packets.get(qualityScoresOutStreamIndex);
+            int qualityScoresCount =
+                PacketGetter.getFloat32Vector(qualityScoresPacket, reusedQualityScores);
+            if (qualityScoresCount < 0) {
+              reusedQualityScores = new float[-qualityScoresCount];
+              qualityScoresCount =
+                  PacketGetter.getFloat32Vector(qualityScoresPacket, reusedQualityScores);
+            }
+            List<Float> qualityScoresList = new ArrayList<>(qualityScoresCount);
+            for (int i = 0; i < qualityScoresCount; i++) {
+              qualityScoresList.add(reusedQualityScores[i]);
             }
 
             return ImageSegmenterResult.create(
@@ -239,6 +250,7 @@ public final class InteractiveSegmenter extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(outputStreams)
                 .setTaskOptions(segmenterOptions)
+                .setModelResourcesCache(segmenterOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(false)
                 .build(),
             handler);
@@ -604,10 +616,7 @@ public final class InteractiveSegmenter extends BaseVisionTaskApi {
     RenderData renderData = convertToRenderData(roi);
     inputPackets.put(ROI_IN_STREAM_NAME, runner.getPacketCreator().createProto(renderData));
     inputPackets.put(
-        NORM_RECT_IN_STREAM_NAME,
-        runner
-            .getPacketCreator()
-            .createProto(convertToNormalizedRect(imageProcessingOptions, image)));
+        NORM_RECT_IN_STREAM_NAME, createNormRectPacket(image, imageProcessingOptions));
     return (ImageSegmenterResult) runner.process(inputPackets);
   }
 }
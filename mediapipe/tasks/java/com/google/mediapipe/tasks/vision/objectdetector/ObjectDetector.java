@@ -29,6 +29,7 @@ import com.google.mediapipe.tasks.core.OutputHandler;
 import com.google.mediapipe.tasks.core.OutputHandler.ResultListener;
 import com.google.mediapipe.tasks.core.TaskInfo;
 import com.google.mediapipe.tasks.core.TaskOptions;
+import com.google.mediapipe.tasks.core.TaskResult;
 import com.google.mediapipe.tasks.core.TaskRunner;
 import com.google.mediapipe.tasks.core.proto.BaseOptionsProto;
 import com.google.mediapipe.tasks.vision.core.BaseVisionTaskApi;
@@ -44,6 +45,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Performs object detection on images.
@@ -213,7 +215,10 @@ public final class ObjectDetector extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(OUTPUT_STREAMS)
                 .setTaskOptions(detectorOptions)
+                .setModelResourcesCache(detectorOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(detectorOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(detectorOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(detectorOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new ObjectDetector(runner, detectorOptions.runningMode());
@@ -272,6 +277,43 @@ public final class ObjectDetector extends BaseVisionTaskApi {
     return (ObjectDetectorResult) processImageData(image, imageProcessingOptions);
   }
 
+  /**
+   * Performs object detection on a batch of unrelated images without any rotation applied. The
+   * images are pipelined through the task graph, and the call blocks until all returned futures are
+   * complete. Only use this method when the {@link ObjectDetector} is created with {@link
+   * RunningMode.IMAGE}.
+   *
+   * @param images a list of MediaPipe {@link MPImage} objects for processing.
+   * @throws MediaPipeException if there is an internal error.
+   */
+  public List<CompletableFuture<ObjectDetectorResult>> detectBatch(List<MPImage> images) {
+    return detectBatch(images, ImageProcessingOptions.builder().build());
+  }
+
+  /**
+   * Performs object detection on a batch of unrelated images. The images are pipelined through the
+   * task graph, and the call blocks until all returned futures are complete. Only use this method
+   * when the {@link ObjectDetector} is created with {@link RunningMode.IMAGE}.
+   *
+   * @param images a list of MediaPipe {@link MPImage} objects for processing.
+   * @param imageProcessingOptions the {@link ImageProcessingOptions} specifying how to process the
+   *     input images before running inference. Note that region-of-interest is <b>not</b> supported
+   *     by this task: specifying {@link ImageProcessingOptions#regionOfInterest()} will result in
+   *     this method throwing an IllegalArgumentException.
+   * @throws IllegalArgumentException if the {@link ImageProcessingOptions} specify a
+   *     region-of-interest.
+   * @throws MediaPipeException if there is an internal error.
+   */
+  public List<CompletableFuture<ObjectDetectorResult>> detectBatch(
+      List<MPImage> images, ImageProcessingOptions imageProcessingOptions) {
+    validateImageProcessingOptions(imageProcessingOptions);
+    List<CompletableFuture<ObjectDetectorResult>> results = new ArrayList<>(images.size());
+    for (CompletableFuture<TaskResult> result : processImageBatch(images, imageProcessingOptions)) {
+      results.add(result.thenApply(ObjectDetectorResult.class::cast));
+    }
+    return results;
+  }
+
   /**
    * Performs object detection on the provided video frame with default image processing options,
    * i.e. without any rotation applied. Only use this method when the {@link ObjectDetector} is
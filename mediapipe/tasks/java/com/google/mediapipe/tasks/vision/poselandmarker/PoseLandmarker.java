@@ -17,8 +17,6 @@ package com.google.mediapipe.tasks.vision.poselandmarker;
 import android.content.Context;
 import android.os.ParcelFileDescriptor;
 import com.google.auto.value.AutoValue;
-import com.google.mediapipe.formats.proto.LandmarkProto.LandmarkList;
-import com.google.mediapipe.formats.proto.LandmarkProto.NormalizedLandmarkList;
 import com.google.mediapipe.proto.CalculatorOptionsProto.CalculatorOptions;
 import com.google.mediapipe.framework.AndroidPacketGetter;
 import com.google.mediapipe.framework.MediaPipeException;
@@ -28,6 +26,7 @@ import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.ByteBufferImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
 import com.google.mediapipe.tasks.components.containers.Connection;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.ErrorListener;
 import com.google.mediapipe.tasks.core.OutputHandler;
@@ -177,11 +176,11 @@ public final class PoseLandmarker extends BaseVisionTaskApi {
               segmentedMasks = getSegmentationMasks(packets);
             }
 
-            return PoseLandmarkerResult.create(
-                PacketGetter.getProtoVector(
-                    packets.get(LANDMARKS_OUT_STREAM_INDEX), NormalizedLandmarkList.parser()),
-                PacketGetter.getProtoVector(
-                    packets.get(WORLD_LANDMARKS_OUT_STREAM_INDEX), LandmarkList.parser()),
+            return PoseLandmarkerResult.createFromLandmarkArrays(
+                PacketGetter.decodeProtoVector(
+                    packets.get(LANDMARKS_OUT_STREAM_INDEX), LandmarkArray::parseFrom),
+                PacketGetter.decodeProtoVector(
+                    packets.get(WORLD_LANDMARKS_OUT_STREAM_INDEX), LandmarkArray::parseFrom),
                 segmentedMasks,
                 BaseVisionTaskApi.generateResultTimestampMs(
                     landmarkerOptions.runningMode(), packets.get(LANDMARKS_OUT_STREAM_INDEX)));
@@ -206,7 +205,10 @@ public final class PoseLandmarker extends BaseVisionTaskApi {
                 .setInputStreams(INPUT_STREAMS)
                 .setOutputStreams(outputStreams)
                 .setTaskOptions(landmarkerOptions)
+                .setModelResourcesCache(landmarkerOptions.baseOptions().modelResourcesCache())
                 .setEnableFlowLimiting(landmarkerOptions.runningMode() == RunningMode.LIVE_STREAM)
+                .setFlowControlPolicy(landmarkerOptions.baseOptions().flowControlPolicy())
+                .setEnableProfiling(landmarkerOptions.baseOptions().enableProfiling())
                 .build(),
             handler);
     return new PoseLandmarker(runner, landmarkerOptions.runningMode());
@@ -18,6 +18,7 @@ import com.google.auto.value.AutoValue;
 import com.google.mediapipe.formats.proto.LandmarkProto;
 import com.google.mediapipe.framework.image.MPImage;
 import com.google.mediapipe.tasks.components.containers.Landmark;
+import com.google.mediapipe.tasks.components.containers.LandmarkArray;
 import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
 import com.google.mediapipe.tasks.core.TaskResult;
 import java.util.ArrayList;
@@ -42,31 +43,57 @@ public abstract class PoseLandmarkerResult implements TaskResult {
       List<LandmarkProto.LandmarkList> worldLandmarksProto,
       Optional<List<MPImage>> segmentationMasksData,
       long timestampMs) {
+    List<LandmarkArray> multiPoseLandmarkArrays = new ArrayList<>(landmarksProto.size());
+    for (LandmarkProto.NormalizedLandmarkList poseLandmarksProto : landmarksProto) {
+      multiPoseLandmarkArrays.add(LandmarkArray.createFromProto(poseLandmarksProto));
+    }
+    List<LandmarkArray> multiPoseWorldLandmarkArrays =
+        new ArrayList<>(worldLandmarksProto.size());
+    for (LandmarkProto.LandmarkList poseWorldLandmarksProto : worldLandmarksProto) {
+      multiPoseWorldLandmarkArrays.add(LandmarkArray.createFromProto(poseWorldLandmarksProto));
+    }
+    return createFromLandmarkArrays(
+        multiPoseLandmarkArrays, multiPoseWorldLandmarkArrays, segmentationMasksData, timestampMs);
+  }
 
+  /**
+   * Creates a {@link PoseLandmarkerResult} instance from the landmarks of the poses, already
+   * decoded into {@link LandmarkArray}s, and the segmentation masks.
+   *
+   * @param multiPoseLandmarkArrays a List of {@link LandmarkArray} of normalized landmarks
+   * @param multiPoseWorldLandmarkArrays a List of {@link LandmarkArray} of world landmarks
+   * @param segmentationMasksData a List of {@link MPImage}
+   */
+  static PoseLandmarkerResult createFromLandmarkArrays(
+      List<LandmarkArray> multiPoseLandmarkArrays,
+      List<LandmarkArray> multiPoseWorldLandmarkArrays,
+      Optional<List<MPImage>> segmentationMasksData,
+      long timestampMs) {
     Optional<List<MPImage>> multiPoseSegmentationMasks = Optional.empty();
     if (segmentationMasksData.isPresent()) {
       multiPoseSegmentationMasks =
           Optional.of(Collections.unmodifiableList(segmentationMasksData.get()));
     }
 
-    List<List<NormalizedLandmark>> multiPoseLandmarks = new ArrayList<>();
-    for (LandmarkProto.NormalizedLandmarkList handLandmarksProto : landmarksProto) {
-      List<NormalizedLandmark> poseLandmarks =
-          NormalizedLandmark.createListFromProto(handLandmarksProto);
-      multiPoseLandmarks.add(Collections.unmodifiableList(poseLandmarks));
+    List<List<NormalizedLandmark>> multiPoseLandmarks =
+        new ArrayList<>(multiPoseLandmarkArrays.size());
+    for (LandmarkArray poseLandmarks : multiPoseLandmarkArrays) {
+      multiPoseLandmarks.add(poseLandmarks.asNormalizedLandmarks());
     }
 
-    List<List<Landmark>> multiPoseWorldLandmarks = new ArrayList<>();
-    for (LandmarkProto.LandmarkList poseWorldLandmarksProto : worldLandmarksProto) {
-      List<Landmark> poseWorldLandmarks = Landmark.createListFromProto(poseWorldLandmarksProto);
-      multiPoseWorldLandmarks.add(Collections.unmodifiableList(poseWorldLandmarks));
+    List<List<Landmark>> multiPoseWorldLandmarks =
+        new ArrayList<>(multiPoseWorldLandmarkArrays.size());
+    for (LandmarkArray poseWorldLandmarks : multiPoseWorldLandmarkArrays) {
+      multiPoseWorldLandmarks.add(poseWorldLandmarks.asLandmarks());
     }
 
     return new AutoValue_PoseLandmarkerResult(
         timestampMs,
         Collections.unmodifiableList(multiPoseLandmarks),
         Collections.unmodifiableList(multiPoseWorldLandmarks),
-        multiPoseSegmentationMasks);
+        multiPoseSegmentationMasks,
+        Collections.unmodifiableList(multiPoseLandmarkArrays),
+        Collections.unmodifiableList(multiPoseWorldLandmarkArrays));
   }
 
   @Override
@@ -80,4 +107,16 @@ public abstract class PoseLandmarkerResult implements TaskResult {
 
   /** Pose segmentation masks. */
   public abstract Optional<List<MPImage>> segmentationMasks();
+
+  /**
+   * Pose landmarks of detected poses, as flat arrays of coordinates. {@link #landmarks()} views the
+   * same data as {@link NormalizedLandmark} objects created when accessed.
+   */
+  public abstract List<LandmarkArray> landmarkArrays();
+
+  /**
+   * Pose landmarks in world coordinates of detected poses, as flat arrays of coordinates. {@link
+   * #worldLandmarks()} views the same data as {@link Landmark} objects created when accessed.
+   */
+  public abstract List<LandmarkArray> worldLandmarkArrays();
 }
@@ -0,0 +1,93 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.framework.image;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link ByteBufferExtractor} extractions from {@link ByteBuffer} backed images:
+ * the plain read-only view, and the RGB to RGBA and RGBA to RGB format conversions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ByteBufferExtractorBenchmark {
+
+  // A typical model input size, and a VGA camera frame.
+  @Param({"256x256", "640x480"})
+  public String resolution;
+
+  private MPImage rgbImage;
+  private MPImage rgbaImage;
+
+  @Setup
+  public void setUp() {
+    int separator = resolution.indexOf('x');
+    int width = Integer.parseInt(resolution.substring(0, separator));
+    int height = Integer.parseInt(resolution.substring(separator + 1));
+    Random random = new Random(/* seed= */ 42);
+    rgbImage = createImage(random, width, height, MPImage.IMAGE_FORMAT_RGB, /* numChannels= */ 3);
+    rgbaImage =
+        createImage(random, width, height, MPImage.IMAGE_FORMAT_RGBA, /* numChannels= */ 4);
+  }
+
+  @TearDown
+  public void tearDown() {
+    rgbImage.close();
+    rgbaImage.close();
+  }
+
+  @Benchmark
+  public ByteBuffer extract_sameFormat() {
+    return ByteBufferExtractor.extract(rgbImage, MPImage.IMAGE_FORMAT_RGB);
+  }
+
+  @Benchmark
+  public ByteBuffer extract_rgbToRgba() {
+    return ByteBufferExtractor.extract(rgbImage, MPImage.IMAGE_FORMAT_RGBA);
+  }
+
+  @Benchmark
+  public ByteBuffer extract_rgbaToRgb() {
+    return ByteBufferExtractor.extract(rgbaImage, MPImage.IMAGE_FORMAT_RGB);
+  }
+
+  private static MPImage createImage(
+      Random random, int width, int height, int imageFormat, int numChannels) {
+    byte[] pixels = new byte[width * height * numChannels];
+    random.nextBytes(pixels);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(pixels.length);
+    buffer.put(pixels);
+    buffer.rewind();
+    return new ByteBufferImageBuilder(buffer, width, height, imageFormat).build();
+  }
+}
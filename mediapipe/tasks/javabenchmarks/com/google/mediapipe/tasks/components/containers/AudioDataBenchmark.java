@@ -0,0 +1,96 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.containers;
+
+import com.google.mediapipe.tasks.components.containers.AudioData.AudioDataFormat;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link AudioData} ring buffer as used by the audio tasks in stream mode: loading
+ * the chunks read from an {@code AudioRecord}, and reading the whole buffer back for inference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioDataBenchmark {
+  // The input size of e.g. the YAMNet audio classifier: 0.975 s at 16 kHz.
+  private static final int SAMPLE_COUNTS = 15600;
+  private static final float SAMPLE_RATE = 16000f;
+
+  // The number of samples per loaded chunk, e.g. 100 ms at 16 kHz.
+  @Param({"1600"})
+  public int chunkSize;
+
+  @Param({"1", "2"})
+  public int numOfChannels;
+
+  private AudioData audioData;
+  private float[] floatChunk;
+  private short[] shortChunk;
+
+  @Setup
+  public void setUp() {
+    audioData =
+        AudioData.create(
+            AudioDataFormat.builder()
+                .setNumOfChannels(numOfChannels)
+                .setSampleRate(SAMPLE_RATE)
+                .build(),
+            SAMPLE_COUNTS);
+    Random random = new Random(/* seed= */ 42);
+    floatChunk = new float[chunkSize * numOfChannels];
+    shortChunk = new short[chunkSize * numOfChannels];
+    for (int i = 0; i < floatChunk.length; i++) {
+      floatChunk[i] = random.nextFloat() * 2 - 1;
+      shortChunk[i] = (short) random.nextInt();
+    }
+    // Start from a full buffer, as in steady state.
+    for (int i = 0; i * chunkSize < SAMPLE_COUNTS; i++) {
+      audioData.load(floatChunk);
+    }
+  }
+
+  @Benchmark
+  public AudioData load_float() {
+    audioData.load(floatChunk);
+    return audioData;
+  }
+
+  @Benchmark
+  public AudioData load_short() {
+    audioData.load(shortChunk);
+    return audioData;
+  }
+
+  @Benchmark
+  public float[] getBuffer() {
+    return audioData.getBuffer();
+  }
+}
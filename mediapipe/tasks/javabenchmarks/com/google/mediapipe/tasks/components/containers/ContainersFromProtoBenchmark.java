@@ -0,0 +1,169 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.containers;
+
+import com.google.mediapipe.formats.proto.ClassificationProto.Classification;
+import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
+import com.google.mediapipe.formats.proto.DetectionProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+import com.google.mediapipe.formats.proto.LocationDataProto.LocationData;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the creation of the task result containers from the protobuf messages of the graph
+ * outputs, both from parsed messages and from their serialized bytes as copied out of the packets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContainersFromProtoBenchmark {
+  // The number of landmarks of a face mesh.
+  private static final int NUM_FACE_LANDMARKS = 478;
+  // The number of classes of e.g. the YAMNet audio classifier.
+  private static final int NUM_CLASSES = 521;
+  private static final int NUM_KEYPOINTS = 6;
+
+  private LandmarkProto.NormalizedLandmarkList landmarkList;
+  private byte[] serializedLandmarkList;
+  private DetectionProto.Detection detection;
+  private byte[] serializedDetection;
+  private ClassificationList classificationList;
+  private byte[] serializedClassificationList;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(/* seed= */ 42);
+
+    LandmarkProto.NormalizedLandmarkList.Builder landmarkListBuilder =
+        LandmarkProto.NormalizedLandmarkList.newBuilder();
+    for (int i = 0; i < NUM_FACE_LANDMARKS; i++) {
+      landmarkListBuilder.addLandmark(
+          LandmarkProto.NormalizedLandmark.newBuilder()
+              .setX(random.nextFloat())
+              .setY(random.nextFloat())
+              .setZ(random.nextFloat())
+              .setVisibility(random.nextFloat())
+              .setPresence(random.nextFloat()));
+    }
+    landmarkList = landmarkListBuilder.build();
+    serializedLandmarkList = landmarkList.toByteArray();
+
+    LocationData.Builder locationData =
+        LocationData.newBuilder()
+            .setFormat(LocationData.Format.BOUNDING_BOX)
+            .setBoundingBox(
+                LocationData.BoundingBox.newBuilder()
+                    .setXmin(10)
+                    .setYmin(20)
+                    .setWidth(100)
+                    .setHeight(200));
+    for (int i = 0; i < NUM_KEYPOINTS; i++) {
+      locationData.addRelativeKeypoints(
+          LocationData.RelativeKeypoint.newBuilder()
+              .setX(random.nextFloat())
+              .setY(random.nextFloat()));
+    }
+    detection =
+        DetectionProto.Detection.newBuilder()
+            .addScore(0.9f)
+            .addLabelId(1)
+            .addLabel("face")
+            .setLocationData(locationData)
+            .build();
+    serializedDetection = detection.toByteArray();
+
+    ClassificationList.Builder classificationListBuilder = ClassificationList.newBuilder();
+    for (int i = 0; i < NUM_CLASSES; i++) {
+      classificationListBuilder.addClassification(
+          Classification.newBuilder()
+              .setIndex(i)
+              .setScore(random.nextFloat())
+              .setLabel("label_" + i)
+              .setDisplayName("Label " + i));
+    }
+    classificationList = classificationListBuilder.build();
+    serializedClassificationList = classificationList.toByteArray();
+  }
+
+  @Benchmark
+  public List<NormalizedLandmark> normalizedLandmark_createListFromProto() {
+    return NormalizedLandmark.createListFromProto(landmarkList);
+  }
+
+  @Benchmark
+  public List<NormalizedLandmark> normalizedLandmark_createListFromBytes()
+      throws InvalidProtocolBufferException {
+    return NormalizedLandmark.createListFromProto(
+        LandmarkProto.NormalizedLandmarkList.parseFrom(serializedLandmarkList));
+  }
+
+  @Benchmark
+  public LandmarkArray landmarkArray_createFromProto() {
+    return LandmarkArray.createFromProto(landmarkList);
+  }
+
+  @Benchmark
+  public LandmarkArray landmarkArray_parseFrom() throws InvalidProtocolBufferException {
+    return LandmarkArray.parseFrom(serializedLandmarkList);
+  }
+
+  @Benchmark
+  public Detection detection_createFromProto() {
+    return Detection.createFromProto(detection);
+  }
+
+  @Benchmark
+  public Detection detection_createFromBytes() throws InvalidProtocolBufferException {
+    return Detection.createFromProto(DetectionProto.Detection.parseFrom(serializedDetection));
+  }
+
+  @Benchmark
+  public Detection detection_parseFrom() throws IOException {
+    return Detection.parseFrom(CodedInputStream.newInstance(serializedDetection));
+  }
+
+  @Benchmark
+  public List<Category> category_createListFromProto() {
+    return Category.createListFromProto(classificationList);
+  }
+
+  @Benchmark
+  public List<Category> category_createListFromBytes() throws InvalidProtocolBufferException {
+    return Category.createListFromProto(ClassificationList.parseFrom(serializedClassificationList));
+  }
+
+  @Benchmark
+  public List<Category> category_parseListFrom() throws IOException {
+    return Category.parseListFrom(CodedInputStream.newInstance(serializedClassificationList));
+  }
+}
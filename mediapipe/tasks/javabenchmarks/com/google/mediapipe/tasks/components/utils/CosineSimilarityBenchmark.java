@@ -0,0 +1,159 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import com.google.mediapipe.tasks.components.containers.Embedding;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link CosineSimilarity}: single comparisons of raw and normalized embeddings, and
+ * the batched scoring and top-k search over an embedding matrix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CosineSimilarityBenchmark {
+  private static final int MATRIX_ROWS = 1000;
+  private static final int TOP_K = 10;
+
+  // Typical embedder output sizes, e.g. text and image embedders.
+  @Param({"100", "1024"})
+  public int size;
+
+  private Embedding floatU;
+  private Embedding floatV;
+  private Embedding quantizedU;
+  private Embedding quantizedV;
+  private NormalizedEmbedding normalizedFloatU;
+  private NormalizedEmbedding normalizedFloatV;
+  private NormalizedEmbedding normalizedQuantizedU;
+  private NormalizedEmbedding normalizedQuantizedV;
+  private float[] floatMatrix;
+  private byte[] quantizedMatrix;
+  private float[] quantizedRowNorms;
+  private float[] scores;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(/* seed= */ 42);
+    floatU = createFloatEmbedding(random, size);
+    floatV = createFloatEmbedding(random, size);
+    quantizedU = createQuantizedEmbedding(random, size);
+    quantizedV = createQuantizedEmbedding(random, size);
+    normalizedFloatU = NormalizedEmbedding.create(floatU);
+    normalizedFloatV = NormalizedEmbedding.create(floatV);
+    normalizedQuantizedU = NormalizedEmbedding.create(quantizedU);
+    normalizedQuantizedV = NormalizedEmbedding.create(quantizedV);
+
+    floatMatrix = new float[MATRIX_ROWS * size];
+    quantizedMatrix = new byte[MATRIX_ROWS * size];
+    for (int row = 0; row < MATRIX_ROWS; row++) {
+      System.arraycopy(
+          NormalizedEmbedding.create(createFloatEmbedding(random, size)).floatValues(),
+          0,
+          floatMatrix,
+          row * size,
+          size);
+      System.arraycopy(
+          createQuantizedEmbedding(random, size).quantizedEmbedding(),
+          0,
+          quantizedMatrix,
+          row * size,
+          size);
+    }
+    quantizedRowNorms = CosineSimilarity.computeRowNorms(quantizedMatrix, size);
+    scores = new float[MATRIX_ROWS];
+  }
+
+  @Benchmark
+  public double compute_float() {
+    return CosineSimilarity.compute(floatU, floatV);
+  }
+
+  @Benchmark
+  public double compute_quantized() {
+    return CosineSimilarity.compute(quantizedU, quantizedV);
+  }
+
+  @Benchmark
+  public double compute_normalizedFloat() {
+    return CosineSimilarity.compute(normalizedFloatU, normalizedFloatV);
+  }
+
+  @Benchmark
+  public double compute_normalizedQuantized() {
+    return CosineSimilarity.compute(normalizedQuantizedU, normalizedQuantizedV);
+  }
+
+  @Benchmark
+  public NormalizedEmbedding normalize_float() {
+    return NormalizedEmbedding.create(floatU);
+  }
+
+  @Benchmark
+  public float[] computeBatch_float() {
+    CosineSimilarity.computeBatch(normalizedFloatU, floatMatrix, scores);
+    return scores;
+  }
+
+  @Benchmark
+  public float[] computeBatch_quantized() {
+    CosineSimilarity.computeBatch(normalizedQuantizedU, quantizedMatrix, quantizedRowNorms, scores);
+    return scores;
+  }
+
+  @Benchmark
+  public List<SimilarityMatch> topK_float() {
+    return CosineSimilarity.topK(normalizedFloatU, floatMatrix, TOP_K);
+  }
+
+  @Benchmark
+  public List<SimilarityMatch> topK_quantized() {
+    return CosineSimilarity.topK(normalizedQuantizedU, quantizedMatrix, quantizedRowNorms, TOP_K);
+  }
+
+  private static Embedding createFloatEmbedding(Random random, int size) {
+    float[] values = new float[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = random.nextFloat() * 2 - 1;
+    }
+    return Embedding.create(values, new byte[0], /* headIndex= */ 0, Optional.empty());
+  }
+
+  private static Embedding createQuantizedEmbedding(Random random, int size) {
+    byte[] values = new byte[size];
+    random.nextBytes(values);
+    // Avoid an all-zero embedding, whose cosine similarity is undefined.
+    values[0] = 1;
+    return Embedding.create(new float[0], values, /* headIndex= */ 0, Optional.empty());
+  }
+}
@@ -0,0 +1,81 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import com.google.mediapipe.proto.CalculatorOptionsProto.CalculatorOptions;
+import com.google.mediapipe.proto.CalculatorProto.CalculatorGraphConfig;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link TaskInfo#generateGraphConfig}, which builds the graph config of every task
+ * created, with and without the flow limiter of the live stream mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskInfoBenchmark {
+
+  @Param({"false", "true"})
+  public boolean enableFlowLimiting;
+
+  private TaskInfo<BenchmarkTaskOptions> taskInfo;
+
+  @Setup
+  public void setUp() {
+    // The streams of a landmarker task, e.g. the hand landmarker.
+    taskInfo =
+        TaskInfo.<BenchmarkTaskOptions>builder()
+            .setTaskName("BenchmarkTask")
+            .setTaskRunningModeName("LIVE_STREAM")
+            .setTaskGraphName("mediapipe.tasks.vision.hand_landmarker.HandLandmarkerGraph")
+            .setInputStreams(Arrays.asList("IMAGE:image_in", "NORM_RECT:norm_rect_in"))
+            .setOutputStreams(
+                Arrays.asList(
+                    "LANDMARKS:hand_landmarks",
+                    "WORLD_LANDMARKS:world_hand_landmarks",
+                    "HANDEDNESS:handedness",
+                    "IMAGE:image_out"))
+            .setTaskOptions(new BenchmarkTaskOptions())
+            .setEnableFlowLimiting(enableFlowLimiting)
+            .build();
+  }
+
+  @Benchmark
+  public CalculatorGraphConfig generateGraphConfig() {
+    return taskInfo.generateGraphConfig();
+  }
+
+  private static final class BenchmarkTaskOptions extends TaskOptions {
+    @Override
+    public CalculatorOptions convertToCalculatorOptionsProto() {
+      return CalculatorOptions.getDefaultInstance();
+    }
+  }
+}
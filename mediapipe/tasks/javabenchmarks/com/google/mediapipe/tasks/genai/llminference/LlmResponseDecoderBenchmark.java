@@ -0,0 +1,70 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.genai.llminference;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the decoding of the LLM engine responses by {@link LlmInference}: a partial result of
+ * a few tokens as streamed to the progress listener, and a full synchronous response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LlmResponseDecoderBenchmark {
+  private static final String TOKENS = "▁The▁quick▁brown▁fox<0x0A>▁jumps▁over▁the▁lazy▁dog.";
+
+  // The number of times the token sequence above is repeated in the response.
+  @Param({"1", "100"})
+  public int repeats;
+
+  private List<String> responses;
+
+  @Setup
+  public void setUp() {
+    StringBuilder response = new StringBuilder();
+    for (int i = 0; i < repeats; i++) {
+      response.append(TOKENS);
+    }
+    response.append("[eod]");
+    responses = Collections.singletonList(response.toString());
+  }
+
+  @Benchmark
+  public String decode_firstResponse() {
+    return LlmResponseDecoder.decode(responses, /* stripLeadingWhitespace= */ true);
+  }
+
+  @Benchmark
+  public String decode_partialResponse() {
+    return LlmResponseDecoder.decode(responses, /* stripLeadingWhitespace= */ false);
+  }
+}
@@ -0,0 +1,161 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.audio.core;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.tasks.components.containers.AudioData;
+import com.google.mediapipe.tasks.components.containers.AudioData.AudioDataFormat;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public final class AudioClipReaderTest {
+  private static final int SAMPLE_RATE = 1000;
+
+  @Test
+  public void createFromWav_readsWindowsOfStream() throws Exception {
+    // 5 stereo frames of 16-bit PCM, preceded by a chunk to be skipped.
+    short[] samples = new short[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+    ByteBuffer wav = createWav(/* formatTag= */ 1, /* numChannels= */ 2, /* bitsPerSample= */ 16);
+    wav.putInt(fourCc("data")).putInt(samples.length * 2);
+    for (short sample : samples) {
+      wav.putShort(sample);
+    }
+
+    try (AudioClipReader reader =
+        AudioClipReader.createFromWav(
+            new ByteArrayInputStream(wav.array(), 0, wav.position()), /* windowLengthMs= */ 2)) {
+      assertThat(reader.getFormat().getNumOfChannels()).isEqualTo(2);
+      assertThat(reader.getFormat().getSampleRate()).isEqualTo(SAMPLE_RATE);
+
+      assertWindow(reader.readWindow(), 0, 1, 2, 3);
+      assertThat(reader.getWindowStartMs()).isEqualTo(0);
+      assertWindow(reader.readWindow(), 4, 5, 6, 7);
+      assertThat(reader.getWindowStartMs()).isEqualTo(2);
+      assertWindow(reader.readWindow(), 8, 9);
+      assertThat(reader.getWindowStartMs()).isEqualTo(4);
+      assertThat(reader.readWindow()).isNull();
+    }
+  }
+
+  @Test
+  public void createFromPcm_readsWindowsOfMappedFile() throws Exception {
+    float[] samples = new float[] {0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f, 0.7f};
+    ByteBuffer pcm = ByteBuffer.allocate(samples.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+    pcm.asFloatBuffer().put(samples);
+    File file = File.createTempFile("clip", ".pcm");
+    file.deleteOnExit();
+    try (FileOutputStream stream = new FileOutputStream(file)) {
+      stream.write(pcm.array());
+    }
+
+    try (AudioClipReader reader =
+        AudioClipReader.createFromPcm(
+            file,
+            AudioDataFormat.builder().setNumOfChannels(1).setSampleRate(SAMPLE_RATE).build(),
+            AudioClipReader.Encoding.PCM_FLOAT,
+            /* windowLengthMs= */ 3)) {
+      assertThat(reader.readWindow().getBuffer())
+          .usingExactEquality()
+          .containsExactly(0.1f, 0.2f, 0.3f)
+          .inOrder();
+      assertThat(reader.readWindow().getBuffer())
+          .usingExactEquality()
+          .containsExactly(0.4f, 0.5f, 0.6f)
+          .inOrder();
+      assertThat(reader.readWindow().getBuffer()).usingExactEquality().containsExactly(0.7f);
+      assertThat(reader.getWindowStartMs()).isEqualTo(6);
+      assertThat(reader.readWindow()).isNull();
+    }
+  }
+
+  @Test
+  public void createFromPcm_readsSamplesAcrossMappedRegions() throws Exception {
+    float[] samples = new float[] {0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f, 0.7f};
+    ByteBuffer pcm = ByteBuffer.allocate(samples.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+    pcm.asFloatBuffer().put(samples);
+    File file = File.createTempFile("clip", ".pcm");
+    file.deleteOnExit();
+    try (FileOutputStream stream = new FileOutputStream(file)) {
+      stream.write(pcm.array());
+    }
+
+    try (AudioClipReader reader =
+        AudioClipReader.createFromPcm(
+            file,
+            AudioDataFormat.builder().setNumOfChannels(1).setSampleRate(SAMPLE_RATE).build(),
+            AudioClipReader.Encoding.PCM_FLOAT,
+            /* windowLengthMs= */ 3)) {
+      // The regions end in the middle of the samples.
+      reader.setMappedRegionSize(6);
+
+      assertThat(reader.readWindow().getBuffer())
+          .usingExactEquality()
+          .containsExactly(0.1f, 0.2f, 0.3f)
+          .inOrder();
+      assertThat(reader.readWindow().getBuffer())
+          .usingExactEquality()
+          .containsExactly(0.4f, 0.5f, 0.6f)
+          .inOrder();
+      assertThat(reader.readWindow().getBuffer()).usingExactEquality().containsExactly(0.7f);
+      assertThat(reader.readWindow()).isNull();
+    }
+  }
+
+  @Test
+  public void createFromWav_failsWithUnsupportedEncoding() {
+    ByteBuffer wav = createWav(/* formatTag= */ 1, /* numChannels= */ 1, /* bitsPerSample= */ 24);
+    wav.putInt(fourCc("data")).putInt(0);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            AudioClipReader.createFromWav(
+                new ByteArrayInputStream(wav.array(), 0, wav.position()),
+                /* windowLengthMs= */ 10));
+  }
+
+  /** Writes the header of a WAV file up to the data chunk, with an extra LIST chunk. */
+  private static ByteBuffer createWav(int formatTag, int numChannels, int bitsPerSample) {
+    ByteBuffer wav = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    wav.putInt(fourCc("RIFF")).putInt(0).putInt(fourCc("WAVE"));
+    wav.putInt(fourCc("fmt ")).putInt(16);
+    wav.putShort((short) formatTag).putShort((short) numChannels).putInt(SAMPLE_RATE);
+    wav.putInt(SAMPLE_RATE * numChannels * bitsPerSample / 8);
+    wav.putShort((short) (numChannels * bitsPerSample / 8)).putShort((short) bitsPerSample);
+    wav.putInt(fourCc("LIST")).putInt(3).put(new byte[] {'a', 'b', 'c', 0});
+    return wav;
+  }
+
+  private static int fourCc(String code) {
+    return code.charAt(0) | code.charAt(1) << 8 | code.charAt(2) << 16 | code.charAt(3) << 24;
+  }
+
+  private static void assertWindow(AudioData window, int... expectedSamples) {
+    float[] expected = new float[expectedSamples.length];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (float) expectedSamples[i] / Short.MAX_VALUE;
+    }
+    assertThat(window.getBuffer()).usingExactEquality().containsExactly(expected).inOrder();
+  }
+}
@@ -0,0 +1,132 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.audio.core;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.tasks.components.containers.AudioData;
+import com.google.mediapipe.tasks.components.containers.AudioData.AudioDataFormat;
+import java.nio.FloatBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public final class AudioFormatConverterTest {
+  private static final AudioDataFormat MONO_16KHZ = createFormat(1, 16000);
+
+  @Test
+  public void convert_averagesChannelsIntoMono() {
+    AudioFormatConverter converter = new AudioFormatConverter(MONO_16KHZ);
+    AudioData block = AudioData.create(createFormat(2, 16000), /* sampleCounts= */ 3);
+    block.load(new float[] {0.1f, 0.3f, -0.5f, 0.5f, 1f, 0f});
+
+    FloatBuffer output = converter.convert(block);
+
+    assertThat(output.isDirect()).isTrue();
+    assertThat(toArray(output)).usingTolerance(1e-6).containsExactly(0.2f, 0f, 0.5f).inOrder();
+  }
+
+  @Test
+  public void convert_copiesMonoToAllChannels() {
+    AudioFormatConverter converter = new AudioFormatConverter(createFormat(2, 16000));
+    AudioData block = AudioData.create(MONO_16KHZ, /* sampleCounts= */ 2);
+    block.load(new float[] {0.1f, 0.2f});
+
+    assertThat(toArray(converter.convert(block)))
+        .usingExactEquality()
+        .containsExactly(0.1f, 0.1f, 0.2f, 0.2f)
+        .inOrder();
+  }
+
+  @Test
+  public void convert_resamplesStreamAcrossBlocks() {
+    int inputSampleRate = 44100;
+    int frequency = 440;
+    AudioFormatConverter converter = new AudioFormatConverter(MONO_16KHZ);
+    // One second of a sine wave in 10 ms blocks.
+    AudioData block = AudioData.create(createFormat(1, inputSampleRate), inputSampleRate / 100);
+    float[] samples = new float[inputSampleRate / 100];
+    float[] output = new float[16000];
+    int outputLength = 0;
+    for (int i = 0; i < 100; i++) {
+      for (int j = 0; j < samples.length; j++) {
+        int n = i * samples.length + j;
+        samples[j] = (float) Math.sin(2 * Math.PI * frequency * n / inputSampleRate);
+      }
+      block.load(samples);
+      FloatBuffer converted = converter.convert(block);
+      int length = converted.remaining();
+      converted.get(output, outputLength, length);
+      outputLength += length;
+    }
+
+    assertThat(outputLength).isEqualTo(16000);
+    // Skips the filter delay, then compares to the sine wave at 16 kHz up to its phase.
+    float maxAmplitude = 0;
+    int zeroCrossings = 0;
+    for (int i = 1000; i < 15000; i++) {
+      maxAmplitude = Math.max(maxAmplitude, Math.abs(output[i]));
+      if (output[i - 1] < 0 && output[i] >= 0) {
+        zeroCrossings++;
+      }
+    }
+    assertThat(maxAmplitude).isWithin(0.01f).of(1f);
+    // 14000 samples at 16 kHz are 0.875 s of the 440 Hz sine wave.
+    assertThat(zeroCrossings).isAnyOf(384, 385);
+  }
+
+  @Test
+  public void reset_discardsFilterHistory() {
+    AudioFormatConverter converter = new AudioFormatConverter(MONO_16KHZ);
+    AudioData block = AudioData.create(createFormat(1, 44100), /* sampleCounts= */ 441);
+    float[] samples = new float[441];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = (float) Math.sin(2 * Math.PI * 440 * i / 44100);
+    }
+    block.load(samples);
+    float[] first = toArray(converter.convert(block));
+    converter.convert(block);
+
+    converter.reset();
+
+    assertThat(toArray(converter.convert(block)))
+        .usingExactEquality()
+        .containsExactly(first)
+        .inOrder();
+  }
+
+  @Test
+  public void convert_failsWithUnsupportedChannelMixing() {
+    AudioFormatConverter converter = new AudioFormatConverter(createFormat(2, 16000));
+    AudioData block = AudioData.create(createFormat(3, 16000), /* sampleCounts= */ 1);
+
+    assertThrows(IllegalArgumentException.class, () -> converter.convert(block));
+  }
+
+  private static AudioDataFormat createFormat(int numOfChannels, float sampleRate) {
+    return AudioDataFormat.builder()
+        .setNumOfChannels(numOfChannels)
+        .setSampleRate(sampleRate)
+        .build();
+  }
+
+  private static float[] toArray(FloatBuffer buffer) {
+    float[] array = new float[buffer.remaining()];
+    buffer.get(array);
+    return array;
+  }
+}
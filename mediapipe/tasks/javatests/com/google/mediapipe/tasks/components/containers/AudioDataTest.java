@@ -0,0 +1,93 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.containers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.tasks.components.containers.AudioData.AudioDataFormat;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public final class AudioDataTest {
+  private static final AudioDataFormat MONO_FORMAT =
+      AudioDataFormat.builder().setNumOfChannels(1).setSampleRate(16000f).build();
+
+  @Test
+  public void getBuffer_returnsSamplesOldestFirstAfterWrapping() {
+    AudioData audioData = AudioData.create(MONO_FORMAT, /* sampleCounts= */ 4);
+    audioData.load(new float[] {0.1f, 0.2f, 0.3f});
+    audioData.load(new float[] {0.4f, 0.5f});
+
+    assertThat(audioData.getBuffer())
+        .usingExactEquality()
+        .containsExactly(0.2f, 0.3f, 0.4f, 0.5f)
+        .inOrder();
+  }
+
+  @Test
+  public void getBufferIntoArray_matchesGetBuffer() {
+    AudioData audioData = AudioData.create(MONO_FORMAT, /* sampleCounts= */ 4);
+    audioData.load(new float[] {0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f});
+    float[] dst = new float[5];
+
+    audioData.getBuffer(dst);
+
+    assertThat(dst).usingExactEquality().containsExactly(0.3f, 0.4f, 0.5f, 0.6f, 0f).inOrder();
+    assertThrows(IllegalArgumentException.class, () -> audioData.getBuffer(new float[3]));
+  }
+
+  @Test
+  public void getBufferView_isContiguousDirectViewOfTheRing() {
+    AudioData audioData = AudioData.create(MONO_FORMAT, /* sampleCounts= */ 4);
+    audioData.load(new float[] {0.1f, 0.2f, 0.3f});
+    audioData.load(new float[] {0.4f, 0.5f});
+
+    FloatBuffer view = audioData.getBufferView();
+    float[] samples = new float[view.remaining()];
+    view.get(samples);
+
+    assertThat(view.isDirect()).isTrue();
+    assertThat(view.isReadOnly()).isTrue();
+    assertThat(view.order()).isEqualTo(ByteOrder.nativeOrder());
+    assertThat(samples).usingExactEquality().containsExactly(0.2f, 0.3f, 0.4f, 0.5f).inOrder();
+  }
+
+  @Test
+  public void loadShorts_convertsToFloatAcrossTheWrap() {
+    AudioData audioData = AudioData.create(MONO_FORMAT, /* sampleCounts= */ 3);
+    audioData.load(new short[] {0, Short.MAX_VALUE});
+    audioData.load(new short[] {-Short.MAX_VALUE, (short) (Short.MAX_VALUE / 2)});
+
+    assertThat(audioData.getBuffer())
+        .usingTolerance(1e-4)
+        .containsExactly(1f, -1f, 0.5f)
+        .inOrder();
+  }
+
+  @Test
+  public void loadShorts_failsWithPartialFrames() {
+    AudioData audioData =
+        AudioData.create(
+            AudioDataFormat.builder().setNumOfChannels(2).setSampleRate(16000f).build(),
+            /* sampleCounts= */ 4);
+
+    assertThrows(IllegalArgumentException.class, () -> audioData.load(new short[3]));
+  }
+}
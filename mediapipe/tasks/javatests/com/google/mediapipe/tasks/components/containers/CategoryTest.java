@@ -19,6 +19,7 @@ import static com.google.common.truth.Truth.assertThat;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.mediapipe.formats.proto.ClassificationProto.Classification;
 import com.google.mediapipe.formats.proto.ClassificationProto.ClassificationList;
+import com.google.protobuf.CodedInputStream;
 import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -49,4 +50,21 @@ public final class CategoryTest {
     List<Category> output = Category.createListFromProto(input);
     assertThat(output).containsExactly(Category.create(0.1f, 0, "", ""));
   }
+
+  @Test
+  public void parseListFrom_matchesCreateListFromProto() throws Exception {
+    ClassificationList input =
+        ClassificationList.newBuilder()
+            .addClassification(
+                Classification.newBuilder()
+                    .setScore(0.1f)
+                    .setIndex(1)
+                    .setLabel("label")
+                    .setDisplayName("displayName"))
+            .addClassification(Classification.newBuilder().setScore(0.2f))
+            .build();
+    List<Category> output =
+        Category.parseListFrom(CodedInputStream.newInstance(input.toByteArray()));
+    assertThat(output).containsExactlyElementsIn(Category.createListFromProto(input)).inOrder();
+  }
 }
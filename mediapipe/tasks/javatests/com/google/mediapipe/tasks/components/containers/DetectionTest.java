@@ -0,0 +1,65 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.containers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.formats.proto.LocationDataProto.LocationData;
+import com.google.mediapipe.formats.proto.LocationDataProto.LocationData.BoundingBox;
+import com.google.mediapipe.formats.proto.LocationDataProto.LocationData.RelativeKeypoint;
+import com.google.protobuf.CodedInputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public final class DetectionTest {
+
+  @Test
+  public void parseFrom_matchesCreateFromProto() throws Exception {
+    com.google.mediapipe.formats.proto.DetectionProto.Detection input =
+        com.google.mediapipe.formats.proto.DetectionProto.Detection.newBuilder()
+            .addScore(0.9f)
+            .addScore(0.4f)
+            .addLabelId(1)
+            .addLabelId(7)
+            .addLabel("cat")
+            .addLabel("dog")
+            .addDisplayName("Cat")
+            .setLocationData(
+                LocationData.newBuilder()
+                    .setFormat(LocationData.Format.BOUNDING_BOX)
+                    .setBoundingBox(
+                        BoundingBox.newBuilder()
+                            .setXmin(10)
+                            .setYmin(20)
+                            .setWidth(30)
+                            .setHeight(40))
+                    .addRelativeKeypoints(
+                        RelativeKeypoint.newBuilder()
+                            .setX(0.25f)
+                            .setY(0.5f)
+                            .setKeypointLabel("nose")
+                            .setScore(0.8f))
+                    .addRelativeKeypoints(RelativeKeypoint.newBuilder().setX(0.75f).setY(0.5f)))
+            .build();
+
+    Detection output = Detection.parseFrom(CodedInputStream.newInstance(input.toByteArray()));
+
+    assertThat(output).isEqualTo(Detection.createFromProto(input));
+    assertThat(output.categories()).hasSize(2);
+    assertThat(output.keypoints().get()).hasSize(2);
+  }
+}
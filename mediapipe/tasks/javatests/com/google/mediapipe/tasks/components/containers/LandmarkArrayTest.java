@@ -0,0 +1,116 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.containers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public final class LandmarkArrayTest {
+
+  @Test
+  public void createFromProto_succeedsWithNormalizedLandmarks() {
+    LandmarkArray output = LandmarkArray.createFromProto(createNormalizedLandmarkList(100));
+    assertThat(output.size()).isEqualTo(100);
+    assertThat(output.getX(99)).isEqualTo(99f);
+    assertThat(output.getY(99)).isEqualTo(0.5f);
+    assertThat(output.getZ(99)).isEqualTo(-99f);
+    assertTrue(output.hasVisibility(98));
+    assertThat(output.getVisibility(98)).isEqualTo(0.98f);
+    assertFalse(output.hasVisibility(99));
+    assertFalse(output.hasPresence(98));
+    assertTrue(output.hasPresence(99));
+    assertThat(output.getPresence(99)).isEqualTo(0.99f);
+  }
+
+  @Test
+  public void parseFrom_matchesCreateFromProto() throws Exception {
+    LandmarkProto.NormalizedLandmarkList input = createNormalizedLandmarkList(100);
+    assertThat(LandmarkArray.parseFrom(input.toByteArray()))
+        .isEqualTo(LandmarkArray.createFromProto(input));
+  }
+
+  @Test
+  public void parseFrom_succeedsWithWorldLandmarks() throws Exception {
+    LandmarkProto.LandmarkList input =
+        LandmarkProto.LandmarkList.newBuilder()
+            .addLandmark(LandmarkProto.Landmark.newBuilder().setX(1f).setY(2f).setZ(3f))
+            .addLandmark(LandmarkProto.Landmark.newBuilder().setX(4f).setVisibility(0.5f))
+            .build();
+    List<Landmark> output = LandmarkArray.parseFrom(input.toByteArray()).asLandmarks();
+    assertThat(output).hasSize(2);
+    assertThat(output.get(0).x()).isEqualTo(1f);
+    assertThat(output.get(0).y()).isEqualTo(2f);
+    assertThat(output.get(0).z()).isEqualTo(3f);
+    assertFalse(output.get(0).visibility().isPresent());
+    assertThat(output.get(1).x()).isEqualTo(4f);
+    assertThat(output.get(1).visibility().get()).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void asNormalizedLandmarks_matchesNormalizedLandmarkList() {
+    LandmarkProto.NormalizedLandmarkList input = createNormalizedLandmarkList(3);
+    List<NormalizedLandmark> expected = NormalizedLandmark.createListFromProto(input);
+    List<NormalizedLandmark> output = LandmarkArray.createFromProto(input).asNormalizedLandmarks();
+    assertThat(output).hasSize(3);
+    for (int i = 0; i < 3; i++) {
+      assertThat(output.get(i).x()).isEqualTo(expected.get(i).x());
+      assertThat(output.get(i).y()).isEqualTo(expected.get(i).y());
+      assertThat(output.get(i).z()).isEqualTo(expected.get(i).z());
+      assertThat(output.get(i).visibility()).isEqualTo(expected.get(i).visibility());
+      assertThat(output.get(i).presence()).isEqualTo(expected.get(i).presence());
+    }
+    assertThrows(UnsupportedOperationException.class, () -> output.remove(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> output.get(3));
+  }
+
+  @Test
+  public void copyCoordinatesTo_writesTriples() {
+    LandmarkArray landmarks = LandmarkArray.createFromProto(createNormalizedLandmarkList(2));
+    float[] coordinates = new float[7];
+    landmarks.copyCoordinatesTo(coordinates, 1);
+    assertThat(coordinates)
+        .usingExactEquality()
+        .containsExactly(0f, 0f, 0.5f, 0f, 1f, 0.5f, -1f)
+        .inOrder();
+    assertThrows(
+        IndexOutOfBoundsException.class, () -> landmarks.copyCoordinatesTo(coordinates, 2));
+  }
+
+  private static LandmarkProto.NormalizedLandmarkList createNormalizedLandmarkList(int size) {
+    LandmarkProto.NormalizedLandmarkList.Builder builder =
+        LandmarkProto.NormalizedLandmarkList.newBuilder();
+    for (int i = 0; i < size; i++) {
+      LandmarkProto.NormalizedLandmark.Builder landmark =
+          LandmarkProto.NormalizedLandmark.newBuilder().setX(i).setY(0.5f).setZ(-i);
+      // Alternate the landmarks with a visibility and a presence.
+      if (i % 2 == 0) {
+        landmark.setVisibility(i / 100f);
+      } else {
+        landmark.setPresence(i / 100f);
+      }
+      builder.addLandmark(landmark);
+    }
+    return builder.build();
+  }
+}
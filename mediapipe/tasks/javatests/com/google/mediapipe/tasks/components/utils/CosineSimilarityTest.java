@@ -19,6 +19,8 @@ import static org.junit.Assert.assertThrows;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.mediapipe.tasks.components.containers.Embedding;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -113,4 +115,103 @@ public final class CosineSimilarityTest {
 
     assertThat(CosineSimilarity.compute(u, v)).isEqualTo(-1.0);
   }
+
+  @Test
+  public void succeedsWithNormalizedFloatEmbeddings() {
+    NormalizedEmbedding u =
+        NormalizedEmbedding.createFromFloat(new float[] {2.0f, 0.0f, 0.0f, 0.0f});
+    NormalizedEmbedding v =
+        NormalizedEmbedding.createFromFloat(new float[] {1.0f, 1.0f, 1.0f, 1.0f});
+
+    assertThat(u.norm()).isEqualTo(2.0);
+    assertThat(CosineSimilarity.compute(u, v)).isWithin(1e-6).of(0.5);
+  }
+
+  @Test
+  public void succeedsWithNormalizedQuantizedEmbeddings() {
+    NormalizedEmbedding u = NormalizedEmbedding.createFromQuantized(new byte[] {127, 0, 0, 0});
+    NormalizedEmbedding v = NormalizedEmbedding.createFromQuantized(new byte[] {-128, 0, 0, 0});
+
+    assertThat(CosineSimilarity.compute(u, v)).isEqualTo(-1.0);
+  }
+
+  @Test
+  public void computeBatch_matchesScalarComputation() {
+    float[] query = new float[] {0.1f, -0.7f, 0.3f, 0.9f, 0.2f};
+    float[][] rows =
+        new float[][] {
+          {0.5f, 0.5f, 0.5f, 0.5f, 0.5f},
+          {-0.1f, 0.7f, -0.3f, -0.9f, -0.2f},
+          {0.3f, -0.2f, 0.8f, 0.1f, 0.4f},
+        };
+    float[] matrix = new float[rows.length * query.length];
+    for (int i = 0; i < rows.length; i++) {
+      float[] normalizedRow = NormalizedEmbedding.createFromFloat(rows[i]).floatValues();
+      System.arraycopy(normalizedRow, 0, matrix, i * query.length, query.length);
+    }
+    float[] scores = new float[rows.length];
+
+    CosineSimilarity.computeBatch(NormalizedEmbedding.createFromFloat(query), matrix, scores);
+
+    for (int i = 0; i < rows.length; i++) {
+      assertThat((double) scores[i])
+          .isWithin(1e-6)
+          .of(CosineSimilarity.compute(createFloatEmbedding(query), createFloatEmbedding(rows[i])));
+    }
+  }
+
+  @Test
+  public void computeBatch_succeedsWithQuantizedMatrix() {
+    byte[] matrix = new byte[] {127, 0, 0, 127, -128, 0};
+    float[] rowNorms = CosineSimilarity.computeRowNorms(matrix, /* size= */ 2);
+    float[] scores = new float[3];
+
+    CosineSimilarity.computeBatch(
+        NormalizedEmbedding.createFromQuantized(new byte[] {1, 0}), matrix, rowNorms, scores);
+
+    assertThat(scores).usingTolerance(1e-6).containsExactly(1.0f, 0.0f, -1.0f).inOrder();
+  }
+
+  @Test
+  public void computeBatch_failsWithMismatchedMatrix() {
+    NormalizedEmbedding query = NormalizedEmbedding.createFromFloat(new float[] {1.0f, 0.0f});
+
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> CosineSimilarity.computeBatch(query, new float[3], new float[2]));
+    assertThat(exception).hasMessageThat().contains("is not a multiple of the embedding size");
+  }
+
+  @Test
+  public void topK_returnsMostSimilarRowsInOrder() {
+    NormalizedEmbedding query = NormalizedEmbedding.createFromFloat(new float[] {1.0f, 0.0f});
+    float[] matrix = new float[] {0.0f, 1.0f, 1.0f, 0.0f, -1.0f, 0.0f, 0.6f, 0.8f};
+
+    List<SimilarityMatch> matches = CosineSimilarity.topK(query, matrix, /* k= */ 2);
+
+    assertThat(matches)
+        .containsExactly(SimilarityMatch.create(1, 1.0f), SimilarityMatch.create(3, 0.6f))
+        .inOrder();
+  }
+
+  @Test
+  public void topK_returnsAllCandidatesWhenKIsLarger() {
+    NormalizedEmbedding query = NormalizedEmbedding.createFromQuantized(new byte[] {1, 0});
+    List<NormalizedEmbedding> candidates =
+        Arrays.asList(
+            NormalizedEmbedding.createFromQuantized(new byte[] {-1, 0}),
+            NormalizedEmbedding.createFromQuantized(new byte[] {1, 0}));
+
+    List<SimilarityMatch> matches = CosineSimilarity.topK(query, candidates, /* k= */ 5);
+
+    assertThat(matches)
+        .containsExactly(SimilarityMatch.create(1, 1.0f), SimilarityMatch.create(0, -1.0f))
+        .inOrder();
+  }
+
+  private static Embedding createFloatEmbedding(float[] values) {
+    return Embedding.create(
+        values, new byte[0], /* headIndex= */ 0, /* headName= */ Optional.empty());
+  }
 }
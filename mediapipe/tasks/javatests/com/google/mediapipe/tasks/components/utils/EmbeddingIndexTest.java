@@ -0,0 +1,248 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.tasks.components.containers.Embedding;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+/** Tests for {@link FlatEmbeddingIndex} and {@link HnswEmbeddingIndex}. */
+@RunWith(Suite.class)
+@SuiteClasses({EmbeddingIndexTest.Flat.class, EmbeddingIndexTest.Hnsw.class})
+public class EmbeddingIndexTest {
+  private static final int DIMENSION = 8;
+  private static final int NUM_EMBEDDINGS = 200;
+
+  @RunWith(AndroidJUnit4.class)
+  public static final class Flat extends EmbeddingIndexTest {
+
+    @Test
+    public void search_returnsExactTopK() throws Exception {
+      FlatEmbeddingIndex index =
+          FlatEmbeddingIndex.create(/* dimension= */ 2, /* quantized= */ false);
+      index.add(10, createFloatEmbedding(new float[] {0.0f, 1.0f}));
+      index.add(20, createFloatEmbedding(new float[] {1.0f, 0.0f}));
+      index.add(30, createFloatEmbedding(new float[] {0.6f, 0.8f}));
+
+      List<SimilarityMatch> matches =
+          index.search(createFloatEmbedding(new float[] {1.0f, 0.0f}), /* k= */ 2);
+
+      assertThat(matches)
+          .containsExactly(SimilarityMatch.create(20, 1.0f), SimilarityMatch.create(30, 0.6f))
+          .inOrder();
+    }
+
+    @Test
+    public void remove_excludesEmbeddingFromResults() throws Exception {
+      FlatEmbeddingIndex index =
+          FlatEmbeddingIndex.create(/* dimension= */ 2, /* quantized= */ true);
+      index.add(10, createQuantizedEmbedding(new byte[] {0, 127}));
+      index.add(20, createQuantizedEmbedding(new byte[] {127, 0}));
+      index.add(30, createQuantizedEmbedding(new byte[] {64, 64}));
+
+      assertThat(index.remove(20)).isTrue();
+      assertThat(index.remove(20)).isFalse();
+
+      List<SimilarityMatch> matches =
+          index.search(createQuantizedEmbedding(new byte[] {127, 0}), /* k= */ 3);
+      assertThat(index.size()).isEqualTo(2);
+      assertThat(matches.get(0).index()).isEqualTo(30);
+      assertThat(matches.get(1).index()).isEqualTo(10);
+    }
+
+    @Test
+    public void saveAndLoad_preservesEmbeddings() throws Exception {
+      FlatEmbeddingIndex index = FlatEmbeddingIndex.create(DIMENSION, /* quantized= */ false);
+      fill(index);
+      File file = createTempFile();
+
+      index.save(file);
+      FlatEmbeddingIndex loadedIndex = FlatEmbeddingIndex.load(file);
+
+      Embedding query = createRandomEmbedding(new Random(1));
+      assertThat(loadedIndex.size()).isEqualTo(NUM_EMBEDDINGS);
+      assertThat(loadedIndex.search(query, /* k= */ 5)).isEqualTo(index.search(query, /* k= */ 5));
+    }
+  }
+
+  @RunWith(AndroidJUnit4.class)
+  public static final class Hnsw extends EmbeddingIndexTest {
+
+    @Test
+    public void search_findsExactTopKOnSmallIndex() throws Exception {
+      HnswEmbeddingIndex index = createHnswIndex();
+      FlatEmbeddingIndex flatIndex = FlatEmbeddingIndex.create(DIMENSION, /* quantized= */ false);
+      fill(index);
+      fill(flatIndex);
+
+      Embedding query = createRandomEmbedding(new Random(1));
+      assertThat(index.search(query, /* k= */ 5)).isEqualTo(flatIndex.search(query, /* k= */ 5));
+    }
+
+    @Test
+    public void remove_excludesEmbeddingFromResults() throws Exception {
+      HnswEmbeddingIndex index = createHnswIndex();
+      fill(index);
+      Embedding query = createRandomEmbedding(new Random(1));
+      int nearestId = index.search(query, /* k= */ 1).get(0).index();
+
+      assertThat(index.remove(nearestId)).isTrue();
+
+      assertThat(index.contains(nearestId)).isFalse();
+      assertThat(index.size()).isEqualTo(NUM_EMBEDDINGS - 1);
+      assertThat(index.search(query, /* k= */ 1).get(0).index()).isNotEqualTo(nearestId);
+    }
+
+    @Test
+    public void add_failsWithDuplicateId() throws Exception {
+      HnswEmbeddingIndex index = createHnswIndex();
+      index.add(1, createRandomEmbedding(new Random(1)));
+
+      IllegalArgumentException exception =
+          assertThrows(
+              IllegalArgumentException.class,
+              () -> index.add(1, createRandomEmbedding(new Random(2))));
+      assertThat(exception).hasMessageThat().contains("already contains an embedding with id 1");
+    }
+
+    @Test
+    public void add_failsWithMismatchedEmbedding() throws Exception {
+      HnswEmbeddingIndex index = createHnswIndex();
+
+      IllegalArgumentException exception =
+          assertThrows(
+              IllegalArgumentException.class,
+              () -> index.add(1, createQuantizedEmbedding(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})));
+      assertThat(exception)
+          .hasMessageThat()
+          .contains("holds float embeddings, but got a quantized embedding");
+    }
+
+    @Test
+    public void saveAndLoad_preservesGraph() throws Exception {
+      HnswEmbeddingIndex index = createHnswIndex();
+      fill(index);
+      index.remove(0);
+      File file = createTempFile();
+
+      index.save(file);
+      HnswEmbeddingIndex loadedIndex = HnswEmbeddingIndex.load(file);
+
+      Embedding query = createRandomEmbedding(new Random(1));
+      assertThat(loadedIndex.size()).isEqualTo(NUM_EMBEDDINGS - 1);
+      assertThat(loadedIndex.contains(0)).isFalse();
+      assertThat(loadedIndex.search(query, /* k= */ 5)).isEqualTo(index.search(query, /* k= */ 5));
+    }
+
+    @Test
+    public void search_returnsKMatchesAfterRemovingNearestEmbeddings() throws Exception {
+      HnswEmbeddingIndex index =
+          HnswEmbeddingIndex.create(
+              HnswEmbeddingIndex.Options.builder().setDimension(DIMENSION).setEfSearch(5).build());
+      FlatEmbeddingIndex flatIndex = FlatEmbeddingIndex.create(DIMENSION, /* quantized= */ false);
+      fill(index);
+      fill(flatIndex);
+      Embedding query = createRandomEmbedding(new Random(1));
+      for (SimilarityMatch match : flatIndex.search(query, /* k= */ 20)) {
+        index.remove(match.index());
+      }
+
+      List<SimilarityMatch> matches = index.search(query, /* k= */ 5);
+
+      assertThat(matches).hasSize(5);
+      for (SimilarityMatch match : matches) {
+        assertThat(index.contains(match.index())).isTrue();
+      }
+    }
+
+    @Test
+    public void load_failsWithInvalidEntryPoint() throws Exception {
+      HnswEmbeddingIndex index = createHnswIndex();
+      fill(index);
+      File file = createTempFile();
+      index.save(file);
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+        // The entry point follows the header and the three options.
+        randomAccessFile.seek(EmbeddingIndexFile.HEADER_SIZE + 3 * 4);
+        randomAccessFile.writeInt(Integer.reverseBytes(NUM_EMBEDDINGS));
+      }
+
+      IOException exception = assertThrows(IOException.class, () -> HnswEmbeddingIndex.load(file));
+      assertThat(exception).hasMessageThat().contains("invalid entry point");
+    }
+
+    @Test
+    public void load_failsWithTruncatedFile() throws Exception {
+      HnswEmbeddingIndex index = createHnswIndex();
+      fill(index);
+      File file = createTempFile();
+      index.save(file);
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+        randomAccessFile.setLength(randomAccessFile.length() - 8);
+      }
+
+      IOException exception = assertThrows(IOException.class, () -> HnswEmbeddingIndex.load(file));
+      assertThat(exception).hasMessageThat().contains("corrupt");
+    }
+
+    private static HnswEmbeddingIndex createHnswIndex() {
+      return HnswEmbeddingIndex.create(
+          HnswEmbeddingIndex.Options.builder().setDimension(DIMENSION).build());
+    }
+  }
+
+  private static void fill(EmbeddingIndex index) {
+    Random random = new Random(0);
+    for (int id = 0; id < NUM_EMBEDDINGS; id++) {
+      index.add(id, createRandomEmbedding(random));
+    }
+  }
+
+  private static File createTempFile() throws Exception {
+    return File.createTempFile(
+        "embedding_index", ".bin", ApplicationProvider.getApplicationContext().getCacheDir());
+  }
+
+  private static Embedding createRandomEmbedding(Random random) {
+    float[] values = new float[DIMENSION];
+    for (int i = 0; i < DIMENSION; i++) {
+      values[i] = (float) random.nextGaussian();
+    }
+    return createFloatEmbedding(values);
+  }
+
+  private static Embedding createFloatEmbedding(float[] values) {
+    return Embedding.create(
+        values, new byte[0], /* headIndex= */ 0, /* headName= */ Optional.empty());
+  }
+
+  private static Embedding createQuantizedEmbedding(byte[] values) {
+    return Embedding.create(
+        new float[0], values, /* headIndex= */ 0, /* headName= */ Optional.empty());
+  }
+}
@@ -0,0 +1,192 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.components.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.tasks.components.containers.Embedding;
+import com.google.mediapipe.tasks.components.containers.proto.EmbeddingsProto;
+import com.google.protobuf.ByteString;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for {@link EmbeddingStore}. */
+@RunWith(AndroidJUnit4.class)
+public final class EmbeddingStoreTest {
+
+  @Test
+  public void append_succeedsWithFloatEmbeddings() throws Exception {
+    try (EmbeddingStore store =
+        EmbeddingStore.create(createTempFile(), /* dimension= */ 3, /* quantized= */ false)) {
+      store.append(
+          Embedding.create(
+              new float[] {0.1f, 0.2f, 0.3f},
+              new byte[0],
+              /* headIndex= */ 1,
+              /* headName= */ Optional.of("feature")));
+      store.append(
+          EmbeddingsProto.Embedding.newBuilder()
+              .setFloatEmbedding(
+                  EmbeddingsProto.FloatEmbedding.newBuilder()
+                      .addValues(0.4f)
+                      .addValues(0.5f)
+                      .addValues(0.6f))
+              .setHeadIndex(0)
+              .build());
+
+      FloatBuffer values = store.getFloatEmbedding(1);
+      assertThat(store.size()).isEqualTo(2);
+      assertThat(values.remaining()).isEqualTo(3);
+      assertThat(values.get(2)).isEqualTo(0.6f);
+      assertThat(store.getHeadIndex(0)).isEqualTo(1);
+      assertThat(store.getHeadName(0)).hasValue("feature");
+      assertThat(store.getHeadName(1)).isEmpty();
+    }
+  }
+
+  @Test
+  public void append_succeedsWithQuantizedProto() throws Exception {
+    try (EmbeddingStore store =
+        EmbeddingStore.create(createTempFile(), /* dimension= */ 3, /* quantized= */ true)) {
+      store.append(
+          EmbeddingsProto.Embedding.newBuilder()
+              .setQuantizedEmbedding(
+                  EmbeddingsProto.QuantizedEmbedding.newBuilder()
+                      .setValues(ByteString.copyFrom(new byte[] {1, -2, 3})))
+              .build());
+
+      ByteBuffer values = store.getQuantizedEmbedding(0);
+      assertThat(values.remaining()).isEqualTo(3);
+      assertThat(values.get(1)).isEqualTo((byte) -2);
+    }
+  }
+
+  @Test
+  public void append_failsWithMismatchedEmbedding() throws Exception {
+    try (EmbeddingStore store =
+        EmbeddingStore.create(createTempFile(), /* dimension= */ 3, /* quantized= */ false)) {
+      IllegalArgumentException exception =
+          assertThrows(
+              IllegalArgumentException.class,
+              () ->
+                  store.append(
+                      Embedding.create(
+                          new float[] {0.1f, 0.2f},
+                          new byte[0],
+                          /* headIndex= */ 0,
+                          /* headName= */ Optional.empty())));
+      assertThat(exception)
+          .hasMessageThat()
+          .contains("holds embeddings of size 3, but got an embedding of size 2");
+    }
+  }
+
+  @Test
+  public void open_restoresAppendedEmbeddings() throws Exception {
+    File file = createTempFile();
+    try (EmbeddingStore store =
+        EmbeddingStore.create(file, /* dimension= */ 2, /* quantized= */ false)) {
+      for (int i = 0; i < 100; i++) {
+        store.append(
+            Embedding.create(
+                new float[] {i, -i},
+                new byte[0],
+                /* headIndex= */ 0,
+                /* headName= */ Optional.of("head")));
+      }
+    }
+
+    try (EmbeddingStore store = EmbeddingStore.open(file)) {
+      assertThat(store.size()).isEqualTo(100);
+      assertThat(store.dimension()).isEqualTo(2);
+      assertThat(store.getFloatEmbedding(42).get(1)).isEqualTo(-42f);
+      assertThat(store.getHeadName(99)).hasValue("head");
+    }
+  }
+
+  @Test
+  public void append_failedAppendLeavesNoHeadName() throws Exception {
+    try (EmbeddingStore store =
+        EmbeddingStore.create(createTempFile(), /* dimension= */ 2, /* quantized= */ false)) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () ->
+              store.append(
+                  Embedding.create(
+                      new float[] {0.1f},
+                      new byte[0],
+                      /* headIndex= */ 0,
+                      /* headName= */ Optional.of("first"))));
+
+      store.append(
+          Embedding.create(
+              new float[] {0.1f, 0.2f},
+              new byte[0],
+              /* headIndex= */ 0,
+              /* headName= */ Optional.of("second")));
+
+      assertThat(store.getHeadName(0)).hasValue("second");
+    }
+  }
+
+  @Test
+  public void open_failsWithCorruptDimension() throws Exception {
+    File file = createTempFile();
+    EmbeddingStore.create(file, /* dimension= */ 2, /* quantized= */ false).close();
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      // The dimension is stored at offset 12.
+      randomAccessFile.seek(12);
+      randomAccessFile.writeInt(0);
+    }
+
+    IOException exception = assertThrows(IOException.class, () -> EmbeddingStore.open(file));
+    assertThat(exception).hasMessageThat().contains("corrupt");
+  }
+
+  @Test
+  public void open_failsWithTruncatedFile() throws Exception {
+    File file = createTempFile();
+    try (EmbeddingStore store =
+        EmbeddingStore.create(file, /* dimension= */ 2, /* quantized= */ false)) {
+      store.append(
+          Embedding.create(
+              new float[] {0.1f, 0.2f},
+              new byte[0],
+              /* headIndex= */ 0,
+              /* headName= */ Optional.empty()));
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      // Keeps the header only.
+      randomAccessFile.setLength(4096);
+    }
+
+    IOException exception = assertThrows(IOException.class, () -> EmbeddingStore.open(file));
+    assertThat(exception).hasMessageThat().contains("too short");
+  }
+
+  private static File createTempFile() throws Exception {
+    return File.createTempFile(
+        "embedding_store", ".bin", ApplicationProvider.getApplicationContext().getCacheDir());
+  }
+}
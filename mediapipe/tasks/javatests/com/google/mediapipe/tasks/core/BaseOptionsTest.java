@@ -95,6 +95,38 @@ public class BaseOptionsTest {
           .hasMessageThat()
           .contains("Specified Delegate type does not match the provided delegate options.");
     }
+
+    @Test
+    public void succeedsWithFlowControlPolicy() throws Exception {
+      BaseOptions options =
+          BaseOptions.builder()
+              .setModelAssetPath(MODEL_ASSET_PATH)
+              .setFlowControlPolicy(
+                  FlowControlPolicy.builder()
+                      .setMaxInFlight(3)
+                      .setMaxInQueue(2)
+                      .setDropPolicy(FlowControlPolicy.DropPolicy.DROP_NEWEST)
+                      .setFrameBudgetMs(50)
+                      .build())
+              .build();
+      assertThat(options.flowControlPolicy().maxInFlight()).isEqualTo(3);
+      assertThat(options.flowControlPolicy().maxInQueue()).isEqualTo(2);
+      assertThat(options.flowControlPolicy().dropPolicy())
+          .isEqualTo(FlowControlPolicy.DropPolicy.DROP_NEWEST);
+      assertThat(options.flowControlPolicy().convertToProto().getInFlightTimeout())
+          .isEqualTo(50000);
+    }
+
+    @Test
+    public void failsWithInvalidFlowControlPolicy() throws Exception {
+      IllegalArgumentException exception =
+          assertThrows(
+              IllegalArgumentException.class,
+              () -> FlowControlPolicy.builder().setMaxInFlight(0).build());
+      assertThat(exception)
+          .hasMessageThat()
+          .contains("The max in flight frames must be at least 1.");
+    }
   }
 
   /** A mock TaskOptions class providing access to convertBaseOptionsToProto. */
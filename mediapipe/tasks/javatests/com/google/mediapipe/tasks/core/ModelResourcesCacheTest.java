@@ -0,0 +1,94 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for the reference counting of {@link ModelResourcesCache}. */
+@RunWith(AndroidJUnit4.class)
+public final class ModelResourcesCacheTest {
+  private static final long NATIVE_HANDLE = 42;
+
+  private final List<Long> releasedHandles = new ArrayList<>();
+
+  @Test
+  public void close_releasesNativeCacheWithoutOtherReferences() {
+    ModelResourcesCache cache = createCache();
+
+    cache.close();
+
+    assertThat(releasedHandles).containsExactly(NATIVE_HANDLE);
+    assertThat(cache.isHandleValid()).isFalse();
+    assertThat(cache.getNativeHandle()).isEqualTo(0);
+  }
+
+  @Test
+  public void close_keepsNativeCacheUntilLastReferenceIsReleased() {
+    ModelResourcesCache cache = createCache();
+    cache.acquire();
+    cache.acquire();
+
+    cache.close();
+    cache.release();
+
+    assertThat(releasedHandles).isEmpty();
+    assertThat(cache.getNativeHandle()).isEqualTo(NATIVE_HANDLE);
+
+    cache.release();
+
+    assertThat(releasedHandles).containsExactly(NATIVE_HANDLE);
+  }
+
+  @Test
+  public void close_releasesCreatorReferenceOnlyOnce() {
+    ModelResourcesCache cache = createCache();
+    cache.acquire();
+
+    cache.close();
+    cache.close();
+
+    assertThat(releasedHandles).isEmpty();
+    assertThat(cache.isHandleValid()).isTrue();
+  }
+
+  @Test
+  public void release_isNoOpOnceNativeCacheIsReleased() {
+    ModelResourcesCache cache = createCache();
+    cache.close();
+
+    cache.release();
+
+    assertThat(releasedHandles).containsExactly(NATIVE_HANDLE);
+  }
+
+  @Test
+  public void acquire_failsOnceNativeCacheIsReleased() {
+    ModelResourcesCache cache = createCache();
+    cache.close();
+
+    assertThrows(IllegalStateException.class, cache::acquire);
+  }
+
+  private ModelResourcesCache createCache() {
+    return new ModelResourcesCache(NATIVE_HANDLE, releasedHandles::add);
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.framework.MediaPipeException;
+import com.google.mediapipe.framework.Packet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for the result demultiplexer of {@link OutputHandler}. */
+@RunWith(AndroidJUnit4.class)
+public final class OutputHandlerTest {
+
+  @Test
+  public void waitForResult_failsOnTimeout() throws Exception {
+    OutputHandler<TaskResult, Void> handler = new OutputHandler<>();
+
+    MediaPipeException exception =
+        assertThrows(MediaPipeException.class, () -> handler.waitForResult(0, 10));
+
+    assertThat(exception.getStatusCode())
+        .isEqualTo(MediaPipeException.StatusCode.DEADLINE_EXCEEDED);
+    assertThat(handler.getPendingResultCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void waitForResult_returnsNullAfterTimestampIsSettled() throws Exception {
+    OutputHandler<TaskResult, Void> handler = new OutputHandler<>();
+    CompletableFuture<TaskResult> result =
+        CompletableFuture.supplyAsync(() -> handler.waitForResult(0, 10000));
+    while (handler.getPendingResultCount() == 0) {
+      Thread.sleep(1);
+    }
+
+    handler.settlePendingResults(0);
+
+    assertThat(result.get()).isNull();
+    assertThat(handler.getPendingResultCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void settlePendingResults_completesRegisteredResultsUpToTimestamp() throws Exception {
+    OutputHandler<TaskResult, Void> handler = new OutputHandler<>();
+    CompletableFuture<TaskResult> first = handler.registerPendingResult(0);
+    CompletableFuture<TaskResult> second = handler.registerPendingResult(1);
+
+    handler.settlePendingResults(0);
+
+    assertThat(first.isDone()).isTrue();
+    assertThat(second.isDone()).isFalse();
+    assertThat(handler.getPendingResultCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void cancelPendingResults_failsAllPendingResults() throws Exception {
+    OutputHandler<TaskResult, Void> handler = new OutputHandler<>();
+    CompletableFuture<TaskResult> result = handler.registerPendingResult(0);
+
+    handler.cancelPendingResults(
+        new MediaPipeException(MediaPipeException.StatusCode.CANCELLED.ordinal(), "closed"));
+
+    assertThat(result.isCompletedExceptionally()).isTrue();
+    assertThat(handler.getPendingResultCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void takeResult_returnsNullWithoutResult() throws Exception {
+    OutputHandler<TaskResult, Void> handler = new OutputHandler<>();
+    handler.registerPendingResult(0);
+
+    assertThat(handler.takeResult(0)).isNull();
+    assertThat(handler.evictExpiredResults()).isEqualTo(0);
+  }
+
+  @Test
+  public void run_demultiplexesResultsByTimestamp() throws Exception {
+    List<TaskResult> convertedResults = new ArrayList<>();
+    OutputHandler<TaskResult, Void> handler = createOutputHandler(convertedResults);
+    CompletableFuture<TaskResult> first = handler.registerPendingResult(1000);
+    CompletableFuture<TaskResult> second = handler.registerPendingResult(2000);
+    CompletableFuture<TaskResult> third = handler.registerPendingResult(3000);
+
+    handler.run(Collections.emptyList(), 3000);
+    handler.run(Collections.emptyList(), 4000);
+
+    // The graph moved past the first two timestamps without an output.
+    assertThat(first.isDone()).isTrue();
+    assertThat(first.get()).isNull();
+    assertThat(second.get()).isNull();
+    assertThat(third.get()).isSameInstanceAs(convertedResults.get(0));
+    // The output without a registered invocation waits to be claimed.
+    assertThat(handler.takeResult(3000)).isNull();
+    assertThat(handler.takeResult(4000)).isSameInstanceAs(convertedResults.get(1));
+    assertThat(handler.getPendingResultCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void evictExpiredResults_evictsOnlyExpiredUnclaimedResults() throws Exception {
+    List<TaskResult> convertedResults = new ArrayList<>();
+    OutputHandler<TaskResult, Void> handler = createOutputHandler(convertedResults);
+    handler.run(Collections.emptyList(), 1000);
+    handler.run(Collections.emptyList(), 2000);
+
+    assertThat(handler.evictExpiredResults()).isEqualTo(0);
+    assertThat(handler.takeResult(1000)).isSameInstanceAs(convertedResults.get(0));
+
+    handler.setResultExpirationMs(0);
+    Thread.sleep(1);
+
+    // The claimed result is skipped, and the other one is evicted.
+    assertThat(handler.evictExpiredResults()).isEqualTo(1);
+    assertThat(handler.takeResult(2000)).isNull();
+    assertThat(handler.getPendingResultCount()).isEqualTo(0);
+  }
+
+  private static OutputHandler<TaskResult, Void> createOutputHandler(
+      List<TaskResult> convertedResults) {
+    OutputHandler<TaskResult, Void> handler = new OutputHandler<>();
+    handler.setOutputPacketConverter(
+        new OutputHandler.OutputPacketConverter<TaskResult, Void>() {
+          @Override
+          public TaskResult convertToTaskResult(List<Packet> packets) {
+            long timestampMs = convertedResults.size();
+            TaskResult result = () -> timestampMs;
+            convertedResults.add(result);
+            return result;
+          }
+
+          @Override
+          public Void convertToTaskInput(List<Packet> packets) {
+            return null;
+          }
+        });
+    return handler;
+  }
+}
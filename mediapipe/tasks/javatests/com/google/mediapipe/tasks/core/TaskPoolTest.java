@@ -0,0 +1,173 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.common.base.Ticker;
+import com.google.mediapipe.framework.MediaPipeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for {@link TaskPool}. */
+@RunWith(AndroidJUnit4.class)
+public final class TaskPoolTest {
+
+  /** A fake task that records whether it has been closed. */
+  private static final class FakeTask implements AutoCloseable {
+    boolean closed = false;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /** A {@link Ticker} that only advances when told to. */
+  private static final class FakeTicker extends Ticker {
+    long nanos = 0;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+
+  @Test
+  public void create_succeedsWithMinSizeTasks() throws Exception {
+    TaskPool<FakeTask> pool =
+        TaskPool.create(FakeTask::new, TaskPool.Options.builder().setMinSize(2).build());
+
+    assertThat(pool.getStats().size()).isEqualTo(2);
+    assertThat(pool.getStats().leasedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void lease_growsPoolUpToMaxSize() throws Exception {
+    TaskPool<FakeTask> pool =
+        TaskPool.create(
+            FakeTask::new,
+            TaskPool.Options.builder().setMinSize(1).setMaxSize(2).setLeaseTimeoutMs(0).build());
+
+    FakeTask first = pool.lease();
+    FakeTask second = pool.lease();
+
+    assertThat(first).isNotSameInstanceAs(second);
+    assertThat(pool.getStats().size()).isEqualTo(2);
+    assertThat(pool.getStats().utilization()).isEqualTo(1f);
+    MediaPipeException exception = assertThrows(MediaPipeException.class, pool::lease);
+    assertThat(exception).hasMessageThat().contains("No task instance became available");
+    assertThat(pool.getStats().timeoutCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void run_returnsTaskToPool() throws Exception {
+    TaskPool<FakeTask> pool =
+        TaskPool.create(FakeTask::new, TaskPool.Options.builder().setMaxSize(1).build());
+
+    FakeTask first = pool.run(task -> task);
+    FakeTask second = pool.run(task -> task);
+
+    assertThat(first).isSameInstanceAs(second);
+    assertThat(pool.getStats().leaseCount()).isEqualTo(2);
+    assertThat(pool.getStats().leasedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void release_closesExpiredIdleTasks() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    TaskPool<FakeTask> pool =
+        TaskPool.create(
+            FakeTask::new,
+            TaskPool.Options.builder().setMinSize(0).setMaxSize(2).setIdleTimeoutMs(1000).build(),
+            ticker);
+    FakeTask first = pool.lease();
+    FakeTask second = pool.lease();
+
+    pool.release(first);
+    ticker.advance(999, TimeUnit.MILLISECONDS);
+    pool.release(second);
+    assertThat(first.closed).isFalse();
+    assertThat(pool.getStats().size()).isEqualTo(2);
+
+    ticker.advance(2, TimeUnit.MILLISECONDS);
+    pool.run(task -> task);
+    assertThat(first.closed).isTrue();
+    assertThat(second.closed).isFalse();
+    assertThat(pool.getStats().size()).isEqualTo(1);
+  }
+
+  @Test
+  public void release_failsForTaskNotLeased() throws Exception {
+    TaskPool<FakeTask> pool =
+        TaskPool.create(FakeTask::new, TaskPool.Options.builder().setMaxSize(2).build());
+    FakeTask leased = pool.lease();
+    pool.release(leased);
+
+    MediaPipeException doubleRelease =
+        assertThrows(MediaPipeException.class, () -> pool.release(leased));
+    assertThat(doubleRelease).hasMessageThat().contains("not leased from this pool");
+    assertThrows(MediaPipeException.class, () -> pool.release(new FakeTask()));
+    assertThat(pool.getStats().leasedCount()).isEqualTo(0);
+    assertThat(pool.getStats().size()).isEqualTo(1);
+  }
+
+  @Test
+  public void create_closesCreatedTasksWhenFactoryFails() throws Exception {
+    List<FakeTask> createdTasks = new ArrayList<>();
+    TaskPool.TaskFactory<FakeTask> factory =
+        () -> {
+          if (createdTasks.size() == 2) {
+            throw new MediaPipeException(
+                MediaPipeException.StatusCode.INTERNAL.ordinal(), "Failed to create a task.");
+          }
+          FakeTask task = new FakeTask();
+          createdTasks.add(task);
+          return task;
+        };
+
+    assertThrows(
+        MediaPipeException.class,
+        () -> TaskPool.create(factory, TaskPool.Options.builder().setMinSize(3).build()));
+    assertThat(createdTasks).hasSize(2);
+    for (FakeTask task : createdTasks) {
+      assertThat(task.closed).isTrue();
+    }
+  }
+
+  @Test
+  public void close_closesIdleAndReturnedTasks() throws Exception {
+    TaskPool<FakeTask> pool =
+        TaskPool.create(FakeTask::new, TaskPool.Options.builder().setMinSize(2).build());
+    FakeTask leased = pool.lease();
+
+    pool.close();
+    assertThat(leased.closed).isFalse();
+    pool.release(leased);
+
+    assertThat(leased.closed).isTrue();
+    assertThat(pool.getStats().size()).isEqualTo(0);
+    assertThrows(MediaPipeException.class, pool::lease);
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.proto.CalculatorProfileProto.CalculatorProfile;
+import com.google.mediapipe.proto.CalculatorProfileProto.TimeHistogram;
+import com.google.mediapipe.tasks.core.TaskProfiler.CalculatorStats;
+import com.google.mediapipe.tasks.core.TaskProfiler.Snapshot;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for the snapshots and the exports of {@link TaskProfiler}. */
+@RunWith(AndroidJUnit4.class)
+public final class TaskProfilerTest {
+
+  @Test
+  public void createSnapshot_computesIntervalStatsFromPreviousSnapshot() {
+    Map<String, TimeHistogram> previousHistograms = new HashMap<>();
+    TaskProfiler.createSnapshot(
+        /* timestampMs= */ 1000,
+        Collections.singletonList(createProfile("InferenceCalculator", 1000, 10, 0, 0)),
+        previousHistograms);
+
+    Snapshot snapshot =
+        TaskProfiler.createSnapshot(
+            /* timestampMs= */ 2000,
+            Arrays.asList(
+                createProfile("ImageToTensorCalculator", 300, 3, 0, 0),
+                createProfile("InferenceCalculator", 3000, 10, 8, 2)),
+            previousHistograms);
+
+    assertThat(snapshot.timestampMs()).isEqualTo(2000);
+    List<CalculatorStats> stats = snapshot.calculatorStats();
+    assertThat(stats).hasSize(2);
+    // The calculator with the highest process time over the interval comes first.
+    CalculatorStats inference = stats.get(0);
+    assertThat(inference.calculatorName()).isEqualTo("InferenceCalculator");
+    assertThat(inference.processCount()).isEqualTo(20);
+    assertThat(inference.processTimeUs()).isEqualTo(3000);
+    assertThat(inference.intervalProcessCount()).isEqualTo(10);
+    assertThat(inference.intervalProcessTimeUs()).isEqualTo(2000);
+    assertThat(inference.p50ProcessTimeUs()).isEqualTo(150);
+    // The last interval extends to +inf, so only its start is known.
+    assertThat(inference.p95ProcessTimeUs()).isEqualTo(200);
+    CalculatorStats imageToTensor = stats.get(1);
+    assertThat(imageToTensor.intervalProcessCount()).isEqualTo(3);
+    assertThat(imageToTensor.p99ProcessTimeUs()).isEqualTo(50);
+  }
+
+  @Test
+  public void createSnapshot_ignoresPreviousSnapshotAfterReset() {
+    Map<String, TimeHistogram> previousHistograms = new HashMap<>();
+    TaskProfiler.createSnapshot(
+        /* timestampMs= */ 1000,
+        Collections.singletonList(createProfile("InferenceCalculator", 1000, 10, 0, 0)),
+        previousHistograms);
+
+    Snapshot snapshot =
+        TaskProfiler.createSnapshot(
+            /* timestampMs= */ 2000,
+            Collections.singletonList(createProfile("InferenceCalculator", 100, 1, 0, 0)),
+            previousHistograms);
+
+    assertThat(snapshot.calculatorStats().get(0).intervalProcessCount()).isEqualTo(1);
+    assertThat(snapshot.calculatorStats().get(0).intervalProcessTimeUs()).isEqualTo(100);
+  }
+
+  @Test
+  public void writeCsv_writesOneRowPerCalculatorAndSnapshot() throws Exception {
+    Snapshot snapshot =
+        TaskProfiler.createSnapshot(
+            /* timestampMs= */ 1000,
+            Collections.singletonList(createProfile("Inference,Calculator", 1000, 10, 0, 0)),
+            new HashMap<>());
+    StringWriter writer = new StringWriter();
+
+    TaskProfiler.writeCsv(Collections.singletonList(snapshot), writer);
+
+    String[] lines = writer.toString().split("\n");
+    assertThat(lines).hasLength(2);
+    assertThat(lines[0]).startsWith("timestamp_ms,calculator,process_count,");
+    assertThat(lines[1]).isEqualTo("1000,\"Inference,Calculator\",10,1000,10,1000,50,50,50");
+  }
+
+  @Test
+  public void writeChromeTrace_writesCounterEvents() throws Exception {
+    Snapshot snapshot =
+        TaskProfiler.createSnapshot(
+            /* timestampMs= */ 1000,
+            Collections.singletonList(createProfile("InferenceCalculator", 1000, 10, 0, 0)),
+            new HashMap<>());
+    StringWriter writer = new StringWriter();
+
+    TaskProfiler.writeChromeTrace(Collections.singletonList(snapshot), writer);
+
+    String trace = writer.toString();
+    assertThat(trace).startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    assertThat(trace)
+        .contains(
+            "{\"name\":\"InferenceCalculator process time (us)\",\"ph\":\"C\",\"ts\":1000000,"
+                + "\"pid\":0,\"tid\":0,\"args\":{\"p50\":50,\"p95\":50,\"p99\":50}}");
+    assertThat(trace).contains("\"args\":{\"calls\":10}}");
+    assertThat(trace).endsWith("]}\n");
+  }
+
+  /** Creates a profile with a process time histogram of three 100 us intervals. */
+  private static CalculatorProfile createProfile(
+      String name, long totalUs, long count0, long count1, long count2) {
+    return CalculatorProfile.newBuilder()
+        .setName(name)
+        .setProcessRuntime(
+            TimeHistogram.newBuilder()
+                .setTotal(totalUs)
+                .setIntervalSizeUsec(100)
+                .setNumIntervals(3)
+                .addCount(count0)
+                .addCount(count1)
+                .addCount(count2))
+        .build();
+  }
+}
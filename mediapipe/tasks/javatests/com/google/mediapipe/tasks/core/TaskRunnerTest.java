@@ -0,0 +1,228 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.framework.MediaPipeException;
+import com.google.mediapipe.framework.Packet;
+import com.google.mediapipe.framework.PacketGetter;
+import com.google.mediapipe.framework.ProtoUtil;
+import com.google.mediapipe.tasks.components.containers.proto.EmbeddingsProto;
+import com.google.mediapipe.tasks.text.textembedder.TextEmbedder.TextEmbedderOptions;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for the pipelined processing methods of {@link TaskRunner}. */
+@RunWith(AndroidJUnit4.class)
+public final class TaskRunnerTest {
+  private static final String MODEL_FILE = "regex_one_embedding_with_metadata.tflite";
+  private static final String TASK_GRAPH_NAME =
+      "mediapipe.tasks.text.text_embedder.TextEmbedderGraph";
+  private static final String TEXT_IN_STREAM_NAME = "text_in";
+  private static final long TIMEOUT_SECONDS = 10;
+  private static final List<String> TEXTS =
+      Arrays.asList(
+          "it's a charming and often affecting journey",
+          "what a great and fantastic trip",
+          "the movie was dull",
+          "a delightful surprise");
+
+  static {
+    System.loadLibrary("mediapipe_tasks_text_jni");
+    ProtoUtil.registerTypeName(
+        EmbeddingsProto.EmbeddingResult.class,
+        "mediapipe.tasks.components.containers.proto.EmbeddingResult");
+  }
+
+  /** The embedding result of a text, with the timestamp of its invocation. */
+  private static final class EmbeddingTaskResult implements TaskResult {
+    final EmbeddingsProto.EmbeddingResult embeddingResult;
+    final long timestampMs;
+
+    EmbeddingTaskResult(EmbeddingsProto.EmbeddingResult embeddingResult, long timestampMs) {
+      this.embeddingResult = embeddingResult;
+      this.timestampMs = timestampMs;
+    }
+
+    @Override
+    public long timestampMs() {
+      return timestampMs;
+    }
+
+    List<Float> values() {
+      return embeddingResult.getEmbeddings(0).getFloatEmbedding().getValuesList();
+    }
+  }
+
+  @Test
+  public void processBatch_completesResultsInInputOrder() throws Exception {
+    try (TaskRunner runner = createTaskRunner()) {
+      List<CompletableFuture<TaskResult>> results = runner.processBatch(createInputs(runner));
+
+      assertThat(results).hasSize(TEXTS.size());
+      long previousTimestampMs = Long.MIN_VALUE;
+      for (int i = 0; i < TEXTS.size(); i++) {
+        assertThat(results.get(i).isDone()).isTrue();
+        EmbeddingTaskResult result = (EmbeddingTaskResult) results.get(i).get();
+        assertThat(result.timestampMs()).isGreaterThan(previousTimestampMs);
+        previousTimestampMs = result.timestampMs();
+        EmbeddingTaskResult expected =
+            (EmbeddingTaskResult) runner.process(createInput(runner, TEXTS.get(i)));
+        assertThat(result.values()).containsExactlyElementsIn(expected.values()).inOrder();
+      }
+    }
+  }
+
+  @Test
+  public void processAsync_completesFuturesInTimestampOrder() throws Exception {
+    try (TaskRunner runner = createTaskRunner()) {
+      List<CompletableFuture<TaskResult>> results = new ArrayList<>();
+      for (Map<String, Packet> input : createInputs(runner)) {
+        results.add(runner.processAsync(input));
+      }
+
+      TaskResult lastResult =
+          results.get(results.size() - 1).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+      // The outputs arrive in timestamp order, so the earlier futures are complete too.
+      long previousTimestampMs = Long.MIN_VALUE;
+      for (CompletableFuture<TaskResult> result : results) {
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.get().timestampMs()).isGreaterThan(previousTimestampMs);
+        previousTimestampMs = result.get().timestampMs();
+      }
+      assertThat(previousTimestampMs).isEqualTo(lastResult.timestampMs());
+    }
+  }
+
+  @Test
+  public void processAsync_failsFutureWhenInputIsRejected() throws Exception {
+    try (TaskRunner runner = createTaskRunner()) {
+      Map<String, Packet> input = new HashMap<>();
+      input.put("unknown_stream", runner.getPacketCreator().createString(TEXTS.get(0)));
+
+      CompletableFuture<TaskResult> result = runner.processAsync(input);
+
+      assertThat(result.isCompletedExceptionally()).isTrue();
+      ExecutionException exception =
+          assertThrows(
+              ExecutionException.class, () -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      assertThat(exception).hasCauseThat().isInstanceOf(MediaPipeException.class);
+      // The runner keeps serving the valid inputs.
+      assertThat(
+              runner
+                  .processAsync(createInput(runner, TEXTS.get(0)))
+                  .get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+          .isNotNull();
+    }
+  }
+
+  @Test
+  public void close_completesPendingFutures() throws Exception {
+    TaskRunner runner = createTaskRunner();
+    List<CompletableFuture<TaskResult>> results = new ArrayList<>();
+    for (Map<String, Packet> input : createInputs(runner)) {
+      results.add(runner.processAsync(input));
+    }
+
+    runner.close();
+
+    for (CompletableFuture<TaskResult> result : results) {
+      assertThat(result.isDone()).isTrue();
+    }
+  }
+
+  @Test
+  public void processAsync_failsFutureAfterClose() throws Exception {
+    TaskRunner runner = createTaskRunner();
+    runner.close();
+
+    // No packets, as the packets of the graph are gone with it.
+    CompletableFuture<TaskResult> result = runner.processAsync(new HashMap<>());
+
+    ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+    assertThat(exception).hasCauseThat().isInstanceOf(MediaPipeException.class);
+    assertThat(((MediaPipeException) exception.getCause()).getStatusCode())
+        .isEqualTo(MediaPipeException.StatusCode.FAILED_PRECONDITION);
+  }
+
+  private static TaskRunner createTaskRunner() {
+    OutputHandler<EmbeddingTaskResult, Void> handler = new OutputHandler<>();
+    handler.setOutputPacketConverter(
+        new OutputHandler.OutputPacketConverter<EmbeddingTaskResult, Void>() {
+          @Override
+          public EmbeddingTaskResult convertToTaskResult(List<Packet> packets) {
+            try {
+              return new EmbeddingTaskResult(
+                  PacketGetter.getProto(
+                      packets.get(0), EmbeddingsProto.EmbeddingResult.getDefaultInstance()),
+                  packets.get(0).getTimestamp() / 1000);
+            } catch (IOException e) {
+              throw new MediaPipeException(
+                  MediaPipeException.StatusCode.INTERNAL.ordinal(), e.getMessage());
+            }
+          }
+
+          @Override
+          public Void convertToTaskInput(List<Packet> packets) {
+            return null;
+          }
+        });
+    TextEmbedderOptions options =
+        TextEmbedderOptions.builder()
+            .setBaseOptions(BaseOptions.builder().setModelAssetPath(MODEL_FILE).build())
+            .build();
+    return TaskRunner.create(
+        ApplicationProvider.getApplicationContext(),
+        TaskInfo.<TextEmbedderOptions>builder()
+            .setTaskGraphName(TASK_GRAPH_NAME)
+            .setInputStreams(Collections.singletonList("TEXT:" + TEXT_IN_STREAM_NAME))
+            .setOutputStreams(Collections.singletonList("EMBEDDINGS:embeddings_out"))
+            .setTaskOptions(options)
+            .setModelResourcesCache(Optional.empty())
+            .setEnableFlowLimiting(false)
+            .build(),
+        handler);
+  }
+
+  private static List<Map<String, Packet>> createInputs(TaskRunner runner) {
+    List<Map<String, Packet>> inputs = new ArrayList<>();
+    for (String text : TEXTS) {
+      inputs.add(createInput(runner, text));
+    }
+    return inputs;
+  }
+
+  private static Map<String, Packet> createInput(TaskRunner runner, String text) {
+    Map<String, Packet> input = new HashMap<>();
+    input.put(TEXT_IN_STREAM_NAME, runner.getPacketCreator().createString(text));
+    return input;
+  }
+}
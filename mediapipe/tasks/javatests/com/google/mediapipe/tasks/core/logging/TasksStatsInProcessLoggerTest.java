@@ -0,0 +1,104 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.core.logging;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.tasks.core.logging.TasksStatsLogger.StatsSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for {@link TasksStatsInProcessLogger} and its {@link LatencyHistogram}. */
+@RunWith(AndroidJUnit4.class)
+public final class TasksStatsInProcessLoggerTest {
+  private final List<StatsSnapshot> reports = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    TasksStatsInProcessLogger.setReportSink(null, /* reportIntervalMs= */ 0);
+  }
+
+  @Test
+  public void create_returnsDummyLoggerWithoutSink() {
+    assertThat(TasksStatsInProcessLogger.create(null, "TestTask", "IMAGE"))
+        .isInstanceOf(TasksStatsDummyLogger.class);
+  }
+
+  @Test
+  public void recordInvocationEnd_matchesInputArrivalsByTimestamp() {
+    TasksStatsInProcessLogger.setReportSink(
+        (taskName, taskRunningMode, stats) -> {
+          assertThat(taskName).isEqualTo("TestTask");
+          assertThat(taskRunningMode).isEqualTo("LIVE_STREAM");
+          reports.add(stats);
+        },
+        /* reportIntervalMs= */ Long.MAX_VALUE);
+    TasksStatsLogger logger = TasksStatsInProcessLogger.create(null, "TestTask", "LIVE_STREAM");
+    logger.logSessionStart();
+
+    logger.recordCpuInputArrival(1000000);
+    logger.recordGpuInputArrival(2000000);
+    logger.recordCpuInputArrival(3000000);
+    logger.recordInvocationDropped(3000000);
+    logger.recordInvocationEnd(2000000);
+    logger.recordInvocationEnd(1000000);
+    // Neither a pending nor an already finished invocation.
+    logger.recordInvocationEnd(1000000);
+    logger.recordInvocationEnd(4000000);
+    logger.logSessionEnd();
+
+    assertThat(reports).hasSize(1);
+    StatsSnapshot stats = reports.get(0);
+    assertThat(stats.cpuInputCount()).isEqualTo(2);
+    assertThat(stats.gpuInputCount()).isEqualTo(1);
+    assertThat(stats.finishedCount()).isEqualTo(2);
+    assertThat(stats.droppedCount()).isEqualTo(1);
+    assertThat(stats.peakLatencyMs()).isAtMost(stats.totalLatencyMs());
+    assertThat(stats.p50LatencyMs()).isAtMost(stats.p99LatencyMs());
+  }
+
+  @Test
+  public void recordInvocationEnd_reportsPeriodically() {
+    TasksStatsInProcessLogger.setReportSink(
+        (taskName, taskRunningMode, stats) -> reports.add(stats), /* reportIntervalMs= */ 0);
+    TasksStatsLogger logger = TasksStatsInProcessLogger.create(null, "TestTask", "IMAGE");
+    logger.logSessionStart();
+
+    for (long timestamp = 0; timestamp < 3; timestamp++) {
+      logger.recordCpuInputArrival(timestamp);
+      logger.recordInvocationEnd(timestamp);
+    }
+
+    assertThat(reports).hasSize(3);
+    assertThat(reports.get(2).finishedCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void latencyHistogram_returnsPercentilesWithinBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long latencyUs = 1; latencyUs <= 10000; latencyUs++) {
+      histogram.record(latencyUs);
+    }
+
+    assertThat((double) histogram.getValueAtPercentile(50)).isWithin(5000 * 0.04).of(5000);
+    assertThat((double) histogram.getValueAtPercentile(95)).isWithin(9500 * 0.04).of(9500);
+    assertThat((double) histogram.getValueAtPercentile(99)).isWithin(9900 * 0.04).of(9900);
+    assertThat(new LatencyHistogram().getValueAtPercentile(50)).isEqualTo(0);
+  }
+}
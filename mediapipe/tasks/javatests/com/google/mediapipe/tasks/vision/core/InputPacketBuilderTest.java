@@ -0,0 +1,196 @@
+// Copyright 2024 The MediaPipe Authors.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.mediapipe.tasks.vision.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.mediapipe.formats.proto.RectProto.NormalizedRect;
+import com.google.mediapipe.framework.AndroidPacketCreator;
+import com.google.mediapipe.framework.Graph;
+import com.google.mediapipe.framework.Packet;
+import com.google.mediapipe.framework.PacketGetter;
+import com.google.mediapipe.framework.image.BitmapImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.protobuf.MessageLite;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for the normalized rect packet cache of {@link InputPacketBuilder}. */
+@RunWith(AndroidJUnit4.class)
+public final class InputPacketBuilderTest {
+  private static final String IMAGE_STREAM_NAME = "image_in";
+  private static final String NORM_RECT_STREAM_NAME = "norm_rect_in";
+
+  static {
+    System.loadLibrary("mediapipe_tasks_vision_jni");
+  }
+
+  /** A packet creator that records the proto packets it creates. */
+  private static final class RecordingPacketCreator extends AndroidPacketCreator {
+    final List<Packet> protoPackets = new ArrayList<>();
+
+    RecordingPacketCreator(Graph graph) {
+      super(graph);
+    }
+
+    @Override
+    public Packet createProto(MessageLite message) {
+      Packet packet = super.createProto(message);
+      protoPackets.add(packet);
+      return packet;
+    }
+  }
+
+  private Graph graph;
+  private RecordingPacketCreator packetCreator;
+  private InputPacketBuilder builder;
+  private final List<Packet> returnedPackets = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    graph = new Graph();
+    packetCreator = new RecordingPacketCreator(graph);
+    builder = new InputPacketBuilder(packetCreator, IMAGE_STREAM_NAME, NORM_RECT_STREAM_NAME);
+  }
+
+  @After
+  public void tearDown() {
+    for (Packet packet : returnedPackets) {
+      packet.release();
+    }
+    builder.release();
+    graph.tearDown();
+  }
+
+  @Test
+  public void createNormRectPacket_returnsCopyOfCachedPacketOnHit() throws Exception {
+    MPImage image = createImage(/* width= */ 40, /* height= */ 30);
+    ImageProcessingOptions options = createOptions(new RectF(0.1f, 0.2f, 0.6f, 0.8f), 0);
+
+    Packet first = createNormRectPacket(image, options);
+    Packet second = createNormRectPacket(image, options);
+
+    assertThat(packetCreator.protoPackets).hasSize(1);
+    Packet cachedPacket = packetCreator.protoPackets.get(0);
+    assertThat(first.getNativeHandle()).isNotEqualTo(cachedPacket.getNativeHandle());
+    assertThat(second.getNativeHandle()).isNotEqualTo(first.getNativeHandle());
+    assertThat(getNormRect(second)).isEqualTo(getNormRect(cachedPacket));
+    // The returned copies are owned by the caller, and releasing them keeps the cached packet.
+    first.release();
+    assertThat(getNormRect(createNormRectPacket(image, options)))
+        .isEqualTo(getNormRect(cachedPacket));
+  }
+
+  @Test
+  public void createNormRectPacket_createsPacketWhenRegionOrRotationChanges() throws Exception {
+    MPImage image = createImage(/* width= */ 40, /* height= */ 30);
+    RectF regionOfInterest = new RectF(0.1f, 0.2f, 0.6f, 0.8f);
+
+    Packet original = createNormRectPacket(image, createOptions(regionOfInterest, 0));
+    Packet moved =
+        createNormRectPacket(image, createOptions(new RectF(0.2f, 0.2f, 0.7f, 0.8f), 0));
+    Packet rotated = createNormRectPacket(image, createOptions(regionOfInterest, 180));
+
+    assertThat(packetCreator.protoPackets).hasSize(3);
+    assertThat(getNormRect(moved)).isNotEqualTo(getNormRect(original));
+    assertThat(getNormRect(rotated)).isNotEqualTo(getNormRect(original));
+    assertThat(getNormRect(rotated).getRotation()).isNotEqualTo(0f);
+  }
+
+  @Test
+  public void createNormRectPacket_releasesEvictedPacket() throws Exception {
+    MPImage image = createImage(/* width= */ 40, /* height= */ 30);
+
+    for (int i = 0; i < 5; i++) {
+      createNormRectPacket(image, createOptions(new RectF(0.1f * i, 0, 0.5f, 1), 0));
+    }
+
+    assertThat(packetCreator.protoPackets).hasSize(5);
+    assertThat(packetCreator.protoPackets.get(0).getNativeHandle()).isEqualTo(0);
+    for (int i = 1; i < 5; i++) {
+      assertThat(packetCreator.protoPackets.get(i).getNativeHandle()).isNotEqualTo(0);
+    }
+    // The second key is still cached, while the evicted first key is built again.
+    createNormRectPacket(image, createOptions(new RectF(0.1f, 0, 0.5f, 1), 0));
+    assertThat(packetCreator.protoPackets).hasSize(5);
+    createNormRectPacket(image, createOptions(new RectF(0, 0, 0.5f, 1), 0));
+    assertThat(packetCreator.protoPackets).hasSize(6);
+  }
+
+  @Test
+  public void createNormRectPacket_keysOnImageSizeOnlyForQuarterRotations() throws Exception {
+    RectF regionOfInterest = new RectF(0.1f, 0.2f, 0.6f, 0.8f);
+    MPImage landscapeImage = createImage(/* width= */ 40, /* height= */ 30);
+    MPImage portraitImage = createImage(/* width= */ 30, /* height= */ 40);
+
+    createNormRectPacket(landscapeImage, createOptions(regionOfInterest, 0));
+    createNormRectPacket(portraitImage, createOptions(regionOfInterest, 0));
+    createNormRectPacket(landscapeImage, createOptions(regionOfInterest, 180));
+    createNormRectPacket(portraitImage, createOptions(regionOfInterest, 180));
+    assertThat(packetCreator.protoPackets).hasSize(2);
+
+    createNormRectPacket(landscapeImage, createOptions(regionOfInterest, 90));
+    createNormRectPacket(portraitImage, createOptions(regionOfInterest, 90));
+    createNormRectPacket(landscapeImage, createOptions(regionOfInterest, 90));
+    assertThat(packetCreator.protoPackets).hasSize(4);
+  }
+
+  @Test
+  public void build_reusesInputPacketMap() throws Exception {
+    MPImage image = createImage(/* width= */ 40, /* height= */ 30);
+    ImageProcessingOptions options = ImageProcessingOptions.builder().build();
+
+    Map<String, Packet> first = builder.build(image, options);
+    Packet firstImagePacket = first.get(IMAGE_STREAM_NAME);
+    Map<String, Packet> second = builder.build(image, options);
+
+    assertThat(second).isSameInstanceAs(first);
+    assertThat(second.keySet()).containsExactly(IMAGE_STREAM_NAME, NORM_RECT_STREAM_NAME);
+    // The packets that were not consumed are released by the next call.
+    assertThat(firstImagePacket.getNativeHandle()).isEqualTo(0);
+    assertThat(second.get(IMAGE_STREAM_NAME).getNativeHandle()).isNotEqualTo(0);
+  }
+
+  private Packet createNormRectPacket(MPImage image, ImageProcessingOptions options) {
+    Packet packet = builder.createNormRectPacket(image, options);
+    returnedPackets.add(packet);
+    return packet;
+  }
+
+  private static ImageProcessingOptions createOptions(
+      RectF regionOfInterest, int rotationDegrees) {
+    return ImageProcessingOptions.builder()
+        .setRegionOfInterest(regionOfInterest)
+        .setRotationDegrees(rotationDegrees)
+        .build();
+  }
+
+  private static NormalizedRect getNormRect(Packet packet) throws Exception {
+    return PacketGetter.getProto(packet, NormalizedRect.getDefaultInstance());
+  }
+
+  private static MPImage createImage(int width, int height) {
+    return new BitmapImageBuilder(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888))
+        .build();
+  }
+}
@@ -37,6 +37,7 @@ import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -94,6 +95,67 @@ public class ImageSegmenterTest {
       verifyConfidenceMask(actualMaskBuffer, expectedMaskBuffer, GOLDEN_MASK_SIMILARITY);
     }
 
+    @Test
+    public void maskBufferPool_recyclesBuffersOfClosedMasks() throws Exception {
+      MaskBufferPool pool = new MaskBufferPool(/* maxPooledFrames= */ 1);
+      ByteBuffer firstBuffer = pool.acquire(/* capacity= */ 16, /* buffersPerFrame= */ 2);
+      ByteBuffer secondBuffer = pool.acquire(/* capacity= */ 16, /* buffersPerFrame= */ 2);
+      ByteBuffer thirdBuffer = pool.acquire(/* capacity= */ 16, /* buffersPerFrame= */ 2);
+      MPImage firstMask = pool.createMask(firstBuffer, 4, 4, MPImage.IMAGE_FORMAT_ALPHA);
+      MPImage secondMask = pool.createMask(secondBuffer, 4, 4, MPImage.IMAGE_FORMAT_ALPHA);
+      MPImage thirdMask = pool.createMask(thirdBuffer, 4, 4, MPImage.IMAGE_FORMAT_ALPHA);
+      assertThat(pool.getFreeBufferCount()).isEqualTo(0);
+
+      firstMask.close();
+      secondMask.close();
+      // The pool keeps one frame of two buffers.
+      thirdMask.close();
+      assertThat(pool.getFreeBufferCount()).isEqualTo(2);
+
+      ByteBuffer reusedBuffer = pool.acquire(/* capacity= */ 16, /* buffersPerFrame= */ 2);
+      assertThat(reusedBuffer == firstBuffer || reusedBuffer == secondBuffer).isTrue();
+      assertThat(pool.acquire(/* capacity= */ 4, /* buffersPerFrame= */ 2).capacity())
+          .isEqualTo(4);
+      assertThat(pool.getFreeBufferCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void maskBufferPool_disabledByDefault() throws Exception {
+      ImageSegmenterOptions options =
+          ImageSegmenterOptions.builder()
+              .setBaseOptions(BaseOptions.builder().setModelAssetPath(DEEPLAB_MODEL_FILE).build())
+              .build();
+      assertThat(options.maskBufferPoolSize()).isEqualTo(0);
+
+      // Without pooling, closing a mask leaves its buffer alone, and every mask gets a new buffer.
+      MaskBufferPool pool = new MaskBufferPool(options.maskBufferPoolSize());
+      ByteBuffer firstBuffer = pool.acquire(/* capacity= */ 16, /* buffersPerFrame= */ 1);
+      firstBuffer.put(0, (byte) 42);
+      MPImage firstMask = pool.createMask(firstBuffer, 4, 4, MPImage.IMAGE_FORMAT_ALPHA);
+      ByteBuffer extractedBuffer = ByteBufferExtractor.extract(firstMask);
+      firstMask.close();
+      assertThat(pool.getFreeBufferCount()).isEqualTo(0);
+
+      ByteBuffer secondBuffer = pool.acquire(/* capacity= */ 16, /* buffersPerFrame= */ 1);
+      assertThat(secondBuffer).isNotSameInstanceAs(firstBuffer);
+      secondBuffer.put(0, (byte) 7);
+      assertThat(extractedBuffer.get(0)).isEqualTo((byte) 42);
+    }
+
+    @Test
+    public void create_failsWithNegativeMaskBufferPoolSize() throws Exception {
+      IllegalArgumentException exception =
+          assertThrows(
+              IllegalArgumentException.class,
+              () ->
+                  ImageSegmenterOptions.builder()
+                      .setBaseOptions(
+                          BaseOptions.builder().setModelAssetPath(DEEPLAB_MODEL_FILE).build())
+                      .setMaskBufferPoolSize(-1)
+                      .build());
+      assertThat(exception).hasMessageThat().contains("maskBufferPoolSize must not be negative");
+    }
+
     @Test
     public void segment_successWith128x128Segmentation() throws Exception {
       final String inputImageName = "mozart_square.jpg";
@@ -392,6 +454,54 @@ public class ImageSegmenterTest {
       }
     }
 
+    @Test
+    public void segment_successWithLiveStreamModeWithPureResultListener() throws Exception {
+      final String inputImageName = "cat.jpg";
+      final String goldenImageName = "cat_mask.jpg";
+      MPImage image = getImageFromAsset(inputImageName);
+      MPImage expectedResult = getImageFromAsset(goldenImageName);
+      AtomicInteger verifiedResultCount = new AtomicInteger();
+      ImageSegmenterOptions options =
+          ImageSegmenterOptions.builder()
+              .setBaseOptions(BaseOptions.builder().setModelAssetPath(DEEPLAB_MODEL_FILE).build())
+              .setRunningMode(RunningMode.LIVE_STREAM)
+              .setPureResultListener(
+                  (segmenterResult) -> {
+                    verifyConfidenceMask(
+                        segmenterResult.confidenceMasks().get().get(8),
+                        expectedResult,
+                        GOLDEN_MASK_SIMILARITY);
+                    verifiedResultCount.incrementAndGet();
+                  })
+              .build();
+      try (ImageSegmenter imageSegmenter =
+          ImageSegmenter.createFromOptions(ApplicationProvider.getApplicationContext(), options)) {
+        for (int i = 0; i < 3; i++) {
+          imageSegmenter.segmentAsync(image, /* timestampsMs= */ i);
+        }
+      }
+      // Closing the segmenter waits for the graph to finish. The flow limiter may drop frames.
+      assertThat(verifiedResultCount.get()).isGreaterThan(0);
+    }
+
+    @Test
+    public void create_failsWithBothResultListeners() throws Exception {
+      IllegalArgumentException exception =
+          assertThrows(
+              IllegalArgumentException.class,
+              () ->
+                  ImageSegmenterOptions.builder()
+                      .setBaseOptions(
+                          BaseOptions.builder().setModelAssetPath(DEEPLAB_MODEL_FILE).build())
+                      .setRunningMode(RunningMode.LIVE_STREAM)
+                      .setResultListener((segmenterResult, inputImage) -> {})
+                      .setPureResultListener((segmenterResult) -> {})
+                      .build());
+      assertThat(exception)
+          .hasMessageThat()
+          .contains("Only one of resultListener and pureResultListener can be set");
+    }
+
     @Test
     public void segment_failsWithOutOfOrderInputTimestamps() throws Exception {
       final String inputImageName = "cat.jpg";